@@ -29,11 +29,14 @@ import javax.sql.DataSource;
 
 import org.apache.commons.beanutils.DynaBean;
 import org.zl.ddlutils.alteration.ModelChange;
+import org.zl.ddlutils.io.BatchDataSink;
+import org.zl.ddlutils.io.RowBatch;
 import org.zl.ddlutils.model.Database;
 import org.zl.ddlutils.model.Table;
 import org.zl.ddlutils.platform.CreationParameters;
 import org.zl.ddlutils.platform.JdbcModelReader;
 import org.zl.ddlutils.platform.SqlBuilder;
+import org.zl.ddlutils.platform.StatementPlanCache;
 
 /**
  * A platform encapsulates the database-related functionality such as performing queries
@@ -70,7 +73,16 @@ public interface Platform
      * @return The model reader
      */
     public JdbcModelReader getModelReader();
-    
+
+    /**
+     * Returns the cache of the prepared statement plans that are used by the <code>insert</code>,
+     * <code>update</code>, <code>delete</code>, <code>exists</code> and <code>store</code> methods.
+     * The cache can be used to adjust its size and to read its hit and miss counts.
+     *
+     * @return The statement plan cache
+     */
+    public StatementPlanCache getStatementPlanCache();
+
     /**
      * Returns the data source that this platform uses to access the database.
      * 
@@ -236,6 +248,121 @@ public interface Platform
      */
     public void setDefaultOnDeleteActionUsedIfUnsupported(boolean useDefault);
 
+    /**
+     * Returns the maximum number of statements that are collected in a single JDBC batch
+     * by the batch mode operations ({@link #insert(Connection, Database, Collection)},
+     * {@link #update(Connection, Database, Collection)} and
+     * {@link #delete(Connection, Database, Collection)}) before the batch is sent to the
+     * database. A value of 0 means that batches are not limited.
+     *
+     * @return The maximum batch size
+     */
+    public int getBatchSize();
+
+    /**
+     * Specifies the maximum number of statements that are collected in a single JDBC batch
+     * by the batch mode operations before the batch is sent to the database.
+     *
+     * @param batchSize The maximum batch size; use 0 for unlimited batches
+     */
+    public void setBatchSize(int batchSize);
+
+    /**
+     * Returns the maximum estimated size in bytes of the values collected in a single JDBC
+     * batch by {@link #insert(Connection, Database, Collection)} before the batch is sent to
+     * the database. This limits the memory used by the driver for tables with large
+     * columns. A value of 0 (the default) means that the size is not limited.
+     *
+     * @return The maximum batch size in bytes
+     */
+    public long getBatchByteSize();
+
+    /**
+     * Specifies the maximum estimated size in bytes of the values collected in a single JDBC
+     * batch by {@link #insert(Connection, Database, Collection)}.
+     *
+     * @param batchByteSize The maximum batch size in bytes; use 0 for no limit
+     */
+    public void setBatchByteSize(long batchByteSize);
+
+    /**
+     * Determines whether {@link #insert(Connection, Database, Collection)} keeps a separate
+     * batch for each set of inserted columns of a table. Which columns are inserted depends
+     * on which values of a bean are <code>null</code> (columns with default values and
+     * identity columns are skipped in this case). If this is off (the default), a bean with
+     * a different set of columns than the previous bean of the same table, causes the
+     * pending batch of the table to be sent to the database.
+     *
+     * @return <code>true</code> if the insert batches are grouped by the inserted columns
+     */
+    public boolean isBatchInsertGroupingOn();
+
+    /**
+     * Specifies whether {@link #insert(Connection, Database, Collection)} keeps a separate
+     * batch for each set of inserted columns of a table.
+     *
+     * @param batchInsertGroupingOn <code>true</code> if the insert batches shall be grouped
+     *                              by the inserted columns
+     */
+    public void setBatchInsertGroupingOn(boolean batchInsertGroupingOn);
+
+    /**
+     * Determines whether {@link #insert(Connection, Database, Collection)} inserts multiple
+     * rows per statement (<code>INSERT INTO ... VALUES (...), (...), ...</code>) if the
+     * platform {@link PlatformInfo#isMultiRowInsertSupported() supports this}. This is useful
+     * for JDBC drivers that execute batches as individual statements. Rows whose identity
+     * values are read back from the database, are still inserted one row per statement.
+     * Default is <code>false</code>.
+     *
+     * @return <code>true</code> if multi-row inserts are used
+     */
+    public boolean isMultiRowInsertOn();
+
+    /**
+     * Specifies whether {@link #insert(Connection, Database, Collection)} inserts multiple
+     * rows per statement if the platform supports this.
+     *
+     * @param multiRowInsertOn <code>true</code> if multi-row inserts shall be used
+     */
+    public void setMultiRowInsertOn(boolean multiRowInsertOn);
+
+    /**
+     * Determines whether the query and fetch methods stream the rows from the database
+     * instead of letting the JDBC driver read the complete result before returning the
+     * first row. In this mode, the statements are forward-only and read-only, and use the
+     * {@link #getQueryFetchSize() query fetch size}. Depending on the database, this can
+     * require additional settings, e.g. PostgreSQL only uses cursors if auto-commit is off
+     * which is why the auto-commit mode of the connection is switched off during the
+     * query. Note that some databases (e.g. MySql) do not allow other statements on the
+     * connection while a streaming result is read. Default is <code>false</code>.
+     *
+     * @return <code>true</code> if queries stream their results
+     */
+    public boolean isStreamingQueryModeOn();
+
+    /**
+     * Specifies whether the query and fetch methods stream the rows from the database.
+     *
+     * @param streamingQueryModeOn <code>true</code> if queries shall stream their results
+     */
+    public void setStreamingQueryModeOn(boolean streamingQueryModeOn);
+
+    /**
+     * Returns the number of rows that are fetched from the database at once by queries in
+     * {@link #isStreamingQueryModeOn() streaming mode}. Default is 1000.
+     *
+     * @return The fetch size, 0 for the default of the JDBC driver
+     */
+    public int getQueryFetchSize();
+
+    /**
+     * Sets the number of rows that are fetched from the database at once by queries in
+     * streaming mode.
+     *
+     * @param queryFetchSize The fetch size, 0 for the default of the JDBC driver
+     */
+    public void setQueryFetchSize(int queryFetchSize);
+
     // functionality
     
     /**
@@ -1194,6 +1321,27 @@ public interface Platform
 	 */
 	public Iterator<DynaBean> query(Database model, String sql, Table[] queryHints) throws DatabaseOperationException;
 
+    /**
+	 * Performs the given SQL query returning an iterator over the results. Contrary to
+	 * {@link #query(Database, String, Table[])}, whether the rows are streamed from the
+	 * database is specified per call instead of via the
+	 * {@link #isStreamingQueryModeOn() platform setting}, which is useful if the platform
+	 * is shared with other threads.
+	 *
+	 * @param model
+	 *            The database model to use
+	 * @param sql
+	 *            The sql query to perform
+	 * @param queryHints
+	 *            The tables that are queried (optional)
+	 * @param streaming
+	 *            Whether to stream the rows from the database
+	 * @return An iterator for the dyna beans resulting from the query
+	 * @throws DatabaseOperationException
+	 *             the database operation exception
+	 */
+	public Iterator<DynaBean> query(Database model, String sql, Table[] queryHints, boolean streaming) throws DatabaseOperationException;
+
     /**
 	 * Performs the given parameterized SQL query returning an iterator over the
 	 * results.
@@ -1378,6 +1526,27 @@ public interface Platform
 	 */
 	public List<DynaBean> fetch(Database model, String sql, Collection<Object> parameters, Table[] queryHints, int start, int end) throws DatabaseOperationException;
 
+	/**
+	 * Queries the database and hands the rows to the given sink in columnar batches
+	 * of up to <code>batchSize</code> rows. The columns of the result set are matched
+	 * by name against the columns of the given table; result set columns without a
+	 * matching table column are ignored. The same {@link RowBatch} instance is cleared
+	 * and reused for subsequent batches. Note that this method does not call the
+	 * {@link BatchDataSink#start()} and {@link BatchDataSink#end()} methods of the sink.
+	 *
+	 * @param sql
+	 *            The sql query to perform
+	 * @param table
+	 *            The table whose columns the query returns
+	 * @param batchSize
+	 *            The maximum number of rows per batch
+	 * @param sink
+	 *            The sink that receives the batches
+	 * @throws DatabaseOperationException
+	 *             the database operation exception
+	 */
+	public void queryBatches(String sql, Table table, int batchSize, BatchDataSink sink) throws DatabaseOperationException;
+
     /**
      * Determines whether the given dyna bean is stored in the database. Note that this checks only
      * checks the primary key, not the other attributes.
@@ -1427,6 +1596,32 @@ public interface Platform
 	 */
     public void store(Connection connection, Database model, DynaBean dynaBean) throws DatabaseOperationException;
 
+    /**
+     * Stores the given beans in the database, inserting those whose primary key is not yet
+     * present in the database and updating the others. Contrary to calling
+     * {@link #store(Database, DynaBean)} for each bean, this does not issue a query per bean.
+     * Instead, the platform either uses a native insert-or-update statement (if
+     * {@link PlatformInfo#isUpsertSupported() supported}), or determines the existing rows
+     * with one query per table and chunk of beans, and then inserts and updates in batches.
+     * The beans are written in the given order; only consecutive beans of the same table that
+     * are stored the same way are batched together.
+     *
+     * @param model     The database model to use
+     * @param dynaBeans The beans to store
+     */
+    public void store(Database model, Collection<DynaBean> dynaBeans) throws DatabaseOperationException;
+
+    /**
+     * Stores the given beans in the database, inserting those whose primary key is not yet
+     * present in the database and updating the others. See {@link #store(Database, Collection)}
+     * for details.
+     *
+     * @param connection The connection
+     * @param model      The database model to use
+     * @param dynaBeans  The beans to store
+     */
+    public void store(Connection connection, Database model, Collection<DynaBean> dynaBeans) throws DatabaseOperationException;
+
     /**
      * Returns the sql for inserting the given bean.
      * 
@@ -1499,6 +1694,38 @@ public interface Platform
 	 */
     public void insert(Connection connection, Database model, Collection<DynaBean> dynaBeans) throws DatabaseOperationException;
 
+    /**
+     * Inserts the given beans like {@link #insert(Connection, Database, Collection)}, but uses
+     * the given multi-row insert mode instead of the {@link #isMultiRowInsertOn() one of the
+     * platform}. This allows callers to use multi-row inserts without changing the platform
+     * which might be used by other threads at the same time. This method does not close the
+     * connection.
+     *
+     * @param connection     The database connection
+     * @param model          The database model to use
+     * @param dynaBeans      The beans
+     * @param multiRowInsert Whether to insert multiple rows per statement if the platform
+     *                       {@link PlatformInfo#isMultiRowInsertSupported() supports this}
+     */
+    public void insert(Connection connection, Database model, Collection<DynaBean> dynaBeans, boolean multiRowInsert) throws DatabaseOperationException;
+
+    /**
+	 * Inserts the rows of the given batch into the table, using batch statements of
+	 * at most {@link #getBatchSize()} rows. The values of auto increment columns are
+	 * only inserted if identity override is on and supported by the platform, and
+	 * generated values are not read back. This method does not close the connection.
+	 *
+	 * @param connection
+	 *            The database connection
+	 * @param table
+	 *            The table to insert into
+	 * @param batch
+	 *            The rows to insert
+	 * @throws DatabaseOperationException
+	 *             the database operation exception
+	 */
+    public void insert(Connection connection, Table table, RowBatch batch) throws DatabaseOperationException;
+
     /**
      * Returns the sql for updating the given bean in the database. Note that this method can not be used to
      * generate SQL for updating primary key columns. 
@@ -1585,6 +1812,25 @@ public interface Platform
 	 */
     public void update(Connection connection, Database model, DynaBean oldDynaBean, DynaBean newDynaBean) throws DatabaseOperationException;
 
+    /**
+     * Updates the rows which map to the given beans in batch mode. Note that this means
+     * that this method will not update the primary key columns.
+     *
+     * @param model     The database model to use
+     * @param dynaBeans The beans
+     */
+    public void update(Database model, Collection<DynaBean> dynaBeans) throws DatabaseOperationException;
+
+    /**
+     * Updates the rows which map to the given beans in batch mode. Note that this means
+     * that this method will not update the primary key columns.
+     *
+     * @param connection The database connection
+     * @param model      The database model to use
+     * @param dynaBeans  The beans
+     */
+    public void update(Connection connection, Database model, Collection<DynaBean> dynaBeans) throws DatabaseOperationException;
+
     /**
      * Returns the sql for deleting the given bean from the database.
      * 
@@ -1621,6 +1867,23 @@ public interface Platform
 	 */
     public void delete(Connection connection, Database model, DynaBean dynaBean) throws DatabaseOperationException;
 
+    /**
+     * Deletes the rows which map to the given beans from the database in batch mode.
+     *
+     * @param model     The database model to use
+     * @param dynaBeans The beans
+     */
+    public void delete(Database model, Collection<DynaBean> dynaBeans) throws DatabaseOperationException;
+
+    /**
+     * Deletes the rows which map to the given beans from the database in batch mode.
+     *
+     * @param connection The database connection
+     * @param model      The database model to use
+     * @param dynaBeans  The beans
+     */
+    public void delete(Connection connection, Database model, Collection<DynaBean> dynaBeans) throws DatabaseOperationException;
+
     /**
      * Reads the database model from the live database as specified by the data source set for
      * this platform.
@@ -124,6 +124,21 @@ public class PlatformInfo
         shall be used. */ 
     private boolean _autoCommitModeForLastIdentityValueReading = true;
 
+    /** Whether the values of identity columns can be read back via the generated keys of a batch insert. */
+    private boolean _batchGeneratedKeysSupported = false;
+
+    /** Whether INSERT statements with multiple rows in the VALUES clause are supported. */
+    private boolean _multiRowInsertSupported = false;
+
+    /** The maximum number of parameters in a prepared statement (-1 if there is no limit). */
+    private int _maxBindParameters = -1;
+
+    /** Whether the platform can insert or update a row in a single statement (e.g. via MERGE). */
+    private boolean _upsertSupported = false;
+
+    /** Whether the platform can restrict the rows returned by a query to a range (e.g. via LIMIT/OFFSET). */
+    private boolean _paginationSupported = false;
+
     /** Specifies the maximum length that a table name can have for this database (-1 if there is no limit). */
     private int _maxTableNameLength = -1;
 
@@ -746,6 +761,118 @@ public class PlatformInfo
         _autoCommitModeForLastIdentityValueReading = autoCommitModeForLastIdentityValueReading;
     }
 
+    /**
+     * Determines whether the values of identity columns can be read back after a batch insert
+     * via the generated keys of the statement (<code>Statement.getGeneratedKeys()</code>).
+     * 
+     * @return <code>true</code> if the generated keys of a batch insert are returned by the
+     *         JDBC driver; default is <code>false</code>
+     */
+    public boolean isBatchGeneratedKeysSupported()
+    {
+        return _batchGeneratedKeysSupported;
+    }
+
+    /**
+     * Specifies whether the values of identity columns can be read back after a batch insert
+     * via the generated keys of the statement.
+     * 
+     * @param batchGeneratedKeysSupported <code>true</code> if the generated keys of a batch
+     *                                    insert are returned by the JDBC driver
+     */
+    public void setBatchGeneratedKeysSupported(boolean batchGeneratedKeysSupported)
+    {
+        _batchGeneratedKeysSupported = batchGeneratedKeysSupported;
+    }
+
+    /**
+     * Determines whether the database supports inserting multiple rows with a single
+     * <code>INSERT INTO ... VALUES (...), (...), ...</code> statement.
+     * 
+     * @return <code>true</code> if multi-row inserts are supported; default is <code>false</code>
+     */
+    public boolean isMultiRowInsertSupported()
+    {
+        return _multiRowInsertSupported;
+    }
+
+    /**
+     * Specifies whether the database supports inserting multiple rows with a single
+     * <code>INSERT</code> statement.
+     * 
+     * @param multiRowInsertSupported <code>true</code> if multi-row inserts are supported
+     */
+    public void setMultiRowInsertSupported(boolean multiRowInsertSupported)
+    {
+        _multiRowInsertSupported = multiRowInsertSupported;
+    }
+
+    /**
+     * Returns the maximum number of parameters that a prepared statement can have.
+     * 
+     * @return The number of parameters, or -1 if not limited
+     */
+    public int getMaxBindParameters()
+    {
+        return _maxBindParameters;
+    }
+
+    /**
+     * Sets the maximum number of parameters that a prepared statement can have.
+     * 
+     * @param maxBindParameters The number of parameters, or -1 if not limited
+     */
+    public void setMaxBindParameters(int maxBindParameters)
+    {
+        _maxBindParameters = maxBindParameters;
+    }
+
+    /**
+     * Determines whether the platform can insert a row or update it if a row with the same
+     * primary key already exists, in a single statement (e.g. via <code>MERGE</code> or
+     * <code>ON DUPLICATE KEY UPDATE</code>).
+     * 
+     * @return <code>true</code> if upsert statements are supported; default is <code>false</code>
+     */
+    public boolean isUpsertSupported()
+    {
+        return _upsertSupported;
+    }
+
+    /**
+     * Specifies whether the platform can insert a row or update it if a row with the same
+     * primary key already exists, in a single statement.
+     * 
+     * @param upsertSupported <code>true</code> if upsert statements are supported
+     */
+    public void setUpsertSupported(boolean upsertSupported)
+    {
+        _upsertSupported = upsertSupported;
+    }
+
+    /**
+     * Determines whether the platform can restrict the rows returned by a query to a
+     * given range, so that rows before the range are not transferred from the database
+     * (see {@link org.zl.ddlutils.platform.SqlBuilder#getPaginatedSql(String, int, int)}).
+     * 
+     * @return <code>true</code> if the platform supports pagination
+     */
+    public boolean isPaginationSupported()
+    {
+        return _paginationSupported;
+    }
+
+    /**
+     * Specifies whether the platform can restrict the rows returned by a query to a
+     * given range.
+     * 
+     * @param paginationSupported <code>true</code> if the platform supports pagination
+     */
+    public void setPaginationSupported(boolean paginationSupported)
+    {
+        _paginationSupported = paginationSupported;
+    }
+
     /**
      * Returns the maximum number of characters that a table name can have.
      * 
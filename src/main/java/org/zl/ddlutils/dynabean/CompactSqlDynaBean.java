@@ -0,0 +1,298 @@
+package org.zl.ddlutils.dynabean;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.reflect.Array;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.beanutils.ConversionException;
+import org.apache.commons.beanutils.DynaClass;
+import org.apache.commons.beanutils.DynaProperty;
+
+/**
+ * A {@link SqlDynaBean} that stores its values in an array indexed by the
+ * {@link SqlDynaProperty#getIndex() position} of the properties in the dyna class,
+ * instead of in a hash map. This needs considerably less memory per bean, which matters
+ * when many beans are held at the same time, e.g. in the result of a fetch or in the
+ * queues of a data sink. The beans of a {@link SqlDynaClass} are compact if the class
+ * was created with <code>compactBeans</code> set to <code>true</code>.
+ *
+ * @version $Revision: $
+ */
+public class CompactSqlDynaBean extends SqlDynaBean
+{
+    /** Unique ID for serialization purposes. */
+    private static final long serialVersionUID = 4012373616475123849L;
+
+    /** The values. */
+    private final Object[] _values;
+
+    /**
+     * Creates a new dyna bean of the given class.
+     *
+     * @param dynaClass The dyna class, which must be a {@link SqlDynaClass}
+     */
+    public CompactSqlDynaBean(DynaClass dynaClass)
+    {
+        super(dynaClass);
+        if (!(dynaClass instanceof SqlDynaClass))
+        {
+            throw new IllegalArgumentException("Compact dyna beans require a SqlDynaClass");
+        }
+        _values = new Object[dynaClass.getDynaProperties().length];
+    }
+
+    /**
+     * Returns the position of the indicated property.
+     *
+     * @param name The name of the property
+     * @return The index
+     * @throws IllegalArgumentException If there is no such property
+     */
+    private int getPropertyIndex(String name)
+    {
+        return ((SqlDynaProperty)getDynaProperty(name)).getIndex();
+    }
+
+    /**
+     * Returns the value to return for the given stored value.
+     *
+     * @param property The property
+     * @param value    The stored value
+     * @return The value
+     */
+    private Object getValue(DynaProperty property, Object value)
+    {
+        return value != null ? value : getDefaultValue(property);
+    }
+
+    /**
+     * Checks that the given value can be assigned to the property.
+     *
+     * @param property The property
+     * @param value    The value
+     */
+    private void checkValue(DynaProperty property, Object value)
+    {
+        if (value == null)
+        {
+            if (property.getType().isPrimitive())
+            {
+                throw new NullPointerException("Primitive value for '" + property.getName() + "'");
+            }
+        }
+        else if (!isAssignable(property.getType(), value.getClass()))
+        {
+            throw new ConversionException("Cannot assign value of type '" + value.getClass().getName() +
+                                          "' to property '" + property.getName() + "' of type '" +
+                                          property.getType().getName() + "'");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected Object getStoredValue(DynaProperty property)
+    {
+        return _values[((SqlDynaProperty)property).getIndex()];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Object get(String name)
+    {
+        DynaProperty property = getDynaProperty(name);
+
+        return getValue(property, _values[((SqlDynaProperty)property).getIndex()]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Object get(int index)
+    {
+        Object value = _values[index];
+
+        return value != null ? value : getDefaultValue(getDynaClass().getDynaProperties()[index]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Object get(String name, int index)
+    {
+        Object value = _values[getPropertyIndex(name)];
+
+        if (value == null)
+        {
+            throw new NullPointerException("No indexed value for '" + name + "[" + index + "]'");
+        }
+        else if (value.getClass().isArray())
+        {
+            return Array.get(value, index);
+        }
+        else if (value instanceof List)
+        {
+            return ((List<?>)value).get(index);
+        }
+        else
+        {
+            throw new IllegalArgumentException("Non-indexed property for '" + name + "[" + index + "]'");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Object get(String name, String key)
+    {
+        Object value = _values[getPropertyIndex(name)];
+
+        if (value == null)
+        {
+            throw new NullPointerException("No mapped value for '" + name + "(" + key + ")'");
+        }
+        else if (value instanceof Map)
+        {
+            return ((Map<?, ?>)value).get(key);
+        }
+        else
+        {
+            throw new IllegalArgumentException("Non-mapped property for '" + name + "(" + key + ")'");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean contains(String name, String key)
+    {
+        Object value = _values[getPropertyIndex(name)];
+
+        if (value == null)
+        {
+            throw new NullPointerException("No mapped value for '" + name + "(" + key + ")'");
+        }
+        else if (value instanceof Map)
+        {
+            return ((Map<?, ?>)value).containsKey(key);
+        }
+        else
+        {
+            throw new IllegalArgumentException("Non-mapped property for '" + name + "(" + key + ")'");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void set(String name, Object value)
+    {
+        DynaProperty property = getDynaProperty(name);
+
+        checkValue(property, value);
+        _values[((SqlDynaProperty)property).getIndex()] = value;
+        valuesChanged();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void set(int index, Object value)
+    {
+        checkValue(getDynaClass().getDynaProperties()[index], value);
+        _values[index] = value;
+        valuesChanged();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public void set(String name, int index, Object value)
+    {
+        Object prop = _values[getPropertyIndex(name)];
+
+        if (prop == null)
+        {
+            throw new NullPointerException("No indexed value for '" + name + "[" + index + "]'");
+        }
+        else if (prop.getClass().isArray())
+        {
+            Array.set(prop, index, value);
+        }
+        else if (prop instanceof List)
+        {
+            ((List<Object>)prop).set(index, value);
+        }
+        else
+        {
+            throw new IllegalArgumentException("Non-indexed property for '" + name + "[" + index + "]'");
+        }
+        valuesChanged();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public void set(String name, String key, Object value)
+    {
+        Object prop = _values[getPropertyIndex(name)];
+
+        if (prop == null)
+        {
+            throw new NullPointerException("No mapped value for '" + name + "(" + key + ")'");
+        }
+        else if (prop instanceof Map)
+        {
+            ((Map<String, Object>)prop).put(key, value);
+        }
+        else
+        {
+            throw new IllegalArgumentException("Non-mapped property for '" + name + "(" + key + ")'");
+        }
+        valuesChanged();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void remove(String name, String key)
+    {
+        Object prop = _values[getPropertyIndex(name)];
+
+        if (prop == null)
+        {
+            throw new NullPointerException("No mapped value for '" + name + "(" + key + ")'");
+        }
+        else if (prop instanceof Map)
+        {
+            ((Map<?, ?>)prop).remove(key);
+        }
+        else
+        {
+            throw new IllegalArgumentException("Non-mapped property for '" + name + "(" + key + ")'");
+        }
+        valuesChanged();
+    }
+}
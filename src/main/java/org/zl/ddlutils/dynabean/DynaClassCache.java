@@ -20,8 +20,7 @@ package org.zl.ddlutils.dynabean;
  */
 
 import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.beanutils.BeanUtils;
 import org.apache.commons.beanutils.DynaBean;
@@ -30,14 +29,45 @@ import org.zl.ddlutils.model.Table;
 
 /**
  * Provides a cache of dyna class instances for a specific model, as well as
- * helper methods for dealing with these classes.
+ * helper methods for dealing with these classes. The cache is thread-safe, so
+ * it can be used by several loader threads at the same time.
  *
  * @version $Revision: 231110 $
  */
 public class DynaClassCache
 {
     /** A cache of the SqlDynaClasses per table name. */
-    private Map<String, SqlDynaClass> _dynaClassCache = new HashMap<>();
+    private final ConcurrentHashMap<String, SqlDynaClass> _dynaClassCache = new ConcurrentHashMap<>();
+    /** Whether the dyna classes create {@link CompactSqlDynaBean}s. */
+    private final boolean _compactBeans;
+
+    /**
+     * Creates a new cache whose dyna classes create normal {@link SqlDynaBean}s.
+     */
+    public DynaClassCache()
+    {
+        this(false);
+    }
+
+    /**
+     * Creates a new cache.
+     * 
+     * @param compactBeans Whether the dyna classes create {@link CompactSqlDynaBean}s
+     */
+    public DynaClassCache(boolean compactBeans)
+    {
+        _compactBeans = compactBeans;
+    }
+
+    /**
+     * Determines whether the dyna classes of this cache create {@link CompactSqlDynaBean}s.
+     * 
+     * @return <code>true</code> if the beans are compact
+     */
+    public boolean isCompactBeans()
+    {
+        return _compactBeans;
+    }
 
     /**
      * Creates a new dyna bean instance for the given table.
@@ -105,12 +135,11 @@ public class DynaClassCache
      */
     public SqlDynaClass getDynaClass(Table table)
     {
-        SqlDynaClass answer = (SqlDynaClass)_dynaClassCache.get(table.getName());
+        SqlDynaClass answer = _dynaClassCache.get(table.getName());
 
         if (answer == null)
         {
-            answer = createDynaClass(table);
-            _dynaClassCache.put(table.getName(), answer);
+            answer = _dynaClassCache.computeIfAbsent(table.getName(), name -> createDynaClass(table));
         }
         return answer;
     }
@@ -144,6 +173,6 @@ public class DynaClassCache
      */
     private SqlDynaClass createDynaClass(Table table)
     {
-        return SqlDynaClass.newInstance(table);
+        return SqlDynaClass.newInstance(table, _compactBeans);
     }
 }
@@ -22,10 +22,15 @@ package org.zl.ddlutils.dynabean;
 import org.apache.commons.beanutils.BasicDynaBean;
 import org.apache.commons.beanutils.DynaClass;
 import org.apache.commons.beanutils.DynaProperty;
+import org.zl.ddlutils.util.ObjectUtilsExt;
 
 /**
  * SqlDynaBean is a DynaBean which can be persisted as a single row in 
- * a Database Table.
+ * a Database Table.<br/>
+ * Two beans are equal if they have the same dyna class and equal values for
+ * all properties. The hash code is computed from the values and cached until a
+ * property is changed. Use {@link SqlDynaBeanKey} to compare beans only by their
+ * primary key values.
  *
  * @version $Revision$
  */
@@ -34,6 +39,11 @@ public class SqlDynaBean extends BasicDynaBean
     /** Unique ID for serializaion purposes. */
     private static final long serialVersionUID = -6946514447446174227L;
 
+    /** The cached hash code. */
+    private transient int _hashCode;
+    /** Whether the cached hash code is valid. */
+    private transient boolean _hashCodeValid;
+
     /**
      * Creates a new dyna bean of the given class.
      * 
@@ -44,6 +54,181 @@ public class SqlDynaBean extends BasicDynaBean
         super(dynaClass);
     }
 
+    /**
+     * Returns the value of the given property. The property is located via its
+     * {@link SqlDynaProperty#getIndex() position} in the dyna class of this bean
+     * instead of by name where possible.
+     * 
+     * @param property The property
+     * @return The value
+     */
+    public Object get(SqlDynaProperty property)
+    {
+        int            index = property.getIndex();
+        DynaProperty[] props = getDynaClass().getDynaProperties();
+
+        if ((index >= 0) && (index < props.length) && (props[index] == property))
+        {
+            return get(index);
+        }
+        else
+        {
+            return get(property.getName());
+        }
+    }
+
+    /**
+     * Returns the value of the property at the given position in the dyna class
+     * of this bean. This bean stores its values by name, so this is a single lookup
+     * in the value map; {@link CompactSqlDynaBean}s address their values directly
+     * by position.
+     * 
+     * @param index The index of the property
+     * @return The value
+     */
+    public Object get(int index)
+    {
+        DynaProperty property = getDynaClass().getDynaProperties()[index];
+        Object       value    = values.get(property.getName());
+
+        return value != null ? value : getDefaultValue(property);
+    }
+
+    /**
+     * Returns the value of the given property if the bean has no value for it, which is
+     * <code>null</code> except for properties of primitive types.
+     *
+     * @param property The property
+     * @return The default value
+     */
+    protected static Object getDefaultValue(DynaProperty property)
+    {
+        Class<?> type = property.getType();
+
+        if (!type.isPrimitive())
+        {
+            return null;
+        }
+        else if (type == Boolean.TYPE)
+        {
+            return Boolean.FALSE;
+        }
+        else if (type == Byte.TYPE)
+        {
+            return new Byte((byte)0);
+        }
+        else if (type == Character.TYPE)
+        {
+            return new Character((char)0);
+        }
+        else if (type == Double.TYPE)
+        {
+            return new Double(0.0);
+        }
+        else if (type == Float.TYPE)
+        {
+            return new Float((float)0.0);
+        }
+        else if (type == Integer.TYPE)
+        {
+            return new Integer(0);
+        }
+        else if (type == Long.TYPE)
+        {
+            return new Long(0);
+        }
+        else if (type == Short.TYPE)
+        {
+            return new Short((short)0);
+        }
+        else
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Sets the value of the property at the given position in the dyna class of
+     * this bean.
+     * 
+     * @param index The index of the property
+     * @param value The new value
+     */
+    @SuppressWarnings("unchecked")
+    public void set(int index, Object value)
+    {
+        DynaProperty property = getDynaClass().getDynaProperties()[index];
+        Class<?>     type     = property.getType();
+
+        if (type.isPrimitive() || ((value != null) && !type.isInstance(value)))
+        {
+            // the generic method checks and reports these cases
+            set(property.getName(), value);
+        }
+        else
+        {
+            values.put(property.getName(), value);
+            valuesChanged();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void set(String name, Object value)
+    {
+        super.set(name, value);
+        valuesChanged();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void set(String name, int index, Object value)
+    {
+        super.set(name, index, value);
+        valuesChanged();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void set(String name, String key, Object value)
+    {
+        super.set(name, key, value);
+        valuesChanged();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void remove(String name, String key)
+    {
+        super.remove(name, key);
+        valuesChanged();
+    }
+
+    /**
+     * Returns the stored value of the given property of this bean, without applying
+     * default values for primitive types.
+     * 
+     * @param property The property, which belongs to the dyna class of this bean
+     * @return The value
+     */
+    protected Object getStoredValue(DynaProperty property)
+    {
+        return values.get(property.getName());
+    }
+
+    /**
+     * Discards the data derived from the values of this bean after a value has been
+     * changed.
+     */
+    protected void valuesChanged()
+    {
+        _hashCodeValid = false;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -73,7 +258,20 @@ public class SqlDynaBean extends BasicDynaBean
      */
     public int hashCode()
     {
-        return toString().hashCode();
+        if (!_hashCodeValid)
+        {
+            DynaClass      dynaClass = getDynaClass();
+            DynaProperty[] props     = dynaClass.getDynaProperties();
+            int            hashCode  = dynaClass.getName().hashCode();
+
+            for (int idx = 0; idx < props.length; idx++)
+            {
+                hashCode = 31 * hashCode + ObjectUtilsExt.valueHashCode(getStoredValue(props[idx]));
+            }
+            _hashCode      = hashCode;
+            _hashCodeValid = true;
+        }
+        return _hashCode;
     }
 
     /**
@@ -86,25 +284,23 @@ public class SqlDynaBean extends BasicDynaBean
             SqlDynaBean other     = (SqlDynaBean)obj;
             DynaClass   dynaClass = getDynaClass();
 
+            if (this == other)
+            {
+                return true;
+            }
             if (dynaClass.equals(other.getDynaClass()))
             {
                 DynaProperty[] props = dynaClass.getDynaProperties();
 
+                if (_hashCodeValid && other._hashCodeValid && (_hashCode != other._hashCode))
+                {
+                    return false;
+                }
                 for (int idx = 0; idx < props.length; idx++)
                 {
-                    Object value      = get(props[idx].getName());
-                    Object otherValue = other.get(props[idx].getName());
-
-                    if (value == null)
-                    {
-                        if (otherValue != null)
-                        {
-                            return false;
-                        }
-                    }
-                    else
+                    if (!ObjectUtilsExt.valuesEqual(getStoredValue(props[idx]), other.getStoredValue(props[idx])))
                     {
-                        return value.equals(otherValue);
+                        return false;
                     }
                 }
                 return true;
@@ -0,0 +1,124 @@
+package org.zl.ddlutils.dynabean;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.beanutils.DynaProperty;
+import org.zl.ddlutils.util.ObjectUtilsExt;
+
+/**
+ * Wraps a {@link SqlDynaBean} so that it is compared and hashed only by the values of
+ * the primary key properties of its class, e.g. for de-duplicating rows by their
+ * primary key. For tables without a primary key, all values are compared.<br/>
+ * The key does not copy the values, so the primary key values of the bean must not be
+ * changed while the key is stored in a hash-based collection.
+ *
+ * @version $Revision: $
+ */
+public class SqlDynaBeanKey
+{
+    /** The bean. */
+    private final SqlDynaBean _bean;
+    /** The properties that are compared. */
+    private final DynaProperty[] _properties;
+    /** The hash code. */
+    private final int _hashCode;
+
+    /**
+     * Creates a new key for the given bean.
+     *
+     * @param bean The bean
+     */
+    public SqlDynaBeanKey(SqlDynaBean bean)
+    {
+        _bean = bean;
+        if ((bean.getDynaClass() instanceof SqlDynaClass) &&
+            !((SqlDynaClass)bean.getDynaClass()).getPrimaryKeyPropertyList().isEmpty())
+        {
+            _properties = ((SqlDynaClass)bean.getDynaClass()).getPrimaryKeyProperties();
+        }
+        else
+        {
+            _properties = bean.getDynaClass().getDynaProperties();
+        }
+
+        int hashCode = bean.getDynaClass().getName().hashCode();
+
+        for (int idx = 0; idx < _properties.length; idx++)
+        {
+            hashCode = 31 * hashCode + ObjectUtilsExt.valueHashCode(bean.getStoredValue(_properties[idx]));
+        }
+        _hashCode = hashCode;
+    }
+
+    /**
+     * Returns the bean.
+     *
+     * @return The bean
+     */
+    public SqlDynaBean getBean()
+    {
+        return _bean;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int hashCode()
+    {
+        return _hashCode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean equals(Object obj)
+    {
+        if (obj instanceof SqlDynaBeanKey)
+        {
+            SqlDynaBeanKey other = (SqlDynaBeanKey)obj;
+
+            if (this == other)
+            {
+                return true;
+            }
+            if ((_hashCode != other._hashCode) || !_bean.getDynaClass().equals(other._bean.getDynaClass()))
+            {
+                return false;
+            }
+            for (int idx = 0; idx < _properties.length; idx++)
+            {
+                if (!ObjectUtilsExt.valuesEqual(_bean.getStoredValue(_properties[idx]), other._bean.getStoredValue(_properties[idx])))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String toString()
+    {
+        return _bean.toString();
+    }
+}
@@ -20,6 +20,8 @@ package org.zl.ddlutils.dynabean;
  */
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.beanutils.BasicDynaClass;
@@ -28,7 +30,8 @@ import org.zl.ddlutils.model.Table;
 
 /**
  * SqlDynaClass is a DynaClass which is associated with a persistent 
- * Table in a Database.
+ * Table in a Database. Instances are fully initialized when constructed and
+ * can be shared between threads.
  * 
  * @version $Revision$
  */
@@ -39,6 +42,14 @@ public class SqlDynaClass extends BasicDynaClass
 
     /** The table for which this dyna class is defined. */
     private Table _table;
+    /** The dyna properties. */
+    private SqlDynaProperty[] _properties;
+    /** Read-only view of the dyna properties. */
+    private List<SqlDynaProperty> _propertyList;
+    /** Read-only view of the primary key dyna properties. */
+    private List<SqlDynaProperty> _primaryKeyPropertyList;
+    /** Read-only view of the non-primary key dyna properties. */
+    private List<SqlDynaProperty> _nonPrimaryKeyPropertyList;
     /** The primary key dyna properties. */
     private SqlDynaProperty[] _primaryKeyProperties;
     /** The non-primary key dyna properties. */
@@ -52,6 +63,19 @@ public class SqlDynaClass extends BasicDynaClass
      * @return The dyna class for the table
      */
     public static SqlDynaClass newInstance(Table table)
+    {
+        return newInstance(table, false);
+    }
+
+    /**
+     * Factory method for creating and initializing a new dyna class instance
+     * for the given table.
+     * 
+     * @param table        The table
+     * @param compactBeans Whether the beans of the class shall be {@link CompactSqlDynaBean}s
+     * @return The dyna class for the table
+     */
+    public static SqlDynaClass newInstance(Table table, boolean compactBeans)
     {
         List<SqlDynaProperty> properties = new ArrayList<>();
 
@@ -63,7 +87,7 @@ public class SqlDynaClass extends BasicDynaClass
         SqlDynaProperty[] array = new SqlDynaProperty[properties.size()];
 
         properties.toArray(array);
-        return new SqlDynaClass(table, array);
+        return new SqlDynaClass(table, array, compactBeans);
     }
 
     /**
@@ -74,8 +98,62 @@ public class SqlDynaClass extends BasicDynaClass
      */
     public SqlDynaClass(Table table, SqlDynaProperty[] properties)
     {
-        super(table.getName(), SqlDynaBean.class, properties);
-        _table = table;
+        this(table, properties, false);
+    }
+
+    /**
+     * Creates a new dyna class instance for the given table that has the given properties.
+     * 
+     * @param table        The table
+     * @param properties   The dyna properties
+     * @param compactBeans Whether the beans of the class shall be {@link CompactSqlDynaBean}s
+     *                     which store their values in an array instead of a map
+     */
+    public SqlDynaClass(Table table, SqlDynaProperty[] properties, boolean compactBeans)
+    {
+        this(table, indexProperties(properties), compactBeans ? CompactSqlDynaBean.class : SqlDynaBean.class);
+    }
+
+    /**
+     * Creates a new dyna class instance for the given table that has the given properties.
+     * 
+     * @param table      The table
+     * @param properties The dyna properties, already copied and indexed for this class
+     * @param beanClass  The class of the beans
+     */
+    private SqlDynaClass(Table table, SqlDynaProperty[] properties, Class<? extends SqlDynaBean> beanClass)
+    {
+        super(table.getName(), beanClass, properties);
+        _table        = table;
+        _properties   = properties;
+        _propertyList = Collections.unmodifiableList(Arrays.asList(properties));
+        initPrimaryKeys();
+    }
+
+    /**
+     * Copies the given properties and sets their positions in the copy. Properties that
+     * already have a different position in another dyna class are replaced by new
+     * properties for the same column, so that the other dyna class is not affected.
+     * 
+     * @param properties The properties
+     * @return The indexed copy of the properties
+     */
+    private static SqlDynaProperty[] indexProperties(SqlDynaProperty[] properties)
+    {
+        SqlDynaProperty[] result = properties.clone();
+
+        for (int idx = 0; idx < result.length; idx++)
+        {
+            SqlDynaProperty property = result[idx];
+
+            if ((property.getIndex() >= 0) && (property.getIndex() != idx))
+            {
+                property    = new SqlDynaProperty(property.getColumn(), property.getType());
+                result[idx] = property;
+            }
+            property.setIndex(idx);
+        }
+        return result;
     }
 
     /**
@@ -108,11 +186,18 @@ public class SqlDynaClass extends BasicDynaClass
      */
     public SqlDynaProperty[] getSqlDynaProperties()
     {
-        DynaProperty[]    props  = getDynaProperties();
-        SqlDynaProperty[] result = new SqlDynaProperty[props.length];
+        return _properties.clone();
+    }
 
-        System.arraycopy(props, 0, result, 0, props.length);
-        return result;
+    /**
+     * Returns a read-only view of the properties of this dyna class. Other than
+     * {@link #getSqlDynaProperties()}, this does not copy the properties.
+     * 
+     * @return The properties
+     */
+    public List<SqlDynaProperty> getSqlDynaPropertyList()
+    {
+        return _propertyList;
     }
     
     /**
@@ -122,15 +207,19 @@ public class SqlDynaClass extends BasicDynaClass
      */
     public SqlDynaProperty[] getPrimaryKeyProperties()
     {
-        if (_primaryKeyProperties == null)
-        {
-            initPrimaryKeys();
-        }
-
-        SqlDynaProperty[] result = new SqlDynaProperty[_primaryKeyProperties.length];
+        return _primaryKeyProperties.clone();
+    }
 
-        System.arraycopy(_primaryKeyProperties, 0, result, 0, _primaryKeyProperties.length);
-        return result;
+    /**
+     * Returns a read-only view of the properties for the primary keys of the
+     * corresponding table. Other than {@link #getPrimaryKeyProperties()}, this
+     * does not copy the properties.
+     * 
+     * @return The properties
+     */
+    public List<SqlDynaProperty> getPrimaryKeyPropertyList()
+    {
+        return _primaryKeyPropertyList;
     }
 
     /**
@@ -140,22 +229,27 @@ public class SqlDynaClass extends BasicDynaClass
      */
     public SqlDynaProperty[] getNonPrimaryKeyProperties()
     {
-        if (_nonPrimaryKeyProperties == null)
-        {
-            initPrimaryKeys();
-        }
-
-        SqlDynaProperty[] result = new SqlDynaProperty[_nonPrimaryKeyProperties.length];
+        return _nonPrimaryKeyProperties.clone();
+    }
 
-        System.arraycopy(_nonPrimaryKeyProperties, 0, result, 0, _nonPrimaryKeyProperties.length);
-        return result;
+    /**
+     * Returns a read-only view of the properties for the non-primary keys of the
+     * corresponding table. Other than {@link #getNonPrimaryKeyProperties()}, this
+     * does not copy the properties.
+     * 
+     * @return The properties
+     */
+    public List<SqlDynaProperty> getNonPrimaryKeyPropertyList()
+    {
+        return _nonPrimaryKeyPropertyList;
     }
     
     // Implementation methods    
     //-------------------------------------------------------------------------                
 
     /**
-     * Initializes the primary key and non primary key property arrays.
+     * Initializes the primary key and non primary key property arrays. This is
+     * called by the constructor.
      */
     protected void initPrimaryKeys()
     {
@@ -181,5 +275,7 @@ public class SqlDynaClass extends BasicDynaClass
         }
         _primaryKeyProperties    = (SqlDynaProperty[])pkProps.toArray(new SqlDynaProperty[pkProps.size()]);
         _nonPrimaryKeyProperties = (SqlDynaProperty[])nonPkProps.toArray(new SqlDynaProperty[nonPkProps.size()]);
+        _primaryKeyPropertyList    = Collections.unmodifiableList(Arrays.asList(_primaryKeyProperties));
+        _nonPrimaryKeyPropertyList = Collections.unmodifiableList(Arrays.asList(_nonPrimaryKeyProperties));
     }
 }
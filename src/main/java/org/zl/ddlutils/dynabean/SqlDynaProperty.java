@@ -37,6 +37,8 @@ public class SqlDynaProperty extends DynaProperty
 
     /** The column for which this dyna property is defined. */
     private Column _column;    
+    /** The position of this property in its dyna class. */
+    private int _index = -1;
 
     /**
      * Creates a property instance for the given column that accepts any data type.
@@ -71,6 +73,27 @@ public class SqlDynaProperty extends DynaProperty
         return _column;
     }
 
+    /**
+     * Returns the position of this property in the properties of the dyna class that
+     * it belongs to.
+     * 
+     * @return The index or <code>-1</code> if the property does not belong to a dyna class
+     */
+    public int getIndex()
+    {
+        return _index;
+    }
+
+    /**
+     * Sets the position of this property in the properties of its dyna class.
+     * 
+     * @param index The index
+     */
+    void setIndex(int index)
+    {
+        _index = index;
+    }
+
     // Helper methods
     //-------------------------------------------------------------------------                
     
@@ -0,0 +1,48 @@
+package org.zl.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Marks classes that can receive rows in {@link RowBatch}es, e.g. from
+ * {@link org.zl.ddlutils.Platform#queryBatches(String, org.zl.ddlutils.model.Table, int, BatchDataSink)}.
+ * This is the columnar counterpart of {@link DataSink}.
+ * 
+ * @version $Revision: $
+ */
+public interface BatchDataSink
+{
+    /**
+     * Notifies the sink that batches will be added.
+     */
+    public void start() throws DataSinkException;
+
+    /**
+     * Adds a batch of rows. The batch may be reused by the caller after this
+     * method returns, so the sink must not keep a reference to it.
+     * 
+     * @param batch The batch to add
+     */
+    public void addBatch(RowBatch batch) throws DataSinkException;
+
+    /**
+     * Notifies the sink that all batches have been added.
+     */
+    public void end() throws DataSinkException;
+}
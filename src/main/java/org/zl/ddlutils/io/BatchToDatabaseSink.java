@@ -0,0 +1,94 @@
+package org.zl.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Connection;
+
+import org.zl.ddlutils.DatabaseOperationException;
+import org.zl.ddlutils.Platform;
+
+/**
+ * Batch data sink that directly inserts the rows into the database using
+ * {@link Platform#insert(Connection, org.zl.ddlutils.model.Table, RowBatch)}. Other than
+ * {@link DataToDatabaseSink}, it does not order the rows according to the foreign keys,
+ * so the batches have to be added in a suitable order (or the foreign keys have to be
+ * created after the data has been inserted).
+ * 
+ * @version $Revision: $
+ */
+public class BatchToDatabaseSink implements BatchDataSink
+{
+    /** The platform. */
+    private Platform _platform;
+    /** The connection to the database. */
+    private Connection _connection;
+
+    /**
+     * Creates a new sink instance.
+     * 
+     * @param platform The database platform
+     */
+    public BatchToDatabaseSink(Platform platform)
+    {
+        _platform = platform;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void start() throws DataSinkException
+    {
+        try
+        {
+            _connection = _platform.borrowConnection();
+        }
+        catch (DatabaseOperationException ex)
+        {
+            throw new DataSinkException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void addBatch(RowBatch batch) throws DataSinkException
+    {
+        try
+        {
+            _platform.insert(_connection, batch.getTable(), batch);
+        }
+        catch (DatabaseOperationException ex)
+        {
+            throw new DataSinkException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void end() throws DataSinkException
+    {
+        if (_connection != null)
+        {
+            _platform.returnConnection(_connection);
+            _connection = null;
+        }
+    }
+}
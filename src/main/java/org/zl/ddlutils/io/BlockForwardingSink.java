@@ -0,0 +1,88 @@
+package org.zl.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+
+import org.apache.commons.beanutils.DynaBean;
+
+/**
+ * Data sink that collects the beans of one producer thread into blocks and hands these to
+ * a {@link PipelinedDataSink} that is shared with other producer threads. Used by the
+ * {@link DatabaseDataIO} to read several files in parallel into the same database sink.
+ * The shared sink is neither started nor ended by this sink.
+ *
+ * @version $Revision: $
+ */
+final class BlockForwardingSink implements DataSink
+{
+    /** The shared sink. */
+    private final PipelinedDataSink _target;
+    /** The number of beans that are handed over together. */
+    private final int _blockSize;
+    /** The block that is being filled. */
+    private ArrayList<DynaBean> _currentBlock;
+
+    /**
+     * Creates a new sink.
+     *
+     * @param target    The shared sink
+     * @param blockSize The number of beans that are handed over together
+     */
+    BlockForwardingSink(PipelinedDataSink target, int blockSize)
+    {
+        _target       = target;
+        _blockSize    = Math.max(1, blockSize);
+        _currentBlock = new ArrayList<>(_blockSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void start() throws DataSinkException
+    {
+        _currentBlock.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void addBean(DynaBean bean) throws DataSinkException
+    {
+        _currentBlock.add(bean);
+        if (_currentBlock.size() >= _blockSize)
+        {
+            _target.addBeans(_currentBlock);
+            _currentBlock = new ArrayList<>(_blockSize);
+        }
+    }
+
+    /**
+     * Hands the remaining beans to the shared sink.
+     */
+    public void end() throws DataSinkException
+    {
+        if (!_currentBlock.isEmpty())
+        {
+            _target.addBeans(_currentBlock);
+            _currentBlock = new ArrayList<>(_blockSize);
+        }
+    }
+}
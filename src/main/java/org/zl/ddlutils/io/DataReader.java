@@ -261,6 +261,81 @@ public class DataReader
         read(source.getCharacterStream());
     }
 
+    /**
+     * Determines the table of the first row in the specified data file, without passing
+     * any data to the sink. This can be used to schedule the reading of files that contain
+     * the rows of one table each.
+     * 
+     * @param file The data file
+     * @return The table, or <code>null</code> if the file contains no rows or the first row
+     *         does not belong to a table of the model
+     */
+    public Table readFirstTable(File file) throws DdlUtilsXMLException
+    {
+        FileInputStream input = null;
+
+        try
+        {
+            input = new FileInputStream(file);
+
+            XMLStreamReader xmlReader = getXMLInputFactory().createXMLStreamReader(new BufferedInputStream(input));
+            int             depth     = 0;
+
+            // the rows are the children of the top-level element
+            while (xmlReader.hasNext())
+            {
+                int eventType = xmlReader.next();
+
+                if (eventType == XMLStreamReader.END_ELEMENT)
+                {
+                    depth--;
+                }
+                else if ((eventType == XMLStreamReader.START_ELEMENT) && (++depth == 2))
+                {
+                    String tableName = xmlReader.getName().getLocalPart();
+
+                    if ("table".equals(tableName))
+                    {
+                        tableName = null;
+                        for (int idx = 0; idx < xmlReader.getAttributeCount(); idx++)
+                        {
+                            String attrName = xmlReader.getAttributeName(idx).getLocalPart();
+
+                            if (isCaseSensitive() ? "table-name".equals(attrName) : "table-name".equalsIgnoreCase(attrName))
+                            {
+                                tableName = xmlReader.getAttributeValue(idx);
+                            }
+                        }
+                    }
+                    return tableName == null ? null : _model.findTable(tableName, isCaseSensitive());
+                }
+            }
+            return null;
+        }
+        catch (IOException ex)
+        {
+            throw new DdlUtilsXMLException(ex);
+        }
+        catch (XMLStreamException ex)
+        {
+            throw new DdlUtilsXMLException(ex);
+        }
+        finally
+        {
+            if (input != null)
+            {
+                try
+                {
+                    input.close();
+                }
+                catch (IOException ex)
+                {
+                    _log.warn("Error while trying to close the input stream for " + file, ex);
+                }
+            }
+        }
+    }
+
     /**
      * Reads the data from the given XML stream reader.
      * 
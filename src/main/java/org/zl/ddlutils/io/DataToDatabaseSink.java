@@ -19,12 +19,27 @@ package org.zl.ddlutils.io;
  * under the License.
  */
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.beanutils.DynaBean;
 import org.apache.commons.logging.Log;
@@ -32,9 +47,11 @@ import org.apache.commons.logging.LogFactory;
 import org.zl.ddlutils.DatabaseOperationException;
 import org.zl.ddlutils.Platform;
 import org.zl.ddlutils.dynabean.SqlDynaClass;
+import org.zl.ddlutils.dynabean.SqlDynaProperty;
 import org.zl.ddlutils.model.Column;
 import org.zl.ddlutils.model.Database;
 import org.zl.ddlutils.model.ForeignKey;
+import org.zl.ddlutils.model.ForeignKeyGraph;
 import org.zl.ddlutils.model.Reference;
 import org.zl.ddlutils.model.Table;
 
@@ -62,20 +79,56 @@ public class DataToDatabaseSink implements DataSink
     private boolean _ensureFkOrder = true;
     /** Whether to use batch mode inserts. */
     private boolean _useBatchMode = false;
+    /** Whether batch mode inserts use multi-row insert statements. */
+    private boolean _useMultiRowInserts = false;
     /** The queued objects for batch insertion. */
-    private ArrayList _batchQueue = new ArrayList();
+    private ArrayList<DynaBean> _batchQueue = new ArrayList<>();
     /** The number of beans to insert in one batch. */
     private int _batchSize = 1024;
-    /** Stores the tables that are target of a foreign key. */
-    private HashSet _fkTables = new HashSet();
-    /** Contains the tables that have a self-referencing foreign key to a (partially) identity primary key. */
-    private HashSet _tablesWithSelfIdentityReference = new HashSet();
-    /** Contains the tables that have a self-referencing foreign key that is required. */
-    private HashSet _tablesWithRequiredSelfReference = new HashSet();
-    /** Maps original to processed identities. */
-    private HashMap _identityMap = new HashMap();
-    /** Stores the objects that are waiting for other objects to be inserted. */
-    private ArrayList _waitingObjects = new ArrayList();
+    /** Stores the names of the tables that are target of a foreign key. */
+    private HashSet<String> _fkTableNames = new HashSet<>();
+    /** Contains the names of the tables that have a self-referencing foreign key to a (partially) identity primary key. */
+    private HashSet<String> _tableNamesWithSelfIdentityReference = new HashSet<>();
+    /** Contains the names of the tables that have a self-referencing foreign key that is required. */
+    private HashSet<String> _tableNamesWithRequiredSelfReference = new HashSet<>();
+    /** Maps original to processed identities, the least recently used ones first. */
+    private LinkedHashMap<Identity, Identity> _identityMap = new LinkedHashMap<>(16, 0.75f, true);
+    /** Stores the objects that are waiting for other objects to be inserted, in the order of their arrival. */
+    private LinkedHashSet<WaitingObject> _waitingObjects = new LinkedHashSet<>();
+    /** Maps the identities of the waited-for objects to the objects waiting for them. */
+    private HashMap<Identity, ArrayList<WaitingObject>> _waitingObjectsByIdentity = new HashMap<>();
+    /** Stores the objects in the batch queue whose identity will be generated by the database. */
+    private ArrayList<WaitingObject> _objectsWithPendingIdentity = new ArrayList<>();
+    /** The maximum number of waiting objects and of identity mappings held in memory, or 0 for no limit. */
+    private int _maxRowsInMemory = 0;
+    /** The directory for the spill files, or <code>null</code> for the default temporary directory. */
+    private File _spillDirectory;
+    /** Stores the identity mappings that did not fit into memory, indexed by their original identity. */
+    private SpillFile _identitySpill;
+    /** Stores the waiting objects that did not fit into memory, indexed by the identities they wait for. */
+    private SpillFile _waitingObjectSpill;
+    /** The number of waiting objects in the spill file. */
+    private int _spilledWaitingObjectCount;
+    /** The number of waiting objects and identity mappings that have been written to spill files. */
+    private long _spillCount;
+    /** The number of workers that insert the beans, each with its own connection; 1 for inserting them in the calling thread. */
+    private int _workerCount = 1;
+    /** The connections of the workers. */
+    private Connection[] _workerConnections;
+    /** The threads of the workers. */
+    private ExecutorService[] _workerExecutors;
+    /** The tasks that are being filled for the workers. */
+    private InsertTask[] _openTasks;
+    /** The index of the worker for each table. */
+    private HashMap<String, Integer> _workerIdxByTableName = new HashMap<>();
+    /** The tasks that the workers have run. */
+    private LinkedBlockingQueue<InsertTask> _finishedTasks = new LinkedBlockingQueue<>();
+    /** The number of tasks handed to the workers that have not been processed yet. */
+    private int _runningTaskCount;
+    /** The errors reported by the workers that have not been thrown yet. */
+    private ArrayList<Exception> _workerErrors = new ArrayList<>();
+    /** The error with which the workers failed; it is thrown again by every later call. */
+    private DataSinkException _workerFailure;
 
     /**
      * Creates a new sink instance.
@@ -100,7 +153,7 @@ public class DataToDatabaseSink implements DataSink
                 {
                     if (pkColumns[idx].isAutoIncrement())
                     {
-                        _tablesWithSelfIdentityReference.add(table);
+                        _tableNamesWithSelfIdentityReference.add(table.getName());
                         break;
                     }
                 }
@@ -108,7 +161,7 @@ public class DataToDatabaseSink implements DataSink
                 {
                     if (selfRefFk.getReference(idx).getLocalColumn().isRequired())
                     {
-                        _tablesWithRequiredSelfReference.add(table);
+                        _tableNamesWithRequiredSelfReference.add(table.getName());
                         break;
                     }
                 }
@@ -184,6 +237,28 @@ public class DataToDatabaseSink implements DataSink
         _useBatchMode = useBatchMode;
     }
 
+    /**
+     * Determines whether batch mode inserts use multi-row insert statements if the
+     * platform supports them.
+     *
+     * @return <code>true</code> if multi-row inserts are used (<code>false</code> per default)
+     */
+    public boolean isUseMultiRowInserts()
+    {
+        return _useMultiRowInserts;
+    }
+
+    /**
+     * Specifies whether batch mode inserts use multi-row insert statements if the
+     * platform supports them. See {@link Platform#insert(Connection, Database, java.util.Collection, boolean)}.
+     *
+     * @param useMultiRowInserts <code>true</code> if multi-row inserts shall be used
+     */
+    public void setUseMultiRowInserts(boolean useMultiRowInserts)
+    {
+        _useMultiRowInserts = useMultiRowInserts;
+    }
+
     /**
      * Returns the (maximum) number of beans to insert in one batch.
      *
@@ -204,82 +279,590 @@ public class DataToDatabaseSink implements DataSink
         _batchSize = batchSize;
     }
 
+    /**
+     * Returns the maximum number of waiting rows, and of mappings from original to inserted
+     * identities, that the sink holds in memory. Default is 0, i.e. no limit.
+     *
+     * @return The maximum number of rows
+     */
+    public int getMaxRowsInMemory()
+    {
+        return _maxRowsInMemory;
+    }
+
+    /**
+     * Sets the maximum number of waiting rows, and of mappings from original to inserted
+     * identities, that the sink holds in memory. Rows and mappings beyond this limit are
+     * written to temporary files and read back when needed, so that data where many rows
+     * arrive before the rows they reference can be inserted with bounded memory. Note that
+     * rows read back from disk may be inserted in a different order than they arrived.
+     *
+     * @param maxRowsInMemory The maximum number of rows, or 0 for no limit
+     */
+    public void setMaxRowsInMemory(int maxRowsInMemory)
+    {
+        _maxRowsInMemory = maxRowsInMemory;
+    }
+
+    /**
+     * Returns the directory where the sink creates its temporary files.
+     *
+     * @return The directory, or <code>null</code> for the default temporary directory
+     */
+    public File getSpillDirectory()
+    {
+        return _spillDirectory;
+    }
+
+    /**
+     * Sets the directory where the sink creates its temporary files when the rows exceed
+     * the {@link #setMaxRowsInMemory(int) memory limit}.
+     *
+     * @param spillDirectory The directory, or <code>null</code> for the default temporary directory
+     */
+    public void setSpillDirectory(File spillDirectory)
+    {
+        _spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Returns the number of waiting rows and identity mappings that have been written to
+     * temporary files since the sink was started.
+     *
+     * @return The number of spilled rows
+     */
+    public long getSpillCount()
+    {
+        return _spillCount;
+    }
+
+    /**
+     * Returns the number of workers that insert the beans in parallel. Default is 1, i.e.
+     * the beans are inserted in the thread that adds them.
+     *
+     * @return The number of workers
+     */
+    public int getWorkerCount()
+    {
+        return _workerCount;
+    }
+
+    /**
+     * Sets the number of workers that insert the beans in parallel. Each worker has its own
+     * thread, its own connection borrowed from the platform, and its own chunk of up to
+     * {@link #getBatchSize() batch size} beans. The tables are distributed over the workers
+     * so that the tables of a circular foreign key chain share a worker. Beans that reference
+     * beans handled by a worker are only inserted after that worker has inserted and committed
+     * the referenced beans. If the sink does not {@link #isEnsureFkOrder() ensure the foreign
+     * key order}, then all tables that are connected via foreign keys share a worker instead,
+     * so that their beans are inserted in the order in which they are added. Errors reported
+     * by the workers are thrown together by the next
+     * call of {@link #addBean(DynaBean)} or {@link #end()} if the sink
+     * {@link #isHaltOnErrors() halts on errors}, otherwise they are logged.
+     *
+     * @param workerCount The number of workers
+     */
+    public void setWorkerCount(int workerCount)
+    {
+        _workerCount = workerCount;
+    }
+
     /**
      * {@inheritDoc}
      */
     public void end() throws DataSinkException
     {
-        purgeBatchQueue();
-        if (_connection != null)
+        try
+        {
+            checkWorkerFailure();
+            if (_openTasks != null)
+            {
+                finishWorkers();
+            }
+            // purging the queue can resolve foreign keys of waiting objects, which
+            // are then added to the queue
+            while (!_batchQueue.isEmpty())
+            {
+                purgeBatchQueue();
+            }
+            if (_connection != null)
+            {
+                try
+                {
+                    _connection.close();
+                }
+                catch (SQLException ex)
+                {
+                    throw new DataSinkException(ex);
+                }
+            }
+
+            int waitingObjectCount = _waitingObjects.size() + _spilledWaitingObjectCount;
+
+            if (waitingObjectCount > 0)
+            {
+                if (_log.isDebugEnabled())
+                {
+                    for (Iterator<WaitingObject> it = _waitingObjects.iterator(); it.hasNext();)
+                    {
+                        WaitingObject obj   = it.next();
+                        Table         table = _model.getDynaClassFor(obj.getObject()).getTable();
+                        Identity      objId = buildIdentityFromPKs(table, obj.getObject());
+
+                        _log.debug("Row " + objId + " is still not written because it depends on these yet unwritten rows");
+                        for (Iterator<Identity> fkIt = obj.getPendingFKs(); fkIt.hasNext();)
+                        {
+                            Identity pendingFkId = fkIt.next();
+
+                            _log.debug("  " + pendingFkId);
+                        }
+                            
+                    }
+                    if (_spilledWaitingObjectCount > 0)
+                    {
+                        _log.debug(_spilledWaitingObjectCount + " more rows that are still not written have been spilled to disk");
+                    }
+                }
+                if (waitingObjectCount == 1)
+                {
+                    throw new DataSinkException("There is one row still not written because of missing referenced rows");
+                }
+                else
+                {
+                    throw new DataSinkException("There are " + waitingObjectCount + " rows still not written because of missing referenced rows");
+                }
+            }
+        }
+        finally
+        {
+            closeSpillFiles();
+            stopWorkers();
+        }
+    }
+
+    /**
+     * Closes and deletes the spill files, discarding the spilled waiting objects and identity mappings.
+     */
+    private void closeSpillFiles()
+    {
+        if (_identitySpill != null)
+        {
+            _identitySpill.close();
+            _identitySpill = null;
+        }
+        if (_waitingObjectSpill != null)
+        {
+            _waitingObjectSpill.close();
+            _waitingObjectSpill = null;
+        }
+        _spilledWaitingObjectCount = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void start() throws DataSinkException
+    {
+        _fkTableNames.clear();
+        _waitingObjects.clear();
+        _waitingObjectsByIdentity.clear();
+        _objectsWithPendingIdentity.clear();
+        closeSpillFiles();
+        _spillCount    = 0;
+        _workerFailure = null;
+        if (_ensureFkOrder)
+        {
+            ForeignKeyGraph fkGraph = _model.getForeignKeyGraph();
+
+            for (int tableIdx = 0; tableIdx < _model.getTableCount(); tableIdx++)
+            {
+                Table table = _model.getTable(tableIdx);
+
+                if (fkGraph.isReferenced(table))
+                {
+                    _fkTableNames.add(table.getName());
+                }
+            }
+        }
+        if (_workerCount > 1)
+        {
+            _connection = null;
+            startWorkers();
+        }
+        else
         {
             try
             {
-                _connection.close();
+                _connection = _platform.borrowConnection();
             }
-            catch (SQLException ex)
+            catch (DatabaseOperationException ex)
             {
                 throw new DataSinkException(ex);
             }
         }
-        if (!_waitingObjects.isEmpty())
+    }
+
+    /**
+     * Returns the tables that are connected to the given table via foreign keys in either
+     * direction, directly or via other tables.
+     * 
+     * @param fkGraph The foreign key graph of the model
+     * @param table   The table
+     * @return The connected tables including the given table
+     */
+    private List<Table> getConnectedTables(ForeignKeyGraph fkGraph, Table table)
+    {
+        List<Table>    result  = new ArrayList<>();
+        HashSet<Table> visited = new HashSet<>();
+
+        result.add(table);
+        visited.add(table);
+        for (int idx = 0; idx < result.size(); idx++)
         {
-            if (_log.isDebugEnabled())
+            Table       curTable      = result.get(idx);
+            List<Table> relatedTables = new ArrayList<>(fkGraph.getReferencedTables(curTable));
+
+            relatedTables.addAll(fkGraph.getReferencingTables(curTable));
+            for (Iterator<Table> it = relatedTables.iterator(); it.hasNext();)
             {
-                for (Iterator it = _waitingObjects.iterator(); it.hasNext();)
+                Table relatedTable = it.next();
+
+                if (visited.add(relatedTable))
                 {
-                    WaitingObject obj   = (WaitingObject)it.next();
-                    Table         table = _model.getDynaClassFor(obj.getObject()).getTable();
-                    Identity      objId = buildIdentityFromPKs(table, obj.getObject());
+                    result.add(relatedTable);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Distributes the tables over the workers, and starts the workers.
+     */
+    private void startWorkers() throws DataSinkException
+    {
+        ForeignKeyGraph fkGraph       = _model.getForeignKeyGraph();
+        List<Table>     tables        = fkGraph.getTopologicalOrder();
+        int             nextWorkerIdx = 0;
 
-                    _log.debug("Row " + objId + " is still not written because it depends on these yet unwritten rows");
-                    for (Iterator fkIt = obj.getPendingFKs(); fkIt.hasNext();)
+        _workerIdxByTableName.clear();
+        for (int tableIdx = 0; tableIdx < tables.size(); tableIdx++)
+        {
+            Table table = tables.get(tableIdx);
+
+            if (!_workerIdxByTableName.containsKey(table.getName()))
+            {
+                // without waiting for referenced beans, only a shared worker keeps the order
+                List<Table> component = _ensureFkOrder ? fkGraph.getCircularComponent(table)
+                                                       : getConnectedTables(fkGraph, table);
+                Integer     workerIdx = Integer.valueOf(nextWorkerIdx);
+
+                _workerIdxByTableName.put(table.getName(), workerIdx);
+                for (int idx = 0; (component != null) && (idx < component.size()); idx++)
+                {
+                    _workerIdxByTableName.put(component.get(idx).getName(), workerIdx);
+                }
+                nextWorkerIdx = (nextWorkerIdx + 1) % _workerCount;
+            }
+        }
+
+        _finishedTasks.clear();
+        _workerErrors.clear();
+        _runningTaskCount  = 0;
+        _workerConnections = new Connection[_workerCount];
+        _workerExecutors   = new ExecutorService[_workerCount];
+        _openTasks         = new InsertTask[_workerCount];
+        try
+        {
+            for (int idx = 0; idx < _workerCount; idx++)
+            {
+                final String threadName = "DataToDatabaseSink-worker-" + idx;
+
+                _workerConnections[idx] = _platform.borrowConnection();
+                _workerExecutors[idx]   = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                    public Thread newThread(Runnable runnable)
                     {
-                        Identity pendingFkId = (Identity)fkIt.next();
+                        Thread thread = new Thread(runnable, threadName);
 
-                        _log.debug("  " + pendingFkId);
+                        thread.setDaemon(true);
+                        return thread;
                     }
-                        
+                });
+                _openTasks[idx] = new InsertTask(this, idx, _workerConnections[idx]);
+            }
+        }
+        catch (DatabaseOperationException ex)
+        {
+            stopWorkers();
+            throw new DataSinkException(ex);
+        }
+    }
+
+    /**
+     * Stops the workers and returns their connections, if the workers are running.
+     */
+    private void stopWorkers()
+    {
+        if (_openTasks == null)
+        {
+            return;
+        }
+        for (int idx = 0; idx < _workerCount; idx++)
+        {
+            if (_workerExecutors[idx] != null)
+            {
+                _workerExecutors[idx].shutdown();
+            }
+        }
+        for (int idx = 0; idx < _workerCount; idx++)
+        {
+            try
+            {
+                if (_workerExecutors[idx] != null)
+                {
+                    _workerExecutors[idx].awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
                 }
             }
-            if (_waitingObjects.size() == 1)
+            catch (InterruptedException ex)
             {
-                throw new DataSinkException("There is one row still not written because of missing referenced rows");
+                Thread.currentThread().interrupt();
             }
-            else
+            if (_workerConnections[idx] != null)
             {
-                throw new DataSinkException("There are " + _waitingObjects.size() + " rows still not written because of missing referenced rows");
+                _platform.returnConnection(_workerConnections[idx]);
             }
         }
+        _workerConnections = null;
+        _workerExecutors   = null;
+        _openTasks         = null;
     }
 
     /**
-     * {@inheritDoc}
+     * Hands the open task of the indicated worker to the worker.
+     * 
+     * @param workerIdx The index of the worker
      */
-    public void start() throws DataSinkException
+    private void submitTask(int workerIdx)
     {
-        _fkTables.clear();
-        _waitingObjects.clear();
-        if (_ensureFkOrder)
+        InsertTask task = _openTasks[workerIdx];
+
+        _openTasks[workerIdx] = new InsertTask(this, workerIdx, _workerConnections[workerIdx]);
+        _runningTaskCount++;
+        _workerExecutors[workerIdx].execute(task);
+    }
+
+    /**
+     * Called by a worker when it has run the given task.
+     * 
+     * @param task The task
+     */
+    void taskFinished(InsertTask task)
+    {
+        _finishedTasks.add(task);
+    }
+
+    /**
+     * Waits until a worker has run a task.
+     * 
+     * @return The task
+     */
+    private InsertTask takeFinishedTask() throws DataSinkException
+    {
+        try
         {
-            for (int tableIdx = 0; tableIdx < _model.getTableCount(); tableIdx++)
+            return _finishedTasks.take();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            _workerFailure = new DataSinkException("Interrupted while waiting for the insertion workers", ex);
+            stopWorkers();
+            throw _workerFailure;
+        }
+    }
+
+    /**
+     * Processes a task that a worker has run. The objects waiting for the beans inserted by
+     * the task are inserted, or handed to the workers.
+     * 
+     * @param task The task
+     */
+    private void processFinishedTask(InsertTask task) throws DataSinkException
+    {
+        _runningTaskCount--;
+        if (_haltOnErrors)
+        {
+            _workerErrors.addAll(task.getErrors());
+        }
+        else
+        {
+            for (int idx = 0; idx < task.getErrors().size(); idx++)
+            {
+                _log.warn("Exception while inserting rows into the database", task.getErrors().get(idx));
+            }
+        }
+        if (_workerErrors.isEmpty())
+        {
+            for (int idx = 0; idx < task.getReferencedObjects().size(); idx++)
+            {
+                WaitingObject insertedObj = task.getReferencedObjects().get(idx);
+                Table         table       = _model.getDynaClassFor(insertedObj.getObject()).getTable();
+
+                processInsertedBean(table, insertedObj.getObject(), insertedObj.getObjectIdentity());
+            }
+        }
+    }
+
+    /**
+     * Processes the tasks that the workers have run so far, and waits for the workers if
+     * too many tasks are pending.
+     */
+    private void processFinishedTasks() throws DataSinkException
+    {
+        InsertTask task = _finishedTasks.poll();
+
+        while (task != null)
+        {
+            processFinishedTask(task);
+            task = _finishedTasks.poll();
+        }
+        while ((_runningTaskCount >= 2 * _workerCount) && _workerErrors.isEmpty())
+        {
+            processFinishedTask(takeFinishedTask());
+        }
+        checkWorkerErrors();
+    }
+
+    /**
+     * Hands the remaining beans to the workers and waits until the workers have inserted all
+     * beans, including those that are released by these insertions.
+     */
+    private void finishWorkers() throws DataSinkException
+    {
+        while (true)
+        {
+            for (int idx = 0; idx < _workerCount; idx++)
+            {
+                if (_openTasks[idx].getBeanCount() > 0)
+                {
+                    submitTask(idx);
+                }
+            }
+            if (_runningTaskCount == 0)
+            {
+                break;
+            }
+            processFinishedTask(takeFinishedTask());
+            checkWorkerErrors();
+        }
+    }
+
+    /**
+     * Throws the error with which the workers failed, if they did. This way the sink stays
+     * in the failed state even if the caller ignores the error and continues to use the sink.
+     */
+    private void checkWorkerFailure() throws DataSinkException
+    {
+        if (_workerFailure != null)
+        {
+            throw _workerFailure;
+        }
+    }
+
+    /**
+     * Throws the errors reported by the workers, if any, after waiting for the running tasks
+     * and stopping the workers. The sink then remains in the failed state.
+     */
+    private void checkWorkerErrors() throws DataSinkException
+    {
+        if (_workerErrors.isEmpty())
+        {
+            return;
+        }
+        while (_runningTaskCount > 0)
+        {
+            _runningTaskCount--;
+            _workerErrors.addAll(takeFinishedTask().getErrors());
+        }
+
+        ArrayList<Exception> errors = new ArrayList<>(_workerErrors);
+
+        _workerErrors.clear();
+        stopWorkers();
+        if (errors.size() == 1)
+        {
+            _workerFailure = new DataSinkException(errors.get(0));
+        }
+        else
+        {
+            _workerFailure = new DataSinkException("There were " + errors.size() + " errors while inserting rows into the database",
+                                                   errors.get(0));
+            for (int idx = 1; idx < errors.size(); idx++)
+            {
+                _workerFailure.addSuppressed(errors.get(idx));
+            }
+        }
+        throw _workerFailure;
+    }
+
+    /**
+     * Inserts the given beans into the database. This is called by the workers with their
+     * own connections.
+     * 
+     * @param connection The connection
+     * @param beans      The beans
+     * @param errors     Receives the errors
+     */
+    void insertBeans(Connection connection, List<DynaBean> beans, List<Exception> errors)
+    {
+        ArrayList<DynaBean> batch = new ArrayList<>();
+
+        for (int idx = 0; idx < beans.size(); idx++)
+        {
+            DynaBean bean  = beans.get(idx);
+            Table    table = _model.getDynaClassFor(bean).getTable();
+
+            // beans whose generated identity is needed, can only be batched if the
+            // platform reads the generated keys in batch mode
+            if (_useBatchMode &&
+                (_platform.getPlatformInfo().isBatchGeneratedKeysSupported() ||
+                 !_fkTableNames.contains(table.getName()) ||
+                 !isIdentityGeneratedByDatabase(table, bean)))
+            {
+                batch.add(bean);
+                continue;
+            }
+            try
             {
-                Table table = _model.getTable(tableIdx);
-    
-                for (int fkIdx = 0; fkIdx < table.getForeignKeyCount(); fkIdx++)
+                insertSingleBean(connection, table, bean);
+            }
+            catch (Exception ex)
+            {
+                errors.add(ex);
+                if (_haltOnErrors)
                 {
-                    ForeignKey curFk = table.getForeignKey(fkIdx);
-    
-                    _fkTables.add(curFk.getForeignTable());
+                    return;
                 }
             }
         }
-        try
-        {
-            _connection = _platform.borrowConnection();
-        }
-        catch (DatabaseOperationException ex)
+        if (!batch.isEmpty())
         {
-            throw new DataSinkException(ex);
+            try
+            {
+                _platform.insert(connection, _model, batch, _useMultiRowInserts);
+                if (!connection.getAutoCommit())
+                {
+                    connection.commit();
+                }
+                if (_log.isDebugEnabled())
+                {
+                    _log.debug("Inserted " + batch.size() + " rows in batch mode ");
+                }
+            }
+            catch (Exception ex)
+            {
+                errors.add(ex);
+            }
         }
     }
 
@@ -288,6 +871,12 @@ public class DataToDatabaseSink implements DataSink
      */
     public void addBean(DynaBean bean) throws DataSinkException
     {
+        checkWorkerFailure();
+        if (_openTasks != null)
+        {
+            processFinishedTasks();
+        }
+
         Table    table        = _model.getDynaClassFor(bean).getTable();
         Identity origIdentity = buildIdentityFromPKs(table, bean);
 
@@ -302,7 +891,7 @@ public class DataToDatabaseSink implements DataSink
 
                 if ((fkIdentity != null) && !fkIdentity.equals(origIdentity))
                 {
-                    Identity processedIdentity = (Identity)_identityMap.get(fkIdentity);
+                    Identity processedIdentity = getProcessedIdentity(fkIdentity);
 
                     if (processedIdentity != null)
                     {
@@ -323,47 +912,333 @@ public class DataToDatabaseSink implements DataSink
                     msg.append("Defering insertion of row ");
                     msg.append(buildIdentityFromPKs(table, bean).toString());
                     msg.append(" because it is waiting for:");
-                    for (Iterator it = waitingObj.getPendingFKs(); it.hasNext();)
+                    for (Iterator<Identity> it = waitingObj.getPendingFKs(); it.hasNext();)
                     {
                         msg.append("\n  ");
                         msg.append(it.next().toString());
                     }
                     _log.debug(msg.toString());
                 }
-                _waitingObjects.add(waitingObj);
+                addWaitingObject(waitingObj);
                 return;
             }
         }
 
-        insertBeanIntoDatabase(table, bean);
+        boolean identityPending = insertBeanIntoDatabase(table, bean, origIdentity);
 
         if (_log.isDebugEnabled())
         {
             _log.debug("Inserted bean " + origIdentity);
         }
 
-        if (_ensureFkOrder && _fkTables.contains(table))
+        if (!identityPending)
+        {
+            processInsertedBean(table, bean, origIdentity);
+        }
+    }
+
+    /**
+     * Registers the given object as waiting for its pending foreign keys. If the memory limit
+     * for waiting objects is reached, then the object is written to the spill file instead.
+     * 
+     * @param waitingObj The waiting object
+     */
+    private void addWaitingObject(WaitingObject waitingObj) throws DataSinkException
+    {
+        if ((_maxRowsInMemory > 0) && (_waitingObjects.size() >= _maxRowsInMemory))
+        {
+            spillWaitingObject(waitingObj);
+            return;
+        }
+        _waitingObjects.add(waitingObj);
+        for (Iterator<Identity> it = waitingObj.getPendingFKs(); it.hasNext();)
+        {
+            Identity                 pendingFkId = it.next();
+            ArrayList<WaitingObject> waitingObjs = _waitingObjectsByIdentity.get(pendingFkId);
+
+            if (waitingObjs == null)
+            {
+                waitingObjs = new ArrayList<>();
+                _waitingObjectsByIdentity.put(pendingFkId, waitingObjs);
+            }
+            waitingObjs.add(waitingObj);
+        }
+    }
+
+    /**
+     * Writes the given waiting object to the spill file, indexed by the identities that it
+     * waits for.
+     * 
+     * @param waitingObj The waiting object
+     */
+    private void spillWaitingObject(WaitingObject waitingObj) throws DataSinkException
+    {
+        try
+        {
+            if (_waitingObjectSpill == null)
+            {
+                _waitingObjectSpill = new SpillFile(_spillDirectory, "ddlutils-rows");
+            }
+
+            ByteArrayOutputStream record = SpillCodec.newRecord();
+            DataOutputStream      out    = new DataOutputStream(record);
+            DynaBean              bean   = waitingObj.getObject();
+
+            SpillCodec.writeIdentity(out, waitingObj.getObjectIdentity());
+            out.writeInt(waitingObj.getPendingFKCount());
+            for (Iterator<Identity> it = waitingObj.getPendingFKs(); it.hasNext();)
+            {
+                SpillCodec.writeIdentity(out, it.next());
+            }
+
+            List<SqlDynaProperty> properties = _model.getDynaClassFor(bean).getSqlDynaPropertyList();
+
+            for (int idx = 0; idx < properties.size(); idx++)
+            {
+                SpillCodec.writeValue(out, bean.get(properties.get(idx).getName()));
+            }
+            out.flush();
+
+            long position = _waitingObjectSpill.append(record.toByteArray());
+
+            for (Iterator<Identity> it = waitingObj.getPendingFKs(); it.hasNext();)
+            {
+                _waitingObjectSpill.index(it.next().hashCode(), position);
+            }
+            _spilledWaitingObjectCount++;
+            _spillCount++;
+        }
+        catch (IOException ex)
+        {
+            throw new DataSinkException("Could not write a deferred row to the spill file", ex);
+        }
+    }
+
+    /**
+     * Reads the spilled objects that wait for the given identity, and removes them from the
+     * spill file.
+     * 
+     * @param identity The identity
+     * @return The waiting objects, or <code>null</code> if there are none
+     */
+    private ArrayList<WaitingObject> readSpilledWaitingObjects(Identity identity) throws DataSinkException
+    {
+        if (_spilledWaitingObjectCount == 0)
+        {
+            return null;
+        }
+
+        ArrayList<WaitingObject> result    = null;
+        int                      hash      = identity.hashCode();
+        long[]                   positions = _waitingObjectSpill.find(hash);
+
+        try
+        {
+            for (int idx = 0; idx < positions.length; idx++)
+            {
+                WaitingObject waitingObj = readWaitingObject(positions[idx]);
+                boolean       isWaiting  = false;
+
+                // the index only knows hash codes, so we have to check the identity
+                for (Iterator<Identity> it = waitingObj.getPendingFKs(); it.hasNext() && !isWaiting;)
+                {
+                    isWaiting = identity.equals(it.next());
+                }
+                if (!isWaiting || !_waitingObjectSpill.unindex(hash, positions[idx]))
+                {
+                    continue;
+                }
+                for (Iterator<Identity> it = waitingObj.getPendingFKs(); it.hasNext();)
+                {
+                    Identity pendingFkId = it.next();
+
+                    if (!identity.equals(pendingFkId))
+                    {
+                        _waitingObjectSpill.unindex(pendingFkId.hashCode(), positions[idx]);
+                    }
+                }
+                _spilledWaitingObjectCount--;
+                if (result == null)
+                {
+                    result = new ArrayList<>();
+                }
+                result.add(waitingObj);
+            }
+        }
+        catch (IOException ex)
+        {
+            throw new DataSinkException("Could not read a deferred row from the spill file", ex);
+        }
+        return result;
+    }
+
+    /**
+     * Reads the waiting object at the given position of the spill file.
+     * 
+     * @param position The position
+     * @return The waiting object
+     */
+    private WaitingObject readWaitingObject(long position) throws IOException
+    {
+        DataInputStream in          = SpillCodec.openRecord(_waitingObjectSpill.read(position));
+        Identity        objIdentity = SpillCodec.readIdentity(in, _model);
+        Table           table       = objIdentity.getTable();
+        int             fkCount     = in.readInt();
+        List<Identity>  pendingFks  = new ArrayList<>(fkCount);
+
+        for (int idx = 0; idx < fkCount; idx++)
+        {
+            pendingFks.add(SpillCodec.readIdentity(in, _model));
+        }
+
+        DynaBean              bean       = _model.createDynaBeanFor(table);
+        List<SqlDynaProperty> properties = _model.getDynaClassFor(bean).getSqlDynaPropertyList();
+
+        for (int idx = 0; idx < properties.size(); idx++)
+        {
+            Object value = SpillCodec.readValue(in);
+
+            if (value != null)
+            {
+                bean.set(properties.get(idx).getName(), value);
+            }
+        }
+
+        WaitingObject waitingObj = new WaitingObject(bean, objIdentity);
+
+        for (int idx = 0; idx < pendingFks.size(); idx++)
+        {
+            waitingObj.addPendingFK(pendingFks.get(idx));
+        }
+        return waitingObj;
+    }
+
+    /**
+     * Returns the identity under which the object with the given original identity has been
+     * inserted into the database.
+     * 
+     * @param origIdentity The original identity
+     * @return The identity of the inserted object, or <code>null</code> if the object has not
+     *         been inserted yet
+     */
+    private Identity getProcessedIdentity(Identity origIdentity) throws DataSinkException
+    {
+        Identity result = _identityMap.get(origIdentity);
+
+        if ((result == null) && (_identitySpill != null))
+        {
+            long[] positions = _identitySpill.find(origIdentity.hashCode());
+
+            try
+            {
+                for (int idx = 0; (idx < positions.length) && (result == null); idx++)
+                {
+                    DataInputStream in = SpillCodec.openRecord(_identitySpill.read(positions[idx]));
+
+                    if (origIdentity.equals(SpillCodec.readIdentity(in, _model)))
+                    {
+                        result = SpillCodec.readIdentity(in, _model);
+                    }
+                }
+            }
+            catch (IOException ex)
+            {
+                throw new DataSinkException("Could not read an identity from the spill file", ex);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Registers the identity under which an object has been inserted into the database. If
+     * the memory limit for identities is exceeded, then the least recently used mapping is
+     * written to the spill file.
+     * 
+     * @param origIdentity The original identity of the object
+     * @param newIdentity  The identity of the inserted object
+     */
+    private void addProcessedIdentity(Identity origIdentity, Identity newIdentity) throws DataSinkException
+    {
+        _identityMap.put(origIdentity, newIdentity);
+        if ((_maxRowsInMemory > 0) && (_identityMap.size() > _maxRowsInMemory))
+        {
+            Iterator<Map.Entry<Identity, Identity>> it     = _identityMap.entrySet().iterator();
+            Map.Entry<Identity, Identity>           eldest = it.next();
+
+            it.remove();
+            try
+            {
+                if (_identitySpill == null)
+                {
+                    _identitySpill = new SpillFile(_spillDirectory, "ddlutils-identities");
+                }
+
+                ByteArrayOutputStream record = SpillCodec.newRecord();
+                DataOutputStream      out    = new DataOutputStream(record);
+
+                SpillCodec.writeIdentity(out, eldest.getKey());
+                SpillCodec.writeIdentity(out, eldest.getValue());
+                out.flush();
+                _identitySpill.index(eldest.getKey().hashCode(), _identitySpill.append(record.toByteArray()));
+                _spillCount++;
+            }
+            catch (IOException ex)
+            {
+                throw new DataSinkException("Could not write an identity to the spill file", ex);
+            }
+        }
+    }
+
+    /**
+     * Inserts the waiting objects whose foreign keys point to the given bean which has just
+     * been inserted into the database, and whose identity is therefore known now.
+     * 
+     * @param table        The table of the bean
+     * @param bean         The bean
+     * @param origIdentity The original identity of the bean
+     */
+    private void processInsertedBean(Table table, DynaBean bean, Identity origIdentity) throws DataSinkException
+    {
+        if (_ensureFkOrder && _fkTableNames.contains(table.getName()))
         {
-            Identity  newIdentity  = buildIdentityFromPKs(table, bean);
-            ArrayList finishedObjs = new ArrayList();
+            Identity            newIdentity  = buildIdentityFromPKs(table, bean);
+            ArrayList<DynaBean> finishedObjs = new ArrayList<>();
 
-            _identityMap.put(origIdentity, newIdentity);
+            addProcessedIdentity(origIdentity, newIdentity);
 
             // we're doing multiple passes so that we can insert as much objects in
-            // one go as possible
-            ArrayList identitiesToCheck = new ArrayList();
+            // one go as possible; the objects waiting for an identity are looked up
+            // in the index instead of checking all waiting objects
+            ArrayDeque<Identity> identitiesToCheck = new ArrayDeque<>();
 
             identitiesToCheck.add(origIdentity);
-            while (!identitiesToCheck.isEmpty() && !_waitingObjects.isEmpty())
+            while (!identitiesToCheck.isEmpty() && (!_waitingObjects.isEmpty() || (_spilledWaitingObjectCount > 0)))
             {
-                Identity curIdentity    = (Identity)identitiesToCheck.get(0);
-                Identity curNewIdentity = (Identity)_identityMap.get(curIdentity);
+                Identity                 curIdentity    = identitiesToCheck.poll();
+                Identity                 curNewIdentity = getProcessedIdentity(curIdentity);
+                ArrayList<WaitingObject> waitingObjs    = _waitingObjectsByIdentity.remove(curIdentity);
+                ArrayList<WaitingObject> spilledObjs    = readSpilledWaitingObjects(curIdentity);
+                int                      inMemoryCount  = waitingObjs == null ? 0 : waitingObjs.size();
 
-                identitiesToCheck.remove(0);
+                if (spilledObjs != null)
+                {
+                    if (waitingObjs == null)
+                    {
+                        waitingObjs = spilledObjs;
+                    }
+                    else
+                    {
+                        waitingObjs.addAll(spilledObjs);
+                    }
+                }
+                if (waitingObjs == null)
+                {
+                    continue;
+                }
                 finishedObjs.clear();
-                for (Iterator waitingObjIt = _waitingObjects.iterator(); waitingObjIt.hasNext();)
+                for (int idx = 0; idx < waitingObjs.size(); idx++)
                 {
-                    WaitingObject waitingObj = (WaitingObject)waitingObjIt.next();
+                    WaitingObject waitingObj = waitingObjs.get(idx);
                     Identity      fkIdentity = waitingObj.removePendingFK(curIdentity);
 
                     if (fkIdentity != null)
@@ -372,22 +1247,30 @@ public class DataToDatabaseSink implements DataSink
                     }
                     if (!waitingObj.hasPendingFKs())
                     {
-                        waitingObjIt.remove();
-                        // we defer handling of the finished objects to avoid concurrent modification exceptions
+                        _waitingObjects.remove(waitingObj);
                         finishedObjs.add(waitingObj.getObject());
                     }
+                    else if (idx >= inMemoryCount)
+                    {
+                        // a spilled object that still waits for other objects
+                        addWaitingObject(waitingObj);
+                    }
                 }
-                for (Iterator finishedObjIt = finishedObjs.iterator(); finishedObjIt.hasNext();)
+                for (Iterator<DynaBean> finishedObjIt = finishedObjs.iterator(); finishedObjIt.hasNext();)
                 {
-                    DynaBean finishedObj = (DynaBean)finishedObjIt.next();
+                    DynaBean finishedObj = finishedObjIt.next();
                     Table    tableForObj = _model.getDynaClassFor(finishedObj).getTable();
                     Identity objIdentity = buildIdentityFromPKs(tableForObj, finishedObj);
 
-                    insertBeanIntoDatabase(tableForObj, finishedObj);
+                    if (insertBeanIntoDatabase(tableForObj, finishedObj, objIdentity))
+                    {
+                        // the objects waiting for this one are processed when the batch is purged
+                        continue;
+                    }
                     
                     Identity newObjIdentity = buildIdentityFromPKs(tableForObj, finishedObj);
 
-                    _identityMap.put(objIdentity, newObjIdentity);
+                    addProcessedIdentity(objIdentity, newObjIdentity);
                     identitiesToCheck.add(objIdentity);
                     if (_log.isDebugEnabled())
                     {
@@ -399,24 +1282,86 @@ public class DataToDatabaseSink implements DataSink
     }
 
     /**
-     * Inserts the bean into the database or batch queue.
+     * Determines whether the database generates (part of) the primary key of the given bean
+     * when inserting it, i.e. whether its identity changes by the insertion.
      * 
-     * @param table The table
+     * @param table The table of the bean
      * @param bean  The bean
+     * @return <code>true</code> if the database generates a primary key value
+     */
+    private boolean isIdentityGeneratedByDatabase(Table table, DynaBean bean)
+    {
+        for (int idx = 0; idx < table.getPrimaryKeyColumnCount(); idx++)
+        {
+            Column pkColumn = table.getPrimaryKeyColumn(idx);
+
+            if (pkColumn.isAutoIncrement() &&
+                ((bean.get(pkColumn.getName()) == null) ||
+                 !_platform.isIdentityOverrideOn() ||
+                 !_platform.getPlatformInfo().isIdentityOverrideAllowed()))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Inserts the bean into the database or batch queue. If the bean is queued, other beans
+     * may reference it, and its identity is generated by the database, then the identity is
+     * only known after the batch has been purged (the platform reads the generated keys
+     * in that case). If the platform is not able to do that, the bean is inserted directly.
+     * If there are workers, then the bean is handed to the worker for its table, and other
+     * beans may only reference it once the worker has inserted it.
+     * 
+     * @param table        The table
+     * @param bean         The bean
+     * @param origIdentity The original identity of the bean
+     * @return <code>true</code> if the new identity of the bean is not known yet; the beans
+     *         waiting for it are then processed when the batch is purged or the worker has
+     *         inserted it
      */
-    private void insertBeanIntoDatabase(Table table, DynaBean bean) throws DataSinkException
+    private boolean insertBeanIntoDatabase(Table table, DynaBean bean, Identity origIdentity) throws DataSinkException
     {
-        if (_useBatchMode)
+        if (_openTasks != null)
+        {
+            // the beans that reference this one have to wait until the worker has committed it
+            boolean identityPending = _ensureFkOrder && _fkTableNames.contains(table.getName());
+            int     workerIdx       = _workerIdxByTableName.get(table.getName()).intValue();
+
+            _openTasks[workerIdx].addBean(bean, identityPending ? new WaitingObject(bean, origIdentity) : null);
+            if (_openTasks[workerIdx].getBeanCount() >= _batchSize)
+            {
+                submitTask(workerIdx);
+            }
+            return identityPending;
+        }
+        else if (_useBatchMode)
         {
+            boolean identityPending = _ensureFkOrder && _fkTableNames.contains(table.getName()) && isIdentityGeneratedByDatabase(table, bean);
+
+            if (identityPending && !_platform.getPlatformInfo().isBatchGeneratedKeysSupported())
+            {
+                // the queued beans may be referenced by this one so they have to go first
+                purgeBatchQueue();
+                insertSingleBeanIntoDatabase(table, bean);
+                return false;
+            }
             _batchQueue.add(bean);
+            if (identityPending)
+            {
+                _objectsWithPendingIdentity.add(new WaitingObject(bean, origIdentity));
+            }
             if (_batchQueue.size() >= _batchSize)
             {
                 purgeBatchQueue();
             }
+            return identityPending;
         }
         else
         {
             insertSingleBeanIntoDatabase(table, bean);
+            return false;
         }
     }
 
@@ -429,7 +1374,7 @@ public class DataToDatabaseSink implements DataSink
         {
             try
             {
-                _platform.insert(_connection, _model, _batchQueue);
+                _platform.insert(_connection, _model, _batchQueue, _useMultiRowInserts);
                 if (!_connection.getAutoCommit())
                 {
                     _connection.commit();
@@ -452,6 +1397,19 @@ public class DataToDatabaseSink implements DataSink
                 }
             }
             _batchQueue.clear();
+
+            // now the generated identities are known and we can process the objects
+            // that wait for them (which might be added to the queue again)
+            ArrayList<WaitingObject> insertedObjs = new ArrayList<>(_objectsWithPendingIdentity);
+
+            _objectsWithPendingIdentity.clear();
+            for (Iterator<WaitingObject> it = insertedObjs.iterator(); it.hasNext();)
+            {
+                WaitingObject insertedObj = it.next();
+                Table         table       = _model.getDynaClassFor(insertedObj.getObject()).getTable();
+
+                processInsertedBean(table, insertedObj.getObject(), insertedObj.getObjectIdentity());
+            }
         }
     }
     
@@ -465,76 +1423,88 @@ public class DataToDatabaseSink implements DataSink
     {
         try
         {
-            boolean    needTwoStepInsert = false;
-            ForeignKey selfRefFk         = null;
-
-            if (!_platform.isIdentityOverrideOn() &&
-                _tablesWithSelfIdentityReference.contains(table))
+            insertSingleBean(_connection, table, bean);
+        }
+        catch (Exception ex)
+        {
+            if (_haltOnErrors)
+            {
+                _platform.returnConnection(_connection);
+                throw new DataSinkException(ex);
+            }
+            else
             {
-                selfRefFk = table.getSelfReferencingForeignKey();
+                _log.warn("Exception while inserting a row into the database", ex);
+            }
+        }
+    }
 
-                // in case of a self-reference (fk points to the very row that we're inserting)
-                // and (at least) one of the pk columns is an identity column, we first need
-                // to insert the row with the fk columns set to null
-                Identity pkIdentity = buildIdentityFromPKs(table, bean);
-                Identity fkIdentity = buildIdentityFromFK(table, selfRefFk, bean);
+    /**
+     * Inserts the given bean into the database via the given connection.
+     * 
+     * @param connection The connection
+     * @param table      The table of the bean
+     * @param bean       The bean
+     */
+    private void insertSingleBean(Connection connection, Table table, DynaBean bean) throws Exception
+    {
+        boolean    needTwoStepInsert = false;
+        ForeignKey selfRefFk         = null;
 
-                if (pkIdentity.equals(fkIdentity))
-                {
-                    if (_tablesWithRequiredSelfReference.contains(table))
-                    {
-                        throw new DataSinkException("Can only insert rows with fk pointing to themselves when all fk columns can be NULL (row pk is " + pkIdentity + ")");
-                    }
-                    else
-                    {
-                        needTwoStepInsert = true;
-                    }
-                }
-            }
+        if (!_platform.isIdentityOverrideOn() &&
+            _tableNamesWithSelfIdentityReference.contains(table.getName()))
+        {
+            selfRefFk = table.getSelfReferencingForeignKey();
 
-            if (needTwoStepInsert)
-            {
-                // we first insert the bean without the fk, then in the second step we update the bean
-                // with the row with the identity pk values
-                ArrayList fkValues = new ArrayList();
+            // in case of a self-reference (fk points to the very row that we're inserting)
+            // and (at least) one of the pk columns is an identity column, we first need
+            // to insert the row with the fk columns set to null
+            Identity pkIdentity = buildIdentityFromPKs(table, bean);
+            Identity fkIdentity = buildIdentityFromFK(table, selfRefFk, bean);
 
-                for (int idx = 0; idx < selfRefFk.getReferenceCount(); idx++)
+            if (pkIdentity.equals(fkIdentity))
+            {
+                if (_tableNamesWithRequiredSelfReference.contains(table.getName()))
                 {
-                    String columnName = selfRefFk.getReference(idx).getLocalColumnName();
-
-                    fkValues.add(bean.get(columnName));
-                    bean.set(columnName, null);
+                    throw new DataSinkException("Can only insert rows with fk pointing to themselves when all fk columns can be NULL (row pk is " + pkIdentity + ")");
                 }
-                _platform.insert(_connection, _model, bean);
-                for (int idx = 0; idx < selfRefFk.getReferenceCount(); idx++)
+                else
                 {
-                    bean.set(selfRefFk.getReference(idx).getLocalColumnName(), fkValues.get(idx));
+                    needTwoStepInsert = true;
                 }
-                _platform.update(_connection, _model, bean);
-            }
-            else
-            {
-                _platform.insert(_connection, _model, bean);
-            }
-            if (!_connection.getAutoCommit())
-            {
-                _connection.commit();
             }
         }
-        catch (Exception ex)
+
+        if (needTwoStepInsert)
         {
-            if (_haltOnErrors)
+            // we first insert the bean without the fk, then in the second step we update the bean
+            // with the row with the identity pk values
+            ArrayList<Object> fkValues = new ArrayList<>();
+
+            for (int idx = 0; idx < selfRefFk.getReferenceCount(); idx++)
             {
-                _platform.returnConnection(_connection);
-                throw new DataSinkException(ex);
+                String columnName = selfRefFk.getReference(idx).getLocalColumnName();
+
+                fkValues.add(bean.get(columnName));
+                bean.set(columnName, null);
             }
-            else
+            _platform.insert(connection, _model, bean);
+            for (int idx = 0; idx < selfRefFk.getReferenceCount(); idx++)
             {
-                _log.warn("Exception while inserting a row into the database", ex);
+                bean.set(selfRefFk.getReference(idx).getLocalColumnName(), fkValues.get(idx));
             }
+            _platform.update(connection, _model, bean);
+        }
+        else
+        {
+            _platform.insert(connection, _model, bean);
+        }
+        if (!connection.getAutoCommit())
+        {
+            connection.commit();
         }
     }
-    
+
     /**
      * Returns the name of the given foreign key. If it has no name, then a temporary one
      * is generated from the names of the relevant tables and columns.
@@ -589,12 +1559,13 @@ public class DataToDatabaseSink implements DataSink
      */
     private Identity buildIdentityFromPKs(Table table, DynaBean bean)
     {
-        Identity identity  = new Identity(table);
-        Column[] pkColumns = table.getPrimaryKeyColumns();
+        Identity identity = new Identity(table);
 
-        for (int idx = 0; idx < pkColumns.length; idx++)
+        for (int idx = 0; idx < table.getPrimaryKeyColumnCount(); idx++)
         {
-            identity.setColumnValue(pkColumns[idx].getName(), bean.get(pkColumns[idx].getName()));
+            String pkColumnName = table.getPrimaryKeyColumn(idx).getName();
+
+            identity.setColumnValue(pkColumnName, bean.get(pkColumnName));
         }
         return identity;
     }
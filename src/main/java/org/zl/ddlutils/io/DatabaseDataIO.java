@@ -19,6 +19,7 @@ package org.zl.ddlutils.io;
  * under the License.
  */
 
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -28,16 +29,23 @@ import java.io.Writer;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
-import org.apache.commons.collections.map.ListOrderedMap;
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.zl.ddlutils.DdlUtilsException;
 import org.zl.ddlutils.Platform;
 import org.zl.ddlutils.model.Column;
 import org.zl.ddlutils.model.Database;
+import org.zl.ddlutils.model.ForeignKeyGraph;
 import org.zl.ddlutils.model.Table;
 
 /**
@@ -47,6 +55,9 @@ import org.zl.ddlutils.model.Table;
  */
 public class DatabaseDataIO
 {
+    /** The log. */
+    private final Log _log = LogFactory.getLog(DatabaseDataIO.class);
+
     /** The converters to use for converting between data and its XML representation. */
     private ArrayList<DataConverterRegistration> _converters = new ArrayList<>();
     /** Whether we should continue when an error was detected. */
@@ -55,8 +66,20 @@ public class DatabaseDataIO
     private boolean _ensureFKOrder = true;
     /** Whether we should use batch mode. */
     private boolean _useBatchMode;
+    /** Whether batch mode inserts use multi-row insert statements. */
+    private boolean _useMultiRowInserts;
     /** The maximum number of objects to insert in one batch. */
     private Integer _batchSize;
+    /** Whether the data of the tables is streamed from the database when writing it to XML. */
+    private boolean _useStreamingQueries = true;
+    /** Whether the data is inserted into the database in a separate thread while the XML is parsed. */
+    private boolean _usePipelining;
+    /** The number of threads that read data files in parallel. */
+    private int _readerThreadCount = 1;
+    /** The number of workers that insert the data into the database in parallel. */
+    private int _insertWorkerCount = 1;
+    /** Whether data files are only read once the files with the referenced rows have been read. */
+    private boolean _scheduleFilesInFKOrder;
 
     /** Whether DdlUtils should search for the schema of the tables. @deprecated */
     private boolean _determineSchema;
@@ -113,6 +136,146 @@ public class DatabaseDataIO
         _useBatchMode = useBatchMode;
     }
 
+    /**
+     * Determines whether batch mode inserts use multi-row insert statements if the
+     * platform supports them.
+     * 
+     * @return <code>true</code> if multi-row inserts are used
+     */
+    public boolean getUseMultiRowInserts()
+    {
+        return _useMultiRowInserts;
+    }
+
+    /**
+     * Specifies whether batch mode inserts should use multi-row insert statements if
+     * the platform supports them.
+     * 
+     * @param useMultiRowInserts <code>true</code> if multi-row inserts shall be used
+     */
+    public void setUseMultiRowInserts(boolean useMultiRowInserts)
+    {
+        _useMultiRowInserts = useMultiRowInserts;
+    }
+
+    /**
+     * Determines whether the data of the tables is streamed from the database when
+     * writing it to XML (see {@link Platform#setStreamingQueryModeOn(boolean)}).
+     * 
+     * @return <code>true</code> if the data is streamed (the default)
+     */
+    public boolean getUseStreamingQueries()
+    {
+        return _useStreamingQueries;
+    }
+
+    /**
+     * Specifies whether the data of the tables shall be streamed from the database when
+     * writing it to XML. If not, then the streaming query mode of the platform is used.
+     * 
+     * @param useStreamingQueries <code>true</code> if the data shall be streamed
+     */
+    public void setUseStreamingQueries(boolean useStreamingQueries)
+    {
+        _useStreamingQueries = useStreamingQueries;
+    }
+
+    /**
+     * Determines whether the data is inserted into the database in a separate thread
+     * while the XML is parsed.
+     * 
+     * @return <code>true</code> if parsing and inserting are pipelined
+     */
+    public boolean getUsePipelining()
+    {
+        return _usePipelining;
+    }
+
+    /**
+     * Specifies whether the data shall be inserted into the database in a separate thread
+     * while the XML is parsed, so that parsing does not wait for the database and vice versa.
+     * The sink of the configured data reader is then a {@link PipelinedDataSink} around the
+     * {@link DataToDatabaseSink}.
+     * 
+     * @param usePipelining <code>true</code> if parsing and inserting shall be pipelined
+     */
+    public void setUsePipelining(boolean usePipelining)
+    {
+        _usePipelining = usePipelining;
+    }
+
+    /**
+     * Returns the number of threads that read data files in parallel when writing
+     * multiple files to the database. Default is 1.
+     * 
+     * @return The number of threads
+     */
+    public int getReaderThreadCount()
+    {
+        return _readerThreadCount;
+    }
+
+    /**
+     * Specifies the number of threads that read data files in parallel when writing multiple
+     * files to the database via {@link #writeDataToDatabase(Platform, Database, String[])}.
+     * Each file gets its own data reader; the readers hand the beans to one shared
+     * {@link DataToDatabaseSink} running in its own thread, so that rows can reference rows
+     * in other files. To insert in parallel as well, see {@link #setInsertWorkerCount(int)}.
+     * Note that registered converters are then used by several threads at the same time.
+     * 
+     * @param readerThreadCount The number of threads
+     */
+    public void setReaderThreadCount(int readerThreadCount)
+    {
+        _readerThreadCount = readerThreadCount;
+    }
+
+    /**
+     * Returns the number of workers that insert the data into the database in parallel.
+     * Default is 1.
+     * 
+     * @return The number of workers
+     */
+    public int getInsertWorkerCount()
+    {
+        return _insertWorkerCount;
+    }
+
+    /**
+     * Specifies the number of workers that insert the data into the database in parallel,
+     * each with its own connection (see {@link DataToDatabaseSink#setWorkerCount(int)}).
+     * 
+     * @param insertWorkerCount The number of workers
+     */
+    public void setInsertWorkerCount(int insertWorkerCount)
+    {
+        _insertWorkerCount = insertWorkerCount;
+    }
+
+    /**
+     * Determines whether data files read in parallel are scheduled in foreign key order.
+     * 
+     * @return <code>true</code> if files are scheduled in foreign key order
+     */
+    public boolean isScheduleFilesInFKOrder()
+    {
+        return _scheduleFilesInFKOrder;
+    }
+
+    /**
+     * Specifies whether data files read in parallel shall be scheduled in foreign key order.
+     * The table of each file is determined from its first row; a file is then only read
+     * once all files of the tables that its table references have been read, except for
+     * tables in the same foreign key cycle. This way, fewer rows have to wait for the rows
+     * that they reference.
+     * 
+     * @param scheduleFilesInFKOrder <code>true</code> if files shall be scheduled in foreign key order
+     */
+    public void setScheduleFilesInFKOrder(boolean scheduleFilesInFKOrder)
+    {
+        _scheduleFilesInFKOrder = scheduleFilesInFKOrder;
+    }
+
     /**
      * Returns the batch size override.
      * 
@@ -377,7 +540,7 @@ public class DatabaseDataIO
 
         // TODO: An advanced algorithm could be employed here that writes individual
         //       objects related by foreign keys, in the correct order
-        List<Table> tables = sortTables(model.getTables());
+        List<Table> tables = model.getForeignKeyGraph().getTopologicalOrder();
 
         writer.writeDocumentStart();
         for (Iterator<Table> it = tables.iterator(); it.hasNext();)
@@ -387,82 +550,6 @@ public class DatabaseDataIO
         writer.writeDocumentEnd();
     }
 
-    /**
-     * Sorts the given table according to their foreign key order.
-     * 
-     * @param tables The tables
-     * @return The sorted tables
-     */
-    private List<Table> sortTables(Table[] tables)
-    {
-        ArrayList<Table>      result    = new ArrayList<>();
-        HashSet<Table>        processed = new HashSet<Table>();
-        ListOrderedMap pending   = new ListOrderedMap();
-
-        for (int idx = 0; idx < tables.length; idx++)
-        {
-            Table table = tables[idx];
-
-            if (table.getForeignKeyCount() == 0)
-            {
-                result.add(table);
-                processed.add(table);
-            }
-            else
-            {
-                HashSet<Table> waitedFor = new HashSet<>();
-
-                for (int fkIdx = 0; fkIdx < table.getForeignKeyCount(); fkIdx++)
-                {
-                    Table waitedForTable = table.getForeignKey(fkIdx).getForeignTable();
-
-                    if (!table.equals(waitedForTable))
-                    {
-                        waitedFor.add(waitedForTable);
-                    }
-                }
-                pending.put(table, waitedFor);
-            }
-        }
-
-        HashSet<Table> newProcessed = new HashSet<>();
-
-        while (!processed.isEmpty() && !pending.isEmpty())
-        {
-            newProcessed.clear();
-            for (@SuppressWarnings("rawtypes")
-			Iterator it = pending.entrySet().iterator(); it.hasNext();)
-            {
-                @SuppressWarnings("rawtypes")
-				Map.Entry entry     = (Map.Entry)it.next();
-                Table     table     = (Table)entry.getKey();
-                @SuppressWarnings("unchecked")
-				HashSet<Table>   waitedFor = (HashSet<Table>)entry.getValue();
-
-                waitedFor.removeAll(processed);
-                if (waitedFor.isEmpty())
-                {
-                    it.remove();
-                    result.add(table);
-                    newProcessed.add(table);
-                }
-            }
-            processed.clear();
-
-            HashSet<Table> tmp = processed;
-
-            processed    = newProcessed;
-            newProcessed = tmp;
-        }
-        // the remaining are within circular dependencies
-        for (@SuppressWarnings("unchecked")
-		Iterator<Table> it = pending.keySet().iterator(); it.hasNext();)
-        {
-            result.add(it.next());
-        }
-        return result;
-    }
-    
     /**
      * Writes the data contained in a single table to XML.
      * 
@@ -543,7 +630,10 @@ public class DatabaseDataIO
             query.append(platform.getPlatformInfo().getDelimiterToken());
         }
 
-        writer.write(platform.query(model, query.toString(), tables));
+        Iterator<DynaBean> rows = platform.query(model, query.toString(), tables,
+                                                 _useStreamingQueries || platform.isStreamingQueryModeOn());
+
+        writer.write(rows);
     }
 
     /**
@@ -557,17 +647,45 @@ public class DatabaseDataIO
      */
     public DataReader getConfiguredDataReader(Platform platform, Database model) throws DdlUtilsException
     {
-        DataToDatabaseSink sink     = new DataToDatabaseSink(platform, model);
-        DataReader         reader   = new DataReader();
+        DataToDatabaseSink sink = createDatabaseSink(platform, model);
+
+        return createDataReader(model, _usePipelining ? (DataSink)new PipelinedDataSink(sink) : sink);
+    }
+
+    /**
+     * Creates a sink that writes to the database to which the given platform is connected.
+     * 
+     * @param platform The platform
+     * @param model    The model
+     * @return The sink
+     */
+    private DataToDatabaseSink createDatabaseSink(Platform platform, Database model)
+    {
+        DataToDatabaseSink sink = new DataToDatabaseSink(platform, model);
 
         sink.setHaltOnErrors(_failOnError);
         sink.setEnsureForeignKeyOrder(_ensureFKOrder);
         sink.setUseBatchMode(_useBatchMode);
+        sink.setUseMultiRowInserts(_useMultiRowInserts);
+        sink.setWorkerCount(_insertWorkerCount);
         if (_batchSize != null)
         {
             sink.setBatchSize(_batchSize.intValue());
         }
-        
+        return sink;
+    }
+
+    /**
+     * Creates a data reader for the given model and sink.
+     * 
+     * @param model The model
+     * @param sink  The sink
+     * @return The data reader
+     */
+    private DataReader createDataReader(Database model, DataSink sink) throws DdlUtilsException
+    {
+        DataReader reader = new DataReader();
+
         reader.setModel(model);
         reader.setSink(sink);
         registerConverters(reader.getConverterConfiguration());
@@ -624,14 +742,33 @@ public class DatabaseDataIO
      */
     public void writeDataToDatabase(Platform platform, Database model, String[] files) throws DdlUtilsException
     {
+        if ((_readerThreadCount > 1) && (files != null) && (files.length > 1))
+        {
+            writeDataToDatabaseInParallel(platform, model, files);
+            return;
+        }
+
         DataReader dataReader = getConfiguredDataReader(platform, model); 
+        boolean    finished   = false;
 
         dataReader.getSink().start();
-        for (int idx = 0; (files != null) && (idx < files.length); idx++)
+        try
         {
-            writeDataToDatabase(dataReader, files[idx]);
+            for (int idx = 0; (files != null) && (idx < files.length); idx++)
+            {
+                writeDataToDatabase(dataReader, files[idx]);
+            }
+            // if ending fails, then the sink has already cleaned up after itself
+            finished = true;
+            dataReader.getSink().end();
+        }
+        finally
+        {
+            if (!finished)
+            {
+                cancelSink(dataReader.getSink());
+            }
         }
-        dataReader.getSink().end();
     }
 
     /**
@@ -646,13 +783,26 @@ public class DatabaseDataIO
     public void writeDataToDatabase(Platform platform, Database model, InputStream[] inputs) throws DdlUtilsException
     {
         DataReader dataReader = getConfiguredDataReader(platform, model); 
+        boolean    finished   = false;
 
         dataReader.getSink().start();
-        for (int idx = 0; (inputs != null) && (idx < inputs.length); idx++)
+        try
         {
-            writeDataToDatabase(dataReader, inputs[idx]);
+            for (int idx = 0; (inputs != null) && (idx < inputs.length); idx++)
+            {
+                writeDataToDatabase(dataReader, inputs[idx]);
+            }
+            // if ending fails, then the sink has already cleaned up after itself
+            finished = true;
+            dataReader.getSink().end();
+        }
+        finally
+        {
+            if (!finished)
+            {
+                cancelSink(dataReader.getSink());
+            }
         }
-        dataReader.getSink().end();
     }
 
     /**
@@ -667,13 +817,218 @@ public class DatabaseDataIO
     public void writeDataToDatabase(Platform platform, Database model, Reader[] inputs) throws DdlUtilsException
     {
         DataReader dataReader = getConfiguredDataReader(platform, model); 
+        boolean    finished   = false;
 
         dataReader.getSink().start();
-        for (int idx = 0; (inputs != null) && (idx < inputs.length); idx++)
+        try
         {
-            writeDataToDatabase(dataReader, inputs[idx]);
+            for (int idx = 0; (inputs != null) && (idx < inputs.length); idx++)
+            {
+                writeDataToDatabase(dataReader, inputs[idx]);
+            }
+            // if ending fails, then the sink has already cleaned up after itself
+            finished = true;
+            dataReader.getSink().end();
+        }
+        finally
+        {
+            if (!finished)
+            {
+                cancelSink(dataReader.getSink());
+            }
+        }
+    }
+
+    /**
+     * Reads the data from the indicated files in parallel and writes it to the database to which
+     * the given platform is connected.
+     * 
+     * @param platform The platform, must be connected to a live database
+     * @param model    The model to which to constrain the written data
+     * @param files    The XML data files
+     */
+    private void writeDataToDatabaseInParallel(Platform platform, Database model, String[] files) throws DdlUtilsException
+    {
+        PipelinedDataSink                  sink          = new PipelinedDataSink(createDatabaseSink(platform, model));
+        int[]                              prereqCounts  = new int[files.length];
+        List<List<Integer>>                dependents    = new ArrayList<>();
+        ExecutorService                    executor      = createReaderExecutor(Math.min(_readerThreadCount, files.length));
+        ExecutorCompletionService<Integer> completion    = new ExecutorCompletionService<>(executor);
+        boolean                            finished      = false;
+
+        for (int idx = 0; idx < files.length; idx++)
+        {
+            dependents.add(new ArrayList<Integer>());
+        }
+        if (_scheduleFilesInFKOrder)
+        {
+            determineFileDependencies(model, files, prereqCounts, dependents);
+        }
+        sink.start();
+        try
+        {
+            for (int idx = 0; idx < files.length; idx++)
+            {
+                if (prereqCounts[idx] == 0)
+                {
+                    submitFile(completion, model, sink, files[idx], idx);
+                }
+            }
+            for (int doneCount = 0; doneCount < files.length; doneCount++)
+            {
+                List<Integer> fileDependents = dependents.get(completion.take().get().intValue());
+
+                for (int idx = 0; idx < fileDependents.size(); idx++)
+                {
+                    int dependentIdx = fileDependents.get(idx).intValue();
+
+                    if (--prereqCounts[dependentIdx] == 0)
+                    {
+                        submitFile(completion, model, sink, files[dependentIdx], dependentIdx);
+                    }
+                }
+            }
+            // if ending fails, then the sink has already cleaned up after itself
+            finished = true;
+            sink.end();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new DdlUtilsException("Interrupted while reading the data files", ex);
+        }
+        catch (ExecutionException ex)
+        {
+            if (ex.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException)ex.getCause();
+            }
+            throw new DdlUtilsException(ex.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+            if (!finished)
+            {
+                cancelSink(sink);
+            }
+        }
+    }
+
+    /**
+     * Creates the executor for the reader threads.
+     * 
+     * @param threadCount The number of threads
+     * @return The executor
+     */
+    private ExecutorService createReaderExecutor(int threadCount)
+    {
+        return Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "DatabaseDataIO-reader");
+
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Determines which files have to be read before which other files so that the referenced
+     * rows are read before the rows that reference them, assuming that each file contains
+     * rows of one table.
+     * 
+     * @param model        The model
+     * @param files        The XML data files
+     * @param prereqCounts Receives the number of files that have to be read before each file
+     * @param dependents   Receives the indices of the files that have to wait for each file
+     */
+    private void determineFileDependencies(Database model, String[] files, int[] prereqCounts, List<List<Integer>> dependents)
+    {
+        DataReader      reader     = createDataReader(model, null);
+        ForeignKeyGraph fkGraph    = model.getForeignKeyGraph();
+        Table[]         fileTables = new Table[files.length];
+
+        for (int idx = 0; idx < files.length; idx++)
+        {
+            fileTables[idx] = reader.readFirstTable(new File(files[idx]));
+        }
+        for (int idx = 0; idx < files.length; idx++)
+        {
+            if (fileTables[idx] == null)
+            {
+                continue;
+            }
+
+            List<Table> referencedTables = fkGraph.getReferencedTables(fileTables[idx]);
+            List<Table> cycle            = fkGraph.getCircularComponent(fileTables[idx]);
+
+            for (int otherIdx = 0; otherIdx < files.length; otherIdx++)
+            {
+                Table otherTable = fileTables[otherIdx];
+
+                // the rows of tables in a cycle have to wait for each other in the sink
+                if ((otherTable != null) && (otherTable != fileTables[idx]) &&
+                    referencedTables.contains(otherTable) &&
+                    ((cycle == null) || !cycle.contains(otherTable)))
+                {
+                    prereqCounts[idx]++;
+                    dependents.get(otherIdx).add(Integer.valueOf(idx));
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts reading the given file in a reader thread.
+     * 
+     * @param completion The completion service of the reader threads
+     * @param model      The model
+     * @param sink       The shared sink
+     * @param file       The XML data file
+     * @param fileIdx    The index of the file
+     */
+    private void submitFile(ExecutorCompletionService<Integer> completion, Database model, PipelinedDataSink sink, final String file, final int fileIdx)
+    {
+        final BlockForwardingSink fileSink   = new BlockForwardingSink(sink, PipelinedDataSink.DEFAULT_BLOCK_SIZE);
+        final DataReader          dataReader = createDataReader(model, fileSink);
+
+        completion.submit(new Callable<Integer>() {
+            public Integer call() throws Exception
+            {
+                writeDataToDatabase(dataReader, file);
+                fileSink.end();
+                return Integer.valueOf(fileIdx);
+            }
+        });
+    }
+
+    /**
+     * Ends the given sink after a failure so that it releases its resources (e.g. its
+     * connection). If the sink runs a thread, then the thread is stopped first and the sink
+     * that it writes to is ended. Errors while ending the sink are only logged as the
+     * original failure takes precedence.
+     * 
+     * @param sink The sink
+     */
+    private void cancelSink(DataSink sink)
+    {
+        DataSink target = sink;
+
+        if (sink instanceof PipelinedDataSink)
+        {
+            ((PipelinedDataSink)sink).cancel();
+            target = ((PipelinedDataSink)sink).getTarget();
+        }
+        try
+        {
+            target.end();
+        }
+        catch (RuntimeException ex)
+        {
+            _log.warn("Error while ending the sink after a failure", ex);
         }
-        dataReader.getSink().end();
     }
 
     /**
@@ -29,6 +29,7 @@ import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.Writer;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLInputFactory;
@@ -124,6 +125,8 @@ public class DatabaseIO
     private boolean _validateXml = true;
     /** Whether to use the internal dtd that comes with DdlUtils. */
     private boolean _useInternalDtd = true;
+    /** The pool for initializing read models, or <code>null</code>. */
+    private ForkJoinPool _initializationPool;
     
     /**
      * Returns whether XML is validated upon reading it.
@@ -167,6 +170,29 @@ public class DatabaseIO
         _useInternalDtd = useInternalDtd;
     }
 
+    /**
+     * Returns the pool in which read models are initialized.
+     * 
+     * @return The pool or <code>null</code> if models are initialized in the reading thread
+     */
+    public ForkJoinPool getInitializationPool()
+    {
+        return _initializationPool;
+    }
+
+    /**
+     * Specifies the pool in which the tables of read models shall be initialized
+     * concurrently (see {@link Database#initialize(ForkJoinPool)}). This is useful
+     * for very large models.
+     * 
+     * @param initializationPool The pool or <code>null</code> if models shall be
+     *                           initialized in the reading thread
+     */
+    public void setInitializationPool(ForkJoinPool initializationPool)
+    {
+        _initializationPool = initializationPool;
+    }
+
     /**
      * Reads the database model contained in the specified file.
      * 
@@ -343,7 +369,7 @@ public class DatabaseIO
         }
         if (model != null)
         {
-            model.initialize();
+            model.initialize(_initializationPool);
         }
         return model;
     }
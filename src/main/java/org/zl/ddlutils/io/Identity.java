@@ -24,6 +24,7 @@ import java.util.Iterator;
 import java.util.Map;
 
 import org.zl.ddlutils.model.Table;
+import org.zl.ddlutils.util.ObjectUtilsExt;
 
 /**
  * Stores the identity of an database object as defined by its primary keys. Is used
@@ -39,7 +40,11 @@ public class Identity
     /** The optional foreign key name whose referenced object this identity represents. */
     private String _fkName;
     /** The identity columns and their values. */
-    private HashMap _columnValues = new HashMap();
+    private HashMap<String, Object> _columnValues = new HashMap<>();
+    /** The cached hash code. */
+    private int _hashCode;
+    /** Whether the cached hash code is valid. */
+    private boolean _hashCodeValid;
 
     /**
      * Creates a new identity object for the given table.
@@ -94,6 +99,7 @@ public class Identity
     public void setColumnValue(String name, Object value)
     {
         _columnValues.put(name, value);
+        _hashCodeValid = false;
     }
 
     /**
@@ -107,6 +113,16 @@ public class Identity
         return _columnValues.get(name);
     }
 
+    /**
+     * Returns the identity columns and their values. The returned map must not be modified.
+     * 
+     * @return The column names and values
+     */
+    Map<String, Object> getColumnValues()
+    {
+        return _columnValues;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -119,7 +135,8 @@ public class Identity
 
         Identity otherIdentity = (Identity)obj;
 
-        if (!_table.equals(otherIdentity._table))
+        // within a model, the table name identifies the table
+        if ((_table != otherIdentity._table) && !_table.getName().equals(otherIdentity._table.getName()))
         {
             return false;
         }
@@ -127,24 +144,15 @@ public class Identity
         {
             return false;
         }
-        for (Iterator it = _columnValues.entrySet().iterator(); it.hasNext();)
+        for (Iterator<Map.Entry<String, Object>> it = _columnValues.entrySet().iterator(); it.hasNext();)
         {
-            Map.Entry entry      = (Map.Entry)it.next();
-            Object    otherValue = otherIdentity._columnValues.get(entry.getKey());
+            Map.Entry<String, Object> entry      = it.next();
+            Object                    otherValue = otherIdentity._columnValues.get(entry.getKey());
 
-            if (entry.getValue() == null)
-            {
-                if (otherValue != null)
-                {
-                    return false;
-                }
-            }
-            else
+            if (!ObjectUtilsExt.valuesEqual(entry.getValue(), otherValue) ||
+                ((otherValue == null) && !otherIdentity._columnValues.containsKey(entry.getKey())))
             {
-                if (!entry.getValue().equals(otherValue))
-                {
-                    return false;
-                }
+                return false;
             }
         }
         
@@ -156,7 +164,21 @@ public class Identity
      */
     public int hashCode()
     {
-        return toString().hashCode();
+        if (!_hashCodeValid)
+        {
+            int hashCode = 0;
+
+            // independent of the iteration order, like the hash code of the map
+            for (Iterator<Map.Entry<String, Object>> it = _columnValues.entrySet().iterator(); it.hasNext();)
+            {
+                Map.Entry<String, Object> entry = it.next();
+
+                hashCode += entry.getKey().hashCode() ^ ObjectUtilsExt.valueHashCode(entry.getValue());
+            }
+            _hashCode      = 31 * _table.getName().hashCode() + hashCode;
+            _hashCodeValid = true;
+        }
+        return _hashCode;
     }
 
     /**
@@ -168,9 +190,9 @@ public class Identity
 
         buffer.append(_table.getName());
         buffer.append(":");
-        for (Iterator it = _columnValues.entrySet().iterator(); it.hasNext();)
+        for (Iterator<Map.Entry<String, Object>> it = _columnValues.entrySet().iterator(); it.hasNext();)
         {
-            Map.Entry entry = (Map.Entry)it.next();
+            Map.Entry<String, Object> entry = it.next();
 
             buffer.append(entry.getKey());
             buffer.append("=");
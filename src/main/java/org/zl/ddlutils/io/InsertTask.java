@@ -0,0 +1,140 @@
+package org.zl.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.beanutils.DynaBean;
+
+/**
+ * A chunk of beans that a worker of a parallel {@link DataToDatabaseSink} inserts into
+ * the database via its own connection. The sink fills the task in its own thread, runs
+ * it in the worker thread, and then gets it back via a queue together with the errors
+ * that happened during the insertion.
+ *
+ * @version $Revision: $
+ */
+final class InsertTask implements Runnable
+{
+    /** The sink. */
+    private final DataToDatabaseSink _sink;
+    /** The index of the worker that runs this task. */
+    private final int _workerIdx;
+    /** The connection of the worker. */
+    private final Connection _connection;
+    /** The beans to insert. */
+    private final ArrayList<DynaBean> _beans = new ArrayList<>();
+    /** The objects whose identity is needed by other objects once they are inserted. */
+    private final ArrayList<WaitingObject> _referencedObjects = new ArrayList<>();
+    /** The errors that happened during the insertion. */
+    private final ArrayList<Exception> _errors = new ArrayList<>();
+
+    /**
+     * Creates a new task.
+     *
+     * @param sink       The sink
+     * @param workerIdx  The index of the worker that runs this task
+     * @param connection The connection of the worker
+     */
+    InsertTask(DataToDatabaseSink sink, int workerIdx, Connection connection)
+    {
+        _sink       = sink;
+        _workerIdx  = workerIdx;
+        _connection = connection;
+    }
+
+    /**
+     * Returns the index of the worker that runs this task.
+     *
+     * @return The index
+     */
+    int getWorkerIdx()
+    {
+        return _workerIdx;
+    }
+
+    /**
+     * Adds a bean to insert.
+     *
+     * @param bean             The bean
+     * @param referencedObject If other objects wait for the bean, the waiting object that
+     *                         holds the bean and its original identity; <code>null</code> otherwise
+     */
+    void addBean(DynaBean bean, WaitingObject referencedObject)
+    {
+        _beans.add(bean);
+        if (referencedObject != null)
+        {
+            _referencedObjects.add(referencedObject);
+        }
+    }
+
+    /**
+     * Returns the number of beans in this task.
+     *
+     * @return The number of beans
+     */
+    int getBeanCount()
+    {
+        return _beans.size();
+    }
+
+    /**
+     * Returns the objects that other objects may wait for. Their identities are known
+     * once the task has run.
+     *
+     * @return The objects
+     */
+    List<WaitingObject> getReferencedObjects()
+    {
+        return _referencedObjects;
+    }
+
+    /**
+     * Returns the errors that happened while running the task.
+     *
+     * @return The errors
+     */
+    List<Exception> getErrors()
+    {
+        return _errors;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run()
+    {
+        try
+        {
+            _sink.insertBeans(_connection, _beans, _errors);
+        }
+        catch (RuntimeException ex)
+        {
+            _errors.add(ex);
+        }
+        finally
+        {
+            _sink.taskFinished(this);
+        }
+    }
+}
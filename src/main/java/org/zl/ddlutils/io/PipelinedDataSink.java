@@ -0,0 +1,302 @@
+package org.zl.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.beanutils.DynaBean;
+
+/**
+ * Data sink that hands the beans to another sink in a separate writer thread, so that
+ * the thread producing the beans (e.g. a {@link DataReader} parsing XML) does not wait for
+ * the other sink (e.g. a {@link DataToDatabaseSink} waiting for the database), and vice
+ * versa. The beans are handed over in blocks via a bounded queue; if the queue is full,
+ * {@link #addBean(DynaBean)} waits until the writer thread has taken a block. Errors of the
+ * other sink are thrown by the next call of {@link #addBean(DynaBean)} or {@link #end()}.<br/>
+ * The other sink is started and ended in the calling thread, and only used by one thread at
+ * a time. {@link #end()} ends the other sink even if the other sink failed before. If the
+ * producer fails, {@link #cancel()} should be called to stop the writer thread.
+ * Several producer threads can share this sink via {@link #addBeans(List)}.
+ *
+ * @version $Revision: $
+ */
+public class PipelinedDataSink implements DataSink
+{
+    /** The default number of beans that are handed over together. */
+    public static final int DEFAULT_BLOCK_SIZE = 256;
+    /** The default number of blocks that the queue can hold. */
+    public static final int DEFAULT_CAPACITY = 8;
+    /** The interval in milliseconds in which a waiting producer checks for errors of the writer thread. */
+    private static final long ERROR_CHECK_INTERVAL = 100;
+
+    /** Marks the end of the data in the queue. */
+    private static final List<DynaBean> END_OF_DATA = new ArrayList<>(0);
+
+    /** The sink that receives the beans. */
+    private final DataSink _target;
+    /** The number of beans that are handed over together. */
+    private final int _blockSize;
+    /** The blocks of beans handed to the writer thread. */
+    private final ArrayBlockingQueue<List<DynaBean>> _blocks;
+    /** The block that is being filled. */
+    private ArrayList<DynaBean> _currentBlock;
+    /** The writer thread. */
+    private Thread _writer;
+    /** The error that stopped the writer thread. */
+    private volatile Throwable _error;
+    /** Whether the writer thread shall stop. */
+    private volatile boolean _cancelled;
+
+    /**
+     * Creates a new sink with the default block size and capacity.
+     *
+     * @param target The sink that receives the beans
+     */
+    public PipelinedDataSink(DataSink target)
+    {
+        this(target, DEFAULT_BLOCK_SIZE, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new sink.
+     *
+     * @param target    The sink that receives the beans
+     * @param blockSize The number of beans that are handed over together
+     * @param capacity  The number of blocks that can wait for the writer thread
+     */
+    public PipelinedDataSink(DataSink target, int blockSize, int capacity)
+    {
+        _target    = target;
+        _blockSize = Math.max(1, blockSize);
+        _blocks    = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    }
+
+    /**
+     * Returns the sink that receives the beans.
+     *
+     * @return The sink
+     */
+    public DataSink getTarget()
+    {
+        return _target;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void start() throws DataSinkException
+    {
+        _target.start();
+        _blocks.clear();
+        _error        = null;
+        _cancelled    = false;
+        _currentBlock = new ArrayList<>(_blockSize);
+        _writer       = new Thread(new Runnable() {
+            public void run()
+            {
+                writeBlocks();
+            }
+        }, "PipelinedDataSink-writer");
+        _writer.setDaemon(true);
+        _writer.start();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void addBean(DynaBean bean) throws DataSinkException
+    {
+        checkError();
+        _currentBlock.add(bean);
+        if (_currentBlock.size() >= _blockSize)
+        {
+            handOver(_currentBlock);
+            _currentBlock = new ArrayList<>(_blockSize);
+        }
+    }
+
+    /**
+     * Hands the given block of beans to the writer thread, waiting if the queue is full. Other
+     * than {@link #addBean(DynaBean)}, this method can be called by several threads at the same
+     * time; the beans of different calls may then arrive in any order. The list must not be
+     * modified afterwards.
+     *
+     * @param beans The beans
+     */
+    public void addBeans(List<DynaBean> beans) throws DataSinkException
+    {
+        checkError();
+        if (!beans.isEmpty())
+        {
+            handOver(beans);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void end() throws DataSinkException
+    {
+        try
+        {
+            if (!_currentBlock.isEmpty())
+            {
+                handOver(_currentBlock);
+                _currentBlock = new ArrayList<>(_blockSize);
+            }
+            handOver(END_OF_DATA);
+            joinWriter();
+            checkError();
+        }
+        catch (RuntimeException ex)
+        {
+            // the other sink is ended anyway so that it releases its resources (e.g. its
+            // connection); the original error takes precedence over errors while ending
+            cancel();
+            try
+            {
+                _target.end();
+            }
+            catch (RuntimeException endEx)
+            {
+                ex.addSuppressed(endEx);
+            }
+            throw ex;
+        }
+        _target.end();
+    }
+
+    /**
+     * Stops the writer thread without handing the remaining beans to the other sink, and
+     * without ending the other sink.
+     */
+    public void cancel()
+    {
+        _cancelled = true;
+        if (_writer != null)
+        {
+            _writer.interrupt();
+            joinWriter();
+        }
+    }
+
+    /**
+     * Hands the given block to the writer thread, waiting if the queue is full.
+     *
+     * @param block The block
+     */
+    private void handOver(List<DynaBean> block) throws DataSinkException
+    {
+        try
+        {
+            // the writer thread does not take blocks anymore after an error
+            while (!_blocks.offer(block, ERROR_CHECK_INTERVAL, TimeUnit.MILLISECONDS))
+            {
+                checkError();
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            cancel();
+            throw new DataSinkException("Interrupted while handing beans to the writer thread", ex);
+        }
+    }
+
+    /**
+     * Waits until the writer thread has finished.
+     */
+    private void joinWriter()
+    {
+        boolean interrupted = false;
+
+        while (_writer.isAlive())
+        {
+            try
+            {
+                _writer.join();
+            }
+            catch (InterruptedException ex)
+            {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Throws the error that stopped the writer thread, if any.
+     */
+    private void checkError() throws DataSinkException
+    {
+        Throwable error = _error;
+
+        if (error instanceof DataSinkException)
+        {
+            throw (DataSinkException)error;
+        }
+        else if (error != null)
+        {
+            throw new DataSinkException(error);
+        }
+    }
+
+    /**
+     * Hands the beans in the queue to the other sink until the end of the data is reached.
+     * This runs in the writer thread.
+     */
+    private void writeBlocks()
+    {
+        try
+        {
+            while (!_cancelled)
+            {
+                List<DynaBean> block = _blocks.take();
+
+                if (block == END_OF_DATA)
+                {
+                    break;
+                }
+                for (int idx = 0; (idx < block.size()) && !_cancelled; idx++)
+                {
+                    _target.addBean(block.get(idx));
+                }
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            // cancelled
+        }
+        catch (RuntimeException ex)
+        {
+            _error = ex;
+        }
+        catch (Error ex)
+        {
+            _error = ex;
+        }
+    }
+}
@@ -0,0 +1,516 @@
+package org.zl.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.zl.ddlutils.model.Column;
+import org.zl.ddlutils.model.Table;
+
+/**
+ * Holds the values of a number of rows of one table column by column, as an
+ * alternative to one {@link DynaBean} per row for bulk data movement. The values of
+ * <code>INTEGER</code>, <code>SMALLINT</code> and <code>TINYINT</code> columns are
+ * stored in <code>int</code> arrays, those of <code>BIGINT</code> columns in
+ * <code>long</code> arrays, those of <code>DOUBLE</code> and <code>FLOAT</code>
+ * columns in <code>double</code> arrays, and those of <code>BIT</code> and
+ * <code>BOOLEAN</code> columns in <code>boolean</code> arrays, so that they are
+ * not boxed. All other values (strings, binary data, dates etc.) are stored as
+ * references without copying them. Whether a value is <code>NULL</code> is tracked
+ * in a bitmap per column.<br/>
+ * A batch has a fixed capacity and can be reused via {@link #clear()}.
+ *
+ * @version $Revision: $
+ */
+public class RowBatch
+{
+    /** The storage type for values that are stored as objects. */
+    public static final int STORAGE_OBJECT  = 0;
+    /** The storage type for values that are stored as <code>int</code>s. */
+    public static final int STORAGE_INT     = 1;
+    /** The storage type for values that are stored as <code>long</code>s. */
+    public static final int STORAGE_LONG    = 2;
+    /** The storage type for values that are stored as <code>double</code>s. */
+    public static final int STORAGE_DOUBLE  = 3;
+    /** The storage type for values that are stored as <code>boolean</code>s. */
+    public static final int STORAGE_BOOLEAN = 4;
+
+    /** The table. */
+    private final Table _table;
+    /** The columns of the table. */
+    private final Column[] _columns;
+    /** The storage types of the columns. */
+    private final int[] _storageTypes;
+    /** The values per column, one of <code>int[]</code>, <code>long[]</code>, <code>double[]</code>, <code>boolean[]</code> or <code>Object[]</code>. */
+    private final Object[] _values;
+    /** The rows per column which have a non-<code>NULL</code> value. */
+    private final BitSet[] _nonNullRows;
+    /** The maximum number of rows. */
+    private final int _capacity;
+    /** The number of rows. */
+    private int _rowCount;
+
+    /**
+     * Creates a new empty batch.
+     *
+     * @param table    The table whose rows the batch holds
+     * @param capacity The maximum number of rows
+     */
+    public RowBatch(Table table, int capacity)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException("The capacity of a row batch must be positive");
+        }
+        _table        = table;
+        _columns      = table.getColumns();
+        _storageTypes = new int[_columns.length];
+        _values       = new Object[_columns.length];
+        _nonNullRows  = new BitSet[_columns.length];
+        _capacity     = capacity;
+        for (int idx = 0; idx < _columns.length; idx++)
+        {
+            _storageTypes[idx] = getStorageTypeFor(_columns[idx].getTypeCode());
+            _nonNullRows[idx]  = new BitSet(capacity);
+            switch (_storageTypes[idx])
+            {
+                case STORAGE_INT:
+                    _values[idx] = new int[capacity];
+                    break;
+                case STORAGE_LONG:
+                    _values[idx] = new long[capacity];
+                    break;
+                case STORAGE_DOUBLE:
+                    _values[idx] = new double[capacity];
+                    break;
+                case STORAGE_BOOLEAN:
+                    _values[idx] = new boolean[capacity];
+                    break;
+                default:
+                    _values[idx] = new Object[capacity];
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Determines how the values of columns of the given JDBC type are stored.
+     *
+     * @param typeCode The JDBC type code
+     * @return The storage type, one of the <code>STORAGE_xxx</code> constants
+     */
+    public static int getStorageTypeFor(int typeCode)
+    {
+        switch (typeCode)
+        {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return STORAGE_INT;
+            case Types.BIGINT:
+                return STORAGE_LONG;
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return STORAGE_DOUBLE;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return STORAGE_BOOLEAN;
+            default:
+                return STORAGE_OBJECT;
+        }
+    }
+
+    /**
+     * Returns the table whose rows this batch holds.
+     *
+     * @return The table
+     */
+    public Table getTable()
+    {
+        return _table;
+    }
+
+    /**
+     * Returns the number of columns, which is the number of columns of the table
+     * when the batch was created.
+     *
+     * @return The number of columns
+     */
+    public int getColumnCount()
+    {
+        return _columns.length;
+    }
+
+    /**
+     * Returns the indicated column.
+     *
+     * @param columnIdx The index of the column
+     * @return The column
+     */
+    public Column getColumn(int columnIdx)
+    {
+        return _columns[columnIdx];
+    }
+
+    /**
+     * Returns the storage type of the indicated column.
+     *
+     * @param columnIdx The index of the column
+     * @return The storage type, one of the <code>STORAGE_xxx</code> constants
+     */
+    public int getStorageType(int columnIdx)
+    {
+        return _storageTypes[columnIdx];
+    }
+
+    /**
+     * Returns the maximum number of rows of this batch.
+     *
+     * @return The capacity
+     */
+    public int getCapacity()
+    {
+        return _capacity;
+    }
+
+    /**
+     * Returns the number of rows in this batch.
+     *
+     * @return The number of rows
+     */
+    public int getRowCount()
+    {
+        return _rowCount;
+    }
+
+    /**
+     * Determines whether no more rows can be added to this batch.
+     *
+     * @return <code>true</code> if the batch is full
+     */
+    public boolean isFull()
+    {
+        return _rowCount == _capacity;
+    }
+
+    /**
+     * Adds a row whose values are all <code>NULL</code>.
+     *
+     * @return The index of the new row
+     */
+    public int addRow()
+    {
+        if (_rowCount == _capacity)
+        {
+            throw new IllegalStateException("The row batch is full");
+        }
+        return _rowCount++;
+    }
+
+    /**
+     * Adds a row with the values of the given bean. Properties of the bean that
+     * correspond to no column of this batch are ignored.
+     *
+     * @param bean The bean
+     * @return The index of the new row
+     */
+    public int addRow(DynaBean bean)
+    {
+        int rowIdx = addRow();
+
+        for (int columnIdx = 0; columnIdx < _columns.length; columnIdx++)
+        {
+            String name = _columns[columnIdx].getName();
+
+            if (bean.getDynaClass().getDynaProperty(name) != null)
+            {
+                setValue(rowIdx, columnIdx, bean.get(name));
+            }
+        }
+        return rowIdx;
+    }
+
+    /**
+     * Copies the values of the indicated row into the given bean, which needs to have
+     * properties for the columns of this batch.
+     *
+     * @param rowIdx The index of the row
+     * @param bean   The bean
+     */
+    public void copyRowTo(int rowIdx, DynaBean bean)
+    {
+        for (int columnIdx = 0; columnIdx < _columns.length; columnIdx++)
+        {
+            bean.set(_columns[columnIdx].getName(), getValue(rowIdx, columnIdx));
+        }
+    }
+
+    /**
+     * Removes all rows from this batch.
+     */
+    public void clear()
+    {
+        for (int columnIdx = 0; columnIdx < _columns.length; columnIdx++)
+        {
+            _nonNullRows[columnIdx].clear();
+            if (_storageTypes[columnIdx] == STORAGE_OBJECT)
+            {
+                // we don't want to keep the values alive
+                Arrays.fill((Object[])_values[columnIdx], 0, _rowCount, null);
+            }
+        }
+        _rowCount = 0;
+    }
+
+    /**
+     * Determines whether the indicated value is <code>NULL</code>.
+     *
+     * @param rowIdx    The index of the row
+     * @param columnIdx The index of the column
+     * @return <code>true</code> if the value is <code>NULL</code>
+     */
+    public boolean isNull(int rowIdx, int columnIdx)
+    {
+        checkRow(rowIdx);
+        return !_nonNullRows[columnIdx].get(rowIdx);
+    }
+
+    /**
+     * Sets the indicated value to <code>NULL</code>.
+     *
+     * @param rowIdx    The index of the row
+     * @param columnIdx The index of the column
+     */
+    public void setNull(int rowIdx, int columnIdx)
+    {
+        checkRow(rowIdx);
+        _nonNullRows[columnIdx].clear(rowIdx);
+        if (_storageTypes[columnIdx] == STORAGE_OBJECT)
+        {
+            ((Object[])_values[columnIdx])[rowIdx] = null;
+        }
+    }
+
+    /**
+     * Returns the indicated value of an <code>int</code> column.
+     *
+     * @param rowIdx    The index of the row
+     * @param columnIdx The index of the column
+     * @return The value, or <code>0</code> if it is <code>NULL</code>
+     */
+    public int getInt(int rowIdx, int columnIdx)
+    {
+        checkRow(rowIdx);
+        return ((int[])getValues(columnIdx, STORAGE_INT))[rowIdx];
+    }
+
+    /**
+     * Sets the indicated value of an <code>int</code> column.
+     *
+     * @param rowIdx    The index of the row
+     * @param columnIdx The index of the column
+     * @param value     The value
+     */
+    public void setInt(int rowIdx, int columnIdx, int value)
+    {
+        checkRow(rowIdx);
+        ((int[])getValues(columnIdx, STORAGE_INT))[rowIdx] = value;
+        _nonNullRows[columnIdx].set(rowIdx);
+    }
+
+    /**
+     * Returns the indicated value of a <code>long</code> column.
+     *
+     * @param rowIdx    The index of the row
+     * @param columnIdx The index of the column
+     * @return The value, or <code>0</code> if it is <code>NULL</code>
+     */
+    public long getLong(int rowIdx, int columnIdx)
+    {
+        checkRow(rowIdx);
+        return ((long[])getValues(columnIdx, STORAGE_LONG))[rowIdx];
+    }
+
+    /**
+     * Sets the indicated value of a <code>long</code> column.
+     *
+     * @param rowIdx    The index of the row
+     * @param columnIdx The index of the column
+     * @param value     The value
+     */
+    public void setLong(int rowIdx, int columnIdx, long value)
+    {
+        checkRow(rowIdx);
+        ((long[])getValues(columnIdx, STORAGE_LONG))[rowIdx] = value;
+        _nonNullRows[columnIdx].set(rowIdx);
+    }
+
+    /**
+     * Returns the indicated value of a <code>double</code> column.
+     *
+     * @param rowIdx    The index of the row
+     * @param columnIdx The index of the column
+     * @return The value, or <code>0</code> if it is <code>NULL</code>
+     */
+    public double getDouble(int rowIdx, int columnIdx)
+    {
+        checkRow(rowIdx);
+        return ((double[])getValues(columnIdx, STORAGE_DOUBLE))[rowIdx];
+    }
+
+    /**
+     * Sets the indicated value of a <code>double</code> column.
+     *
+     * @param rowIdx    The index of the row
+     * @param columnIdx The index of the column
+     * @param value     The value
+     */
+    public void setDouble(int rowIdx, int columnIdx, double value)
+    {
+        checkRow(rowIdx);
+        ((double[])getValues(columnIdx, STORAGE_DOUBLE))[rowIdx] = value;
+        _nonNullRows[columnIdx].set(rowIdx);
+    }
+
+    /**
+     * Returns the indicated value of a <code>boolean</code> column.
+     *
+     * @param rowIdx    The index of the row
+     * @param columnIdx The index of the column
+     * @return The value, or <code>false</code> if it is <code>NULL</code>
+     */
+    public boolean getBoolean(int rowIdx, int columnIdx)
+    {
+        checkRow(rowIdx);
+        return ((boolean[])getValues(columnIdx, STORAGE_BOOLEAN))[rowIdx];
+    }
+
+    /**
+     * Sets the indicated value of a <code>boolean</code> column.
+     *
+     * @param rowIdx    The index of the row
+     * @param columnIdx The index of the column
+     * @param value     The value
+     */
+    public void setBoolean(int rowIdx, int columnIdx, boolean value)
+    {
+        checkRow(rowIdx);
+        ((boolean[])getValues(columnIdx, STORAGE_BOOLEAN))[rowIdx] = value;
+        _nonNullRows[columnIdx].set(rowIdx);
+    }
+
+    /**
+     * Returns the indicated value as an object. Values of primitive columns are boxed.
+     *
+     * @param rowIdx    The index of the row
+     * @param columnIdx The index of the column
+     * @return The value, or <code>null</code> if it is <code>NULL</code>
+     */
+    public Object getValue(int rowIdx, int columnIdx)
+    {
+        if (isNull(rowIdx, columnIdx))
+        {
+            return null;
+        }
+        switch (_storageTypes[columnIdx])
+        {
+            case STORAGE_INT:
+                return Integer.valueOf(((int[])_values[columnIdx])[rowIdx]);
+            case STORAGE_LONG:
+                return Long.valueOf(((long[])_values[columnIdx])[rowIdx]);
+            case STORAGE_DOUBLE:
+                return Double.valueOf(((double[])_values[columnIdx])[rowIdx]);
+            case STORAGE_BOOLEAN:
+                return Boolean.valueOf(((boolean[])_values[columnIdx])[rowIdx]);
+            default:
+                return ((Object[])_values[columnIdx])[rowIdx];
+        }
+    }
+
+    /**
+     * Sets the indicated value. Values of primitive columns need to be {@link Number}s
+     * or, for <code>boolean</code> columns, {@link Boolean}s.
+     *
+     * @param rowIdx    The index of the row
+     * @param columnIdx The index of the column
+     * @param value     The value, can be <code>null</code>
+     */
+    public void setValue(int rowIdx, int columnIdx, Object value)
+    {
+        if (value == null)
+        {
+            setNull(rowIdx, columnIdx);
+            return;
+        }
+        switch (_storageTypes[columnIdx])
+        {
+            case STORAGE_INT:
+                setInt(rowIdx, columnIdx, ((Number)value).intValue());
+                break;
+            case STORAGE_LONG:
+                setLong(rowIdx, columnIdx, ((Number)value).longValue());
+                break;
+            case STORAGE_DOUBLE:
+                setDouble(rowIdx, columnIdx, ((Number)value).doubleValue());
+                break;
+            case STORAGE_BOOLEAN:
+                setBoolean(rowIdx, columnIdx, ((Boolean)value).booleanValue());
+                break;
+            default:
+                checkRow(rowIdx);
+                ((Object[])_values[columnIdx])[rowIdx] = value;
+                _nonNullRows[columnIdx].set(rowIdx);
+                break;
+        }
+    }
+
+    /**
+     * Checks that the given row exists.
+     *
+     * @param rowIdx The index of the row
+     */
+    private void checkRow(int rowIdx)
+    {
+        if ((rowIdx < 0) || (rowIdx >= _rowCount))
+        {
+            throw new IndexOutOfBoundsException("Row " + rowIdx + " is not in the batch of " + _rowCount + " rows");
+        }
+    }
+
+    /**
+     * Returns the values of the indicated column, which needs to have the given storage type.
+     *
+     * @param columnIdx   The index of the column
+     * @param storageType The expected storage type
+     * @return The values
+     */
+    private Object getValues(int columnIdx, int storageType)
+    {
+        if (_storageTypes[columnIdx] != storageType)
+        {
+            throw new IllegalArgumentException("The values of column " + _columns[columnIdx].getName() +
+                                               " are not stored with storage type " + storageType);
+        }
+        return _values[columnIdx];
+    }
+}
@@ -0,0 +1,399 @@
+package org.zl.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.zl.ddlutils.model.Database;
+import org.zl.ddlutils.model.Table;
+
+/**
+ * Encodes and decodes identities and column values for the records of a {@link SpillFile}.
+ * The common column value types are written in a compact tagged form, other values are
+ * written via Java serialization.
+ *
+ * @version $Revision: $
+ */
+final class SpillCodec
+{
+    /** Tag for <code>null</code>. */
+    private static final int TAG_NULL = 0;
+    /** Tag for {@link String} values. */
+    private static final int TAG_STRING = 1;
+    /** Tag for {@link Integer} values. */
+    private static final int TAG_INTEGER = 2;
+    /** Tag for {@link Long} values. */
+    private static final int TAG_LONG = 3;
+    /** Tag for {@link Short} values. */
+    private static final int TAG_SHORT = 4;
+    /** Tag for {@link Byte} values. */
+    private static final int TAG_BYTE = 5;
+    /** Tag for {@link Double} values. */
+    private static final int TAG_DOUBLE = 6;
+    /** Tag for {@link Float} values. */
+    private static final int TAG_FLOAT = 7;
+    /** Tag for {@link Boolean} values. */
+    private static final int TAG_BOOLEAN = 8;
+    /** Tag for {@link BigDecimal} values. */
+    private static final int TAG_BIG_DECIMAL = 9;
+    /** Tag for byte arrays. */
+    private static final int TAG_BYTES = 10;
+    /** Tag for {@link java.sql.Date} values. */
+    private static final int TAG_SQL_DATE = 11;
+    /** Tag for {@link Time} values. */
+    private static final int TAG_TIME = 12;
+    /** Tag for {@link Timestamp} values. */
+    private static final int TAG_TIMESTAMP = 13;
+    /** Tag for {@link java.util.Date} values. */
+    private static final int TAG_DATE = 14;
+    /** Tag for serialized values. */
+    private static final int TAG_SERIALIZED = 15;
+
+    /**
+     * Not intended to be instantiated.
+     */
+    private SpillCodec()
+    {}
+
+    /**
+     * Creates an output for a new record.
+     *
+     * @return The output
+     */
+    static ByteArrayOutputStream newRecord()
+    {
+        return new ByteArrayOutputStream(128);
+    }
+
+    /**
+     * Creates an input for the given record.
+     *
+     * @param record The record
+     * @return The input
+     */
+    static DataInputStream openRecord(byte[] record)
+    {
+        return new DataInputStream(new ByteArrayInputStream(record));
+    }
+
+    /**
+     * Writes a string that can be <code>null</code>.
+     *
+     * @param out   The output
+     * @param value The string
+     * @throws IOException If the string could not be written
+     */
+    static void writeString(DataOutputStream out, String value) throws IOException
+    {
+        if (value == null)
+        {
+            out.writeInt(-1);
+        }
+        else
+        {
+            byte[] bytes = value.getBytes("UTF-8");
+
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+     *
+     * @param in The input
+     * @return The string
+     * @throws IOException If the string could not be read
+     */
+    static String readString(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+
+        if (length < 0)
+        {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    /**
+     * Writes a column value.
+     *
+     * @param out   The output
+     * @param value The value
+     * @throws IOException If the value could not be written
+     */
+    static void writeValue(DataOutputStream out, Object value) throws IOException
+    {
+        if (value == null)
+        {
+            out.writeByte(TAG_NULL);
+        }
+        else if (value instanceof String)
+        {
+            out.writeByte(TAG_STRING);
+            writeString(out, (String)value);
+        }
+        else if (value instanceof Integer)
+        {
+            out.writeByte(TAG_INTEGER);
+            out.writeInt(((Integer)value).intValue());
+        }
+        else if (value instanceof Long)
+        {
+            out.writeByte(TAG_LONG);
+            out.writeLong(((Long)value).longValue());
+        }
+        else if (value instanceof Short)
+        {
+            out.writeByte(TAG_SHORT);
+            out.writeShort(((Short)value).shortValue());
+        }
+        else if (value instanceof Byte)
+        {
+            out.writeByte(TAG_BYTE);
+            out.writeByte(((Byte)value).byteValue());
+        }
+        else if (value instanceof Double)
+        {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble(((Double)value).doubleValue());
+        }
+        else if (value instanceof Float)
+        {
+            out.writeByte(TAG_FLOAT);
+            out.writeFloat(((Float)value).floatValue());
+        }
+        else if (value instanceof Boolean)
+        {
+            out.writeByte(TAG_BOOLEAN);
+            out.writeBoolean(((Boolean)value).booleanValue());
+        }
+        else if (value.getClass() == BigDecimal.class)
+        {
+            BigDecimal decimal  = (BigDecimal)value;
+            byte[]     unscaled = decimal.unscaledValue().toByteArray();
+
+            out.writeByte(TAG_BIG_DECIMAL);
+            out.writeInt(decimal.scale());
+            out.writeInt(unscaled.length);
+            out.write(unscaled);
+        }
+        else if (value instanceof byte[])
+        {
+            byte[] bytes = (byte[])value;
+
+            out.writeByte(TAG_BYTES);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        else if (value.getClass() == java.sql.Date.class)
+        {
+            out.writeByte(TAG_SQL_DATE);
+            out.writeLong(((java.sql.Date)value).getTime());
+        }
+        else if (value.getClass() == Time.class)
+        {
+            out.writeByte(TAG_TIME);
+            out.writeLong(((Time)value).getTime());
+        }
+        else if (value.getClass() == Timestamp.class)
+        {
+            out.writeByte(TAG_TIMESTAMP);
+            out.writeLong(((Timestamp)value).getTime());
+            out.writeInt(((Timestamp)value).getNanos());
+        }
+        else if (value.getClass() == java.util.Date.class)
+        {
+            out.writeByte(TAG_DATE);
+            out.writeLong(((java.util.Date)value).getTime());
+        }
+        else if (value instanceof Serializable)
+        {
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+            ObjectOutputStream    objOut     = new ObjectOutputStream(serialized);
+
+            objOut.writeObject(value);
+            objOut.close();
+            out.writeByte(TAG_SERIALIZED);
+            out.writeInt(serialized.size());
+            serialized.writeTo(out);
+        }
+        else
+        {
+            throw new IOException("Cannot spill value of type " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * Reads a column value written by {@link #writeValue(DataOutputStream, Object)}.
+     *
+     * @param in The input
+     * @return The value
+     * @throws IOException If the value could not be read
+     */
+    static Object readValue(DataInputStream in) throws IOException
+    {
+        int tag = in.readByte();
+
+        switch (tag)
+        {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return readString(in);
+            case TAG_INTEGER:
+                return Integer.valueOf(in.readInt());
+            case TAG_LONG:
+                return Long.valueOf(in.readLong());
+            case TAG_SHORT:
+                return Short.valueOf(in.readShort());
+            case TAG_BYTE:
+                return Byte.valueOf(in.readByte());
+            case TAG_DOUBLE:
+                return Double.valueOf(in.readDouble());
+            case TAG_FLOAT:
+                return Float.valueOf(in.readFloat());
+            case TAG_BOOLEAN:
+                return Boolean.valueOf(in.readBoolean());
+            case TAG_BIG_DECIMAL:
+            {
+                int    scale    = in.readInt();
+                byte[] unscaled = new byte[in.readInt()];
+
+                in.readFully(unscaled);
+                return new BigDecimal(new BigInteger(unscaled), scale);
+            }
+            case TAG_BYTES:
+            {
+                byte[] bytes = new byte[in.readInt()];
+
+                in.readFully(bytes);
+                return bytes;
+            }
+            case TAG_SQL_DATE:
+                return new java.sql.Date(in.readLong());
+            case TAG_TIME:
+                return new Time(in.readLong());
+            case TAG_TIMESTAMP:
+            {
+                Timestamp timestamp = new Timestamp(in.readLong());
+
+                timestamp.setNanos(in.readInt());
+                return timestamp;
+            }
+            case TAG_DATE:
+                return new java.util.Date(in.readLong());
+            case TAG_SERIALIZED:
+            {
+                byte[] serialized = new byte[in.readInt()];
+
+                in.readFully(serialized);
+
+                ObjectInputStream objIn = new ObjectInputStream(new ByteArrayInputStream(serialized));
+
+                try
+                {
+                    return objIn.readObject();
+                }
+                catch (ClassNotFoundException ex)
+                {
+                    throw new IOException("Cannot read spilled value", ex);
+                }
+                finally
+                {
+                    objIn.close();
+                }
+            }
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    /**
+     * Writes an identity.
+     *
+     * @param out      The output
+     * @param identity The identity
+     * @throws IOException If the identity could not be written
+     */
+    static void writeIdentity(DataOutputStream out, Identity identity) throws IOException
+    {
+        Map<String, Object> columnValues = identity.getColumnValues();
+
+        writeString(out, identity.getTable().getName());
+        writeString(out, identity.getForeignKeyName());
+        out.writeInt(columnValues.size());
+        for (Iterator<Map.Entry<String, Object>> it = columnValues.entrySet().iterator(); it.hasNext();)
+        {
+            Map.Entry<String, Object> entry = it.next();
+
+            writeString(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    /**
+     * Reads an identity written by {@link #writeIdentity(DataOutputStream, Identity)}.
+     *
+     * @param in    The input
+     * @param model The model containing the table of the identity
+     * @return The identity
+     * @throws IOException If the identity could not be read
+     */
+    static Identity readIdentity(DataInputStream in, Database model) throws IOException
+    {
+        String tableName = readString(in);
+        Table  table     = model.findTable(tableName, true);
+
+        if (table == null)
+        {
+            throw new IOException("Unknown table " + tableName);
+        }
+
+        Identity identity    = new Identity(table, readString(in));
+        int      columnCount = in.readInt();
+
+        for (int idx = 0; idx < columnCount; idx++)
+        {
+            String name = readString(in);
+
+            identity.setColumnValue(name, readValue(in));
+        }
+        return identity;
+    }
+}
@@ -0,0 +1,297 @@
+package org.zl.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * An append-only temporary file of records, together with an in-memory index from
+ * hash codes to the positions of records in the file. Each index entry takes only an
+ * <code>int</code> and a <code>long</code>, so that many more records can be held than
+ * as objects in the heap. The index is a multimap: a record can be indexed under several
+ * hash codes, and a hash code can refer to several records (the caller has to check
+ * whether a found record really matches). Records are never removed from the file,
+ * only their index entries; the file is deleted when this spill file is closed.<br/>
+ * Used by the {@link DataToDatabaseSink} to move deferred rows and identity mappings
+ * out of the heap.
+ *
+ * @version $Revision: $
+ */
+final class SpillFile
+{
+    /** The size of the write buffer. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /** The initial capacity of the index. */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /** The file. */
+    private final File _file;
+    /** The file contents. */
+    private final RandomAccessFile _data;
+    /** The buffer for records that have not been written to the file yet. */
+    private final byte[] _writeBuffer = new byte[BUFFER_SIZE];
+    /** The number of bytes in the write buffer. */
+    private int _writeBufferSize;
+    /** The number of bytes written to the file. */
+    private long _fileLength;
+    /** The first index entry (plus one) for each bucket; 0 for empty buckets. */
+    private int[] _buckets;
+    /** The hash codes of the index entries. */
+    private int[] _hashes;
+    /** The record positions of the index entries, or -1 for removed entries. */
+    private long[] _positions;
+    /** The next index entry (plus one) in the same bucket, or 0. */
+    private int[] _next;
+    /** The number of used index entries, including removed ones. */
+    private int _entryCount;
+    /** The number of index entries that have not been removed. */
+    private int _liveCount;
+
+    /**
+     * Creates a new spill file.
+     *
+     * @param directory The directory for the file, or <code>null</code> for the default
+     *                  temporary directory
+     * @param prefix    The prefix of the file name
+     * @throws IOException If the file could not be created
+     */
+    SpillFile(File directory, String prefix) throws IOException
+    {
+        _file = File.createTempFile(prefix, ".spill", directory);
+        _file.deleteOnExit();
+        _data = new RandomAccessFile(_file, "rw");
+        initIndex(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates empty index arrays.
+     *
+     * @param capacity The number of entries that the index can hold
+     */
+    private void initIndex(int capacity)
+    {
+        _buckets    = new int[capacity];
+        _hashes     = new int[capacity];
+        _positions  = new long[capacity];
+        _next       = new int[capacity];
+        _entryCount = 0;
+        _liveCount  = 0;
+    }
+
+    /**
+     * Appends the given record to the file.
+     *
+     * @param record The record
+     * @return The position of the record, used for indexing and reading it
+     * @throws IOException If the record could not be written
+     */
+    long append(byte[] record) throws IOException
+    {
+        long position = _fileLength + _writeBufferSize;
+
+        if (_writeBufferSize + 4 + record.length > BUFFER_SIZE)
+        {
+            flush();
+        }
+        if (4 + record.length > BUFFER_SIZE)
+        {
+            _data.seek(_fileLength);
+            _data.writeInt(record.length);
+            _data.write(record);
+            _fileLength += 4 + record.length;
+        }
+        else
+        {
+            _writeBuffer[_writeBufferSize++] = (byte)(record.length >>> 24);
+            _writeBuffer[_writeBufferSize++] = (byte)(record.length >>> 16);
+            _writeBuffer[_writeBufferSize++] = (byte)(record.length >>> 8);
+            _writeBuffer[_writeBufferSize++] = (byte)record.length;
+            System.arraycopy(record, 0, _writeBuffer, _writeBufferSize, record.length);
+            _writeBufferSize += record.length;
+        }
+        return position;
+    }
+
+    /**
+     * Writes the buffered records to the file.
+     *
+     * @throws IOException If the records could not be written
+     */
+    private void flush() throws IOException
+    {
+        if (_writeBufferSize > 0)
+        {
+            _data.seek(_fileLength);
+            _data.write(_writeBuffer, 0, _writeBufferSize);
+            _fileLength     += _writeBufferSize;
+            _writeBufferSize = 0;
+        }
+    }
+
+    /**
+     * Reads the record at the given position.
+     *
+     * @param position The position as returned by {@link #append(byte[])}
+     * @return The record
+     * @throws IOException If the record could not be read
+     */
+    byte[] read(long position) throws IOException
+    {
+        if (position >= _fileLength)
+        {
+            flush();
+        }
+        _data.seek(position);
+
+        byte[] record = new byte[_data.readInt()];
+
+        _data.readFully(record);
+        return record;
+    }
+
+    /**
+     * Adds an index entry for the record at the given position.
+     *
+     * @param hash     The hash code under which to index the record
+     * @param position The position of the record
+     */
+    void index(int hash, long position)
+    {
+        if (_entryCount == _hashes.length)
+        {
+            rebuildIndex(Math.max(INITIAL_CAPACITY, _liveCount * 2));
+        }
+
+        int entryIdx = _entryCount++;
+        int bucket   = (hash & 0x7FFFFFFF) % _buckets.length;
+
+        _hashes[entryIdx]    = hash;
+        _positions[entryIdx] = position;
+        _next[entryIdx]      = _buckets[bucket];
+        _buckets[bucket]     = entryIdx + 1;
+        _liveCount++;
+    }
+
+    /**
+     * Rebuilds the index with the given capacity, dropping the removed entries.
+     *
+     * @param capacity The new capacity
+     */
+    private void rebuildIndex(int capacity)
+    {
+        int[]  hashes     = _hashes;
+        long[] positions  = _positions;
+        int    entryCount = _entryCount;
+
+        initIndex(capacity);
+        for (int idx = 0; idx < entryCount; idx++)
+        {
+            if (positions[idx] >= 0)
+            {
+                index(hashes[idx], positions[idx]);
+            }
+        }
+    }
+
+    /**
+     * Returns the positions of the records indexed under the given hash code, in the
+     * reverse order of their indexing.
+     *
+     * @param hash The hash code
+     * @return The positions, possibly empty
+     */
+    long[] find(int hash)
+    {
+        long[] result = new long[4];
+        int    count  = 0;
+
+        for (int entry = _buckets[(hash & 0x7FFFFFFF) % _buckets.length]; entry != 0; entry = _next[entry - 1])
+        {
+            if ((_hashes[entry - 1] == hash) && (_positions[entry - 1] >= 0))
+            {
+                if (count == result.length)
+                {
+                    long[] tmp = new long[count * 2];
+
+                    System.arraycopy(result, 0, tmp, 0, count);
+                    result = tmp;
+                }
+                result[count++] = _positions[entry - 1];
+            }
+        }
+        if (count < result.length)
+        {
+            long[] tmp = new long[count];
+
+            System.arraycopy(result, 0, tmp, 0, count);
+            result = tmp;
+        }
+        return result;
+    }
+
+    /**
+     * Removes the index entry for the record at the given position.
+     *
+     * @param hash     The hash code under which the record is indexed
+     * @param position The position of the record
+     * @return <code>true</code> if there was such an entry
+     */
+    boolean unindex(int hash, long position)
+    {
+        for (int entry = _buckets[(hash & 0x7FFFFFFF) % _buckets.length]; entry != 0; entry = _next[entry - 1])
+        {
+            if ((_hashes[entry - 1] == hash) && (_positions[entry - 1] == position))
+            {
+                _positions[entry - 1] = -1;
+                _liveCount--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of index entries.
+     *
+     * @return The number of entries
+     */
+    int getIndexSize()
+    {
+        return _liveCount;
+    }
+
+    /**
+     * Closes and deletes the file.
+     */
+    void close()
+    {
+        try
+        {
+            _data.close();
+        }
+        catch (IOException ex)
+        {
+            // we ignore this one
+        }
+        _file.delete();
+    }
+}
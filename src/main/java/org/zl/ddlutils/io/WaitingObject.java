@@ -20,9 +20,9 @@ package org.zl.ddlutils.io;
  */
 
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 
 import org.apache.commons.beanutils.DynaBean;
-import org.apache.commons.collections.set.ListOrderedSet;
 
 /**
  * Represents an object waiting for insertion into the database. Is used by the
@@ -37,8 +37,8 @@ public class WaitingObject
     private DynaBean _obj;
     /** The original identity of the waiting object. */
     private Identity _objIdentity;
-    /** The identities of the waited-for objects. */
-    private ListOrderedSet _waitedForIdentites = new ListOrderedSet();
+    /** The identities of the waited-for objects, mapped to themselves so that removing them is cheap. */
+    private LinkedHashMap<Identity, Identity> _waitedForIdentites = new LinkedHashMap<>();
 
     /**
      * Creates a new <code>WaitingObject</code> instance for the given object.
@@ -62,6 +62,16 @@ public class WaitingObject
         return _obj;
     }
 
+    /**
+     * Returns the original identity of the waiting object.
+     * 
+     * @return The identity
+     */
+    public Identity getObjectIdentity()
+    {
+        return _objIdentity;
+    }
+
     /**
      * Adds the identity of another object that the object is waiting for.
      * 
@@ -69,7 +79,10 @@ public class WaitingObject
      */
     public void addPendingFK(Identity fkIdentity)
     {
-        _waitedForIdentites.add(fkIdentity);
+        if (!_waitedForIdentites.containsKey(fkIdentity))
+        {
+            _waitedForIdentites.put(fkIdentity, fkIdentity);
+        }
     }
 
     /**
@@ -77,9 +90,19 @@ public class WaitingObject
      * 
      * @return The identities
      */
-    public Iterator getPendingFKs()
+    public Iterator<Identity> getPendingFKs()
     {
-        return _waitedForIdentites.iterator();
+        return _waitedForIdentites.keySet().iterator();
+    }
+
+    /**
+     * Returns the number of identities of waited-for objects.
+     * 
+     * @return The number of identities
+     */
+    public int getPendingFKCount()
+    {
+        return _waitedForIdentites.size();
     }
 
     /**
@@ -90,15 +113,7 @@ public class WaitingObject
      */
     public Identity removePendingFK(Identity fkIdentity)
     {
-        Identity result = null;
-        int      idx    = _waitedForIdentites.indexOf(fkIdentity);
-
-        if (idx >= 0)
-        {
-            result = (Identity)_waitedForIdentites.get(idx);
-            _waitedForIdentites.remove(idx);
-        }
-        return result;
+        return _waitedForIdentites.remove(fkIdentity);
     }
 
     /**
@@ -121,7 +136,7 @@ public class WaitingObject
 
         result.append(_objIdentity);
         result.append(" waiting for ");
-        result.append(_waitedForIdentites.toString());
+        result.append(_waitedForIdentites.keySet().toString());
         return result.toString();
     }
 }
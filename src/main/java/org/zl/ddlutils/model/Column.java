@@ -64,6 +64,10 @@ public class Column implements Serializable
     private int _scale;
     /** The default value. */
     private String _defaultValue;
+    /** Whether this column is part of a frozen model. */
+    private boolean _frozen = false;
+    /** The tables that contain this column, created when the column is added to a table. */
+    private transient OwnerList<Table> _tables;
 
     /**
      * Returns the name of the column.
@@ -82,7 +86,30 @@ public class Column implements Serializable
      */
     public void setName(String name)
     {
+        checkNotFrozen();
         _name = name;
+        if (_tables != null)
+        {
+            for (int idx = 0; idx < _tables.size(); idx++)
+            {
+                _tables.get(idx).columnRenamed();
+            }
+        }
+    }
+
+    /**
+     * Returns the tables that contain this column, which are told about changes
+     * that affect the data they derive from their columns.
+     * 
+     * @return The tables
+     */
+    OwnerList<Table> getOwners()
+    {
+        if (_tables == null)
+        {
+            _tables = new OwnerList<>();
+        }
+        return _tables;
     }
 
     /**
@@ -104,6 +131,7 @@ public class Column implements Serializable
      */
     public void setJavaName(String javaName)
     {
+        checkNotFrozen();
         _javaName = javaName;
     }
 
@@ -124,6 +152,7 @@ public class Column implements Serializable
      */
     public void setDescription(String description)
     {
+        checkNotFrozen();
         _description = description;
     }
 
@@ -144,7 +173,12 @@ public class Column implements Serializable
      */
     public void setPrimaryKey(boolean primaryKey)
     {
-        _primaryKey = primaryKey;
+        checkNotFrozen();
+        if (_primaryKey != primaryKey)
+        {
+            _primaryKey = primaryKey;
+            flagsChanged();
+        }
     }
 
     /**
@@ -166,7 +200,12 @@ public class Column implements Serializable
      */
     public void setRequired(boolean required)
     {
-        _required = required;
+        checkNotFrozen();
+        if (_required != required)
+        {
+            _required = required;
+            flagsChanged();
+        }
     }
 
     /**
@@ -186,7 +225,27 @@ public class Column implements Serializable
      */
     public void setAutoIncrement(boolean autoIncrement)
     {
-        _autoIncrement = autoIncrement;
+        checkNotFrozen();
+        if (_autoIncrement != autoIncrement)
+        {
+            _autoIncrement = autoIncrement;
+            flagsChanged();
+        }
+    }
+
+    /**
+     * Tells the tables that contain this column that its primary key, required or auto
+     * increment flag has changed.
+     */
+    private void flagsChanged()
+    {
+        if (_tables != null)
+        {
+            for (int idx = 0; idx < _tables.size(); idx++)
+            {
+                _tables.get(idx).columnFlagsChanged();
+            }
+        }
     }
 
     /**
@@ -208,6 +267,7 @@ public class Column implements Serializable
      */
     public void setTypeCode(int typeCode)
     {
+        checkNotFrozen();
         _type = TypeMap.getJdbcTypeName(typeCode);
         if (_type == null)
         {
@@ -233,6 +293,7 @@ public class Column implements Serializable
      */
     public void setType(String type)
     {
+        checkNotFrozen();
         Integer typeCode = TypeMap.getJdbcTypeCode(type);
 
         if (typeCode == null)
@@ -317,6 +378,7 @@ public class Column implements Serializable
      */
     public void setSize(String size)
     {
+        checkNotFrozen();
         if (size != null)
         {
             int pos = size.indexOf(",");
@@ -358,6 +420,7 @@ public class Column implements Serializable
      */
     public void setScale(int scale)
     {
+        checkNotFrozen();
         setSizeAndScale(getSizeAsInt(), scale);
     }
 
@@ -369,6 +432,7 @@ public class Column implements Serializable
      */
     public void setSizeAndScale(int size, int scale)
     {
+        checkNotFrozen();
         _sizeAsInt = new Integer(size);
         _scale     = scale;
         _size      = String.valueOf(size);
@@ -395,6 +459,7 @@ public class Column implements Serializable
      */
     public void setPrecisionRadix(int precisionRadix)
     {
+        checkNotFrozen();
         _sizeAsInt = new Integer(precisionRadix);
         _size      = String.valueOf(precisionRadix);
     }
@@ -471,6 +536,7 @@ public class Column implements Serializable
      */
     public void setDefaultValue(String defaultValue)
     {
+        checkNotFrozen();
         _defaultValue = defaultValue;
     }
 
@@ -586,4 +652,23 @@ public class Column implements Serializable
 
         return result.toString();
     }
+
+    /**
+     * Freezes this column.
+     */
+    void freeze()
+    {
+        _frozen = true;
+    }
+
+    /**
+     * Throws an exception if this column is part of a frozen model.
+     */
+    private void checkNotFrozen()
+    {
+        if (_frozen)
+        {
+            throw new ModelException("The column "+_name+" is part of a frozen model and cannot be changed");
+        }
+    }
 }
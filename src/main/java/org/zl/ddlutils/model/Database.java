@@ -19,6 +19,8 @@ package org.zl.ddlutils.model;
  * under the License.
  */
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.sql.Types;
 import java.util.ArrayList;
@@ -26,6 +28,11 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -57,7 +64,15 @@ public class Database implements Serializable
     /** The tables. */
     private ArrayList<Table> _tables = new ArrayList<>();
     /** The dyna class cache for this model. */
-    private transient DynaClassCache _dynaClassCache = null;
+    private transient volatile DynaClassCache _dynaClassCache = null;
+    /** Whether the dyna beans for this model are {@link org.zl.ddlutils.dynabean.CompactSqlDynaBean}s. */
+    private transient boolean _compactDynaBeans = false;
+    /** The tables by name, created on demand and discarded when tables are added, removed or renamed. */
+    private transient volatile NameIndex<Table> _tablesByName;
+    /** The foreign key graph, created on demand and discarded when tables or their foreign keys change. */
+    private transient volatile ForeignKeyGraph _foreignKeyGraph;
+    /** Whether this model is frozen. */
+    private boolean _frozen = false;
 
     /**
      * Creates an empty model without a name.
@@ -84,6 +99,7 @@ public class Database implements Serializable
      */
     public void mergeWith(Database otherDb) throws ModelException
     {
+        checkNotFrozen();
         CloneHelper cloneHelper = new CloneHelper();
 
         for (int tableIdx = 0; tableIdx < otherDb.getTableCount(); tableIdx++)
@@ -131,6 +147,7 @@ public class Database implements Serializable
      */
     public void setName(String name)
     {
+        checkNotFrozen();
         _name = name;
     }
 
@@ -151,6 +168,7 @@ public class Database implements Serializable
      */
     public void setVersion(String version)
     {
+        checkNotFrozen();
         _version = version;
     }
 
@@ -172,6 +190,7 @@ public class Database implements Serializable
      */
     public void setIdMethod(String idMethod)
     {
+        checkNotFrozen();
         _idMethod = idMethod;
     }
 
@@ -213,9 +232,13 @@ public class Database implements Serializable
      */
     public void addTable(Table table)
     {
+        checkNotFrozen();
         if (table != null)
         {
             _tables.add(table);
+            table.getOwners().add(this);
+            _tablesByName = null;
+            _foreignKeyGraph = null;
         }
     }
 
@@ -227,9 +250,13 @@ public class Database implements Serializable
      */
     public void addTable(int idx, Table table)
     {
+        checkNotFrozen();
         if (table != null)
         {
             _tables.add(idx, table);
+            table.getOwners().add(this);
+            _tablesByName = null;
+            _foreignKeyGraph = null;
         }
     }
 
@@ -253,9 +280,17 @@ public class Database implements Serializable
      */
     public void removeTable(Table table)
     {
+        checkNotFrozen();
         if (table != null)
         {
-            _tables.remove(table);
+            int idx = _tables.indexOf(table);
+
+            if (idx >= 0)
+            {
+                _tables.remove(idx).getOwners().remove(this);
+            }
+            _tablesByName = null;
+            _foreignKeyGraph = null;
         }
     }
 
@@ -266,7 +301,10 @@ public class Database implements Serializable
      */
     public void removeTable(int idx)
     {
-        _tables.remove(idx);
+        checkNotFrozen();
+        _tables.remove(idx).getOwners().remove(this);
+        _tablesByName = null;
+        _foreignKeyGraph = null;
     }
 
     /**
@@ -276,7 +314,8 @@ public class Database implements Serializable
      */
     public void removeTables(Table[] tables)
     {
-        _tables.removeAll(Arrays.asList(tables));
+        checkNotFrozen();
+        removeTables(Arrays.asList(tables), true);
     }
 
     /**
@@ -287,10 +326,119 @@ public class Database implements Serializable
      */
     public void removeAllTablesExcept(Table[] tables)
     {
-        ArrayList<Table> allTables = new ArrayList<>(_tables);
+        checkNotFrozen();
+        removeTables(Arrays.asList(tables), false);
+    }
+
+    /**
+     * Removes the tables that are contained or not contained in the given tables.
+     * 
+     * @param tables          The tables
+     * @param removeContained Whether to remove the contained tables or the other ones
+     */
+    private void removeTables(Collection<Table> tables, boolean removeContained)
+    {
+        for (int idx = _tables.size() - 1; idx >= 0; idx--)
+        {
+            if (tables.contains(_tables.get(idx)) == removeContained)
+            {
+                _tables.remove(idx).getOwners().remove(this);
+            }
+        }
+        _tablesByName    = null;
+        _foreignKeyGraph = null;
+    }
+
+    /**
+     * Discards the foreign key graph after foreign keys of a table of this model have changed.
+     */
+    void foreignKeysChanged()
+    {
+        _foreignKeyGraph = null;
+    }
+
+    /**
+     * Discards the data derived from the table names after a table of this model has been renamed.
+     */
+    void tableRenamed()
+    {
+        _tablesByName = null;
+    }
+
+    /**
+     * Registers this model as the owner of its tables after it has been deserialized, as
+     * the owners of model elements are not serialized.
+     * 
+     * @param in The stream to read the model from
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        for (int idx = 0; idx < _tables.size(); idx++)
+        {
+            _tables.get(idx).getOwners().add(this);
+        }
+    }
 
-        allTables.removeAll(Arrays.asList(tables));
-        _tables.removeAll(allTables);
+    /**
+     * Determines whether this model is frozen, i.e. whether it and its elements
+     * cannot be changed anymore.
+     * 
+     * @return <code>true</code> if the model is frozen
+     * @see #freeze()
+     */
+    public boolean isFrozen()
+    {
+        return _frozen;
+    }
+
+    /**
+     * Returns a frozen snapshot of this model. The snapshot is an initialized deep copy
+     * of this model whose name indexes, primary key columns, hash codes and dyna classes
+     * are computed upfront, and whose elements (tables, columns, foreign keys, references,
+     * indices) reject all changes with a {@link ModelException}. It can therefore be shared
+     * by any number of threads without copying or locking, provided that it is published
+     * safely (e.g. via a final or volatile field). This model itself is not changed.
+     * 
+     * @return The frozen snapshot, or this model if it is already frozen
+     * @throws ModelException If the model is not valid
+     */
+    public Database freeze() throws ModelException
+    {
+        if (_frozen)
+        {
+            return this;
+        }
+
+        Database result = new CloneHelper().clone(this);
+
+        result._compactDynaBeans = _compactDynaBeans;
+        result.initialize();
+        for (int idx = 0; idx < result._tables.size(); idx++)
+        {
+            result._tables.get(idx).freeze();
+        }
+        result._frozen          = true;
+        result._tablesByName    = null;
+        result._foreignKeyGraph = null;
+        result.getTablesByName();
+        result.getForeignKeyGraph();
+        for (int idx = 0; idx < result._tables.size(); idx++)
+        {
+            result.getDynaClassCache().getDynaClass(result._tables.get(idx));
+        }
+        return result;
+    }
+
+    /**
+     * Throws an exception if this model is frozen.
+     */
+    private void checkNotFrozen()
+    {
+        if (_frozen)
+        {
+            throw new ModelException("The database model "+_name+" is frozen and cannot be changed");
+        }
     }
 
     // Helper methods
@@ -298,172 +446,266 @@ public class Database implements Serializable
     /**
      * Initializes the model by establishing the relationships between elements in this model encoded
      * eg. in foreign keys etc. Also checks that the model elements are valid (table and columns have
-     * a name, foreign keys rference existing tables etc.) 
-     * @throws ModelException 
+     * a name, foreign keys rference existing tables etc.) Frozen models are already initialized,
+     * so this does nothing for them.
+     * @throws ModelException If the model is not valid; this is a {@link ModelValidationException}
+     *                        that lists all problems of the model
      */
     public void initialize() throws ModelException
     {
-        // we have to setup
-        // * target tables in foreign keys
-        // * columns in foreign key references
-        // * columns in indices
-        // * columns in uniques
-        HashSet<String> namesOfProcessedTables  = new HashSet<>();
-        HashSet<String> namesOfProcessedColumns = new HashSet<>();
-        HashSet<String> namesOfProcessedFks     = new HashSet<>();
-        HashSet<String> namesOfProcessedIndices = new HashSet<>();
-        int     tableIdx = 0;
+        initialize(null);
+    }
+
+    /**
+     * Initializes the model like {@link #initialize()}. If a pool is given, then the foreign
+     * keys and indices of the tables are resolved and validated concurrently in it, which
+     * pays off for models with thousands of tables. The tables must not be changed by other
+     * threads in the meantime.
+     * 
+     * @param pool The pool to use, or <code>null</code> to initialize the tables in the
+     *             current thread
+     * @throws ModelException If the model is not valid; this is a {@link ModelValidationException}
+     *                        that lists all problems of the model
+     */
+    public void initialize(ForkJoinPool pool) throws ModelException
+    {
+        if (_frozen)
+        {
+            return;
+        }
+
+        final int                numTables   = _tables.size();
+        final List<List<String>> tableErrors = newErrorLists(numTables);
+        ArrayList<String>        errors      = new ArrayList<>();
 
         if ((getName() == null) || (getName().length() == 0))
         {
-            throw new ModelException("The database model has no name");
+            errors.add("The database model has no name");
         }
 
-        for (Iterator<Table> tableIt = _tables.iterator(); tableIt.hasNext(); tableIdx++)
+        // the table names are checked upfront so that the tables can then be initialized
+        // independently of each other, using the name index for resolving foreign tables
+        HashSet<String> namesOfProcessedTables = new HashSet<>();
+
+        for (int tableIdx = 0; tableIdx < numTables; tableIdx++)
         {
-            Table curTable = tableIt.next();
+            Table curTable = _tables.get(tableIdx);
 
             if ((curTable.getName() == null) || (curTable.getName().length() == 0))
             {
-                throw new ModelException("The table nr. "+tableIdx+" has no name");
+                tableErrors.get(tableIdx).add("The table nr. "+tableIdx+" has no name");
             }
-            if (namesOfProcessedTables.contains(curTable.getName()))
+            else if (!namesOfProcessedTables.add(curTable.getName()))
             {
-                throw new ModelException("There are multiple tables with the name "+curTable.getName());
+                tableErrors.get(tableIdx).add("There are multiple tables with the name "+curTable.getName());
             }
-            namesOfProcessedTables.add(curTable.getName());
+        }
+        getTablesByName();
 
-            namesOfProcessedColumns.clear();
-            namesOfProcessedFks.clear();
-            namesOfProcessedIndices.clear();
+        if ((pool == null) || (numTables < 2))
+        {
+            for (int tableIdx = 0; tableIdx < numTables; tableIdx++)
+            {
+                initializeTable(tableIdx, tableErrors.get(tableIdx));
+            }
+        }
+        else
+        {
+            ArrayList<Callable<Void>> tasks     = new ArrayList<>();
+            int                       chunkSize = Math.max(1, numTables / (4 * pool.getParallelism()));
 
-            for (int idx = 0; idx < curTable.getColumnCount(); idx++)
+            for (int start = 0; start < numTables; start += chunkSize)
             {
-                Column column = curTable.getColumn(idx);
+                final int chunkStart = start;
+                final int chunkEnd   = Math.min(numTables, start + chunkSize);
 
-                if ((column.getName() == null) || (column.getName().length() == 0))
-                {
-                    throw new ModelException("The column nr. "+idx+" in table "+curTable.getName()+" has no name");
-                }
-                if (namesOfProcessedColumns.contains(column.getName()))
+                tasks.add(new Callable<Void>() {
+                    public Void call()
+                    {
+                        for (int tableIdx = chunkStart; tableIdx < chunkEnd; tableIdx++)
+                        {
+                            initializeTable(tableIdx, tableErrors.get(tableIdx));
+                        }
+                        return null;
+                    }
+                });
+            }
+            for (Iterator<Future<Void>> it = pool.invokeAll(tasks).iterator(); it.hasNext();)
+            {
+                try
                 {
-                    throw new ModelException("There are multiple columns with the name "+column.getName()+" in the table "+curTable.getName());
+                    it.next().get();
                 }
-                namesOfProcessedColumns.add(column.getName());
-
-                if ((column.getType() == null) || (column.getType().length() == 0))
+                catch (InterruptedException ex)
                 {
-                    throw new ModelException("The column nr. "+idx+" in table "+curTable.getName()+" has no type");
+                    Thread.currentThread().interrupt();
+                    throw new ModelException("Interrupted while initializing the database model", ex);
                 }
-                if ((column.getTypeCode() == Types.OTHER) && !"OTHER".equalsIgnoreCase(column.getType()))
+                catch (ExecutionException ex)
                 {
-                    throw new ModelException("The column nr. "+idx+" in table "+curTable.getName()+" has an unknown type "+column.getType());
+                    throw new ModelException("Could not initialize the database model", ex.getCause());
                 }
-                namesOfProcessedColumns.add(column.getName());
             }
+        }
+        for (int tableIdx = 0; tableIdx < numTables; tableIdx++)
+        {
+            errors.addAll(tableErrors.get(tableIdx));
+        }
+        if (!errors.isEmpty())
+        {
+            throw new ModelValidationException(errors);
+        }
+    }
+
+    /**
+     * Creates the lists that receive the errors found in the tables. The outer list is not
+     * changed afterwards, so the tables can add to their lists concurrently.
+     * 
+     * @param numTables The number of tables
+     * @return The lists
+     */
+    private static List<List<String>> newErrorLists(int numTables)
+    {
+        List<List<String>> result = new ArrayList<>(numTables);
+
+        for (int idx = 0; idx < numTables; idx++)
+        {
+            result.add(new ArrayList<String>());
+        }
+        return result;
+    }
+
+    /**
+     * Validates the indicated table, and resolves the foreign tables and columns of its
+     * foreign keys and the columns of its indices. This only changes the foreign keys and
+     * indices of the table itself, and only reads other tables, so tables can be initialized
+     * concurrently.
+     * 
+     * @param tableIdx The index of the table
+     * @param errors   Receives the problems found in the table
+     */
+    private void initializeTable(int tableIdx, List<String> errors)
+    {
+        Table           curTable                = _tables.get(tableIdx);
+        String          tableName               = curTable.getName();
+        HashSet<String> namesOfProcessedColumns = new HashSet<>();
+        HashSet<String> namesOfProcessedFks     = new HashSet<>();
+        HashSet<String> namesOfProcessedIndices = new HashSet<>();
+
+        for (int idx = 0; idx < curTable.getColumnCount(); idx++)
+        {
+            Column column = curTable.getColumn(idx);
+
+            if ((column.getName() == null) || (column.getName().length() == 0))
+            {
+                errors.add("The column nr. "+idx+" in table "+tableName+" has no name");
+            }
+            else if (!namesOfProcessedColumns.add(column.getName()))
+            {
+                errors.add("There are multiple columns with the name "+column.getName()+" in the table "+tableName);
+            }
+            if ((column.getType() == null) || (column.getType().length() == 0))
+            {
+                errors.add("The column nr. "+idx+" in table "+tableName+" has no type");
+            }
+            else if ((column.getTypeCode() == Types.OTHER) && !"OTHER".equalsIgnoreCase(column.getType()))
+            {
+                errors.add("The column nr. "+idx+" in table "+tableName+" has an unknown type "+column.getType());
+            }
+        }
+
+        for (int idx = 0; idx < curTable.getForeignKeyCount(); idx++)
+        {
+            ForeignKey fk     = curTable.getForeignKey(idx);
+            String     fkName = (fk.getName() == null ? "" : fk.getName());
+            String     fkDesc = (fkName.length() == 0 ? "nr. " + idx : fkName);
 
-            for (int idx = 0; idx < curTable.getForeignKeyCount(); idx++)
+            if ((fkName.length() > 0) && !namesOfProcessedFks.add(fkName))
             {
-                ForeignKey fk     = curTable.getForeignKey(idx);
-                String     fkName = (fk.getName() == null ? "" : fk.getName());
-                String     fkDesc = (fkName.length() == 0 ? "nr. " + idx : fkName);
+                errors.add("There are multiple foreign keys in table "+tableName+" with the name "+fkName);
+            }
+            if (fk.getForeignTable() == null)
+            {
+                Table targetTable = findTable(fk.getForeignTableName(), true);
 
-                if (fkName.length() > 0)
+                if (targetTable == null)
                 {
-                    if (namesOfProcessedFks.contains(fkName))
-                    {
-                        throw new ModelException("There are multiple foreign keys in table "+curTable.getName()+" with the name "+fkName);
-                    }
-                    namesOfProcessedFks.add(fkName);
+                    errors.add("The foreignkey "+fkDesc+" in table "+tableName+" references the undefined table "+fk.getForeignTableName());
                 }
+                else
+                {
+                    fk.setForeignTable(targetTable);
+                }
+            }
+            if (fk.getReferenceCount() == 0)
+            {
+                errors.add("The foreignkey "+fkDesc+" in table "+tableName+" does not have any references");
+            }
+            for (int refIdx = 0; refIdx < fk.getReferenceCount(); refIdx++)
+            {
+                Reference ref = fk.getReference(refIdx);
 
-                if (fk.getForeignTable() == null)
+                if (ref.getLocalColumn() == null)
                 {
-                    Table targetTable = findTable(fk.getForeignTableName(), true);
+                    Column localColumn = curTable.findColumn(ref.getLocalColumnName(), true);
 
-                    if (targetTable == null)
+                    if (localColumn == null)
                     {
-                        throw new ModelException("The foreignkey "+fkDesc+" in table "+curTable.getName()+" references the undefined table "+fk.getForeignTableName());
+                        errors.add("The foreignkey "+fkDesc+" in table "+tableName+" references the undefined local column "+ref.getLocalColumnName());
                     }
                     else
                     {
-                        fk.setForeignTable(targetTable);
+                        ref.setLocalColumn(localColumn);
                     }
                 }
-                if (fk.getReferenceCount() == 0)
+                if ((ref.getForeignColumn() == null) && (fk.getForeignTable() != null))
                 {
-                    throw new ModelException("The foreignkey "+fkDesc+" in table "+curTable.getName()+" does not have any references");
-                }
-                for (int refIdx = 0; refIdx < fk.getReferenceCount(); refIdx++)
-                {
-                    Reference ref = fk.getReference(refIdx);
+                    Column foreignColumn = fk.getForeignTable().findColumn(ref.getForeignColumnName(), true);
 
-                    if (ref.getLocalColumn() == null)
+                    if (foreignColumn == null)
                     {
-                        Column localColumn = curTable.findColumn(ref.getLocalColumnName(), true);
-
-                        if (localColumn == null)
-                        {
-                            throw new ModelException("The foreignkey "+fkDesc+" in table "+curTable.getName()+" references the undefined local column "+ref.getLocalColumnName());
-                        }
-                        else
-                        {
-                            ref.setLocalColumn(localColumn);
-                        }
+                        errors.add("The foreignkey "+fkDesc+" in table "+tableName+" references the undefined local column "+ref.getForeignColumnName()+" in table "+fk.getForeignTable().getName());
                     }
-                    if (ref.getForeignColumn() == null)
+                    else
                     {
-                        Column foreignColumn = fk.getForeignTable().findColumn(ref.getForeignColumnName(), true);
-
-                        if (foreignColumn == null)
-                        {
-                            throw new ModelException("The foreignkey "+fkDesc+" in table "+curTable.getName()+" references the undefined local column "+ref.getForeignColumnName()+" in table "+fk.getForeignTable().getName());
-                        }
-                        else
-                        {
-                            ref.setForeignColumn(foreignColumn);
-                        }
+                        ref.setForeignColumn(foreignColumn);
                     }
                 }
             }
+        }
 
-            for (int idx = 0; idx < curTable.getIndexCount(); idx++)
+        for (int idx = 0; idx < curTable.getIndexCount(); idx++)
+        {
+            Index  index     = curTable.getIndex(idx);
+            String indexName = (index.getName() == null ? "" : index.getName());
+            String indexDesc = (indexName.length() == 0 ? "nr. " + idx : indexName);
+
+            if ((indexName.length() > 0) && !namesOfProcessedIndices.add(indexName))
+            {
+                errors.add("There are multiple indices in table "+tableName+" with the name "+indexName);
+            }
+            if (index.getColumnCount() == 0)
+            {
+                errors.add("The index "+indexDesc+" in table "+tableName+" does not have any columns");
+            }
+
+            for (int indexColumnIdx = 0; indexColumnIdx < index.getColumnCount(); indexColumnIdx++)
             {
-                Index  index     = curTable.getIndex(idx);
-                String indexName = (index.getName() == null ? "" : index.getName());
-                String indexDesc = (indexName.length() == 0 ? "nr. " + idx : indexName);
+                IndexColumn indexColumn = index.getColumn(indexColumnIdx);
+                Column      column      = curTable.findColumn(indexColumn.getName(), true);
 
-                if (indexName.length() > 0)
+                if (column == null)
                 {
-                    if (namesOfProcessedIndices.contains(indexName))
-                    {
-                        throw new ModelException("There are multiple indices in table "+curTable.getName()+" with the name "+indexName);
-                    }
-                    namesOfProcessedIndices.add(indexName);
+                    errors.add("The index "+indexDesc+" in table "+tableName+" references the undefined column "+indexColumn.getName());
                 }
-                if (index.getColumnCount() == 0)
+                else
                 {
-                    throw new ModelException("The index "+indexDesc+" in table "+curTable.getName()+" does not have any columns");
-                }
-
-                for (int indexColumnIdx = 0; indexColumnIdx < index.getColumnCount(); indexColumnIdx++)
-                {
-                    IndexColumn indexColumn = index.getColumn(indexColumnIdx);
-                    Column      column      = curTable.findColumn(indexColumn.getName(), true);
-
-                    if (column == null)
-                    {
-                        throw new ModelException("The index "+indexDesc+" in table "+curTable.getName()+" references the undefined column "+indexColumn.getName());
-                    }
-                    else
-                    {
-                        indexColumn.setColumn(column);
-                    }
+                    indexColumn.setColumn(column);
                 }
             }
         }
     }
-    
+
     /**
      * Finds the table with the specified name, using case insensitive matching.
      * Note that this method is not called getTable to avoid introspection
@@ -488,26 +730,51 @@ public class Database implements Serializable
      */
     public Table findTable(String name, boolean caseSensitive)
     {
-        for (Iterator<Table> iter = _tables.iterator(); iter.hasNext();)
-        {
-            Table table = iter.next();
+        return getTablesByName().find(name, caseSensitive);
+    }
 
-            if (caseSensitive)
-            {
-                if (table.getName().equals(name))
-                {
-                    return table;
-                }
-            }
-            else
+    /**
+     * Returns the tables by name, creating the index if necessary.
+     * 
+     * @return The index
+     */
+    private NameIndex<Table> getTablesByName()
+    {
+        NameIndex<Table> tablesByName = _tablesByName;
+
+        if (tablesByName == null)
+        {
+            tablesByName = new NameIndex<>();
+            for (int idx = 0; idx < _tables.size(); idx++)
             {
-                if (table.getName().equalsIgnoreCase(name))
-                {
-                    return table;
-                }
+                Table table = _tables.get(idx);
+
+                tablesByName.add(table.getName(), table);
             }
+            _tablesByName = tablesByName;
         }
-        return null;
+        return tablesByName;
+    }
+
+    /**
+     * Returns the dependency graph that the foreign keys define between the tables of
+     * this model, e.g. to determine the order in which the tables can be filled. The
+     * graph is computed once and reused until tables or foreign keys are added or
+     * removed. Note that the model needs to be initialized so that the foreign keys
+     * know their foreign tables.
+     * 
+     * @return The foreign key graph
+     */
+    public ForeignKeyGraph getForeignKeyGraph()
+    {
+        ForeignKeyGraph graph = _foreignKeyGraph;
+
+        if (graph == null)
+        {
+            graph            = new ForeignKeyGraph(_tables);
+            _foreignKeyGraph = graph;
+        }
+        return graph;
     }
 
     /**
@@ -573,25 +840,69 @@ public class Database implements Serializable
 
     /**
      * Returns the dyna class cache. If none is available yet, a new one will be created.
+     * This is safe to call from several threads at once.
      * 
      * @return The dyna class cache
      */
     private DynaClassCache getDynaClassCache()
     {
-        if (_dynaClassCache == null)
+        DynaClassCache cache = _dynaClassCache;
+
+        if (cache == null)
+        {
+            synchronized (this)
+            {
+                cache = _dynaClassCache;
+                if (cache == null)
+                {
+                    cache           = new DynaClassCache(_compactDynaBeans);
+                    _dynaClassCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Determines whether the dyna beans created for this model are
+     * {@link org.zl.ddlutils.dynabean.CompactSqlDynaBean}s. Default is <code>false</code>.
+     * 
+     * @return <code>true</code> if the beans are compact
+     */
+    public boolean isCompactDynaBeans()
+    {
+        return _compactDynaBeans;
+    }
+
+    /**
+     * Specifies whether the dyna beans created for this model (e.g. when reading data
+     * from the database or from XML) shall be {@link org.zl.ddlutils.dynabean.CompactSqlDynaBean}s,
+     * which store their values in an array instead of a map. This resets the dyna
+     * class cache, so it should be set before beans are created for this model.
+     * 
+     * @param compactDynaBeans <code>true</code> if the beans shall be compact
+     */
+    public void setCompactDynaBeans(boolean compactDynaBeans)
+    {
+        checkNotFrozen();
+        if (_compactDynaBeans != compactDynaBeans)
         {
-            _dynaClassCache = new DynaClassCache();
+            _compactDynaBeans = compactDynaBeans;
+            resetDynaClassCache();
         }
-        return _dynaClassCache;
     }
 
     /**
      * Resets the dyna class cache. This should be done for instance when a column
-     * has been added or removed to a table.
+     * has been added or removed to a table. Does nothing for frozen models as their
+     * tables cannot change.
      */
     public void resetDynaClassCache()
     {
-        _dynaClassCache = null;
+        if (!_frozen)
+        {
+            _dynaClassCache = null;
+        }
     }
     
     /**
@@ -51,6 +51,10 @@ public class ForeignKey implements Serializable
     private ListOrderedSet _references = new ListOrderedSet();
     /** Whether this foreign key has an associated auto-generated index. */
     private boolean _autoIndexPresent;
+    /** Whether this foreign key is part of a frozen model. */
+    private boolean _frozen = false;
+    /** The tables that contain this foreign key, created when the foreign key is added to a table. */
+    private transient OwnerList<Table> _tables;
 
     /**
      * Creates a new foreign key object that has no name.
@@ -87,7 +91,30 @@ public class ForeignKey implements Serializable
      */
     public void setName(String name)
     {
+        checkNotFrozen();
         _name = name;
+        if (_tables != null)
+        {
+            for (int idx = 0; idx < _tables.size(); idx++)
+            {
+                _tables.get(idx).foreignKeyRenamed();
+            }
+        }
+    }
+
+    /**
+     * Returns the tables that contain this foreign key, which are told about changes
+     * that affect the data they derive from their foreign keys.
+     * 
+     * @return The tables
+     */
+    OwnerList<Table> getOwners()
+    {
+        if (_tables == null)
+        {
+            _tables = new OwnerList<>();
+        }
+        return _tables;
     }
 
     /**
@@ -107,8 +134,24 @@ public class ForeignKey implements Serializable
      */
     public void setForeignTable(Table foreignTable)
     {
+        checkNotFrozen();
         _foreignTable     = foreignTable;
         _foreignTableName = (foreignTable == null ? null : foreignTable.getName());
+        foreignTableChanged();
+    }
+
+    /**
+     * Tells the tables that contain this foreign key that its foreign table has changed.
+     */
+    private void foreignTableChanged()
+    {
+        if (_tables != null)
+        {
+            for (int idx = 0; idx < _tables.size(); idx++)
+            {
+                _tables.get(idx).foreignKeysChanged();
+            }
+        }
     }
 
     /**
@@ -130,9 +173,11 @@ public class ForeignKey implements Serializable
      */
     public void setForeignTableName(String foreignTableName)
     {
+        checkNotFrozen();
         if ((_foreignTable != null) && !_foreignTable.getName().equals(foreignTableName))
         {
             _foreignTable = null;
+            foreignTableChanged();
         }
         _foreignTableName = foreignTableName;
     }
@@ -155,6 +200,7 @@ public class ForeignKey implements Serializable
      */
     public void setOnDelete(CascadeActionEnum onDelete) throws NullPointerException
     {
+        checkNotFrozen();
         if (onDelete == null)
         {
             throw new NullPointerException("The onDelete action cannot be null");
@@ -180,6 +226,7 @@ public class ForeignKey implements Serializable
      */
     public void setOnUpdate(CascadeActionEnum onUpdate) throws NullPointerException
     {
+        checkNotFrozen();
         if (onUpdate == null)
         {
             throw new NullPointerException("The onUpdate action cannot be null");
@@ -236,6 +283,7 @@ public class ForeignKey implements Serializable
      */
     public void addReference(Reference reference)
     {
+        checkNotFrozen();
         if (reference != null)
         {
             for (int idx = 0; idx < _references.size(); idx++)
@@ -259,6 +307,7 @@ public class ForeignKey implements Serializable
      */
     public void removeReference(Reference reference)
     {
+        checkNotFrozen();
         if (reference != null)
         {
             _references.remove(reference);
@@ -272,6 +321,7 @@ public class ForeignKey implements Serializable
      */
     public void removeReference(int idx)
     {
+        checkNotFrozen();
         _references.remove(idx);
     }
 
@@ -378,6 +428,7 @@ public class ForeignKey implements Serializable
      */
     public void setAutoIndexPresent(boolean autoIndexPresent)
     {
+        checkNotFrozen();
         _autoIndexPresent = autoIndexPresent;
     }
 
@@ -517,4 +568,27 @@ public class ForeignKey implements Serializable
 
         return result.toString();
     }
+
+    /**
+     * Freezes this foreign key and its references.
+     */
+    void freeze()
+    {
+        _frozen = true;
+        for (int idx = 0; idx < _references.size(); idx++)
+        {
+            getReference(idx).freeze();
+        }
+    }
+
+    /**
+     * Throws an exception if this foreign key is part of a frozen model.
+     */
+    private void checkNotFrozen()
+    {
+        if (_frozen)
+        {
+            throw new ModelException("The foreign key "+_name+" is part of a frozen model and cannot be changed");
+        }
+    }
 }
@@ -0,0 +1,374 @@
+package org.zl.ddlutils.model;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * The dependency graph that the foreign keys of a database model define between its
+ * tables. It provides the order in which the tables can be filled (referenced tables
+ * before referencing ones), the groups of tables that reference each other in a circle,
+ * and the referenced and referencing tables of each table. The graph is computed in
+ * linear time in the number of tables and foreign keys, and is obtained via
+ * {@link Database#getForeignKeyGraph()} which caches it.<br/>
+ * The graph is a snapshot which the model discards when tables are added or removed, when
+ * foreign keys are added to or removed from its tables, or when the foreign table of one
+ * of their foreign keys changes (tables tell their models about these changes).
+ *
+ * @version $Revision: $
+ */
+public final class ForeignKeyGraph
+{
+    /** The tables of the model with their positions. */
+    private final IdentityHashMap<Table, Integer> _tableIndices;
+    /** The tables in foreign key order. */
+    private final List<Table> _order;
+    /** The tables referenced by each table. */
+    private final List<List<Table>> _referencedTables;
+    /** The tables referencing each table. */
+    private final List<List<Table>> _referencingTables;
+    /** The circular component of each table, or <code>null</code>. */
+    private final List<List<Table>> _circularComponents;
+    /** The groups of tables that reference each other. */
+    private final List<List<Table>> _allCircularComponents;
+
+    /**
+     * Creates the graph for the given tables.
+     *
+     * @param tables The tables of the model
+     */
+    ForeignKeyGraph(List<Table> tables)
+    {
+        int numTables = tables.size();
+
+        _tableIndices = new IdentityHashMap<>(numTables * 2);
+        for (int idx = 0; idx < numTables; idx++)
+        {
+            _tableIndices.put(tables.get(idx), Integer.valueOf(idx));
+        }
+
+        List<List<Table>> referenced  = new ArrayList<>(numTables);
+        List<List<Table>> referencing = new ArrayList<>(numTables);
+        int[][]           edges       = new int[numTables][];
+        boolean[]         selfRefs    = new boolean[numTables];
+
+        for (int idx = 0; idx < numTables; idx++)
+        {
+            referenced.add(new ArrayList<Table>());
+            referencing.add(new ArrayList<Table>());
+        }
+        for (int idx = 0; idx < numTables; idx++)
+        {
+            Table table   = tables.get(idx);
+            int[] targets = new int[table.getForeignKeyCount()];
+            int   count   = 0;
+
+            for (int fkIdx = 0; fkIdx < table.getForeignKeyCount(); fkIdx++)
+            {
+                Table   foreignTable = table.getForeignKey(fkIdx).getForeignTable();
+                Integer foreignIdx   = (foreignTable == null ? null : _tableIndices.get(foreignTable));
+
+                if ((foreignIdx == null) || referenced.get(idx).contains(foreignTable))
+                {
+                    continue;
+                }
+                referenced.get(idx).add(foreignTable);
+                referencing.get(foreignIdx.intValue()).add(table);
+                if (foreignIdx.intValue() == idx)
+                {
+                    selfRefs[idx] = true;
+                }
+                else
+                {
+                    targets[count++] = foreignIdx.intValue();
+                }
+            }
+            edges[idx] = (count == targets.length ? targets : Arrays.copyOf(targets, count));
+        }
+
+        _referencedTables      = new ArrayList<>(numTables);
+        _referencingTables     = new ArrayList<>(numTables);
+        _circularComponents    = new ArrayList<>(Collections.<List<Table>>nCopies(numTables, null));
+        _allCircularComponents = new ArrayList<>();
+        for (int idx = 0; idx < numTables; idx++)
+        {
+            _referencedTables.add(Collections.unmodifiableList(referenced.get(idx)));
+            _referencingTables.add(Collections.unmodifiableList(referencing.get(idx)));
+        }
+
+        _order = Collections.unmodifiableList(sortTables(tables, edges, selfRefs));
+    }
+
+    /**
+     * Determines the strongly connected components of the graph via Tarjan's algorithm,
+     * registers the circular ones, and sorts the tables so that each table follows the
+     * tables that it references. Tables within a circular component and tables that are
+     * at the same depth of the graph are kept in the order of the model.
+     *
+     * @param tables   The tables
+     * @param edges    The indices of the tables referenced by each table, without self references
+     * @param selfRefs Whether each table references itself
+     * @return The sorted tables
+     */
+    private List<Table> sortTables(List<Table> tables, int[][] edges, boolean[] selfRefs)
+    {
+        int   numTables    = tables.size();
+        int[] components   = new int[numTables];
+        int[] visitIndices = new int[numTables];
+        int[] lowLinks     = new int[numTables];
+        int[] stack        = new int[numTables];
+        int[] callStack    = new int[numTables];
+        int[] edgePos      = new int[numTables];
+        int[] depths       = new int[numTables];
+        int   stackSize    = 0;
+        int   nextVisitIdx = 1;
+        int   numComps     = 0;
+
+        Arrays.fill(components, -1);
+        for (int startIdx = 0; startIdx < numTables; startIdx++)
+        {
+            if (visitIndices[startIdx] != 0)
+            {
+                continue;
+            }
+
+            // iterative depth-first search as models can be deep enough to overflow the stack
+            int callDepth = 0;
+
+            callStack[callDepth++]  = startIdx;
+            visitIndices[startIdx]  = nextVisitIdx;
+            lowLinks[startIdx]      = nextVisitIdx++;
+            stack[stackSize++]      = startIdx;
+            while (callDepth > 0)
+            {
+                int tableIdx = callStack[callDepth - 1];
+
+                if (edgePos[tableIdx] < edges[tableIdx].length)
+                {
+                    int targetIdx = edges[tableIdx][edgePos[tableIdx]++];
+
+                    if (visitIndices[targetIdx] == 0)
+                    {
+                        callStack[callDepth++]  = targetIdx;
+                        visitIndices[targetIdx] = nextVisitIdx;
+                        lowLinks[targetIdx]     = nextVisitIdx++;
+                        stack[stackSize++]      = targetIdx;
+                    }
+                    else if (components[targetIdx] < 0)
+                    {
+                        lowLinks[tableIdx] = Math.min(lowLinks[tableIdx], visitIndices[targetIdx]);
+                    }
+                    continue;
+                }
+                callDepth--;
+                if (callDepth > 0)
+                {
+                    int parentIdx = callStack[callDepth - 1];
+
+                    lowLinks[parentIdx] = Math.min(lowLinks[parentIdx], lowLinks[tableIdx]);
+                }
+                if (lowLinks[tableIdx] == visitIndices[tableIdx])
+                {
+                    // the component is complete; as all components that it references have
+                    // been completed before, their depths are known
+                    int compStart = stackSize;
+                    int depth     = 0;
+
+                    do
+                    {
+                        components[stack[--compStart]] = numComps;
+                    }
+                    while (stack[compStart] != tableIdx);
+                    for (int pos = compStart; pos < stackSize; pos++)
+                    {
+                        int[] targets = edges[stack[pos]];
+
+                        for (int edgeIdx = 0; edgeIdx < targets.length; edgeIdx++)
+                        {
+                            if (components[targets[edgeIdx]] != numComps)
+                            {
+                                depth = Math.max(depth, depths[targets[edgeIdx]] + 1);
+                            }
+                        }
+                    }
+                    for (int pos = compStart; pos < stackSize; pos++)
+                    {
+                        depths[stack[pos]] = depth;
+                    }
+                    if ((stackSize - compStart > 1) || selfRefs[tableIdx])
+                    {
+                        registerCircularComponent(tables, stack, compStart, stackSize);
+                    }
+                    stackSize = compStart;
+                    numComps++;
+                }
+            }
+        }
+
+        final int[] tableDepths = depths;
+        Integer[]   indices     = new Integer[numTables];
+
+        for (int idx = 0; idx < numTables; idx++)
+        {
+            indices[idx] = Integer.valueOf(idx);
+        }
+        // stable, so tables of the same depth stay in model order
+        Arrays.sort(indices, new Comparator<Integer>() {
+            public int compare(Integer idx1, Integer idx2)
+            {
+                return Integer.compare(tableDepths[idx1.intValue()], tableDepths[idx2.intValue()]);
+            }
+        });
+
+        ArrayList<Table> result = new ArrayList<>(numTables);
+
+        for (int idx = 0; idx < numTables; idx++)
+        {
+            result.add(tables.get(indices[idx].intValue()));
+        }
+        return result;
+    }
+
+    /**
+     * Registers the circular component formed by the given tables.
+     *
+     * @param tables    The tables of the model
+     * @param stack     The stack that contains the indices of the tables of the component
+     * @param compStart The start of the component in the stack
+     * @param compEnd   The end of the component in the stack (exclusive)
+     */
+    private void registerCircularComponent(List<Table> tables, int[] stack, int compStart, int compEnd)
+    {
+        int[] tableIndices = Arrays.copyOfRange(stack, compStart, compEnd);
+
+        Arrays.sort(tableIndices);
+
+        ArrayList<Table> component = new ArrayList<>(tableIndices.length);
+
+        for (int idx = 0; idx < tableIndices.length; idx++)
+        {
+            component.add(tables.get(tableIndices[idx]));
+        }
+
+        List<Table> result = Collections.unmodifiableList(component);
+
+        for (int idx = 0; idx < tableIndices.length; idx++)
+        {
+            _circularComponents.set(tableIndices[idx], result);
+        }
+        _allCircularComponents.add(result);
+    }
+
+    /**
+     * Returns the position of the given table in the model.
+     *
+     * @param table The table
+     * @return The position or <code>-1</code> if the table is not in the model
+     */
+    private int indexOf(Table table)
+    {
+        Integer idx = _tableIndices.get(table);
+
+        return idx == null ? -1 : idx.intValue();
+    }
+
+    /**
+     * Returns all tables of the model in an order in which they can be filled, i.e. every
+     * table follows the tables that it references. Tables that reference each other in
+     * a circle follow the tables that any of them references, and tables that depend
+     * on none of each other are kept in the order of the model.
+     *
+     * @return The tables in foreign key order, as an unmodifiable list
+     */
+    public List<Table> getTopologicalOrder()
+    {
+        return _order;
+    }
+
+    /**
+     * Returns the tables that the foreign keys of the given table reference. This includes
+     * the table itself if it has a self-referencing foreign key.
+     *
+     * @param table The table
+     * @return The referenced tables as an unmodifiable list; empty if the table is not in the model
+     */
+    public List<Table> getReferencedTables(Table table)
+    {
+        int idx = indexOf(table);
+
+        return idx < 0 ? Collections.<Table>emptyList() : _referencedTables.get(idx);
+    }
+
+    /**
+     * Returns the tables whose foreign keys reference the given table. This includes
+     * the table itself if it has a self-referencing foreign key.
+     *
+     * @param table The table
+     * @return The referencing tables as an unmodifiable list; empty if the table is not in the model
+     */
+    public List<Table> getReferencingTables(Table table)
+    {
+        int idx = indexOf(table);
+
+        return idx < 0 ? Collections.<Table>emptyList() : _referencingTables.get(idx);
+    }
+
+    /**
+     * Determines whether foreign keys reference the given table.
+     *
+     * @param table The table
+     * @return <code>true</code> if the table is referenced by itself or other tables
+     */
+    public boolean isReferenced(Table table)
+    {
+        return !getReferencingTables(table).isEmpty();
+    }
+
+    /**
+     * Returns the groups of tables whose foreign keys form circles, i.e. the strongly
+     * connected components of the graph that contain more than one table, or a single
+     * self-referencing table. The tables of each group are in the order of the model.
+     *
+     * @return The circular components as an unmodifiable list
+     */
+    public List<List<Table>> getCircularComponents()
+    {
+        return Collections.unmodifiableList(_allCircularComponents);
+    }
+
+    /**
+     * Returns the group of tables that the given table is part of via circular
+     * foreign keys.
+     *
+     * @param table The table
+     * @return The circular component, or <code>null</code> if the table is not part of a circle
+     */
+    public List<Table> getCircularComponent(Table table)
+    {
+        int idx = indexOf(table);
+
+        return idx < 0 ? null : _circularComponents.get(idx);
+    }
+}
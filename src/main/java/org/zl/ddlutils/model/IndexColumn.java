@@ -42,6 +42,8 @@ public class IndexColumn implements Serializable
     protected String _name;
     /** The size of the column in the index. */
     protected String _size;
+    /** Whether this index column is part of a frozen model. */
+    private boolean _frozen = false;
 
     /**
      * Creates a new index column object.
@@ -89,6 +91,7 @@ public class IndexColumn implements Serializable
      */
     public void setOrdinalPosition(int position)
     {
+        checkNotFrozen();
         _ordinalPosition = position;
     }
 
@@ -109,6 +112,7 @@ public class IndexColumn implements Serializable
      */
     public void setName(String name)
     {
+        checkNotFrozen();
         _name = name;
     }
 
@@ -129,6 +133,7 @@ public class IndexColumn implements Serializable
      */
     public void setColumn(Column column)
     {
+        checkNotFrozen();
         _column = column;
         _name   = (column == null ? null : column.getName());
     }
@@ -150,6 +155,7 @@ public class IndexColumn implements Serializable
      */
     public void setSize(String size)
     {
+        checkNotFrozen();
         _size = size;
     }
     
@@ -210,4 +216,23 @@ public class IndexColumn implements Serializable
 
         return result.toString();
     }
+
+    /**
+     * Freezes this index column.
+     */
+    void freeze()
+    {
+        _frozen = true;
+    }
+
+    /**
+     * Throws an exception if this index column is part of a frozen model.
+     */
+    private void checkNotFrozen()
+    {
+        if (_frozen)
+        {
+            throw new ModelException("The index column is part of a frozen model and cannot be changed");
+        }
+    }
 }
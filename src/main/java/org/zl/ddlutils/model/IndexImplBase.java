@@ -39,6 +39,10 @@ public abstract class IndexImplBase implements Index
     protected String    _name;
     /** The columns making up the index. */
     protected ArrayList<IndexColumn> _columns = new ArrayList<>();
+    /** Whether this index is part of a frozen model. */
+    private boolean _frozen = false;
+    /** The tables that contain this index, created when the index is added to a table. */
+    private transient OwnerList<Table> _tables;
 
     /**
      * {@inheritDoc}
@@ -53,7 +57,30 @@ public abstract class IndexImplBase implements Index
      */
     public void setName(String name)
     {
+        checkNotFrozen();
         _name = name;
+        if (_tables != null)
+        {
+            for (int idx = 0; idx < _tables.size(); idx++)
+            {
+                _tables.get(idx).indexRenamed();
+            }
+        }
+    }
+
+    /**
+     * Returns the tables that contain this index, which are told about changes
+     * that affect the data they derive from their indices.
+     * 
+     * @return The tables
+     */
+    OwnerList<Table> getOwners()
+    {
+        if (_tables == null)
+        {
+            _tables = new OwnerList<>();
+        }
+        return _tables;
     }
 
     /**
@@ -119,6 +146,7 @@ public abstract class IndexImplBase implements Index
      */
     public void addColumn(IndexColumn column)
     {
+        checkNotFrozen();
         if (column != null)
         {
             for (int idx = 0; idx < _columns.size(); idx++)
@@ -140,6 +168,7 @@ public abstract class IndexImplBase implements Index
      */
     public void removeColumn(IndexColumn column)
     {
+        checkNotFrozen();
         _columns.remove(column);
     }
 
@@ -148,6 +177,30 @@ public abstract class IndexImplBase implements Index
      */
     public void removeColumn(int idx)
     {
+        checkNotFrozen();
         _columns.remove(idx);
     }
+
+    /**
+     * Freezes this index and its columns.
+     */
+    void freeze()
+    {
+        _frozen = true;
+        for (int idx = 0; idx < _columns.size(); idx++)
+        {
+            _columns.get(idx).freeze();
+        }
+    }
+
+    /**
+     * Throws an exception if this index is part of a frozen model.
+     */
+    private void checkNotFrozen()
+    {
+        if (_frozen)
+        {
+            throw new ModelException("The index "+_name+" is part of a frozen model and cannot be changed");
+        }
+    }
 }
@@ -0,0 +1,323 @@
+package org.zl.ddlutils.model;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.apache.commons.lang.builder.EqualsBuilder;
+
+/**
+ * Compares models, tables and columns structurally, i.e. by their names, the definitions of
+ * the columns, and the foreign keys and indices. This is the comparison that the <code>equals</code>
+ * methods of the model classes perform (when comparing case sensitively), but callers that need a
+ * deep comparison should use this class explicitly; the model classes are also used as keys in
+ * collections where a deep comparison is rarely needed.
+ *
+ * @version $Revision: $
+ */
+public class ModelEquivalence
+{
+    /** Compares names case sensitively. */
+    public static final ModelEquivalence CASE_SENSITIVE = new ModelEquivalence(true);
+    /** Compares names case insensitively. */
+    public static final ModelEquivalence CASE_INSENSITIVE = new ModelEquivalence(false);
+
+    /** Whether case matters for the names. */
+    private final boolean _caseSensitive;
+
+    /**
+     * Creates a new equivalence.
+     *
+     * @param caseSensitive Whether case matters for the names
+     */
+    public ModelEquivalence(boolean caseSensitive)
+    {
+        _caseSensitive = caseSensitive;
+    }
+
+    /**
+     * Returns the equivalence for the given case sensitivity.
+     *
+     * @param caseSensitive Whether case matters for the names
+     * @return The equivalence
+     */
+    public static ModelEquivalence getInstance(boolean caseSensitive)
+    {
+        return caseSensitive ? CASE_SENSITIVE : CASE_INSENSITIVE;
+    }
+
+    /**
+     * Determines whether case matters for the names.
+     *
+     * @return <code>true</code> if names are compared case sensitively
+     */
+    public boolean isCaseSensitive()
+    {
+        return _caseSensitive;
+    }
+
+    /**
+     * Determines whether the two models have the same name and structurally equivalent
+     * tables in the same order.
+     *
+     * @param model1 The first model
+     * @param model2 The second model
+     * @return <code>true</code> if the models are equivalent
+     */
+    public boolean isEquivalent(Database model1, Database model2)
+    {
+        if (model1 == model2)
+        {
+            return true;
+        }
+        if ((model1 == null) || (model2 == null) ||
+            !namesEqual(model1.getName(), model2.getName()) ||
+            (model1.getTableCount() != model2.getTableCount()))
+        {
+            return false;
+        }
+        for (int idx = 0; idx < model1.getTableCount(); idx++)
+        {
+            if (!isEquivalent(model1.getTable(idx), model2.getTable(idx)))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines whether the two tables have the same name, equivalent columns in the same
+     * order, and the same foreign keys and indices (in any order). Catalog, schema, type and
+     * description of the tables are ignored.
+     *
+     * @param table1 The first table
+     * @param table2 The second table
+     * @return <code>true</code> if the tables are equivalent
+     */
+    public boolean isEquivalent(Table table1, Table table2)
+    {
+        if (table1 == table2)
+        {
+            return true;
+        }
+        if ((table1 == null) || (table2 == null) ||
+            !namesEqual(table1.getName(), table2.getName()) ||
+            (table1.getColumnCount() != table2.getColumnCount()))
+        {
+            return false;
+        }
+        for (int idx = 0; idx < table1.getColumnCount(); idx++)
+        {
+            if (!isEquivalent(table1.getColumn(idx), table2.getColumn(idx)))
+            {
+                return false;
+            }
+        }
+        if (_caseSensitive)
+        {
+            return new HashSet<>(Arrays.asList(table1.getForeignKeys())).equals(new HashSet<>(Arrays.asList(table2.getForeignKeys()))) &&
+                   new HashSet<>(Arrays.asList(table1.getIndices())).equals(new HashSet<>(Arrays.asList(table2.getIndices())));
+        }
+        else
+        {
+            return foreignKeysEqualIgnoreCase(table1.getForeignKeys(), table2.getForeignKeys()) &&
+                   indicesEqualIgnoreCase(table1.getIndices(), table2.getIndices());
+        }
+    }
+
+    /**
+     * Determines whether the two columns have the same name and definition. The size is
+     * only compared for types where it is relevant.
+     *
+     * @param column1 The first column
+     * @param column2 The second column
+     * @return <code>true</code> if the columns are equivalent
+     */
+    public boolean isEquivalent(Column column1, Column column2)
+    {
+        if (column1 == column2)
+        {
+            return true;
+        }
+        if ((column1 == null) || (column2 == null) || !namesEqual(column1.getName(), column2.getName()))
+        {
+            return false;
+        }
+
+        EqualsBuilder comparator = new EqualsBuilder();
+        int           typeCode   = column1.getTypeCode();
+
+        comparator.append(column1.isPrimaryKey(),           column2.isPrimaryKey());
+        comparator.append(column1.isRequired(),             column2.isRequired());
+        comparator.append(column1.isAutoIncrement(),        column2.isAutoIncrement());
+        comparator.append(typeCode,                         column2.getTypeCode());
+        comparator.append(column1.getParsedDefaultValue(),  column2.getParsedDefaultValue());
+        if ((typeCode == Types.NUMERIC) || (typeCode == Types.DECIMAL))
+        {
+            comparator.append(column1.getSize(),  column2.getSize());
+            comparator.append(column1.getScale(), column2.getScale());
+        }
+        else if ((typeCode == Types.CHAR) || (typeCode == Types.VARCHAR) ||
+                 (typeCode == Types.BINARY) || (typeCode == Types.VARBINARY))
+        {
+            comparator.append(column1.getSize(), column2.getSize());
+        }
+        return comparator.isEquals();
+    }
+
+    /**
+     * Computes a hash code for the given table that is consistent with
+     * {@link #isEquivalent(Table, Table)}. It is only based on the names of the table and
+     * its columns, so that it only changes when tables or columns are renamed, added or
+     * removed.
+     *
+     * @param table The table
+     * @return The hash code
+     */
+    public int hashCode(Table table)
+    {
+        if (table == null)
+        {
+            return 0;
+        }
+
+        int hashCode = nameHashCode(table.getName());
+
+        for (int idx = 0; idx < table.getColumnCount(); idx++)
+        {
+            Column column = table.getColumn(idx);
+
+            hashCode = 31 * hashCode + nameHashCode(column.getName());
+        }
+        return hashCode;
+    }
+
+    /**
+     * Compares two names according to the case sensitivity of this equivalence.
+     *
+     * @param name1 The first name
+     * @param name2 The second name
+     * @return <code>true</code> if the names are equal
+     */
+    private boolean namesEqual(String name1, String name2)
+    {
+        if (name1 == null)
+        {
+            return name2 == null;
+        }
+        return _caseSensitive ? name1.equals(name2) : name1.equalsIgnoreCase(name2);
+    }
+
+    /**
+     * Computes the hash code of a name according to the case sensitivity of this equivalence.
+     *
+     * @param name The name
+     * @return The hash code
+     */
+    private int nameHashCode(String name)
+    {
+        if (name == null)
+        {
+            return 0;
+        }
+        return _caseSensitive ? name.hashCode() : NameIndex.foldCase(name).hashCode();
+    }
+
+    /**
+     * Determines whether every foreign key in the first array has a case insensitively equal
+     * foreign key in the second array and vice versa.
+     *
+     * @param fks1 The first foreign keys
+     * @param fks2 The second foreign keys
+     * @return <code>true</code> if the foreign keys are equal
+     */
+    private boolean foreignKeysEqualIgnoreCase(ForeignKey[] fks1, ForeignKey[] fks2)
+    {
+        return containsAllIgnoreCase(fks1, fks2) && containsAllIgnoreCase(fks2, fks1);
+    }
+
+    /**
+     * Determines whether every foreign key in the first array has a case insensitively equal
+     * foreign key in the second array.
+     *
+     * @param fks1 The first foreign keys
+     * @param fks2 The second foreign keys
+     * @return <code>true</code> if all foreign keys were found
+     */
+    private boolean containsAllIgnoreCase(ForeignKey[] fks1, ForeignKey[] fks2)
+    {
+        for (int idx1 = 0; idx1 < fks1.length; idx1++)
+        {
+            boolean found = false;
+
+            for (int idx2 = 0; !found && (idx2 < fks2.length); idx2++)
+            {
+                found = fks1[idx1].equalsIgnoreCase(fks2[idx2]);
+            }
+            if (!found)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines whether every index in the first array has a case insensitively equal
+     * index in the second array and vice versa.
+     *
+     * @param indices1 The first indices
+     * @param indices2 The second indices
+     * @return <code>true</code> if the indices are equal
+     */
+    private boolean indicesEqualIgnoreCase(Index[] indices1, Index[] indices2)
+    {
+        return containsAllIgnoreCase(indices1, indices2) && containsAllIgnoreCase(indices2, indices1);
+    }
+
+    /**
+     * Determines whether every index in the first array has a case insensitively equal
+     * index in the second array.
+     *
+     * @param indices1 The first indices
+     * @param indices2 The second indices
+     * @return <code>true</code> if all indices were found
+     */
+    private boolean containsAllIgnoreCase(Index[] indices1, Index[] indices2)
+    {
+        for (int idx1 = 0; idx1 < indices1.length; idx1++)
+        {
+            boolean found = false;
+
+            for (int idx2 = 0; !found && (idx2 < indices2.length); idx2++)
+            {
+                found = indices1[idx1].equalsIgnoreCase(indices2[idx2]);
+            }
+            if (!found)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
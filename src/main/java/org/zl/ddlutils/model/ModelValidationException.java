@@ -0,0 +1,86 @@
+package org.zl.ddlutils.model;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Indicates that a model is not valid. In contrast to a plain {@link ModelException},
+ * it carries all problems that were found in the model, not only the first one.
+ * 
+ * @version $Revision: $
+ */
+public class ModelValidationException extends ModelException
+{
+    /** Constant for serializing instances of this class. */
+    private static final long serialVersionUID = 3266873364104215906L;
+
+    /** The error messages. */
+    private final ArrayList<String> _errors;
+
+    /**
+     * Creates a new exception object for the given errors.
+     * 
+     * @param errors The error messages, at least one
+     */
+    public ModelValidationException(List<String> errors)
+    {
+        super(createMessage(errors));
+        _errors = new ArrayList<>(errors);
+    }
+
+    /**
+     * Creates the message of the exception.
+     * 
+     * @param errors The error messages
+     * @return The message
+     */
+    private static String createMessage(List<String> errors)
+    {
+        if (errors.size() == 1)
+        {
+            return errors.get(0);
+        }
+
+        StringBuilder result = new StringBuilder();
+
+        result.append("The database model has ");
+        result.append(errors.size());
+        result.append(" errors:");
+        for (int idx = 0; idx < errors.size(); idx++)
+        {
+            result.append("\n  ");
+            result.append(errors.get(idx));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the error messages.
+     * 
+     * @return The error messages as an unmodifiable list
+     */
+    public List<String> getErrors()
+    {
+        return Collections.unmodifiableList(_errors);
+    }
+}
@@ -0,0 +1,100 @@
+package org.zl.ddlutils.model;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps the names of model elements (tables, columns, indices, foreign keys) to the elements,
+ * both case sensitive and case insensitive. An index is a snapshot of the elements of its owner
+ * and is discarded by the owner when elements are added, removed or renamed (elements tell
+ * their owners about renames, see {@link OwnerList}).<br/>
+ * If several elements have the same name, then the index returns the first one, like a linear
+ * search over the elements would.
+ *
+ * @version $Revision: $
+ */
+final class NameIndex<T>
+{
+    /** The elements by name. */
+    private final Map<String, T> _elementsByName = new HashMap<>();
+    /** The elements by case folded name. */
+    private final Map<String, T> _elementsByFoldedName = new HashMap<>();
+
+    /**
+     * Adds an element to this index. This is only done while the owner builds the index.
+     *
+     * @param name    The name of the element; elements without a name are ignored
+     * @param element The element
+     */
+    void add(String name, T element)
+    {
+        if (name != null)
+        {
+            _elementsByName.putIfAbsent(name, element);
+            _elementsByFoldedName.putIfAbsent(foldCase(name), element);
+        }
+    }
+
+    /**
+     * Returns the element with the given name.
+     *
+     * @param name          The name
+     * @param caseSensitive Whether case matters for the name
+     * @return The element or <code>null</code> if there is no such element
+     */
+    T find(String name, boolean caseSensitive)
+    {
+        if (name == null)
+        {
+            return null;
+        }
+        return caseSensitive ? _elementsByName.get(name) : _elementsByFoldedName.get(foldCase(name));
+    }
+
+    /**
+     * Folds the case of the given name so that two names are equal after folding if and only if
+     * they are equal according to {@link String#equalsIgnoreCase(String)}.
+     *
+     * @param name The name
+     * @return The folded name
+     */
+    static String foldCase(String name)
+    {
+        char[] chars = null;
+
+        for (int idx = 0; idx < name.length(); idx++)
+        {
+            char curChar    = name.charAt(idx);
+            char foldedChar = Character.toLowerCase(Character.toUpperCase(curChar));
+
+            if (foldedChar != curChar)
+            {
+                if (chars == null)
+                {
+                    chars = name.toCharArray();
+                }
+                chars[idx] = foldedChar;
+            }
+        }
+        return chars == null ? name : new String(chars);
+    }
+}
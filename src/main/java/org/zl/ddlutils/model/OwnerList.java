@@ -0,0 +1,91 @@
+package org.zl.ddlutils.model;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Arrays;
+
+/**
+ * The owners of a model element, e.g. the tables that contain a column. The element uses
+ * them to tell the owners about changes that make data cached by the owners stale, so that
+ * changes of elements that are not part of any model (e.g. while a model is being built)
+ * cost nothing. Usually there is at most one owner, but nothing prevents adding the same
+ * element to several owners. The owners are compared by identity.
+ *
+ * @version $Revision: $
+ */
+final class OwnerList<T>
+{
+    /** The owners. */
+    private Object[] _owners = new Object[0];
+
+    /**
+     * Adds an owner.
+     *
+     * @param owner The owner
+     */
+    void add(T owner)
+    {
+        _owners = Arrays.copyOf(_owners, _owners.length + 1);
+        _owners[_owners.length - 1] = owner;
+    }
+
+    /**
+     * Removes one occurrence of the given owner.
+     *
+     * @param owner The owner
+     */
+    void remove(T owner)
+    {
+        for (int idx = 0; idx < _owners.length; idx++)
+        {
+            if (_owners[idx] == owner)
+            {
+                Object[] owners = new Object[_owners.length - 1];
+
+                System.arraycopy(_owners, 0, owners, 0, idx);
+                System.arraycopy(_owners, idx + 1, owners, idx, owners.length - idx);
+                _owners = owners;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of owners.
+     *
+     * @return The number of owners
+     */
+    int size()
+    {
+        return _owners.length;
+    }
+
+    /**
+     * Returns the indicated owner.
+     *
+     * @param idx The index of the owner
+     * @return The owner
+     */
+    @SuppressWarnings("unchecked")
+    T get(int idx)
+    {
+        return (T)_owners[idx];
+    }
+}
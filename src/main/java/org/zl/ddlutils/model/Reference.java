@@ -44,6 +44,8 @@ public class Reference implements Serializable
     private String _localColumnName;
     /** The name of the foreign column. */
     private String _foreignColumnName;
+    /** Whether this reference is part of a frozen model. */
+    private boolean _frozen = false;
 
     /**
      * Creates a new, empty reference.
@@ -82,6 +84,7 @@ public class Reference implements Serializable
      */
     public void setSequenceValue(int sequenceValue)
     {
+        checkNotFrozen();
         _sequenceValue = sequenceValue;
     }
 
@@ -102,6 +105,7 @@ public class Reference implements Serializable
      */
     public void setLocalColumn(Column localColumn)
     {
+        checkNotFrozen();
         _localColumn     = localColumn;
         _localColumnName = (localColumn == null ? null : localColumn.getName());
     }
@@ -123,6 +127,7 @@ public class Reference implements Serializable
      */
     public void setForeignColumn(Column foreignColumn)
     {
+        checkNotFrozen();
         _foreignColumn     = foreignColumn;
         _foreignColumnName = (foreignColumn == null ? null : foreignColumn.getName());
     }
@@ -145,6 +150,7 @@ public class Reference implements Serializable
      */
     public void setLocalColumnName(String localColumnName)
     {
+        checkNotFrozen();
         if ((_localColumn != null) && !_localColumn.getName().equals(localColumnName))
         {
             _localColumn = null;
@@ -170,6 +176,7 @@ public class Reference implements Serializable
      */
     public void setForeignColumnName(String foreignColumnName)
     {
+        checkNotFrozen();
         if ((_foreignColumn != null) && !_foreignColumn.getName().equals(foreignColumnName))
         {
             _foreignColumn = null;
@@ -232,4 +239,23 @@ public class Reference implements Serializable
 
         return result.toString();
     }
+
+    /**
+     * Freezes this reference.
+     */
+    void freeze()
+    {
+        _frozen = true;
+    }
+
+    /**
+     * Throws an exception if this reference is part of a frozen model.
+     */
+    private void checkNotFrozen()
+    {
+        if (_frozen)
+        {
+            throw new ModelException("The reference is part of a frozen model and cannot be changed");
+        }
+    }
 }
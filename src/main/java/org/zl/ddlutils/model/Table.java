@@ -19,20 +19,16 @@ package org.zl.ddlutils.model;
  * under the License.
  */
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.text.Collator;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Collection;
 
-import org.apache.commons.collections.Predicate;
-import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.lang.builder.EqualsBuilder;
-import org.apache.commons.lang.builder.HashCodeBuilder;
-
 /**
  * Represents a table in the database model.
  * 
@@ -59,6 +55,22 @@ public class Table implements Serializable
     private ArrayList<ForeignKey> _foreignKeys = new ArrayList<>();
     /** The indices applied to this table. */
     private ArrayList<Index> _indices = new ArrayList<>();
+    /** The columns by name, created on demand and discarded when columns are added, removed or renamed. */
+    private transient volatile NameIndex<Column> _columnsByName;
+    /** The indices by name, created on demand and discarded when indices are added, removed or renamed. */
+    private transient volatile NameIndex<Index> _indicesByName;
+    /** The foreign keys by name, created on demand and discarded when foreign keys are added, removed or renamed. */
+    private transient volatile NameIndex<ForeignKey> _foreignKeysByName;
+    /** The cached hash code, valid if {@link #_hashCodeValid} is set. */
+    private transient int _hashCode;
+    /** Whether {@link #_hashCode} is valid. */
+    private transient volatile boolean _hashCodeValid;
+    /** The data derived from the columns and indices, created on demand and discarded when they change. */
+    private transient volatile TableMetadata _metadata;
+    /** Whether this table is part of a frozen model. */
+    private boolean _frozen = false;
+    /** The models that contain this table, created when the table is added to a model. */
+    private transient OwnerList<Database> _databases;
 
     /**
      * Returns the catalog of this table as read from the database.
@@ -77,6 +89,7 @@ public class Table implements Serializable
      */
     public void setCatalog(String catalog)
     {
+        checkNotFrozen();
         _catalog = catalog;
     }
 
@@ -97,6 +110,7 @@ public class Table implements Serializable
      */
     public void setSchema(String schema)
     {
+        checkNotFrozen();
         _schema = schema;
     }
 
@@ -117,6 +131,7 @@ public class Table implements Serializable
      */
     public void setType(String type)
     {
+        checkNotFrozen();
         _type = type;
     }
 
@@ -137,7 +152,31 @@ public class Table implements Serializable
      */
     public void setName(String name)
     {
-        _name = name;
+        checkNotFrozen();
+        _name          = name;
+        _hashCodeValid = false;
+        if (_databases != null)
+        {
+            for (int idx = 0; idx < _databases.size(); idx++)
+            {
+                _databases.get(idx).tableRenamed();
+            }
+        }
+    }
+
+    /**
+     * Returns the models that contain this table, which are told about changes that
+     * affect the data they derive from their tables.
+     * 
+     * @return The models
+     */
+    OwnerList<Database> getOwners()
+    {
+        if (_databases == null)
+        {
+            _databases = new OwnerList<>();
+        }
+        return _databases;
     }
 
     /**
@@ -157,6 +196,7 @@ public class Table implements Serializable
      */
     public void setDescription(String description)
     {
+        checkNotFrozen();
         _description = description;
     }
 
@@ -198,9 +238,12 @@ public class Table implements Serializable
      */
     public void addColumn(Column column)
     {
+        checkNotFrozen();
         if (column != null)
         {
             _columns.add(column);
+            column.getOwners().add(this);
+            columnsChanged();
         }
     }
 
@@ -212,9 +255,12 @@ public class Table implements Serializable
      */
     public void addColumn(int idx, Column column)
     {
+        checkNotFrozen();
         if (column != null)
         {
             _columns.add(idx, column);
+            column.getOwners().add(this);
+            columnsChanged();
         }
     }
 
@@ -227,6 +273,7 @@ public class Table implements Serializable
      */
     public void addColumn(Column previousColumn, Column column)
     {
+        checkNotFrozen();
         if (column != null)
         {
             if (previousColumn == null)
@@ -237,6 +284,8 @@ public class Table implements Serializable
             {
                 _columns.add(_columns.indexOf(previousColumn), column);
             }
+            column.getOwners().add(this);
+            columnsChanged();
         }
     }
 
@@ -260,9 +309,16 @@ public class Table implements Serializable
      */
     public void removeColumn(Column column)
     {
+        checkNotFrozen();
         if (column != null)
         {
-            _columns.remove(column);
+            int idx = _columns.indexOf(column);
+
+            if (idx >= 0)
+            {
+                _columns.remove(idx).getOwners().remove(this);
+            }
+            columnsChanged();
         }
     }
 
@@ -273,7 +329,13 @@ public class Table implements Serializable
      */
     public void removeAllColumns()
     {
+        checkNotFrozen();
+        for (int idx = 0; idx < _columns.size(); idx++)
+        {
+            _columns.get(idx).getOwners().remove(this);
+        }
         _columns.clear();
+        columnsChanged();
     }
 
     /**
@@ -283,7 +345,192 @@ public class Table implements Serializable
      */
     public void removeColumn(int idx)
     {
-        _columns.remove(idx);
+        checkNotFrozen();
+        _columns.remove(idx).getOwners().remove(this);
+        columnsChanged();
+    }
+
+    /**
+     * Determines whether this table is part of a frozen model, i.e. whether it
+     * cannot be changed anymore.
+     * 
+     * @return <code>true</code> if the table is frozen
+     * @see Database#freeze()
+     */
+    public boolean isFrozen()
+    {
+        return _frozen;
+    }
+
+    /**
+     * Freezes this table as well as its columns, foreign keys and indices, and computes
+     * the data derived from them so that the table can be read concurrently.
+     */
+    void freeze()
+    {
+        if (!_frozen)
+        {
+            _frozen = true;
+            for (int idx = 0; idx < _columns.size(); idx++)
+            {
+                _columns.get(idx).freeze();
+            }
+            for (int idx = 0; idx < _foreignKeys.size(); idx++)
+            {
+                _foreignKeys.get(idx).freeze();
+            }
+            for (int idx = 0; idx < _indices.size(); idx++)
+            {
+                ((IndexImplBase)_indices.get(idx)).freeze();
+            }
+            _columnsByName     = null;
+            _indicesByName     = null;
+            _foreignKeysByName = null;
+            _metadata          = null;
+            getColumnsByName();
+            getIndicesByName();
+            getForeignKeysByName();
+            getMetadata();
+            _hashCode          = ModelEquivalence.CASE_SENSITIVE.hashCode(this);
+            _hashCodeValid     = true;
+        }
+    }
+
+    /**
+     * Throws an exception if this table is frozen.
+     */
+    private void checkNotFrozen()
+    {
+        if (_frozen)
+        {
+            throw new ModelException("The table "+_name+" is part of a frozen model and cannot be changed");
+        }
+    }
+
+    /**
+     * Discards the data derived from the columns after columns have been added or removed.
+     */
+    private void columnsChanged()
+    {
+        _columnsByName = null;
+        _metadata      = null;
+        _hashCodeValid = false;
+    }
+
+    /**
+     * Discards the data derived from the column names after a column of this table has been renamed.
+     */
+    void columnRenamed()
+    {
+        _columnsByName = null;
+        _hashCodeValid = false;
+    }
+
+    /**
+     * Discards the data derived from the column flags after the primary key, required or auto
+     * increment flag of a column of this table has changed.
+     */
+    void columnFlagsChanged()
+    {
+        _metadata = null;
+    }
+
+    /**
+     * Discards the data derived from the index names after an index of this table has been renamed.
+     */
+    void indexRenamed()
+    {
+        _indicesByName = null;
+    }
+
+    /**
+     * Tells the models that contain this table that foreign keys have been added to or removed
+     * from it, or that the foreign table of one of its foreign keys has changed.
+     */
+    void foreignKeysChanged()
+    {
+        if (_databases != null)
+        {
+            for (int idx = 0; idx < _databases.size(); idx++)
+            {
+                _databases.get(idx).foreignKeysChanged();
+            }
+        }
+    }
+
+    /**
+     * Discards the data derived from the foreign key names after a foreign key of this table has been renamed.
+     */
+    void foreignKeyRenamed()
+    {
+        _foreignKeysByName = null;
+    }
+
+    /**
+     * Registers this table as the owner of its columns, indices and foreign keys after
+     * it has been deserialized, as the owners of model elements are not serialized.
+     * 
+     * @param in The stream to read the table from
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        for (int idx = 0; idx < _columns.size(); idx++)
+        {
+            _columns.get(idx).getOwners().add(this);
+        }
+        for (int idx = 0; idx < _foreignKeys.size(); idx++)
+        {
+            _foreignKeys.get(idx).getOwners().add(this);
+        }
+        for (int idx = 0; idx < _indices.size(); idx++)
+        {
+            addIndexOwner(_indices.get(idx));
+        }
+    }
+
+    /**
+     * Registers this table as an owner of the given index. Only indices derived from
+     * {@link IndexImplBase} tell their owners about renames.
+     * 
+     * @param index The index
+     */
+    private void addIndexOwner(Index index)
+    {
+        if (index instanceof IndexImplBase)
+        {
+            ((IndexImplBase)index).getOwners().add(this);
+        }
+    }
+
+    /**
+     * Removes this table from the owners of the given index.
+     * 
+     * @param index The index
+     */
+    private void removeIndexOwner(Index index)
+    {
+        if (index instanceof IndexImplBase)
+        {
+            ((IndexImplBase)index).getOwners().remove(this);
+        }
+    }
+
+    /**
+     * Returns the data derived from the columns and indices, creating it if necessary.
+     * 
+     * @return The derived data
+     */
+    private TableMetadata getMetadata()
+    {
+        TableMetadata metadata = _metadata;
+
+        if (metadata == null)
+        {
+            metadata  = new TableMetadata(_columns, _indices);
+            _metadata = metadata;
+        }
+        return metadata;
     }
 
     /**
@@ -324,9 +571,13 @@ public class Table implements Serializable
      */
     public void addForeignKey(ForeignKey foreignKey)
     {
+        checkNotFrozen();
         if (foreignKey != null)
         {
             _foreignKeys.add(foreignKey);
+            foreignKey.getOwners().add(this);
+            _foreignKeysByName = null;
+            foreignKeysChanged();
         }
     }
 
@@ -338,9 +589,13 @@ public class Table implements Serializable
      */
     public void addForeignKey(int idx, ForeignKey foreignKey)
     {
+        checkNotFrozen();
         if (foreignKey != null)
         {
             _foreignKeys.add(idx, foreignKey);
+            foreignKey.getOwners().add(this);
+            _foreignKeysByName = null;
+            foreignKeysChanged();
         }
     }
 
@@ -362,7 +617,14 @@ public class Table implements Serializable
      */
     public void removeAllForeignKeys()
     {
+        checkNotFrozen();
+        for (int idx = 0; idx < _foreignKeys.size(); idx++)
+        {
+            _foreignKeys.get(idx).getOwners().remove(this);
+        }
         _foreignKeys.clear();
+        _foreignKeysByName = null;
+        foreignKeysChanged();
     }
 
     /**
@@ -372,9 +634,17 @@ public class Table implements Serializable
      */
     public void removeForeignKey(ForeignKey foreignKey)
     {
+        checkNotFrozen();
         if (foreignKey != null)
         {
-            _foreignKeys.remove(foreignKey);
+            int idx = _foreignKeys.indexOf(foreignKey);
+
+            if (idx >= 0)
+            {
+                _foreignKeys.remove(idx).getOwners().remove(this);
+            }
+            _foreignKeysByName = null;
+            foreignKeysChanged();
         }
     }
 
@@ -385,7 +655,10 @@ public class Table implements Serializable
      */
     public void removeForeignKey(int idx)
     {
-        _foreignKeys.remove(idx);
+        checkNotFrozen();
+        _foreignKeys.remove(idx).getOwners().remove(this);
+        _foreignKeysByName = null;
+        foreignKeysChanged();
     }
 
     /**
@@ -416,9 +689,13 @@ public class Table implements Serializable
      */
     public void addIndex(Index index)
     {
+        checkNotFrozen();
         if (index != null)
         {
             _indices.add(index);
+            addIndexOwner(index);
+            _indicesByName = null;
+            _metadata      = null;
         }
     }
 
@@ -430,9 +707,13 @@ public class Table implements Serializable
      */
     public void addIndex(int idx, Index index)
     {
+        checkNotFrozen();
         if (index != null)
         {
             _indices.add(idx, index);
+            addIndexOwner(index);
+            _indicesByName = null;
+            _metadata      = null;
         }
     }
 
@@ -464,16 +745,9 @@ public class Table implements Serializable
      * 
      * @return The unique indices
      */
-    @SuppressWarnings("unchecked")
-	public Index[] getNonUniqueIndices()
+    public Index[] getNonUniqueIndices()
     {
-        Collection<Index> nonUniqueIndices = CollectionUtils.select(_indices, new Predicate() {
-            public boolean evaluate(Object input) {
-                return !((Index)input).isUnique();
-            }
-        });
-
-        return (Index[])nonUniqueIndices.toArray(new Index[nonUniqueIndices.size()]);
+        return (Index[])getMetadata().getNonUniqueIndices().clone();
     }
 
     /**
@@ -481,16 +755,9 @@ public class Table implements Serializable
      * 
      * @return The unique indices
      */
-    @SuppressWarnings("unchecked")
-	public Index[] getUniqueIndices()
+    public Index[] getUniqueIndices()
     {
-        Collection<Index> uniqueIndices = CollectionUtils.select(_indices, new Predicate() {
-            public boolean evaluate(Object input) {
-                return ((Index)input).isUnique();
-            }
-        });
-
-        return (Index[])uniqueIndices.toArray(new Index[uniqueIndices.size()]);
+        return (Index[])getMetadata().getUniqueIndices().clone();
     }
 
     /**
@@ -500,9 +767,17 @@ public class Table implements Serializable
      */
     public void removeIndex(Index index)
     {
+        checkNotFrozen();
         if (index != null)
         {
-            _indices.remove(index);
+            int idx = _indices.indexOf(index);
+
+            if (idx >= 0)
+            {
+                removeIndexOwner(_indices.remove(idx));
+            }
+            _indicesByName = null;
+            _metadata      = null;
         }
     }
 
@@ -513,7 +788,10 @@ public class Table implements Serializable
      */
     public void removeIndex(int idx)
     {
-        _indices.remove(idx);
+        checkNotFrozen();
+        removeIndexOwner(_indices.remove(idx));
+        _indicesByName = null;
+        _metadata      = null;
     }
 
     // Helper methods
@@ -526,16 +804,7 @@ public class Table implements Serializable
      */
     public boolean hasPrimaryKey()
     {
-        for (Iterator<Column> it = _columns.iterator(); it.hasNext(); )
-        {
-            Column column = it.next();
-
-            if (column.isPrimaryKey())
-            {
-                return true;
-            }
-        }
-        return false;
+        return getMetadata().getPrimaryKeyColumns().length > 0;
     }
 
     /**
@@ -562,26 +831,30 @@ public class Table implements Serializable
      */
     public Column findColumn(String name, boolean caseSensitive)
     {
-        for (Iterator<Column> it = _columns.iterator(); it.hasNext(); )
-        {
-            Column column = it.next();
+        return getColumnsByName().find(name, caseSensitive);
+    }
 
-            if (caseSensitive)
-            {
-                if (column.getName().equals(name))
-                {
-                    return column;
-                }
-            }
-            else
+    /**
+     * Returns the columns by name, creating the index if necessary.
+     * 
+     * @return The index
+     */
+    private NameIndex<Column> getColumnsByName()
+    {
+        NameIndex<Column> columnsByName = _columnsByName;
+
+        if (columnsByName == null)
+        {
+            columnsByName = new NameIndex<>();
+            for (int idx = 0; idx < _columns.size(); idx++)
             {
-                if (column.getName().equalsIgnoreCase(name))
-                {
-                    return column;
-                }
+                Column column = _columns.get(idx);
+
+                columnsByName.add(column.getName(), column);
             }
+            _columnsByName = columnsByName;
         }
-        return null;
+        return columnsByName;
     }
 
     /**
@@ -633,17 +906,31 @@ public class Table implements Serializable
         {
             throw new NullPointerException("The index name to search for cannot be null");
         }
-        for (int idx = 0; idx < getIndexCount(); idx++)
-        {
-            Index index = getIndex(idx);
 
-            if ((caseSensitive  && name.equals(index.getName())) ||
-                (!caseSensitive && name.equalsIgnoreCase(index.getName())))
+        return getIndicesByName().find(name, caseSensitive);
+    }
+
+    /**
+     * Returns the indices by name, creating the index if necessary.
+     * 
+     * @return The index
+     */
+    private NameIndex<Index> getIndicesByName()
+    {
+        NameIndex<Index> indicesByName = _indicesByName;
+
+        if (indicesByName == null)
+        {
+            indicesByName = new NameIndex<>();
+            for (int idx = 0; idx < _indices.size(); idx++)
             {
-                return index;
+                Index index = _indices.get(idx);
+
+                indicesByName.add(index.getName(), index);
             }
+            _indicesByName = indicesByName;
         }
-        return null;
+        return indicesByName;
     }
 
     /**
@@ -675,17 +962,31 @@ public class Table implements Serializable
         {
             throw new NullPointerException("The foreign key name to search for cannot be null");
         }
-        for (int idx = 0; idx < getForeignKeyCount(); idx++)
-        {
-            ForeignKey foreignKey = getForeignKey(idx);
 
-            if ((caseSensitive  && name.equals(foreignKey.getName())) ||
-                (!caseSensitive && name.equalsIgnoreCase(foreignKey.getName())))
+        return getForeignKeysByName().find(name, caseSensitive);
+    }
+
+    /**
+     * Returns the foreign keys by name, creating the index if necessary.
+     * 
+     * @return The index
+     */
+    private NameIndex<ForeignKey> getForeignKeysByName()
+    {
+        NameIndex<ForeignKey> foreignKeysByName = _foreignKeysByName;
+
+        if (foreignKeysByName == null)
+        {
+            foreignKeysByName = new NameIndex<>();
+            for (int idx = 0; idx < _foreignKeys.size(); idx++)
             {
-                return foreignKey;
+                ForeignKey foreignKey = _foreignKeys.get(idx);
+
+                foreignKeysByName.add(foreignKey.getName(), foreignKey);
             }
+            _foreignKeysByName = foreignKeysByName;
         }
-        return null;
+        return foreignKeysByName;
     }
 
     /**
@@ -756,14 +1057,29 @@ public class Table implements Serializable
      */
     public Column[] getPrimaryKeyColumns()
     {
-        @SuppressWarnings("unchecked")
-		Collection<Column> pkColumns = CollectionUtils.select(_columns, new Predicate() {
-            public boolean evaluate(Object input) {
-                return ((Column)input).isPrimaryKey();
-            }
-        });
+        return (Column[])getMetadata().getPrimaryKeyColumns().clone();
+    }
 
-        return (Column[])pkColumns.toArray(new Column[pkColumns.size()]);
+    /**
+     * Returns the number of primary key columns of this table.
+     * 
+     * @return The number of primary key columns
+     */
+    public int getPrimaryKeyColumnCount()
+    {
+        return getMetadata().getPrimaryKeyColumns().length;
+    }
+
+    /**
+     * Returns the primary key column at the specified position. Other than
+     * {@link #getPrimaryKeyColumns()}, this does not copy the primary key columns.
+     * 
+     * @param idx The position among the primary key columns
+     * @return The primary key column
+     */
+    public Column getPrimaryKeyColumn(int idx)
+    {
+        return getMetadata().getPrimaryKeyColumns()[idx];
     }
 
     /**
@@ -773,7 +1089,7 @@ public class Table implements Serializable
      */
     public String[] getPrimaryKeyColumnNames()
     {
-        Column[] pkColumns = getPrimaryKeyColumns();
+        Column[] pkColumns = getMetadata().getPrimaryKeyColumns();
         String[] names     = new String[pkColumns.length];
 
         for (int colIdx = 0; colIdx < pkColumns.length; colIdx++)
@@ -792,14 +1108,17 @@ public class Table implements Serializable
      */
     public Column[] getAutoIncrementColumns()
     {
-        @SuppressWarnings("unchecked")
-		Collection<Column> autoIncrColumns = CollectionUtils.select(_columns, new Predicate() {
-            public boolean evaluate(Object input) {
-                return ((Column)input).isAutoIncrement();
-            }
-        });
+        return (Column[])getMetadata().getAutoIncrementColumns().clone();
+    }
 
-        return (Column[])autoIncrColumns.toArray(new Column[autoIncrColumns.size()]);
+    /**
+     * Determines whether this table has at least one auto increment column.
+     * 
+     * @return <code>true</code> if there are one or more auto increment columns
+     */
+    public boolean hasAutoIncrementColumns()
+    {
+        return getMetadata().getAutoIncrementColumns().length > 0;
     }
 
     /**
@@ -810,14 +1129,7 @@ public class Table implements Serializable
      */
     public Column[] getRequiredColumns()
     {
-        @SuppressWarnings("unchecked")
-		Collection<Column> requiredColumns = CollectionUtils.select(_columns, new Predicate() {
-            public boolean evaluate(Object input) {
-                return ((Column)input).isRequired();
-            }
-        });
-
-        return (Column[])requiredColumns.toArray(new Column[requiredColumns.size()]);
+        return (Column[])getMetadata().getRequiredColumns().clone();
     }
 
     /**
@@ -827,6 +1139,7 @@ public class Table implements Serializable
      */
 	public void sortForeignKeys(final boolean caseSensitive)
     {
+        checkNotFrozen();
         if (!_foreignKeys.isEmpty())
         {
             final Collator collator = Collator.getInstance();
@@ -846,6 +1159,7 @@ public class Table implements Serializable
                     return collator.compare(fk1Name, fk2Name);
                 }
             });
+            _foreignKeysByName = null;
         }
     }
     
@@ -856,15 +1170,9 @@ public class Table implements Serializable
     {
         if (obj instanceof Table)
         {
-            Table other = (Table)obj;
-
             // Note that this compares case sensitive
             // TODO: For now we ignore catalog and schema (type should be irrelevant anyways)
-            return new EqualsBuilder().append(_name,                     other._name)
-                                      .append(_columns,                  other._columns)
-                                      .append(new HashSet<>(_foreignKeys), new HashSet<>(other._foreignKeys))
-                                      .append(new HashSet<>(_indices),     new HashSet<>(other._indices))
-                                      .isEquals();
+            return ModelEquivalence.CASE_SENSITIVE.isEquivalent(this, (Table)obj);
         }
         else
         {
@@ -877,12 +1185,14 @@ public class Table implements Serializable
      */
     public int hashCode()
     {
-        // TODO: For now we ignore catalog and schema (type should be irrelevant anyways)
-        return new HashCodeBuilder(17, 37).append(_name)
-                                          .append(_columns)
-                                          .append(new HashSet<>(_foreignKeys))
-                                          .append(new HashSet<>(_indices))
-                                          .toHashCode();
+        // the hash code is only based on the names of the table and its columns, and
+        // thus stays valid until the table or a column is renamed, added or removed
+        if (!_hashCodeValid)
+        {
+            _hashCode      = ModelEquivalence.CASE_SENSITIVE.hashCode(this);
+            _hashCodeValid = true;
+        }
+        return _hashCode;
     }
 
     /**
@@ -0,0 +1,141 @@
+package org.zl.ddlutils.model;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contains the data that a table derives from its columns and indices, i.e. the
+ * primary key, auto increment and required columns, and the unique and non-unique
+ * indices. The data is a snapshot which the owning table discards when columns or
+ * indices are added or removed, or when the primary key, required or auto increment
+ * flag of one of its columns changes (columns tell their tables about these changes,
+ * see {@link OwnerList}).
+ *
+ * @version $Revision: $
+ */
+final class TableMetadata
+{
+    /** The primary key columns. */
+    private final Column[] _primaryKeyColumns;
+    /** The auto increment columns. */
+    private final Column[] _autoIncrementColumns;
+    /** The required columns. */
+    private final Column[] _requiredColumns;
+    /** The unique indices. */
+    private final Index[] _uniqueIndices;
+    /** The non-unique indices. */
+    private final Index[] _nonUniqueIndices;
+
+    /**
+     * Creates the snapshot for the given columns and indices.
+     *
+     * @param columns The columns of the table
+     * @param indices The indices of the table
+     */
+    TableMetadata(List<Column> columns, List<Index> indices)
+    {
+        List<Column> pkColumns        = new ArrayList<>();
+        List<Column> autoIncrColumns  = new ArrayList<>();
+        List<Column> requiredColumns  = new ArrayList<>();
+        List<Index>  uniqueIndices    = new ArrayList<>();
+        List<Index>  nonUniqueIndices = new ArrayList<>();
+
+        for (int idx = 0; idx < columns.size(); idx++)
+        {
+            Column column = columns.get(idx);
+
+            if (column.isPrimaryKey())
+            {
+                pkColumns.add(column);
+            }
+            if (column.isAutoIncrement())
+            {
+                autoIncrColumns.add(column);
+            }
+            if (column.isRequired())
+            {
+                requiredColumns.add(column);
+            }
+        }
+        for (int idx = 0; idx < indices.size(); idx++)
+        {
+            Index index = indices.get(idx);
+
+            (index.isUnique() ? uniqueIndices : nonUniqueIndices).add(index);
+        }
+        _primaryKeyColumns    = pkColumns.toArray(new Column[pkColumns.size()]);
+        _autoIncrementColumns = autoIncrColumns.toArray(new Column[autoIncrColumns.size()]);
+        _requiredColumns      = requiredColumns.toArray(new Column[requiredColumns.size()]);
+        _uniqueIndices        = uniqueIndices.toArray(new Index[uniqueIndices.size()]);
+        _nonUniqueIndices     = nonUniqueIndices.toArray(new Index[nonUniqueIndices.size()]);
+    }
+
+    /**
+     * Returns the primary key columns. The returned array must not be modified.
+     *
+     * @return The primary key columns
+     */
+    Column[] getPrimaryKeyColumns()
+    {
+        return _primaryKeyColumns;
+    }
+
+    /**
+     * Returns the auto increment columns. The returned array must not be modified.
+     *
+     * @return The auto increment columns
+     */
+    Column[] getAutoIncrementColumns()
+    {
+        return _autoIncrementColumns;
+    }
+
+    /**
+     * Returns the required columns. The returned array must not be modified.
+     *
+     * @return The required columns
+     */
+    Column[] getRequiredColumns()
+    {
+        return _requiredColumns;
+    }
+
+    /**
+     * Returns the unique indices. The returned array must not be modified.
+     *
+     * @return The unique indices
+     */
+    Index[] getUniqueIndices()
+    {
+        return _uniqueIndices;
+    }
+
+    /**
+     * Returns the non-unique indices. The returned array must not be modified.
+     *
+     * @return The non-unique indices
+     */
+    Index[] getNonUniqueIndices()
+    {
+        return _nonUniqueIndices;
+    }
+}
@@ -0,0 +1,252 @@
+package org.zl.ddlutils.platform;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.zl.ddlutils.dynabean.SqlDynaClass;
+import org.zl.ddlutils.model.Column;
+
+/**
+ * Holds the state of a JDBC insert batch for one dyna class (and insert plan) during
+ * a call to {@link PlatformImplBase#insert(java.sql.Connection, org.zl.ddlutils.model.Database, java.util.Collection)},
+ * i.e. the open prepared statement, the rows added since the last flush, and the flush
+ * statistics. If the values of identity columns are read back via the generated keys of
+ * the statement, then the batch also holds the beans added since the last flush.
+ *
+ * @version $Revision: $
+ */
+class InsertBatch
+{
+    /** The dyna class. */
+    private final SqlDynaClass _dynaClass;
+    /** The insert plan. */
+    private final StatementPlan _plan;
+    /** The prepared statement. */
+    private final PreparedStatement _statement;
+    /** The identity columns whose values are generated by the database. */
+    private final Column[] _identityColumns;
+    /** Whether the identity values are read from the generated keys of the statement. */
+    private final boolean _generatedKeysRead;
+    /** The number of rows inserted by one execution of the statement. */
+    private final int _rowsPerStatement;
+    /** The beans added since the last flush if the generated keys are read or multiple rows are inserted per statement. */
+    private final List<DynaBean> _pendingBeans = new ArrayList<>();
+    /** The number of rows added since the last flush. */
+    private int _pendingRows;
+    /** The estimated number of bytes added since the last flush. */
+    private long _pendingBytes;
+    /** The number of flushed rows. */
+    private int _flushedRows;
+    /** The estimated number of flushed bytes. */
+    private long _flushedBytes;
+    /** The number of flushes. */
+    private int _flushCount;
+    /** The largest number of rows in a single flush. */
+    private int _maxFlushedRows;
+
+    /**
+     * Creates a new batch.
+     *
+     * @param dynaClass         The dyna class
+     * @param plan              The insert plan
+     * @param statement         The prepared statement for the plan
+     * @param identityColumns   The identity columns whose values are generated by the database
+     * @param generatedKeysRead Whether the statement returns the values of the identity columns
+     *                          as generated keys
+     * @param rowsPerStatement  The number of rows inserted by one execution of the statement;
+     *                          if larger than 1, then the beans are collected and only bound
+     *                          when the batch is flushed
+     */
+    public InsertBatch(SqlDynaClass dynaClass, StatementPlan plan, PreparedStatement statement, Column[] identityColumns, boolean generatedKeysRead, int rowsPerStatement)
+    {
+        _dynaClass         = dynaClass;
+        _plan              = plan;
+        _statement         = statement;
+        _identityColumns   = identityColumns;
+        _generatedKeysRead = generatedKeysRead;
+        _rowsPerStatement  = rowsPerStatement;
+    }
+
+    /**
+     * Returns the dyna class.
+     *
+     * @return The dyna class
+     */
+    public SqlDynaClass getDynaClass()
+    {
+        return _dynaClass;
+    }
+
+    /**
+     * Returns the insert plan.
+     *
+     * @return The plan
+     */
+    public StatementPlan getPlan()
+    {
+        return _plan;
+    }
+
+    /**
+     * Returns the prepared statement.
+     *
+     * @return The statement
+     */
+    public PreparedStatement getStatement()
+    {
+        return _statement;
+    }
+
+    /**
+     * Returns the identity columns whose values are generated by the database.
+     *
+     * @return The identity columns
+     */
+    public Column[] getIdentityColumns()
+    {
+        return _identityColumns;
+    }
+
+    /**
+     * Determines whether the values of the identity columns are read from the generated
+     * keys of the statement.
+     *
+     * @return <code>true</code> if the generated keys are read
+     */
+    public boolean isGeneratedKeysRead()
+    {
+        return _generatedKeysRead;
+    }
+
+    /**
+     * Returns the number of rows inserted by one execution of the statement.
+     *
+     * @return The number of rows
+     */
+    public int getRowsPerStatement()
+    {
+        return _rowsPerStatement;
+    }
+
+    /**
+     * Registers a bean that has been added to the statement's batch.
+     *
+     * @param bean     The bean
+     * @param numBytes The estimated size of the row
+     */
+    public void rowAdded(DynaBean bean, long numBytes)
+    {
+        _pendingRows++;
+        _pendingBytes += numBytes;
+        if (_generatedKeysRead || (_rowsPerStatement > 1))
+        {
+            _pendingBeans.add(bean);
+        }
+    }
+
+    /**
+     * Returns the beans added since the last flush if the generated keys are read or
+     * multiple rows are inserted per statement.
+     *
+     * @return The beans in the order in which they were added
+     */
+    public List<DynaBean> getPendingBeans()
+    {
+        return _pendingBeans;
+    }
+
+    /**
+     * Returns the number of rows added since the last flush.
+     *
+     * @return The number of rows
+     */
+    public int getPendingRows()
+    {
+        return _pendingRows;
+    }
+
+    /**
+     * Returns the estimated number of bytes added since the last flush.
+     *
+     * @return The number of bytes
+     */
+    public long getPendingBytes()
+    {
+        return _pendingBytes;
+    }
+
+    /**
+     * Registers that the pending rows have been sent to the database.
+     */
+    public void flushed()
+    {
+        _flushedRows   += _pendingRows;
+        _flushedBytes  += _pendingBytes;
+        _flushCount++;
+        _maxFlushedRows = Math.max(_maxFlushedRows, _pendingRows);
+        _pendingRows    = 0;
+        _pendingBytes   = 0;
+        _pendingBeans.clear();
+    }
+
+    /**
+     * Returns the number of flushed rows.
+     *
+     * @return The number of rows
+     */
+    public int getFlushedRows()
+    {
+        return _flushedRows;
+    }
+
+    /**
+     * Returns the estimated number of flushed bytes.
+     *
+     * @return The number of bytes
+     */
+    public long getFlushedBytes()
+    {
+        return _flushedBytes;
+    }
+
+    /**
+     * Returns the number of flushes.
+     *
+     * @return The number of flushes
+     */
+    public int getFlushCount()
+    {
+        return _flushCount;
+    }
+
+    /**
+     * Returns the largest number of rows sent to the database in a single flush.
+     *
+     * @return The number of rows
+     */
+    public int getMaxFlushedRows()
+    {
+        return _maxFlushedRows;
+    }
+}
@@ -24,10 +24,10 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 
 import org.apache.commons.beanutils.BasicDynaBean;
@@ -39,6 +39,7 @@ import org.apache.commons.collections.map.ListOrderedMap;
 import org.zl.ddlutils.DatabaseOperationException;
 import org.zl.ddlutils.dynabean.SqlDynaBean;
 import org.zl.ddlutils.dynabean.SqlDynaClass;
+import org.zl.ddlutils.dynabean.SqlDynaProperty;
 import org.zl.ddlutils.model.Column;
 import org.zl.ddlutils.model.Database;
 import org.zl.ddlutils.model.Table;
@@ -63,15 +64,24 @@ public class ModelBasedResultSetIterator implements Iterator<DynaBean>
     private boolean _caseSensitive;
     /** Maps column names to table objects as given by the query hints. */
     private Map<String, Table> _preparedQueryHints;
-    /** Maps column names to properties. */
-    @SuppressWarnings("unchecked")
-	private Map<String, String> _columnsToProperties = new ListOrderedMap();
+    /** The indices of the result set columns to read, one per property to set. */
+    private int[] _columnIndices;
+    /** The model columns for the result set columns; <code>null</code> for unknown columns. */
+    private Column[] _columns;
+    /** The jdbc types to use for reading the values of the known columns. */
+    private int[] _jdbcTypes;
+    /** The names of the properties to set. */
+    private String[] _propertyNames;
+    /** The indices of the properties in the sql dyna class, or <code>-1</code> if the property is set by name. */
+    private int[] _propertyIndices;
     /** Whether the next call to hasNext or next needs advancement. */
     private boolean _needsAdvancing = true;
     /** Whether we're already at the end of the result set. */
     private boolean _isAtEnd = false;
     /** Whether to close the statement and connection after finishing. */
     private boolean _cleanUpAfterFinish;
+    /** Whether to switch on the auto-commit mode of the connection again after finishing. */
+    private boolean _autoCommitRestored;
 
     /**
      * Creates a new iterator.
@@ -111,16 +121,32 @@ public class ModelBasedResultSetIterator implements Iterator<DynaBean>
         }
     }
 
+    /**
+     * Specifies whether the auto-commit mode of the connection shall be switched on again
+     * when this iterator closes the statement and connection, e.g. because it was switched
+     * off for streaming the result.
+     * 
+     * @param autoCommitRestored <code>true</code> if the auto-commit mode shall be switched on
+     */
+    public void setAutoCommitRestored(boolean autoCommitRestored)
+    {
+        _autoCommitRestored = autoCommitRestored;
+    }
+
     /**
      * Initializes this iterator from the resultset metadata.
      * 
      * @param model The database model
      */
+    @SuppressWarnings("unchecked")
     private void initFromMetaData(Database model) throws SQLException
     {
-        ResultSetMetaData metaData         = _resultSet.getMetaData();
-        String            tableName        = null;
-        boolean           singleKnownTable = true;
+        ResultSetMetaData    metaData            = _resultSet.getMetaData();
+        String               tableName           = null;
+        boolean              singleKnownTable    = true;
+        Map<String, String>  columnsToProperties = new ListOrderedMap();
+        Map<String, Integer> columnIndices       = new HashMap<>();
+        String               paginationColumn    = _platform.getSqlBuilder().getPaginationColumnName();
 
         for (int idx = 1; idx <= metaData.getColumnCount(); idx++)
         {
@@ -128,6 +154,11 @@ public class ModelBasedResultSetIterator implements Iterator<DynaBean>
             String tableOfColumn = metaData.getTableName(idx);
             Table  table         = null;
 
+            if (columnName.equalsIgnoreCase(paginationColumn))
+            {
+                // added by the platform when paginating the query
+                continue;
+            }
             if ((tableOfColumn != null) && (tableOfColumn.length() > 0))
             {
                 // jConnect might return a table name enclosed in quotes
@@ -165,7 +196,12 @@ public class ModelBasedResultSetIterator implements Iterator<DynaBean>
                     propName = column.getName();
                 }
             }
-            _columnsToProperties.put(columnName, propName);
+            columnsToProperties.put(columnName, propName);
+            if (!columnIndices.containsKey(columnName))
+            {
+                // reading a value by column name yields the first column of that name
+                columnIndices.put(columnName, Integer.valueOf(idx));
+            }
         }
         if (singleKnownTable && (tableName != null))
         {
@@ -173,15 +209,74 @@ public class ModelBasedResultSetIterator implements Iterator<DynaBean>
         }
         else
         {
-            DynaProperty[] props = new DynaProperty[_columnsToProperties.size()];
+            DynaProperty[] props = new DynaProperty[columnsToProperties.size()];
             int            idx   = 0;
 
-            for (Iterator<String> it = _columnsToProperties.values().iterator(); it.hasNext(); idx++)
+            for (Iterator<String> it = columnsToProperties.values().iterator(); it.hasNext(); idx++)
             {
                 props[idx] = new DynaProperty(it.next());
             }
             _dynaClass = new BasicDynaClass("result", BasicDynaBean.class, props);
         }
+        initExtractionPlan(columnsToProperties, columnIndices);
+    }
+
+    /**
+     * Determines for each column of the result set once, where the value is read from,
+     * which column and jdbc type is used for reading it, and which property it is
+     * written to, so that reading the rows does not require any lookups by name.
+     * 
+     * @param columnsToProperties The column names mapped to the property names, in the order
+     *                            of the result set columns
+     * @param columnIndices       The column names mapped to their index in the result set
+     */
+    private void initExtractionPlan(Map<String, String> columnsToProperties, Map<String, Integer> columnIndices)
+    {
+        int   numColumns = columnsToProperties.size();
+        Table table      = null;
+
+        _columnIndices   = new int[numColumns];
+        _columns         = new Column[numColumns];
+        _jdbcTypes       = new int[numColumns];
+        _propertyNames   = new String[numColumns];
+        _propertyIndices = new int[numColumns];
+
+        if (_dynaClass instanceof SqlDynaClass)
+        {
+            table = ((SqlDynaClass)_dynaClass).getTable();
+        }
+
+        int idx = 0;
+
+        for (Iterator<Map.Entry<String, String>> it = columnsToProperties.entrySet().iterator(); it.hasNext(); idx++)
+        {
+            Map.Entry<String, String> entry      = it.next();
+            String                    columnName = entry.getKey();
+            String                    propName   = entry.getValue();
+            Table                     curTable   = table;
+
+            if (curTable == null)
+            {
+                curTable = (Table)_preparedQueryHints.get(_caseSensitive ? columnName : columnName.toLowerCase());
+            }
+
+            Column column = (curTable == null ? null : curTable.findColumn(columnName, _caseSensitive));
+
+            _columnIndices[idx]   = columnIndices.get(columnName).intValue();
+            _columns[idx]         = column;
+            _jdbcTypes[idx]       = (column == null ? Types.OTHER : _platform.getResultSetJdbcType(column));
+            _propertyNames[idx]   = propName;
+            _propertyIndices[idx] = -1;
+            if (table != null)
+            {
+                DynaProperty property = _dynaClass.getDynaProperty(propName);
+
+                if (property instanceof SqlDynaProperty)
+                {
+                    _propertyIndices[idx] = ((SqlDynaProperty)property).getIndex();
+                }
+            }
+        }
     }
 
     /**
@@ -237,31 +332,21 @@ public class ModelBasedResultSetIterator implements Iterator<DynaBean>
         {
             try
             {
-                DynaBean bean  = _dynaClass.newInstance();
-                Table    table = null;
+                DynaBean    bean    = _dynaClass.newInstance();
+                SqlDynaBean sqlBean = (bean instanceof SqlDynaBean ? (SqlDynaBean)bean : null);
 
-                if (bean instanceof SqlDynaBean)
+                for (int idx = 0; idx < _columnIndices.length; idx++)
                 {
-                    SqlDynaClass dynaClass = (SqlDynaClass)((SqlDynaBean)bean).getDynaClass();
+                    Object value = _platform.getObjectFromResultSet(_resultSet, _columns[idx], _columnIndices[idx], _jdbcTypes[idx]);
 
-                    table = dynaClass.getTable();
-                }
-
-                for (Iterator<Entry<String, String>> it = _columnsToProperties.entrySet().iterator(); it.hasNext();)
-                {
-                    Map.Entry<String, String> entry      = it.next();
-                    String    columnName = entry.getKey();
-                    String    propName   = entry.getValue();
-                    Table     curTable   = table;
-
-                    if (curTable == null)
+                    if ((sqlBean != null) && (_propertyIndices[idx] >= 0))
                     {
-                        curTable = (Table)_preparedQueryHints.get(_caseSensitive ? columnName : columnName.toLowerCase());
+                        sqlBean.set(_propertyIndices[idx], value);
+                    }
+                    else
+                    {
+                        bean.set(_propertyNames[idx], value);
                     }
-
-                    Object value = _platform.getObjectFromResultSet(_resultSet, columnName, curTable);
-
-                    bean.set(propName, value);
                 }
                 _needsAdvancing = true;
                 return bean;
@@ -352,6 +437,7 @@ public class ModelBasedResultSetIterator implements Iterator<DynaBean>
             {
                 // we ignore it
             }
+            _platform.restoreAutoCommit(conn, _autoCommitRestored);
             _platform.returnConnection(conn);
             _resultSet = null;
         }
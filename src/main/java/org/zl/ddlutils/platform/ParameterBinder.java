@@ -0,0 +1,45 @@
+package org.zl.ddlutils.platform;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Sets the value of a statement parameter that corresponds to a column. A binder is
+ * chosen once per column type by the platform (see
+ * {@link PlatformImplBase#createParameterBinder(int)}), so that setting the parameters
+ * of a statement does not have to determine the JDBC method anew for every value.
+ *
+ * @version $Revision: $
+ */
+public interface ParameterBinder
+{
+    /**
+     * Sets the parameter of the prepared statement to the given value.
+     *
+     * @param statement The statement
+     * @param sqlIndex  The parameter index
+     * @param value     The value, can be <code>null</code>
+     * @throws SQLException If an error occurred while setting the parameter value
+     */
+    public void bind(PreparedStatement statement, int sqlIndex, Object value) throws SQLException;
+}
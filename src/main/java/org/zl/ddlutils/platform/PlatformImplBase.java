@@ -24,30 +24,38 @@ import java.io.StringWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.sql.BatchUpdateException;
 import java.sql.Blob;
 import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.beanutils.DynaBean;
 import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.Predicate;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.zl.ddlutils.DatabaseOperationException;
@@ -74,8 +82,12 @@ import org.zl.ddlutils.alteration.RemovePrimaryKeyChange;
 import org.zl.ddlutils.alteration.RemoveTableChange;
 import org.zl.ddlutils.alteration.TableChange;
 import org.zl.ddlutils.alteration.TableDefinitionChangesPredicate;
+import org.zl.ddlutils.dynabean.SqlDynaBean;
 import org.zl.ddlutils.dynabean.SqlDynaClass;
 import org.zl.ddlutils.dynabean.SqlDynaProperty;
+import org.zl.ddlutils.io.BatchDataSink;
+import org.zl.ddlutils.io.DataSinkException;
+import org.zl.ddlutils.io.RowBatch;
 import org.zl.ddlutils.model.CloneHelper;
 import org.zl.ddlutils.model.Column;
 import org.zl.ddlutils.model.Database;
@@ -95,6 +107,14 @@ import org.zl.ddlutils.util.SqlTokenizer;
 public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 	/** The default name for models read from the database, if no name as given. */
 	protected static final String MODEL_DEFAULT_NAME = "default";
+	/** Stores beans by inserting them. */
+	private static final int STORE_VIA_INSERT = 0;
+	/** Stores beans by updating the existing rows. */
+	private static final int STORE_VIA_UPDATE = 1;
+	/** Stores beans via the platform's insert-or-update statement. */
+	private static final int STORE_VIA_UPSERT = 2;
+	/** Stores beans by querying which of them exist and then inserting or updating them. */
+	private static final int STORE_VIA_KEY_QUERY = 3;
 
 	/** The log for this platform. */
 	private final Log _log = LogFactory.getLog(getClass());
@@ -105,6 +125,16 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 	private SqlBuilder _builder;
 	/** The model reader for this platform. */
 	private JdbcModelReader _modelReader;
+	/** The cache for the prepared statement plans of the data manipulation methods. */
+	private final StatementPlanCache _statementPlanCache = new StatementPlanCache();
+	/** The parameter binders per JDBC type code. */
+	private final Map<Integer, ParameterBinder> _parameterBinders = new ConcurrentHashMap<>();
+	/** Whether the platform overrides the deprecated setObject method. */
+	private final boolean _setObjectOverridden = isOverriddenWithoutBinders("setObject", PreparedStatement.class,
+			int.class, DynaBean.class, SqlDynaProperty.class);
+	/** Whether the platform overrides setStatementParameterValue but not the binder creation. */
+	private final boolean _parameterValueSetterOverridden = isOverriddenWithoutBinders("setStatementParameterValue",
+			PreparedStatement.class, int.class, int.class, Object.class);
 	/** Whether script mode is on. */
 	private boolean _scriptModeOn;
 	/** Whether SQL comments are generated or not. */
@@ -125,6 +155,18 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 	 * unsupported.
 	 */
 	private boolean _useDefaultOnDeleteActionIfUnsupported = true;
+	/** The maximum number of statements per JDBC batch in the batch mode operations. */
+	private int _batchSize = 1000;
+	/** The maximum estimated number of bytes per JDBC batch in batch mode inserts. */
+	private long _batchByteSize;
+	/** Whether batch mode inserts use separate batches per set of inserted columns. */
+	private boolean _batchInsertGroupingOn;
+	/** Whether batch mode inserts use multi-row insert statements. */
+	private boolean _multiRowInsertOn;
+	/** Whether queries stream their results. */
+	private boolean _streamingQueryModeOn;
+	/** The fetch size for queries in streaming mode. */
+	private int _queryFetchSize = 1000;
 
 	/**
 	 * {@inheritDoc}
@@ -161,6 +203,13 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 		_modelReader = modelReader;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public StatementPlanCache getStatementPlanCache() {
+		return _statementPlanCache;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -272,6 +321,99 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 		_useDefaultOnDeleteActionIfUnsupported = useDefault;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getBatchSize() {
+		return _batchSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize < 0) {
+			throw new IllegalArgumentException("The batch size must not be negative");
+		}
+		_batchSize = batchSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getBatchByteSize() {
+		return _batchByteSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void setBatchByteSize(long batchByteSize) {
+		if (batchByteSize < 0) {
+			throw new IllegalArgumentException("The batch byte size must not be negative");
+		}
+		_batchByteSize = batchByteSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean isBatchInsertGroupingOn() {
+		return _batchInsertGroupingOn;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void setBatchInsertGroupingOn(boolean batchInsertGroupingOn) {
+		_batchInsertGroupingOn = batchInsertGroupingOn;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean isMultiRowInsertOn() {
+		return _multiRowInsertOn;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void setMultiRowInsertOn(boolean multiRowInsertOn) {
+		_multiRowInsertOn = multiRowInsertOn;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean isStreamingQueryModeOn() {
+		return _streamingQueryModeOn;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void setStreamingQueryModeOn(boolean streamingQueryModeOn) {
+		_streamingQueryModeOn = streamingQueryModeOn;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getQueryFetchSize() {
+		return _queryFetchSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void setQueryFetchSize(int queryFetchSize) {
+		if (queryFetchSize < 0) {
+			throw new IllegalArgumentException("The query fetch size must not be negative");
+		}
+		_queryFetchSize = queryFetchSize;
+	}
+
 	/**
 	 * Returns the log for this platform.
 	 * 
@@ -1383,15 +1525,26 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 	 * {@inheritDoc}
 	 */
 	public Iterator<DynaBean> query(Database model, String sql, Table[] queryHints) throws DatabaseOperationException {
+		return query(model, sql, queryHints, _streamingQueryModeOn);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Iterator<DynaBean> query(Database model, String sql, Table[] queryHints, boolean streaming)
+			throws DatabaseOperationException {
 		Connection connection = borrowConnection();
 		Statement statement = null;
 		ResultSet resultSet = null;
-		Iterator<DynaBean> answer = null;
+		ModelBasedResultSetIterator answer = null;
+		boolean autoCommitChanged = false;
 
 		try {
-			statement = connection.createStatement();
+			autoCommitChanged = streaming && prepareConnectionForStreaming(connection);
+			statement = createQueryStatement(connection, streaming);
 			resultSet = statement.executeQuery(sql);
 			answer = createResultSetIterator(model, resultSet, queryHints);
+			answer.setAutoCommitRestored(autoCommitChanged);
 			return answer;
 		} catch (SQLException ex) {
 			throw new DatabaseOperationException("Error while performing a query", ex);
@@ -1400,6 +1553,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 			// otherwise we're leaving it open for the iterator
 			if (answer == null) {
 				closeStatement(statement);
+				restoreAutoCommit(connection, autoCommitChanged);
 				returnConnection(connection);
 			}
 		}
@@ -1413,10 +1567,12 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 		Connection connection = borrowConnection();
 		PreparedStatement statement = null;
 		ResultSet resultSet = null;
-		Iterator<DynaBean> answer = null;
+		ModelBasedResultSetIterator answer = null;
+		boolean autoCommitChanged = false;
 
 		try {
-			statement = connection.prepareStatement(sql);
+			autoCommitChanged = _streamingQueryModeOn && prepareConnectionForStreaming(connection);
+			statement = prepareQueryStatement(connection, sql, _streamingQueryModeOn);
 
 			int paramIdx = 1;
 
@@ -1432,6 +1588,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 			}
 			resultSet = statement.executeQuery();
 			answer = createResultSetIterator(model, resultSet, queryHints);
+			answer.setAutoCommitRestored(autoCommitChanged);
 			return answer;
 		} catch (SQLException ex) {
 			throw new DatabaseOperationException("Error while performing a query", ex);
@@ -1440,6 +1597,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 			// otherwise we're leaving it open for the iterator
 			if (answer == null) {
 				closeStatement(statement);
+				restoreAutoCommit(connection, autoCommitChanged);
 				returnConnection(connection);
 			}
 		}
@@ -1474,16 +1632,28 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 		Connection connection = borrowConnection();
 		Statement statement = null;
 		ResultSet resultSet = null;
+		ModelBasedResultSetIterator it = null;
 		List<DynaBean> result = new ArrayList<>();
+		boolean autoCommitChanged = false;
 
 		try {
-			statement = connection.createStatement();
-			resultSet = statement.executeQuery(sql);
+			autoCommitChanged = _streamingQueryModeOn && prepareConnectionForStreaming(connection);
+
+			String paginatedSql = getPaginatedSql(connection, sql, start, end);
+
+			if (paginatedSql != null) {
+				statement = createQueryStatement(connection, _streamingQueryModeOn);
+				resultSet = statement.executeQuery(paginatedSql);
+			} else {
+				statement = createFetchStatement(connection, start, end);
+				resultSet = statement.executeQuery(sql);
+			}
+			it = createResultSetIterator(model, resultSet, queryHints);
+			it.setAutoCommitRestored(autoCommitChanged);
 
-			int rowIdx = 0;
+			int rowIdx = (paginatedSql != null ? Math.max(0, start) : skipRows(resultSet, start));
 
-			for (ModelBasedResultSetIterator it = createResultSetIterator(model, resultSet, queryHints); ((end < 0)
-					|| (rowIdx <= end)) && it.hasNext(); rowIdx++) {
+			for (; ((end < 0) || (rowIdx <= end)) && it.hasNext(); rowIdx++) {
 				if (rowIdx >= start) {
 					result.add(it.next());
 				} else {
@@ -1495,6 +1665,11 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 		} finally {
 			// the iterator should return the connection automatically
 			// so this is usually not necessary (but just in case)
+			if (it != null) {
+				it.cleanUp();
+			} else {
+				restoreAutoCommit(connection, autoCommitChanged);
+			}
 			closeStatement(statement);
 			returnConnection(connection);
 		}
@@ -1533,10 +1708,18 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 		Connection connection = borrowConnection();
 		PreparedStatement statement = null;
 		ResultSet resultSet = null;
+		ModelBasedResultSetIterator it = null;
 		List<DynaBean> result = new ArrayList<>();
+		boolean autoCommitChanged = false;
 
 		try {
-			statement = connection.prepareStatement(sql);
+			autoCommitChanged = _streamingQueryModeOn && prepareConnectionForStreaming(connection);
+
+			String paginatedSql = getPaginatedSql(connection, sql, start, end);
+
+			statement = (paginatedSql != null
+					? prepareQueryStatement(connection, paginatedSql, _streamingQueryModeOn)
+					: prepareFetchStatement(connection, sql, start, end));
 
 			int paramIdx = 1;
 
@@ -1551,11 +1734,12 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 				}
 			}
 			resultSet = statement.executeQuery();
+			it = createResultSetIterator(model, resultSet, queryHints);
+			it.setAutoCommitRestored(autoCommitChanged);
 
-			int rowIdx = 0;
+			int rowIdx = (paginatedSql != null ? Math.max(0, start) : skipRows(resultSet, start));
 
-			for (ModelBasedResultSetIterator it = createResultSetIterator(model, resultSet, queryHints); ((end < 0)
-					|| (rowIdx <= end)) && it.hasNext(); rowIdx++) {
+			for (; ((end < 0) || (rowIdx <= end)) && it.hasNext(); rowIdx++) {
 				if (rowIdx >= start) {
 					result.add(it.next());
 				} else {
@@ -1566,12 +1750,85 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 			// any other exception comes from the iterator which closes the resources
 			// automatically
 			closeStatement(statement);
+			restoreAutoCommit(connection, autoCommitChanged);
 			returnConnection(connection);
 			throw new DatabaseOperationException("Error while fetching data from the database", ex);
 		}
+		if (it.isConnectionOpen()) {
+			// the requested rows have been read before the end of the result
+			it.cleanUp();
+		}
 		return result;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public void queryBatches(String sql, Table table, int batchSize, BatchDataSink sink)
+			throws DatabaseOperationException {
+		Connection connection = borrowConnection();
+		PreparedStatement statement = null;
+		ResultSet resultSet = null;
+		boolean autoCommitChanged = false;
+
+		try {
+			autoCommitChanged = _streamingQueryModeOn && prepareConnectionForStreaming(connection);
+			statement = prepareQueryStatement(connection, sql, _streamingQueryModeOn);
+			resultSet = statement.executeQuery();
+
+			// maps the result set columns to the batch columns once per query
+			ResultSetMetaData metaData = resultSet.getMetaData();
+			int[] resultSetIndices = new int[metaData.getColumnCount()];
+			int[] columnIndices = new int[resultSetIndices.length];
+			int[] jdbcTypes = new int[resultSetIndices.length];
+			int numColumns = 0;
+
+			for (int idx = 1; idx <= metaData.getColumnCount(); idx++) {
+				Column column = table.findColumn(metaData.getColumnName(idx), isDelimitedIdentifierModeOn());
+
+				if (column != null) {
+					resultSetIndices[numColumns] = idx;
+					columnIndices[numColumns] = table.getColumnIndex(column);
+					jdbcTypes[numColumns] = getResultSetJdbcType(column);
+					numColumns++;
+				}
+			}
+
+			RowBatch batch = new RowBatch(table, batchSize);
+
+			while (resultSet.next()) {
+				int rowIdx = batch.addRow();
+
+				for (int idx = 0; idx < numColumns; idx++) {
+					readBatchValue(resultSet, resultSetIndices[idx], batch, rowIdx, columnIndices[idx], jdbcTypes[idx]);
+				}
+				if (batch.isFull()) {
+					sink.addBatch(batch);
+					batch.clear();
+				}
+			}
+			if (batch.getRowCount() > 0) {
+				sink.addBatch(batch);
+				batch.clear();
+			}
+		} catch (SQLException ex) {
+			throw new DatabaseOperationException("Error while fetching data from the database", ex);
+		} catch (DataSinkException ex) {
+			throw new DatabaseOperationException("Error while handing a batch to the sink", ex);
+		} finally {
+			if (resultSet != null) {
+				try {
+					resultSet.close();
+				} catch (SQLException ex) {
+					// we ignore this one
+				}
+			}
+			closeStatement(statement);
+			restoreAutoCommit(connection, autoCommitChanged);
+			returnConnection(connection);
+		}
+	}
+
 	/**
 	 * Creates the SQL for inserting an object of the given type. If a concrete bean
 	 * is given, then a concrete insert statement is created, otherwise an insert
@@ -1591,6 +1848,64 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 		return _builder.getInsertSql(table, columnValues, bean == null);
 	}
 
+	/**
+	 * Creates the SQL for inserting an object of the given type or updating the
+	 * existing row with the same primary key, usable in a prepared statement.
+	 *
+	 * @param model      The database model
+	 * @param dynaClass  The type
+	 * @param properties The properties to write, including the primary keys
+	 * @return The SQL or <code>null</code> if the platform does not support this
+	 */
+	protected String createUpsertSql(Database model, SqlDynaClass dynaClass, SqlDynaProperty[] properties) {
+		Table table = model.findTable(dynaClass.getTableName());
+		HashMap<String, Object> columnValues = toColumnValues(properties, null);
+
+		return _builder.getUpsertSql(table, columnValues, true);
+	}
+
+	/**
+	 * Creates the SQL for inserting multiple objects of the given type with one
+	 * statement, usable in a prepared statement.
+	 *
+	 * @param dynaClass  The type
+	 * @param properties The properties to write
+	 * @param numRows    The number of objects
+	 * @return The SQL
+	 */
+	protected String createMultiRowInsertSql(SqlDynaClass dynaClass, SqlDynaProperty[] properties, int numRows) {
+		HashMap<String, Object> columnValues = toColumnValues(properties, null);
+
+		return _builder.getMultiRowInsertSql(dynaClass.getTable(), columnValues, numRows);
+	}
+
+	/**
+	 * Determines whether multi-row insert statements can be used on the database of
+	 * the given connection. Per default, this is defined by
+	 * {@link PlatformInfo#isMultiRowInsertSupported()}, but platforms can check e.g.
+	 * the version of the database here.
+	 * 
+	 * @param connection The connection
+	 * @return <code>true</code> if multi-row inserts are supported
+	 */
+	protected boolean isMultiRowInsertSupported(Connection connection) throws SQLException {
+		return getPlatformInfo().isMultiRowInsertSupported();
+	}
+
+	/**
+	 * Returns the maximum number of rows that a multi-row insert statement may
+	 * contain. Per default, this is only limited by the
+	 * {@link PlatformInfo#getMaxBindParameters() maximum number of parameters}.
+	 *
+	 * @param numParameters The number of parameters per row
+	 * @return The maximum number of rows
+	 */
+	protected int getMaxRowsPerMultiRowInsert(int numParameters) {
+		int maxParameters = getPlatformInfo().getMaxBindParameters();
+
+		return maxParameters > 0 ? maxParameters / numParameters : Integer.MAX_VALUE;
+	}
+
 	/**
 	 * Creates the SQL for querying for the id generated by the last insert of an
 	 * object of the given type.
@@ -1622,129 +1937,384 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 	}
 
 	/**
-	 * Returns all properties where the column is not non-autoincrement and for
-	 * which the bean either has a value or the column hasn't got a default value,
-	 * for the given dyna class.
-	 * 
+	 * Determines whether the given property shall be written when inserting the
+	 * bean, i.e. whether the column is not non-autoincrement and the bean either
+	 * has a value or the column hasn't got a default value.
+	 *
+	 * @param property The property
+	 * @param bean     The bean
+	 * @return <code>true</code> if the property is part of the insert statement
+	 */
+	private boolean isPropertyForInsertion(SqlDynaProperty property, DynaBean bean) {
+		if (bean.get(property.getName()) != null) {
+			// we ignore properties for which a value is present in the bean
+			// only if they are identity and identity override is off or
+			// the platform does not allow the override of the auto-increment
+			// specification
+			return !property.getColumn().isAutoIncrement()
+					|| (isIdentityOverrideOn() && getPlatformInfo().isIdentityOverrideAllowed());
+		} else {
+			// we also return properties without a value in the bean
+			// if they ain't auto-increment and don't have a default value
+			// in this case, a NULL is inserted
+			return !property.getColumn().isAutoIncrement() && (property.getColumn().getDefaultValue() == null);
+		}
+	}
+
+	/**
+	 * Returns the plan for inserting the given bean. The plan contains all
+	 * properties where the column is not non-autoincrement and for which the bean
+	 * either has a value or the column hasn't got a default value. Plans are cached
+	 * per combination of such properties.
+	 *
 	 * @param model     The database model
 	 * @param dynaClass The dyna class
 	 * @param bean      The bean
-	 * @return The properties
+	 * @return The plan
 	 */
-	private SqlDynaProperty[] getPropertiesForInsertion(Database model, SqlDynaClass dynaClass, final DynaBean bean) {
-		SqlDynaProperty[] properties = dynaClass.getSqlDynaProperties();
+	protected StatementPlan getInsertPlan(Database model, SqlDynaClass dynaClass, DynaBean bean) {
+		BitSet mask = getInsertionMask(dynaClass, bean);
+		StatementPlanCache.Key key = StatementPlanCache.createKey(dynaClass, StatementPlan.OPERATION_INSERT, mask,
+				isDelimitedIdentifierModeOn());
+		StatementPlan plan = _statementPlanCache.get(key);
 
-		@SuppressWarnings("unchecked")
-		Collection<SqlDynaProperty> result = CollectionUtils.select(Arrays.asList(properties), new Predicate() {
-			public boolean evaluate(Object input) {
-				SqlDynaProperty prop = (SqlDynaProperty) input;
-
-				if (bean.get(prop.getName()) != null) {
-					// we ignore properties for which a value is present in the bean
-					// only if they are identity and identity override is off or
-					// the platform does not allow the override of the auto-increment
-					// specification
-					return !prop.getColumn().isAutoIncrement()
-							|| (isIdentityOverrideOn() && getPlatformInfo().isIdentityOverrideAllowed());
-				} else {
-					// we also return properties without a value in the bean
-					// if they ain't auto-increment and don't have a default value
-					// in this case, a NULL is inserted
-					return !prop.getColumn().isAutoIncrement() && (prop.getColumn().getDefaultValue() == null);
-				}
-			}
-		});
+		if (plan == null) {
+			SqlDynaProperty[] parameters = getMaskedProperties(dynaClass, mask);
 
-		return (SqlDynaProperty[]) result.toArray(new SqlDynaProperty[result.size()]);
+			plan = new StatementPlan(StatementPlan.OPERATION_INSERT,
+					createInsertSql(model, dynaClass, parameters, null), parameters, parameters.length,
+					getParameterBinders(parameters));
+			_statementPlanCache.put(key, plan);
+		}
+		return plan;
 	}
 
 	/**
-	 * Returns all identity properties whose value were defined by the database and
-	 * which now need to be read back from the DB.
-	 * 
+	 * Returns the plan for inserting the given bean or updating the existing row
+	 * with the same primary key in a single statement. The plan contains all
+	 * primary key and non-identity properties so that the update part writes the
+	 * same columns as {@link #update(Connection, Database, DynaBean)}, including
+	 * <code>null</code> values.
+	 *
 	 * @param model     The database model
-	 * @param dynaClass The dyna class
+	 * @param dynaClass The dyna class which needs to have primary key properties
 	 * @param bean      The bean
-	 * @return The columns
-	 */
-	private Column[] getRelevantIdentityColumns(Database model, SqlDynaClass dynaClass, final DynaBean bean) {
-		SqlDynaProperty[] properties = dynaClass.getSqlDynaProperties();
-
-		@SuppressWarnings("unchecked")
-		Collection<SqlDynaProperty> relevantProperties = CollectionUtils.select(Arrays.asList(properties),
-				new Predicate() {
-					public boolean evaluate(Object input) {
-						SqlDynaProperty prop = (SqlDynaProperty) input;
+	 * @return The plan or <code>null</code> if the platform has no such statement,
+	 *         the primary key of the bean would not be written (e.g. because it
+	 *         is an identity column), or the insert part would differ from a
+	 *         normal insert because the bean has no value for a column with a
+	 *         default value
+	 */
+	protected StatementPlan getUpsertPlan(Database model, SqlDynaClass dynaClass, DynaBean bean) {
+		List<SqlDynaProperty> properties = dynaClass.getSqlDynaPropertyList();
+		BitSet mask = getInsertionMask(dynaClass, bean);
+
+		for (int idx = 0; idx < properties.size(); idx++) {
+			SqlDynaProperty property = properties.get(idx);
+
+			// an insert would use the default value for a missing value whereas an
+			// update would set the column to null, so we cannot do both at once
+			if ((property.isPrimaryKey() || !property.getColumn().isAutoIncrement()) && !mask.get(idx)) {
+				return null;
+			}
+		}
 
-						// we only want those identity columns that were really specified by the DB
-						// if the platform allows specification of values for identity columns
-						// in INSERT/UPDATE statements, then we need to filter the corresponding
-						// columns out
-						return prop.getColumn().isAutoIncrement()
-								&& (!isIdentityOverrideOn() || !getPlatformInfo().isIdentityOverrideAllowed()
-										|| (bean.get(prop.getName()) == null));
-					}
-				});
+		StatementPlanCache.Key key = StatementPlanCache.createKey(dynaClass, StatementPlan.OPERATION_UPSERT, mask,
+				isDelimitedIdentifierModeOn());
+		StatementPlan plan = _statementPlanCache.get(key);
 
-		Column[] columns = new Column[relevantProperties.size()];
-		int idx = 0;
+		if (plan == null) {
+			SqlDynaProperty[] parameters = getMaskedProperties(dynaClass, mask);
+			String sql = createUpsertSql(model, dynaClass, parameters);
 
-		for (Iterator<SqlDynaProperty> propIt = relevantProperties.iterator(); propIt.hasNext(); idx++) {
-			columns[idx] = ((SqlDynaProperty) propIt.next()).getColumn();
+			if (sql == null) {
+				return null;
+			}
+			plan = new StatementPlan(StatementPlan.OPERATION_UPSERT, sql, parameters, parameters.length,
+					getParameterBinders(parameters));
+			_statementPlanCache.put(key, plan);
 		}
-		return columns;
+		return plan;
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * Determines the properties of the dyna class that are written when inserting
+	 * the given bean.
+	 *
+	 * @param dynaClass The dyna class
+	 * @param bean      The bean
+	 * @return The indices of the properties to write
 	 */
-	public void insert(Connection connection, Database model, DynaBean dynaBean) throws DatabaseOperationException {
-		SqlDynaClass dynaClass = model.getDynaClassFor(dynaBean);
-		SqlDynaProperty[] properties = getPropertiesForInsertion(model, dynaClass, dynaBean);
-		Column[] autoIncrColumns = getRelevantIdentityColumns(model, dynaClass, dynaBean);
+	private BitSet getInsertionMask(SqlDynaClass dynaClass, DynaBean bean) {
+		List<SqlDynaProperty> properties = dynaClass.getSqlDynaPropertyList();
+		BitSet mask = new BitSet(properties.size());
 
-		if ((properties.length == 0) && (autoIncrColumns.length == 0)) {
-			_log.warn("Cannot insert instances of type " + dynaClass + " because it has no usable properties");
-			return;
+		for (int idx = 0; idx < properties.size(); idx++) {
+			if (isPropertyForInsertion(properties.get(idx), bean)) {
+				mask.set(idx);
+			}
 		}
+		return mask;
+	}
 
-		String insertSql = createInsertSql(model, dynaClass, properties, null);
-		String queryIdentitySql = null;
-
-		if (_log.isDebugEnabled()) {
-			_log.debug("About to execute SQL: " + insertSql);
-		}
+	/**
+	 * Returns the properties of the dyna class selected by the mask.
+	 *
+	 * @param dynaClass The dyna class
+	 * @param mask      The indices of the properties
+	 * @return The properties
+	 */
+	private SqlDynaProperty[] getMaskedProperties(SqlDynaClass dynaClass, BitSet mask) {
+		List<SqlDynaProperty> properties = dynaClass.getSqlDynaPropertyList();
+		SqlDynaProperty[] result = new SqlDynaProperty[mask.cardinality()];
+		int resultIdx = 0;
 
-		if (autoIncrColumns.length > 0) {
-			if (!getPlatformInfo().isLastIdentityValueReadable()) {
-				_log.warn("The database does not support querying for auto-generated column values");
-			} else {
-				queryIdentitySql = createSelectLastInsertIdSql(model, dynaClass);
-			}
+		for (int idx = mask.nextSetBit(0); idx >= 0; idx = mask.nextSetBit(idx + 1)) {
+			result[resultIdx++] = properties.get(idx);
 		}
+		return result;
+	}
 
-		boolean autoCommitMode = false;
-		PreparedStatement statement = null;
-
-		try {
-			if (!getPlatformInfo().isAutoCommitModeForLastIdentityValueReading()) {
-				autoCommitMode = connection.getAutoCommit();
-				connection.setAutoCommit(false);
-			}
+	/**
+	 * Returns the plan for updating the non-primary key columns of beans of the
+	 * given type.
+	 *
+	 * @param model     The database model
+	 * @param dynaClass The dyna class which needs to have primary key properties
+	 * @return The plan
+	 */
+	protected StatementPlan getUpdatePlan(Database model, SqlDynaClass dynaClass) {
+		StatementPlanCache.Key key = StatementPlanCache.createKey(dynaClass, StatementPlan.OPERATION_UPDATE, null,
+				isDelimitedIdentifierModeOn());
+		StatementPlan plan = _statementPlanCache.get(key);
 
-			beforeInsert(connection, dynaClass.getTable());
+		if (plan == null) {
+			SqlDynaProperty[] primaryKeys = dynaClass.getPrimaryKeyProperties();
+			SqlDynaProperty[] properties = dynaClass.getNonPrimaryKeyProperties();
+			SqlDynaProperty[] parameters = concat(properties, primaryKeys);
 
-			statement = connection.prepareStatement(insertSql);
+			plan = new StatementPlan(StatementPlan.OPERATION_UPDATE,
+					createUpdateSql(model, dynaClass, primaryKeys, properties, null),
+					parameters, properties.length, getParameterBinders(parameters));
+			_statementPlanCache.put(key, plan);
+		}
+		return plan;
+	}
 
-			for (int idx = 0; idx < properties.length; idx++) {
-				setObject(statement, idx + 1, dynaBean, properties[idx]);
-			}
+	/**
+	 * Returns the plan for updating all columns (including the primary key columns)
+	 * of beans of the given type. The first {@link StatementPlan#getValueParameterCount()}
+	 * parameters take the new values, the remaining ones identify the row.
+	 *
+	 * @param model     The database model
+	 * @param dynaClass The dyna class which needs to have primary key properties
+	 * @return The plan
+	 */
+	protected StatementPlan getUpdateAllPlan(Database model, SqlDynaClass dynaClass) {
+		StatementPlanCache.Key key = StatementPlanCache.createKey(dynaClass, StatementPlan.OPERATION_UPDATE_ALL, null,
+				isDelimitedIdentifierModeOn());
+		StatementPlan plan = _statementPlanCache.get(key);
 
-			int count = statement.executeUpdate();
+		if (plan == null) {
+			SqlDynaProperty[] primaryKeys = dynaClass.getPrimaryKeyProperties();
+			SqlDynaProperty[] properties = dynaClass.getSqlDynaProperties();
+			SqlDynaProperty[] parameters = concat(properties, primaryKeys);
 
-			afterInsert(connection, dynaClass.getTable());
+			plan = new StatementPlan(StatementPlan.OPERATION_UPDATE_ALL,
+					createUpdateSql(model, dynaClass, primaryKeys, properties, null, null),
+					parameters, properties.length, getParameterBinders(parameters));
+			_statementPlanCache.put(key, plan);
+		}
+		return plan;
+	}
 
-			if (count != 1) {
+	/**
+	 * Returns the plan for deleting beans of the given type.
+	 *
+	 * @param model     The database model
+	 * @param dynaClass The dyna class which needs to have primary key properties
+	 * @return The plan
+	 */
+	protected StatementPlan getDeletePlan(Database model, SqlDynaClass dynaClass) {
+		StatementPlanCache.Key key = StatementPlanCache.createKey(dynaClass, StatementPlan.OPERATION_DELETE, null,
+				isDelimitedIdentifierModeOn());
+		StatementPlan plan = _statementPlanCache.get(key);
+
+		if (plan == null) {
+			SqlDynaProperty[] primaryKeys = dynaClass.getPrimaryKeyProperties();
+
+			plan = new StatementPlan(StatementPlan.OPERATION_DELETE,
+					createDeleteSql(model, dynaClass, primaryKeys, null), primaryKeys, 0,
+					getParameterBinders(primaryKeys));
+			_statementPlanCache.put(key, plan);
+		}
+		return plan;
+	}
+
+	/**
+	 * Returns the plan for checking whether a row with the primary key of a bean of
+	 * the given type exists.
+	 *
+	 * @param model     The database model
+	 * @param dynaClass The dyna class which needs to have primary key properties
+	 * @return The plan
+	 */
+	protected StatementPlan getExistsPlan(Database model, SqlDynaClass dynaClass) {
+		StatementPlanCache.Key key = StatementPlanCache.createKey(dynaClass, StatementPlan.OPERATION_EXISTS, null,
+				isDelimitedIdentifierModeOn());
+		StatementPlan plan = _statementPlanCache.get(key);
+
+		if (plan == null) {
+			SqlDynaProperty[] primaryKeys = dynaClass.getPrimaryKeyProperties();
+
+			plan = new StatementPlan(StatementPlan.OPERATION_EXISTS,
+					createExistsSql(model, dynaClass, primaryKeys), primaryKeys, 0,
+					getParameterBinders(primaryKeys));
+			_statementPlanCache.put(key, plan);
+		}
+		return plan;
+	}
+
+	/**
+	 * Concatenates the two property arrays.
+	 *
+	 * @param first  The first array
+	 * @param second The second array
+	 * @return The new array
+	 */
+	private static SqlDynaProperty[] concat(SqlDynaProperty[] first, SqlDynaProperty[] second) {
+		SqlDynaProperty[] result = new SqlDynaProperty[first.length + second.length];
+
+		System.arraycopy(first, 0, result, 0, first.length);
+		System.arraycopy(second, 0, result, first.length, second.length);
+		return result;
+	}
+
+	/**
+	 * Sets the parameters of the prepared statement as defined by the plan. The
+	 * value parameters are taken from <code>valueBean</code> whereas the parameters
+	 * identifying the row are taken from <code>keyBean</code>.
+	 *
+	 * @param statement The statement
+	 * @param plan      The plan
+	 * @param valueBean The bean containing the values to write
+	 * @param keyBean   The bean identifying the row
+	 */
+	private void setStatementParameters(PreparedStatement statement, StatementPlan plan, DynaBean valueBean,
+			DynaBean keyBean) throws SQLException {
+		setStatementParameters(statement, plan, valueBean, keyBean, 0);
+	}
+
+	/**
+	 * Sets the parameters of the prepared statement as defined by the plan,
+	 * starting after the given number of parameters. This is used for statements
+	 * that contain the plan's parameters multiple times.
+	 *
+	 * @param statement The statement
+	 * @param plan      The plan
+	 * @param valueBean The bean containing the values to write
+	 * @param keyBean   The bean identifying the row
+	 * @param offset    The number of parameters before the plan's parameters
+	 */
+	private void setStatementParameters(PreparedStatement statement, StatementPlan plan, DynaBean valueBean,
+			DynaBean keyBean, int offset) throws SQLException {
+		SqlDynaProperty[] parameters = plan.getParameters();
+		ParameterBinder[] binders = plan.getBinders();
+		int valueCount = plan.getValueParameterCount();
+
+		for (int idx = 0; idx < parameters.length; idx++) {
+			DynaBean dynaBean = idx < valueCount ? valueBean : keyBean;
+
+			if (_setObjectOverridden) {
+				setObject(statement, offset + idx + 1, dynaBean, parameters[idx]);
+			} else {
+				binders[idx].bind(statement, offset + idx + 1, getPropertyValue(dynaBean, parameters[idx]));
+			}
+		}
+	}
+
+	/**
+	 * Returns all identity properties whose value were defined by the database and
+	 * which now need to be read back from the DB.
+	 * 
+	 * @param model     The database model
+	 * @param dynaClass The dyna class
+	 * @param bean      The bean
+	 * @return The columns
+	 */
+	private Column[] getRelevantIdentityColumns(Database model, SqlDynaClass dynaClass, final DynaBean bean) {
+		@SuppressWarnings("unchecked")
+		Collection<SqlDynaProperty> relevantProperties = CollectionUtils.select(dynaClass.getSqlDynaPropertyList(),
+				new Predicate() {
+					public boolean evaluate(Object input) {
+						SqlDynaProperty prop = (SqlDynaProperty) input;
+
+						// we only want those identity columns that were really specified by the DB
+						// if the platform allows specification of values for identity columns
+						// in INSERT/UPDATE statements, then we need to filter the corresponding
+						// columns out
+						return prop.getColumn().isAutoIncrement()
+								&& (!isIdentityOverrideOn() || !getPlatformInfo().isIdentityOverrideAllowed()
+										|| (bean.get(prop.getName()) == null));
+					}
+				});
+
+		Column[] columns = new Column[relevantProperties.size()];
+		int idx = 0;
+
+		for (Iterator<SqlDynaProperty> propIt = relevantProperties.iterator(); propIt.hasNext(); idx++) {
+			columns[idx] = ((SqlDynaProperty) propIt.next()).getColumn();
+		}
+		return columns;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void insert(Connection connection, Database model, DynaBean dynaBean) throws DatabaseOperationException {
+		SqlDynaClass dynaClass = model.getDynaClassFor(dynaBean);
+		StatementPlan plan = getInsertPlan(model, dynaClass, dynaBean);
+		Column[] autoIncrColumns = getRelevantIdentityColumns(model, dynaClass, dynaBean);
+
+		if ((plan.getParameterCount() == 0) && (autoIncrColumns.length == 0)) {
+			_log.warn("Cannot insert instances of type " + dynaClass + " because it has no usable properties");
+			return;
+		}
+
+		String insertSql = plan.getSql();
+		String queryIdentitySql = null;
+
+		if (_log.isDebugEnabled()) {
+			_log.debug("About to execute SQL: " + insertSql);
+		}
+
+		if (autoIncrColumns.length > 0) {
+			if (!getPlatformInfo().isLastIdentityValueReadable()) {
+				_log.warn("The database does not support querying for auto-generated column values");
+			} else {
+				queryIdentitySql = createSelectLastInsertIdSql(model, dynaClass);
+			}
+		}
+
+		boolean autoCommitMode = false;
+		PreparedStatement statement = null;
+
+		try {
+			if (!getPlatformInfo().isAutoCommitModeForLastIdentityValueReading()) {
+				autoCommitMode = connection.getAutoCommit();
+				connection.setAutoCommit(false);
+			}
+
+			beforeInsert(connection, dynaClass.getTable());
+
+			statement = connection.prepareStatement(insertSql);
+			setStatementParameters(statement, plan, dynaBean, dynaBean);
+
+			int count = statement.executeUpdate();
+
+			afterInsert(connection, dynaClass.getTable());
+
+			if (count != 1) {
 				_log.warn("Attempted to insert a single row " + dynaBean + " in table " + dynaClass.getTableName()
 						+ " but changed " + count + " row(s)");
 			}
@@ -1830,129 +2400,654 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 	 */
 	public void insert(Connection connection, Database model, Collection<DynaBean> dynaBeans)
 			throws DatabaseOperationException {
-		SqlDynaClass dynaClass = null;
-		SqlDynaProperty[] properties = null;
-		PreparedStatement statement = null;
-		int addedStmts = 0;
-		boolean identityWarningPrinted = false;
+		insert(connection, model, dynaBeans, _multiRowInsertOn);
+	}
 
-		for (Iterator<DynaBean> it = dynaBeans.iterator(); it.hasNext();) {
-			DynaBean dynaBean = it.next();
-			SqlDynaClass curDynaClass = model.getDynaClassFor(dynaBean);
+	/**
+	 * {@inheritDoc}
+	 */
+	public void insert(Connection connection, Database model, Collection<DynaBean> dynaBeans, boolean multiRowInsert)
+			throws DatabaseOperationException {
+		LinkedHashMap<SqlDynaClass, List<InsertBatch>> batches = new LinkedHashMap<>();
+		HashSet<SqlDynaClass> skippedClasses = new HashSet<>();
+		boolean identityWarningPrinted = false;
 
-			if (curDynaClass != dynaClass) {
-				if (dynaClass != null) {
-					executeBatch(statement, addedStmts, dynaClass.getTable());
-					addedStmts = 0;
+		try {
+			for (Iterator<DynaBean> it = dynaBeans.iterator(); it.hasNext();) {
+				DynaBean dynaBean = it.next();
+				SqlDynaClass dynaClass = model.getDynaClassFor(dynaBean);
+				StatementPlan plan = getInsertPlan(model, dynaClass, dynaBean);
+
+				if (plan.getParameterCount() == 0) {
+					if (skippedClasses.add(dynaClass)) {
+						_log.warn("Cannot insert instances of type " + dynaClass
+								+ " because it has no usable properties");
+					}
+					continue;
 				}
 
-				dynaClass = curDynaClass;
-				properties = getPropertiesForInsertion(model, curDynaClass, dynaBean);
+				InsertBatch batch = getInsertBatch(connection, model, batches, dynaClass, plan, dynaBean,
+						multiRowInsert);
 
-				if (properties.length == 0) {
-					_log.warn("Cannot insert instances of type " + dynaClass + " because it has no usable properties");
-					continue;
-				}
-				if (!identityWarningPrinted && (getRelevantIdentityColumns(model, curDynaClass, dynaBean).length > 0)) {
+				if (!identityWarningPrinted && (batch.getIdentityColumns().length > 0) && !batch.isGeneratedKeysRead()) {
 					_log.warn(
 							"Updating the bean properties corresponding to auto-increment columns is not supported in batch mode");
 					identityWarningPrinted = true;
 				}
 
-				String insertSql = createInsertSql(model, dynaClass, properties, null);
+				if (batch.getRowsPerStatement() == 1) {
+					try {
+						setStatementParameters(batch.getStatement(), plan, dynaBean, dynaBean);
+						batch.getStatement().addBatch();
+					} catch (SQLException ex) {
+						throw new DatabaseOperationException("Error while adding batch insert", ex);
+					}
+				}
+				batch.rowAdded(dynaBean, estimateSize(plan, dynaBean));
+				if (((_batchSize > 0) && (batch.getPendingRows() >= _batchSize))
+						|| ((_batchByteSize > 0) && (batch.getPendingBytes() >= _batchByteSize))) {
+					flushInsertBatch(batches, batch);
+				}
+			}
+			for (Iterator<List<InsertBatch>> it = batches.values().iterator(); it.hasNext();) {
+				for (Iterator<InsertBatch> batchIt = it.next().iterator(); batchIt.hasNext();) {
+					flushInsertBatch(batches, batchIt.next());
+				}
+			}
+		} finally {
+			for (Iterator<List<InsertBatch>> it = batches.values().iterator(); it.hasNext();) {
+				for (Iterator<InsertBatch> batchIt = it.next().iterator(); batchIt.hasNext();) {
+					closeStatement(batchIt.next().getStatement());
+				}
+			}
+		}
+		if (_log.isDebugEnabled()) {
+			for (Iterator<Map.Entry<SqlDynaClass, List<InsertBatch>>> it = batches.entrySet().iterator(); it
+					.hasNext();) {
+				Map.Entry<SqlDynaClass, List<InsertBatch>> entry = it.next();
+				int rows = 0;
+				long bytes = 0;
+				int flushes = 0;
+				int maxRows = 0;
+
+				for (Iterator<InsertBatch> batchIt = entry.getValue().iterator(); batchIt.hasNext();) {
+					InsertBatch batch = batchIt.next();
+
+					rows += batch.getFlushedRows();
+					bytes += batch.getFlushedBytes();
+					flushes += batch.getFlushCount();
+					maxRows = Math.max(maxRows, batch.getMaxFlushedRows());
+				}
+				_log.debug("Inserted " + rows + " rows (approx. " + bytes + " bytes) into table "
+						+ entry.getKey().getTableName() + " in " + flushes + " batches of at most " + maxRows
+						+ " rows");
+			}
+		}
+	}
+
+	/**
+	 * Returns the open insert batch for the given plan, or creates a new one. If
+	 * batch insert grouping is off, then the previous batch of the dyna class is
+	 * flushed and closed if it uses a different plan. If the platform
+	 * {@link PlatformInfo#isBatchGeneratedKeysSupported() supports it}, new batches
+	 * for plans that leave identity columns to the database, read back the values of
+	 * these columns. Otherwise, if multi-row inserts are requested, new batches use
+	 * statements that insert multiple rows.
+	 *
+	 * @param connection     The connection
+	 * @param model          The database model
+	 * @param batches        The open batches per dyna class
+	 * @param dynaClass      The dyna class
+	 * @param plan           The insert plan
+	 * @param dynaBean       The bean to insert
+	 * @param multiRowInsert Whether to use multi-row inserts if possible
+	 * @return The batch
+	 */
+	private InsertBatch getInsertBatch(Connection connection, Database model,
+			Map<SqlDynaClass, List<InsertBatch>> batches, SqlDynaClass dynaClass, StatementPlan plan,
+			DynaBean dynaBean, boolean multiRowInsert) throws DatabaseOperationException {
+		List<InsertBatch> classBatches = batches.get(dynaClass);
+
+		if (classBatches == null) {
+			classBatches = new ArrayList<>();
+			batches.put(dynaClass, classBatches);
+		}
+		for (Iterator<InsertBatch> it = classBatches.iterator(); it.hasNext();) {
+			InsertBatch batch = it.next();
+
+			// we compare the sql as the plan might not have been cached
+			if (batch.getPlan().getSql().equals(plan.getSql())) {
+				return batch;
+			} else if (!_batchInsertGroupingOn) {
+				flushInsertBatch(batches, batch);
+				closeStatement(batch.getStatement());
+				it.remove();
+			}
+		}
+		if (_log.isDebugEnabled()) {
+			_log.debug("Starting new batch with SQL: " + plan.getSql());
+		}
+		// the identity columns are the same for all beans with the same plan as
+		// both only depend on which identity columns have a value in the bean
+		Column[] identityColumns = getRelevantIdentityColumns(model, dynaClass, dynaBean);
+		boolean readGeneratedKeys = (identityColumns.length > 0) && getPlatformInfo().isBatchGeneratedKeysSupported();
+		int rowsPerStatement = 1;
+
+		try {
+			if (multiRowInsert && !readGeneratedKeys && isMultiRowInsertSupported(connection)) {
+				// the batch size also limits the statement size if the database doesn't
+				rowsPerStatement = Math.min(getMaxRowsPerMultiRowInsert(plan.getParameterCount()),
+						_batchSize > 0 ? _batchSize : 1000);
+			}
+
+			PreparedStatement statement;
+
+			if (readGeneratedKeys) {
+				statement = connection.prepareStatement(plan.getSql(), getGeneratedKeyColumnNames(identityColumns));
+			} else if (rowsPerStatement > 1) {
+				String sql = createMultiRowInsertSql(dynaClass, plan.getParameters(), rowsPerStatement);
 
 				if (_log.isDebugEnabled()) {
-					_log.debug("Starting new batch with SQL: " + insertSql);
+					_log.debug("Using multi-row insert SQL with " + rowsPerStatement + " rows");
+				}
+				statement = connection.prepareStatement(sql);
+			} else {
+				statement = connection.prepareStatement(plan.getSql());
+			}
+
+			InsertBatch batch = new InsertBatch(dynaClass, plan, statement, identityColumns, readGeneratedKeys,
+					Math.max(1, rowsPerStatement));
+
+			classBatches.add(batch);
+			return batch;
+		} catch (SQLException ex) {
+			throw new DatabaseOperationException("Error while preparing insert statement", ex);
+		}
+	}
+
+	/**
+	 * Sends the pending rows of the batch to the database. The pending rows of the
+	 * batches of the tables that are referenced by a foreign key of the batch's table
+	 * are sent first. This ensures that the rows are sent to the database in an
+	 * order that does not violate foreign keys, provided that the beans were given
+	 * in such an order.
+	 *
+	 * @param batches The open batches per dyna class
+	 * @param batch   The batch
+	 */
+	private void flushInsertBatch(Map<SqlDynaClass, List<InsertBatch>> batches, InsertBatch batch)
+			throws DatabaseOperationException {
+		flushInsertBatch(batches, batch, new HashSet<>());
+	}
+
+	/**
+	 * Sends the pending rows of the batch to the database after the pending rows of
+	 * the batches of the referenced tables.
+	 *
+	 * @param batches         The open batches per dyna class
+	 * @param batch           The batch
+	 * @param flushingBatches The batches that are already being flushed, which stops
+	 *                        the recursion for circular foreign keys
+	 */
+	private void flushInsertBatch(Map<SqlDynaClass, List<InsertBatch>> batches, InsertBatch batch,
+			Set<InsertBatch> flushingBatches) throws DatabaseOperationException {
+		if ((batch.getPendingRows() == 0) || !flushingBatches.add(batch)) {
+			return;
+		}
+
+		Table table = batch.getDynaClass().getTable();
+
+		for (int fkIdx = 0; fkIdx < table.getForeignKeyCount(); fkIdx++) {
+			String foreignTableName = table.getForeignKey(fkIdx).getForeignTableName();
+
+			for (Iterator<List<InsertBatch>> it = batches.values().iterator(); it.hasNext();) {
+				for (Iterator<InsertBatch> batchIt = it.next().iterator(); batchIt.hasNext();) {
+					InsertBatch curBatch = batchIt.next();
+
+					if ((curBatch != batch) && (curBatch.getPendingRows() > 0)
+							&& curBatch.getDynaClass().getTableName().equalsIgnoreCase(foreignTableName)) {
+						flushInsertBatch(batches, curBatch, flushingBatches);
+					}
 				}
+			}
+		}
+		if (batch.getRowsPerStatement() > 1) {
+			flushMultiRowInsertBatch(batch);
+		} else {
+			executeBatch(batch.getStatement(), batch.getPendingRows(), table, StatementPlan.OPERATION_INSERT);
+		}
+		if (batch.isGeneratedKeysRead()) {
+			readGeneratedKeys(batch);
+		}
+		batch.flushed();
+	}
+
+	/**
+	 * Sends the pending beans of a multi-row insert batch to the database. The
+	 * beans are inserted with the batch's statement in groups of
+	 * {@link InsertBatch#getRowsPerStatement()} rows, and the remaining beans with
+	 * an additional statement.
+	 *
+	 * @param batch The batch
+	 */
+	private void flushMultiRowInsertBatch(InsertBatch batch) throws DatabaseOperationException {
+		StatementPlan plan = batch.getPlan();
+		List<DynaBean> beans = batch.getPendingBeans();
+		Table table = batch.getDynaClass().getTable();
+		int rowsPerStatement = batch.getRowsPerStatement();
+		int numFullRows = beans.size() - beans.size() % rowsPerStatement;
+		PreparedStatement remainderStatement = null;
+
+		try {
+			for (int rowIdx = 0; rowIdx < numFullRows; rowIdx += rowsPerStatement) {
+				setMultiRowStatementParameters(batch.getStatement(), plan,
+						beans.subList(rowIdx, rowIdx + rowsPerStatement));
+				batch.getStatement().addBatch();
+			}
+			if (numFullRows > 0) {
+				executeBatch(batch.getStatement(), numFullRows, table, StatementPlan.OPERATION_INSERT);
+			}
+			if (numFullRows < beans.size()) {
+				List<DynaBean> remainingBeans = beans.subList(numFullRows, beans.size());
+				String sql = remainingBeans.size() == 1 ? plan.getSql()
+						: createMultiRowInsertSql(batch.getDynaClass(), plan.getParameters(), remainingBeans.size());
+
+				remainderStatement = batch.getStatement().getConnection().prepareStatement(sql);
+				setMultiRowStatementParameters(remainderStatement, plan, remainingBeans);
+				remainderStatement.addBatch();
+				executeBatch(remainderStatement, remainingBeans.size(), table, StatementPlan.OPERATION_INSERT);
+			}
+		} catch (SQLException ex) {
+			throw new DatabaseOperationException("Error while adding batch insert", ex);
+		} finally {
+			closeStatement(remainderStatement);
+		}
+	}
+
+	/**
+	 * Sets the parameters of a multi-row insert statement for the given beans.
+	 *
+	 * @param statement The statement
+	 * @param plan      The single-row insert plan
+	 * @param beans     The beans, one per row of the statement
+	 */
+	private void setMultiRowStatementParameters(PreparedStatement statement, StatementPlan plan,
+			List<DynaBean> beans) throws SQLException {
+		int offset = 0;
+
+		for (Iterator<DynaBean> it = beans.iterator(); it.hasNext();) {
+			DynaBean dynaBean = it.next();
+
+			setStatementParameters(statement, plan, dynaBean, dynaBean, offset);
+			offset += plan.getParameterCount();
+		}
+	}
+
+	/**
+	 * Reads the values of the identity columns generated for the pending beans of
+	 * the batch, and writes them into the beans.
+	 *
+	 * @param batch The batch which has just been executed
+	 */
+	private void readGeneratedKeys(InsertBatch batch) throws DatabaseOperationException {
+		Column[] identityColumns = batch.getIdentityColumns();
+		ResultSet generatedKeys = null;
+		int numRows = 0;
+
+		try {
+			generatedKeys = batch.getStatement().getGeneratedKeys();
+			for (Iterator<DynaBean> it = batch.getPendingBeans().iterator(); it.hasNext() && generatedKeys.next();) {
+				DynaBean dynaBean = it.next();
+
+				for (int idx = 0; idx < identityColumns.length; idx++) {
+					// as with the single row insert, we're assuming that the values are
+					// returned in the order of the requested columns
+					dynaBean.set(identityColumns[idx].getName(),
+							getObjectFromResultSet(generatedKeys, identityColumns[idx], idx + 1));
+				}
+				numRows++;
+			}
+		} catch (SQLException ex) {
+			throw new DatabaseOperationException(
+					"Error while retrieving the identity column value(s) from the database", ex);
+		} finally {
+			if (generatedKeys != null) {
 				try {
-					statement = connection.prepareStatement(insertSql);
+					generatedKeys.close();
 				} catch (SQLException ex) {
-					throw new DatabaseOperationException("Error while preparing insert statement", ex);
+					// we ignore this one
 				}
 			}
+		}
+		if (numRows != batch.getPendingRows()) {
+			_log.warn("The database returned generated keys for " + numRows + " of the " + batch.getPendingRows()
+					+ " rows inserted into table " + batch.getDynaClass().getTableName());
+		}
+	}
+
+	/**
+	 * Returns the names of the given identity columns as they are passed to
+	 * {@link Connection#prepareStatement(String, String[])} in order to read back
+	 * the generated values in batch mode.
+	 *
+	 * @param identityColumns The identity columns
+	 * @return The column names
+	 */
+	protected String[] getGeneratedKeyColumnNames(Column[] identityColumns) {
+		String[] names = new String[identityColumns.length];
+
+		for (int idx = 0; idx < identityColumns.length; idx++) {
+			names[idx] = identityColumns[idx].getName();
+		}
+		return names;
+	}
+
+	/**
+	 * Estimates the number of bytes that the values of the bean for the given plan
+	 * will occupy in a JDBC batch.
+	 *
+	 * @param plan     The plan
+	 * @param dynaBean The bean
+	 * @return The estimated number of bytes
+	 */
+	private long estimateSize(StatementPlan plan, DynaBean dynaBean) {
+		SqlDynaProperty[] parameters = plan.getParameters();
+		long size = 0;
+
+		for (int idx = 0; idx < parameters.length; idx++) {
+			Object value = dynaBean.get(parameters[idx].getName());
+
+			if (value instanceof String) {
+				size += 2 * ((String) value).length();
+			} else if (value instanceof byte[]) {
+				size += ((byte[]) value).length;
+			} else {
+				size += 8;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Performs the insert batch for the given statement, checks that the specified
+	 * amount of rows have been changed, and closes the statement.
+	 * 
+	 * @param statement The prepared statement
+	 * @param numRows   The number of rows that should change, or -1 if the number
+	 *                  is not known beforehand (e.g. for upserts)
+	 * @param table     The changed table
+	 */
+	private void executeBatch(PreparedStatement statement, int numRows, Table table) throws DatabaseOperationException {
+		if (statement != null) {
 			try {
-				if (properties != null) {
-					for (int idx = 0; idx < properties.length; idx++) {
-						setObject(statement, idx + 1, dynaBean, properties[idx]);
+				executeBatch(statement, numRows, table, StatementPlan.OPERATION_INSERT);
+			} finally {
+				closeStatement(statement);
+			}
+		}
+	}
+
+	/**
+	 * Performs the batch for the given statement, and checks that the specified
+	 * amount of rows have been changed. The statement is not closed so that it can
+	 * be used for the next batch.
+	 * 
+	 * @param statement The prepared statement
+	 * @param numRows   The number of rows that should change, or -1 if the number
+	 *                  is not known beforehand
+	 * @param table     The changed table
+	 * @param operation The operation, one of the
+	 *                  <code>StatementPlan.OPERATION_xxx</code> constants
+	 */
+	private void executeBatch(PreparedStatement statement, int numRows, Table table, int operation)
+			throws DatabaseOperationException {
+		boolean isInsert = (operation == StatementPlan.OPERATION_INSERT)
+				|| (operation == StatementPlan.OPERATION_UPSERT);
+		boolean isUpdate = (operation == StatementPlan.OPERATION_UPDATE)
+				|| (operation == StatementPlan.OPERATION_UPDATE_ALL);
+		String opName = isInsert ? "insertion" : (isUpdate ? "update" : "deletion");
+
+		try {
+			Connection connection = statement.getConnection();
+
+			if (isInsert) {
+				beforeInsert(connection, table);
+			} else if (isUpdate) {
+				beforeUpdate(connection, table);
+			}
+
+			int[] results = statement.executeBatch();
+
+			if (isInsert) {
+				afterInsert(connection, table);
+			} else if (isUpdate) {
+				afterUpdate(connection, table);
+			}
+
+			boolean hasSum = true;
+			int sum = 0;
+
+			for (int idx = 0; (results != null) && (idx < results.length); idx++) {
+				if (results[idx] < 0) {
+					hasSum = false;
+					if (results[idx] == Statement.EXECUTE_FAILED) {
+						_log.warn("The batch " + opName + " of row " + idx + " in table " + table.getName()
+								+ " failed but the driver is able to continue processing");
+					} else if (results[idx] != Statement.SUCCESS_NO_INFO) {
+						_log.warn("The batch " + opName + " of row " + idx + " in table " + table.getName()
+								+ " returned an undefined status value " + results[idx]);
+					}
+				} else {
+					sum += results[idx];
+				}
+			}
+			if (hasSum && (numRows >= 0) && (sum != numRows)) {
+				_log.warn("Attempted the batch " + opName + " of " + numRows + " rows in table " + table.getName()
+						+ " but changed " + sum + " rows");
+			}
+		} catch (SQLException ex) {
+			String msg = isInsert ? "Error while inserting into the database"
+					: (isUpdate ? "Error while updating in the database" : "Error while deleting from the database");
+
+			if (ex instanceof BatchUpdateException) {
+				SQLException sqlEx = ((BatchUpdateException) ex).getNextException();
+
+				throw new DatabaseOperationException(msg, sqlEx == null ? ex : sqlEx);
+			} else {
+				throw new DatabaseOperationException(msg, ex);
+			}
+		}
+	}
+
+	/**
+	 * Executes the given operation for the beans in batch mode. Consecutive beans of
+	 * the same type are collected in a JDBC batch which is sent to the database when
+	 * it reaches the {@link #getBatchSize() batch size} or when a bean of a different
+	 * type follows (so that the order of the operations is retained). The prepared
+	 * statement of a type is reused for all its beans until the end of the call.
+	 *
+	 * @param connection The connection
+	 * @param model      The database model
+	 * @param dynaBeans  The beans
+	 * @param operation  Either <code>StatementPlan.OPERATION_UPDATE</code> or
+	 *                   <code>StatementPlan.OPERATION_DELETE</code>
+	 */
+	private void executeBatchOperation(Connection connection, Database model, Collection<DynaBean> dynaBeans,
+			int operation) throws DatabaseOperationException {
+		boolean isUpdate = (operation == StatementPlan.OPERATION_UPDATE);
+		HashMap<SqlDynaClass, PreparedStatement> statements = new HashMap<>();
+		SqlDynaClass dynaClass = null;
+		StatementPlan plan = null;
+		PreparedStatement statement = null;
+		int addedStmts = 0;
+
+		try {
+			for (Iterator<DynaBean> it = dynaBeans.iterator(); it.hasNext();) {
+				DynaBean dynaBean = it.next();
+				SqlDynaClass curDynaClass = model.getDynaClassFor(dynaBean);
+
+				if (curDynaClass != dynaClass) {
+					if (addedStmts > 0) {
+						executeBatch(statement, addedStmts, dynaClass.getTable(), operation);
+						addedStmts = 0;
+					}
+					dynaClass = curDynaClass;
+					statement = statements.get(dynaClass);
+					if (dynaClass.getPrimaryKeyPropertyList().isEmpty()) {
+						_log.warn("Cannot " + (isUpdate ? "update" : "delete") + " instances of type " + dynaClass
+								+ " because it has no primary keys");
+						plan = null;
+						continue;
+					}
+					plan = isUpdate ? getUpdatePlan(model, dynaClass) : getDeletePlan(model, dynaClass);
+					if (statement == null) {
+						if (_log.isDebugEnabled()) {
+							_log.debug("Starting new batch with SQL: " + plan.getSql());
+						}
+						statement = connection.prepareStatement(plan.getSql());
+						statements.put(dynaClass, statement);
 					}
-					if (statement != null) {
-						statement.addBatch();
-						addedStmts++;
+				}
+				if (plan != null) {
+					setStatementParameters(statement, plan, dynaBean, dynaBean);
+					statement.addBatch();
+					addedStmts++;
+					if ((_batchSize > 0) && (addedStmts >= _batchSize)) {
+						executeBatch(statement, addedStmts, dynaClass.getTable(), operation);
+						addedStmts = 0;
 					}
 				}
-			} catch (SQLException ex) {
-				throw new DatabaseOperationException("Error while adding batch insert", ex);
+			}
+			if (addedStmts > 0) {
+				executeBatch(statement, addedStmts, dynaClass.getTable(), operation);
+			}
+		} catch (SQLException ex) {
+			throw new DatabaseOperationException(
+					"Error while adding batch " + (isUpdate ? "update" : "deletion"), ex);
+		} finally {
+			for (Iterator<PreparedStatement> it = statements.values().iterator(); it.hasNext();) {
+				closeStatement(it.next());
 			}
 		}
-		if (dynaClass != null) {
-			executeBatch(statement, addedStmts, dynaClass.getTable());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void insert(Database model, Collection<DynaBean> dynaBeans) throws DatabaseOperationException {
+		Connection connection = borrowConnection();
+
+		try {
+			insert(connection, model, dynaBeans);
+		} finally {
+			returnConnection(connection);
 		}
 	}
 
 	/**
-	 * Performs the batch for the given statement, and checks that the specified
-	 * amount of rows have been changed.
-	 * 
-	 * @param statement The prepared statement
-	 * @param numRows   The number of rows that should change
-	 * @param table     The changed table
+	 * {@inheritDoc}
 	 */
-	private void executeBatch(PreparedStatement statement, int numRows, Table table) throws DatabaseOperationException {
-		if (statement != null) {
-			try {
-				Connection connection = statement.getConnection();
+	public void insert(Connection connection, Table table, RowBatch batch) throws DatabaseOperationException {
+		if (batch.getRowCount() == 0) {
+			return;
+		}
 
-				beforeInsert(connection, table);
+		boolean withIdentity = isIdentityOverrideOn() && getPlatformInfo().isIdentityOverrideAllowed();
+		int numColumns = batch.getColumnCount();
+		boolean[] autoIncrement = new boolean[numColumns];
+		boolean hasUsableColumns = withIdentity;
 
-				int[] results = statement.executeBatch();
+		for (int idx = 0; idx < numColumns; idx++) {
+			autoIncrement[idx] = batch.getColumn(idx).isAutoIncrement();
+			hasUsableColumns |= !autoIncrement[idx];
+		}
+		if (!hasUsableColumns) {
+			_log.warn("Cannot insert rows into table " + table.getName() + " because it has no usable columns");
+			return;
+		}
 
-				closeStatement(statement);
-				afterInsert(connection, table);
+		// like for beans, auto-increment columns are only written for rows that have a value
+		// for them, so the column set can change from row to row; consecutive rows with the
+		// same column set are batched together so that the rows are inserted in order
+		HashMap<BitSet, PreparedStatement> statements = new HashMap<>();
+		BitSet rowColumns = new BitSet(numColumns);
+		BitSet statementColumns = null;
+		PreparedStatement statement = null;
+		int addedStmts = 0;
 
-				boolean hasSum = true;
-				int sum = 0;
-
-				for (int idx = 0; (results != null) && (idx < results.length); idx++) {
-					if (results[idx] < 0) {
-						hasSum = false;
-						if (results[idx] == Statement.EXECUTE_FAILED) {
-							_log.warn("The batch insertion of row " + idx + " into table " + table.getName()
-									+ " failed but the driver is able to continue processing");
-						} else if (results[idx] != Statement.SUCCESS_NO_INFO) {
-							_log.warn("The batch insertion of row " + idx + " into table " + table.getName()
-									+ " returned an undefined status value " + results[idx]);
-						}
-					} else {
-						sum += results[idx];
+		try {
+			for (int rowIdx = 0; rowIdx < batch.getRowCount(); rowIdx++) {
+				rowColumns.clear();
+				for (int idx = 0; idx < numColumns; idx++) {
+					if (!autoIncrement[idx] || (withIdentity && !batch.isNull(rowIdx, idx))) {
+						rowColumns.set(idx);
 					}
 				}
-				if (hasSum && (sum != numRows)) {
-					_log.warn("Attempted to insert " + numRows + " rows into table " + table.getName() + " but changed "
-							+ sum + " rows");
+				if (!rowColumns.equals(statementColumns)) {
+					if (addedStmts > 0) {
+						executeBatch(statement, addedStmts, table, StatementPlan.OPERATION_INSERT);
+						addedStmts = 0;
+					}
+					statementColumns = (BitSet) rowColumns.clone();
+					statement = statements.get(statementColumns);
+					if ((statement == null) && !statementColumns.isEmpty()) {
+						statement = prepareBatchInsertStatement(connection, table, batch, statementColumns);
+						statements.put(statementColumns, statement);
+					}
+				}
+				if (statement == null) {
+					_log.warn("Cannot insert a row into table " + table.getName() + " because it has no values for its columns");
+					continue;
 				}
-			} catch (SQLException ex) {
-				if (ex instanceof BatchUpdateException) {
-					SQLException sqlEx = ((BatchUpdateException) ex).getNextException();
 
-					throw new DatabaseOperationException("Error while inserting into the database", sqlEx);
-				} else {
-					throw new DatabaseOperationException("Error while inserting into the database", ex);
+				int sqlIdx = 1;
+
+				for (int idx = rowColumns.nextSetBit(0); idx >= 0; idx = rowColumns.nextSetBit(idx + 1)) {
+					setStatementParameterValue(statement, sqlIdx++, batch, rowIdx, idx);
+				}
+				statement.addBatch();
+				addedStmts++;
+				if ((_batchSize > 0) && (addedStmts >= _batchSize)) {
+					executeBatch(statement, addedStmts, table, StatementPlan.OPERATION_INSERT);
+					addedStmts = 0;
 				}
 			}
+			if (addedStmts > 0) {
+				executeBatch(statement, addedStmts, table, StatementPlan.OPERATION_INSERT);
+			}
+		} catch (SQLException ex) {
+			throw new DatabaseOperationException("Error while adding batch insert", ex);
+		} finally {
+			for (Iterator<PreparedStatement> it = statements.values().iterator(); it.hasNext();) {
+				closeStatement(it.next());
+			}
 		}
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * Prepares the statement for inserting rows of the given batch that have values for the
+	 * given columns.
+	 * 
+	 * @param connection The connection
+	 * @param table      The table
+	 * @param batch      The batch
+	 * @param columns    The indices of the batch columns to write
+	 * @return The statement
 	 */
-	public void insert(Database model, Collection<DynaBean> dynaBeans) throws DatabaseOperationException {
-		Connection connection = borrowConnection();
+	private PreparedStatement prepareBatchInsertStatement(Connection connection, Table table, RowBatch batch,
+			BitSet columns) throws SQLException {
+		HashMap<String, Object> columnValues = new HashMap<>();
 
-		try {
-			insert(connection, model, dynaBeans);
-		} finally {
-			returnConnection(connection);
+		for (int idx = columns.nextSetBit(0); idx >= 0; idx = columns.nextSetBit(idx + 1)) {
+			columnValues.put(batch.getColumn(idx).getName(), null);
+		}
+
+		String insertSql = _builder.getInsertSql(table, columnValues, true);
+
+		if (_log.isDebugEnabled()) {
+			_log.debug("About to execute SQL: " + insertSql);
 		}
+		return connection.prepareStatement(insertSql);
 	}
 
 	/**
@@ -2062,15 +3157,14 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 	 */
 	public void update(Connection connection, Database model, DynaBean dynaBean) throws DatabaseOperationException {
 		SqlDynaClass dynaClass = model.getDynaClassFor(dynaBean);
-		SqlDynaProperty[] primaryKeys = dynaClass.getPrimaryKeyProperties();
 
-		if (primaryKeys.length == 0) {
+		if (dynaClass.getPrimaryKeyPropertyList().isEmpty()) {
 			_log.info("Cannot update instances of type " + dynaClass + " because it has no primary keys");
 			return;
 		}
 
-		SqlDynaProperty[] properties = dynaClass.getNonPrimaryKeyProperties();
-		String sql = createUpdateSql(model, dynaClass, primaryKeys, properties, null);
+		StatementPlan plan = getUpdatePlan(model, dynaClass);
+		String sql = plan.getSql();
 		PreparedStatement statement = null;
 
 		if (_log.isDebugEnabled()) {
@@ -2080,15 +3174,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 			beforeUpdate(connection, dynaClass.getTable());
 
 			statement = connection.prepareStatement(sql);
-
-			int sqlIndex = 1;
-
-			for (int idx = 0; idx < properties.length; idx++) {
-				setObject(statement, sqlIndex++, dynaBean, properties[idx]);
-			}
-			for (int idx = 0; idx < primaryKeys.length; idx++) {
-				setObject(statement, sqlIndex++, dynaBean, primaryKeys[idx]);
-			}
+			setStatementParameters(statement, plan, dynaBean, dynaBean);
 
 			int count = statement.executeUpdate();
 
@@ -2124,18 +3210,17 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 	public void update(Connection connection, Database model, DynaBean oldDynaBean, DynaBean newDynaBean)
 			throws DatabaseOperationException {
 		SqlDynaClass dynaClass = model.getDynaClassFor(oldDynaBean);
-		SqlDynaProperty[] primaryKeys = dynaClass.getPrimaryKeyProperties();
 
 		if (!dynaClass.getTable().equals(model.getDynaClassFor(newDynaBean).getTable())) {
 			throw new DatabaseOperationException("The old and new dyna beans need to be for the same table");
 		}
-		if (primaryKeys.length == 0) {
+		if (dynaClass.getPrimaryKeyPropertyList().isEmpty()) {
 			_log.info("Cannot update instances of type " + dynaClass + " because it has no primary keys");
 			return;
 		}
 
-		SqlDynaProperty[] properties = dynaClass.getSqlDynaProperties();
-		String sql = createUpdateSql(model, dynaClass, primaryKeys, properties, null, null);
+		StatementPlan plan = getUpdateAllPlan(model, dynaClass);
+		String sql = plan.getSql();
 		PreparedStatement statement = null;
 
 		if (_log.isDebugEnabled()) {
@@ -2145,15 +3230,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 			beforeUpdate(connection, dynaClass.getTable());
 
 			statement = connection.prepareStatement(sql);
-
-			int sqlIndex = 1;
-
-			for (int idx = 0; idx < properties.length; idx++) {
-				setObject(statement, sqlIndex++, newDynaBean, properties[idx]);
-			}
-			for (int idx = 0; idx < primaryKeys.length; idx++) {
-				setObject(statement, sqlIndex++, oldDynaBean, primaryKeys[idx]);
-			}
+			setStatementParameters(statement, plan, newDynaBean, oldDynaBean);
 
 			int count = statement.executeUpdate();
 
@@ -2183,6 +3260,27 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public void update(Database model, Collection<DynaBean> dynaBeans) throws DatabaseOperationException {
+		Connection connection = borrowConnection();
+
+		try {
+			update(connection, model, dynaBeans);
+		} finally {
+			returnConnection(connection);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void update(Connection connection, Database model, Collection<DynaBean> dynaBeans)
+			throws DatabaseOperationException {
+		executeBatchOperation(connection, model, dynaBeans, StatementPlan.OPERATION_UPDATE);
+	}
+
 	/**
 	 * Allows platforms to issue statements directly before rows are updated in the
 	 * specified table.
@@ -2221,69 +3319,443 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 	 */
 	public boolean exists(Connection connection, Database model, DynaBean dynaBean) {
 		SqlDynaClass dynaClass = model.getDynaClassFor(dynaBean);
-		SqlDynaProperty[] primaryKeys = dynaClass.getPrimaryKeyProperties();
 
-		if (primaryKeys.length == 0) {
+		if (dynaClass.getPrimaryKeyPropertyList().isEmpty()) {
 			return false;
 		}
 
+		StatementPlan plan = getExistsPlan(model, dynaClass);
 		PreparedStatement stmt = null;
 
 		try {
-			StringBuffer sql = new StringBuffer();
+			stmt = connection.prepareStatement(plan.getSql());
+			setStatementParameters(stmt, plan, dynaBean, dynaBean);
+
+			ResultSet resultSet = stmt.executeQuery();
+
+			return resultSet.next();
+		} catch (SQLException ex) {
+			throw new DatabaseOperationException("Error while reading from the database", ex);
+		} finally {
+			closeStatement(stmt);
+		}
+	}
+
+	/**
+	 * Creates the SQL for checking whether a row with the primary key values of an
+	 * object of the given type exists. The statement is usable in a prepared
+	 * statement with the primary key values as parameters.
+	 *
+	 * @param model       The database model
+	 * @param dynaClass   The type
+	 * @param primaryKeys The primary keys
+	 * @return The SQL
+	 */
+	protected String createExistsSql(Database model, SqlDynaClass dynaClass, SqlDynaProperty[] primaryKeys) {
+		StringBuffer sql = new StringBuffer();
+
+		sql.append("SELECT * FROM ");
+		sql.append(_builder.getDelimitedIdentifier(dynaClass.getTable().getName()));
+		sql.append(" WHERE ");
+
+		for (int idx = 0; idx < primaryKeys.length; idx++) {
+			String key = primaryKeys[idx].getColumn().getName();
+
+			if (idx > 0) {
+				sql.append(" AND ");
+			}
+			sql.append(_builder.getDelimitedIdentifier(key));
+			sql.append("=?");
+		}
+		return sql.toString();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void store(Database model, DynaBean dynaBean) throws DatabaseOperationException {
+		Connection connection = borrowConnection();
+
+		try {
+			store(connection, model, dynaBean);
+		} finally {
+			returnConnection(connection);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void store(Connection connection, Database model, DynaBean dynaBean) throws DatabaseOperationException {
+		if (exists(connection, model, dynaBean)) {
+			update(connection, model, dynaBean);
+		} else {
+			insert(connection, model, dynaBean);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void store(Database model, Collection<DynaBean> dynaBeans) throws DatabaseOperationException {
+		Connection connection = borrowConnection();
+
+		try {
+			store(connection, model, dynaBeans);
+		} finally {
+			returnConnection(connection);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void store(Connection connection, Database model, Collection<DynaBean> dynaBeans)
+			throws DatabaseOperationException {
+		SqlDynaClass curDynaClass = null;
+		List<DynaBean> curBeans = new ArrayList<>();
+
+		// we only batch consecutive beans of the same type so that the beans are
+		// written in the given order which is important for foreign keys
+		for (Iterator<DynaBean> it = dynaBeans.iterator(); it.hasNext();) {
+			DynaBean dynaBean = it.next();
+			SqlDynaClass dynaClass = model.getDynaClassFor(dynaBean);
+
+			if ((dynaClass != curDynaClass) && !curBeans.isEmpty()) {
+				storeBeansOfClass(connection, model, curDynaClass, curBeans);
+				curBeans = new ArrayList<>();
+			}
+			curDynaClass = dynaClass;
+			curBeans.add(dynaBean);
+		}
+		if (!curBeans.isEmpty()) {
+			storeBeansOfClass(connection, model, curDynaClass, curBeans);
+		}
+	}
+
+	/**
+	 * Stores the given beans which all are of the given type.
+	 *
+	 * @param connection The connection
+	 * @param model      The database model
+	 * @param dynaClass  The type of the beans
+	 * @param dynaBeans  The beans
+	 */
+	private void storeBeansOfClass(Connection connection, Database model, SqlDynaClass dynaClass,
+			List<DynaBean> dynaBeans) throws DatabaseOperationException {
+		SqlDynaProperty[] primaryKeys = dynaClass.getPrimaryKeyProperties();
+		List<DynaBean> curBeans = new ArrayList<>();
+		List<StatementPlan> curPlans = new ArrayList<>();
+		int curMode = -1;
+		boolean upsertSupported;
+
+		try {
+			upsertSupported = isUpsertSupported(connection);
+		} catch (SQLException ex) {
+			throw new DatabaseOperationException("Error while determining whether upserts are supported", ex);
+		}
+
+		// we only batch consecutive beans that are stored the same way so that
+		// the beans are written in the given order (e.g. for self references)
+		for (Iterator<DynaBean> it = dynaBeans.iterator(); it.hasNext();) {
+			DynaBean dynaBean = it.next();
+			StatementPlan plan = null;
+			int mode;
+
+			if (!hasPrimaryKeyValues(dynaBean, primaryKeys)) {
+				// beans without a (complete) primary key cannot exist in the database yet
+				mode = STORE_VIA_INSERT;
+			} else if (upsertSupported && ((plan = getUpsertPlan(model, dynaClass, dynaBean)) != null)) {
+				mode = STORE_VIA_UPSERT;
+			} else {
+				mode = STORE_VIA_KEY_QUERY;
+			}
+			if ((mode != curMode) && !curBeans.isEmpty()) {
+				storeBeansOfClass(connection, model, dynaClass, curBeans, curPlans, curMode);
+				curBeans = new ArrayList<>();
+				curPlans = new ArrayList<>();
+			}
+			curMode = mode;
+			curBeans.add(dynaBean);
+			curPlans.add(plan);
+		}
+		if (!curBeans.isEmpty()) {
+			storeBeansOfClass(connection, model, dynaClass, curBeans, curPlans, curMode);
+		}
+	}
+
+	/**
+	 * Stores the given beans which all are of the given type, in the given way.
+	 *
+	 * @param connection The connection
+	 * @param model      The database model
+	 * @param dynaClass  The type of the beans
+	 * @param dynaBeans  The beans
+	 * @param plans      The upsert plans of the beans; only used for upserts
+	 * @param mode       How to store the beans, one of the <code>STORE_VIA_</code>
+	 *                   constants
+	 */
+	private void storeBeansOfClass(Connection connection, Database model, SqlDynaClass dynaClass,
+			List<DynaBean> dynaBeans, List<StatementPlan> plans, int mode) throws DatabaseOperationException {
+		switch (mode) {
+		case STORE_VIA_INSERT:
+			insert(connection, model, dynaBeans);
+			break;
+		case STORE_VIA_UPDATE:
+			update(connection, model, dynaBeans);
+			break;
+		case STORE_VIA_UPSERT:
+			storeViaUpsert(connection, dynaClass, dynaBeans, plans);
+			break;
+		default:
+			storeViaKeyQuery(connection, model, dynaClass, dynaBeans);
+			break;
+		}
+	}
+
+	/**
+	 * Determines whether the bean has values for all of the given primary key
+	 * properties.
+	 *
+	 * @param dynaBean    The bean
+	 * @param primaryKeys The primary key properties
+	 * @return <code>true</code> if there are primary keys and all of them have a
+	 *         value
+	 */
+	private boolean hasPrimaryKeyValues(DynaBean dynaBean, SqlDynaProperty[] primaryKeys) {
+		for (int idx = 0; idx < primaryKeys.length; idx++) {
+			if (dynaBean.get(primaryKeys[idx].getName()) == null) {
+				return false;
+			}
+		}
+		return primaryKeys.length > 0;
+	}
+
+	/**
+	 * Stores the given beans of the same type using the platform's upsert
+	 * statement in batch mode. Consecutive beans with the same upsert statement
+	 * form one batch which is sent to the database when it reaches the
+	 * {@link #getBatchSize() batch size} or the {@link #getBatchByteSize() batch
+	 * byte size}.
+	 *
+	 * @param connection The connection
+	 * @param dynaClass  The type of the beans
+	 * @param dynaBeans  The beans
+	 * @param plans      The {@link #getUpsertPlan(Database, SqlDynaClass, DynaBean)
+	 *                   upsert plans} of the beans
+	 */
+	private void storeViaUpsert(Connection connection, SqlDynaClass dynaClass, List<DynaBean> dynaBeans,
+			List<StatementPlan> plans) throws DatabaseOperationException {
+		StatementPlan plan = null;
+		PreparedStatement statement = null;
+		int pendingRows = 0;
+		long pendingBytes = 0;
+
+		try {
+			for (int idx = 0; idx < dynaBeans.size(); idx++) {
+				DynaBean dynaBean = dynaBeans.get(idx);
+				StatementPlan curPlan = plans.get(idx);
+
+				if ((plan == null) || !plan.getSql().equals(curPlan.getSql())) {
+					if (pendingRows > 0) {
+						executeBatch(statement, -1, dynaClass.getTable(), StatementPlan.OPERATION_UPSERT);
+						pendingRows = 0;
+						pendingBytes = 0;
+					}
+					closeStatement(statement);
+					statement = null;
+					plan = curPlan;
+					if (_log.isDebugEnabled()) {
+						_log.debug("Starting new batch with SQL: " + plan.getSql());
+					}
+					statement = connection.prepareStatement(plan.getSql());
+				}
+				setStatementParameters(statement, plan, dynaBean, dynaBean);
+				statement.addBatch();
+				pendingRows++;
+				pendingBytes += estimateSize(plan, dynaBean);
+				if (((_batchSize > 0) && (pendingRows >= _batchSize))
+						|| ((_batchByteSize > 0) && (pendingBytes >= _batchByteSize))) {
+					executeBatch(statement, -1, dynaClass.getTable(), StatementPlan.OPERATION_UPSERT);
+					pendingRows = 0;
+					pendingBytes = 0;
+				}
+			}
+			if (pendingRows > 0) {
+				executeBatch(statement, -1, dynaClass.getTable(), StatementPlan.OPERATION_UPSERT);
+			}
+		} catch (SQLException ex) {
+			throw new DatabaseOperationException("Error while adding batch upsert", ex);
+		} finally {
+			closeStatement(statement);
+		}
+	}
+
+	/**
+	 * Determines whether beans can be stored with an upsert statement on the
+	 * database of the given connection. Per default, this is defined by
+	 * {@link PlatformInfo#isUpsertSupported()}, but platforms can check e.g. the
+	 * version of the database here.
+	 * 
+	 * @param connection The connection
+	 * @return <code>true</code> if upserts are supported
+	 */
+	protected boolean isUpsertSupported(Connection connection) throws SQLException {
+		return getPlatformInfo().isUpsertSupported();
+	}
+
+	/**
+	 * Stores the given beans of the same type by first querying which of their
+	 * primary keys already exist in the database (one query per chunk of
+	 * {@link #getMaxRowsPerKeyQuery()} beans), and then inserting the new beans and
+	 * updating the existing ones in batch mode. Consecutive new respectively
+	 * existing beans form one batch so that the beans are written in the given
+	 * order.
+	 *
+	 * @param connection The connection
+	 * @param model      The database model
+	 * @param dynaClass  The type of the beans
+	 * @param dynaBeans  The beans
+	 */
+	private void storeViaKeyQuery(Connection connection, Database model, SqlDynaClass dynaClass,
+			List<DynaBean> dynaBeans) throws DatabaseOperationException {
+		SqlDynaProperty[] primaryKeys = dynaClass.getPrimaryKeyProperties();
+		int chunkSize = Math.max(1, getMaxRowsPerKeyQuery() / primaryKeys.length);
+		HashSet<Object> knownKeys = new HashSet<>();
+		List<DynaBean> curBeans = new ArrayList<>();
+		boolean curBeansAreNew = false;
+
+		for (int startIdx = 0; startIdx < dynaBeans.size(); startIdx += chunkSize) {
+			List<DynaBean> chunk = dynaBeans.subList(startIdx, Math.min(startIdx + chunkSize, dynaBeans.size()));
+
+			readExistingKeys(connection, dynaClass, chunk, knownKeys);
+			for (Iterator<DynaBean> it = chunk.iterator(); it.hasNext();) {
+				DynaBean dynaBean = it.next();
+				// if the key is not known yet, then the bean is new; we remember the key
+				// so that later beans with the same key are treated as updates
+				boolean isNew = knownKeys.add(getKeyOf(dynaBean, primaryKeys));
+
+				if ((isNew != curBeansAreNew) && !curBeans.isEmpty()) {
+					storeBeansOfClass(connection, model, dynaClass, curBeans, null,
+							curBeansAreNew ? STORE_VIA_INSERT : STORE_VIA_UPDATE);
+					curBeans = new ArrayList<>();
+				}
+				curBeansAreNew = isNew;
+				curBeans.add(dynaBean);
+			}
+		}
+		if (!curBeans.isEmpty()) {
+			storeBeansOfClass(connection, model, dynaClass, curBeans, null,
+					curBeansAreNew ? STORE_VIA_INSERT : STORE_VIA_UPDATE);
+		}
+	}
+
+	/**
+	 * Returns the maximum number of primary key values that are used in a single
+	 * query for existing rows in {@link #store(Connection, Database, Collection)}.
+	 * Per default this is 500 which is well below the parameter and expression
+	 * limits of the supported databases.
+	 *
+	 * @return The maximum number of primary key values per query
+	 */
+	protected int getMaxRowsPerKeyQuery() {
+		return 500;
+	}
+
+	/**
+	 * Queries the database for the rows whose primary key matches the primary key
+	 * of one of the given beans, and adds the keys of these rows to the given set.
+	 *
+	 * @param connection The connection
+	 * @param dynaClass  The type of the beans
+	 * @param dynaBeans  The beans which all have primary key values
+	 * @param keys       The set to add the keys to
+	 */
+	private void readExistingKeys(Connection connection, SqlDynaClass dynaClass, List<DynaBean> dynaBeans,
+			HashSet<Object> keys) throws DatabaseOperationException {
+		SqlDynaProperty[] primaryKeys = dynaClass.getPrimaryKeyProperties();
+		ParameterBinder[] binders = getParameterBinders(primaryKeys);
+		String sql = _builder.getSelectPrimaryKeysSql(dynaClass.getTable(), dynaBeans.size());
+		PreparedStatement statement = null;
+		ResultSet resultSet = null;
+
+		try {
+			statement = connection.prepareStatement(sql);
 
-			sql.append("SELECT * FROM ");
-			sql.append(_builder.getDelimitedIdentifier(dynaClass.getTable().getName()));
-			sql.append(" WHERE ");
+			int sqlIdx = 1;
 
-			for (int idx = 0; idx < primaryKeys.length; idx++) {
-				String key = primaryKeys[idx].getColumn().getName();
+			for (Iterator<DynaBean> it = dynaBeans.iterator(); it.hasNext();) {
+				DynaBean dynaBean = it.next();
 
-				if (idx > 0) {
-					sql.append(" AND ");
+				for (int idx = 0; idx < primaryKeys.length; idx++) {
+					binders[idx].bind(statement, sqlIdx++, getPropertyValue(dynaBean, primaryKeys[idx]));
 				}
-				sql.append(_builder.getDelimitedIdentifier(key));
-				sql.append("=?");
 			}
+			resultSet = statement.executeQuery();
+			while (resultSet.next()) {
+				Object[] values = new Object[primaryKeys.length];
 
-			stmt = connection.prepareStatement(sql.toString());
-
-			for (int idx = 0; idx < primaryKeys.length; idx++) {
-				setObject(stmt, idx + 1, dynaBean, primaryKeys[idx]);
+				for (int idx = 0; idx < primaryKeys.length; idx++) {
+					values[idx] = getObjectFromResultSet(resultSet, primaryKeys[idx].getColumn(), idx + 1);
+				}
+				keys.add(createKey(values, primaryKeys));
 			}
-
-			ResultSet resultSet = stmt.executeQuery();
-
-			return resultSet.next();
 		} catch (SQLException ex) {
 			throw new DatabaseOperationException("Error while reading from the database", ex);
 		} finally {
-			closeStatement(stmt);
+			closeStatement(statement);
 		}
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * Returns the primary key of the bean in a form suitable for comparing it to
+	 * the keys read by {@link #readExistingKeys(Connection, SqlDynaClass, List, HashSet)}.
+	 *
+	 * @param dynaBean    The bean
+	 * @param primaryKeys The primary key properties
+	 * @return The key
 	 */
-	public void store(Database model, DynaBean dynaBean) throws DatabaseOperationException {
-		Connection connection = borrowConnection();
+	private Object getKeyOf(DynaBean dynaBean, SqlDynaProperty[] primaryKeys) {
+		Object[] values = new Object[primaryKeys.length];
 
-		try {
-			store(connection, model, dynaBean);
-		} finally {
-			returnConnection(connection);
+		for (int idx = 0; idx < primaryKeys.length; idx++) {
+			values[idx] = dynaBean.get(primaryKeys[idx].getName());
 		}
+		return createKey(values, primaryKeys);
 	}
 
 	/**
-	 * {@inheritDoc}
-	 */
-	public void store(Connection connection, Database model, DynaBean dynaBean) throws DatabaseOperationException {
-		if (exists(connection, model, dynaBean)) {
-			update(connection, model, dynaBean);
-		} else {
-			insert(connection, model, dynaBean);
+	 * Creates a key object from the primary key values that has value semantics
+	 * regardless of the concrete java types of the values, e.g. an
+	 * <code>Integer</code> in the bean matches a <code>BigDecimal</code> returned
+	 * by the database.
+	 *
+	 * @param values      The primary key values
+	 * @param primaryKeys The primary key properties
+	 * @return The key
+	 */
+	private static Object createKey(Object[] values, SqlDynaProperty[] primaryKeys) {
+		for (int idx = 0; idx < values.length; idx++) {
+			Object value = values[idx];
+
+			if (value instanceof Number) {
+				value = new BigDecimal(value.toString());
+				if (((BigDecimal) value).signum() == 0) {
+					value = BigDecimal.ZERO;
+				} else {
+					value = ((BigDecimal) value).stripTrailingZeros();
+				}
+			} else if (value instanceof java.util.Date) {
+				value = Long.valueOf(((java.util.Date) value).getTime());
+			} else if (value instanceof byte[]) {
+				value = ByteBuffer.wrap((byte[]) value);
+			} else if ((value instanceof String) && (primaryKeys[idx].getColumn().getTypeCode() == Types.CHAR)) {
+				// fixed-length strings are padded by the database
+				value = StringUtils.stripEnd((String) value, " ");
+			}
+			values[idx] = value;
 		}
+		return values.length == 1 ? values[0] : Arrays.asList(values);
 	}
 
 	/**
@@ -2341,24 +3813,21 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 
 		try {
 			SqlDynaClass dynaClass = model.getDynaClassFor(dynaBean);
-			SqlDynaProperty[] primaryKeys = dynaClass.getPrimaryKeyProperties();
 
-			if (primaryKeys.length == 0) {
+			if (dynaClass.getPrimaryKeyPropertyList().isEmpty()) {
 				_log.warn("Cannot delete instances of type " + dynaClass + " because it has no primary keys");
 				return;
 			}
 
-			String sql = createDeleteSql(model, dynaClass, primaryKeys, null);
+			StatementPlan plan = getDeletePlan(model, dynaClass);
+			String sql = plan.getSql();
 
 			if (_log.isDebugEnabled()) {
 				_log.debug("About to execute SQL " + sql);
 			}
 
 			statement = connection.prepareStatement(sql);
-
-			for (int idx = 0; idx < primaryKeys.length; idx++) {
-				setObject(statement, idx + 1, dynaBean, primaryKeys[idx]);
-			}
+			setStatementParameters(statement, plan, dynaBean, dynaBean);
 
 			int count = statement.executeUpdate();
 
@@ -2373,6 +3842,27 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public void delete(Database model, Collection<DynaBean> dynaBeans) throws DatabaseOperationException {
+		Connection connection = borrowConnection();
+
+		try {
+			delete(connection, model, dynaBeans);
+		} finally {
+			returnConnection(connection);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void delete(Connection connection, Database model, Collection<DynaBean> dynaBeans)
+			throws DatabaseOperationException {
+		executeBatchOperation(connection, model, dynaBeans, StatementPlan.OPERATION_DELETE);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -2485,13 +3975,184 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 	 * @param dynaBean  The bean of which to take the value
 	 * @param property  The property of the bean, which also defines the
 	 *                  corresponding column
-	 */
+	 * @deprecated The statement parameters are set by the binders that
+	 *             {@link #getParameterBinder(int)} returns for the column types. A
+	 *             platform that overrides this method without overriding
+	 *             {@link #createParameterBinder(int)} still gets all bean values
+	 *             through it, but loses the faster binders. To migrate an override,
+	 *             move the handling of special values into
+	 *             {@link #setStatementParameterValue(PreparedStatement, int, int, Object)},
+	 *             and override {@link #createParameterBinder(int)} to return a
+	 *             {@link TypedParameterBinder} with
+	 *             {@link TypedParameterBinder#VALUE_OBJECT} for the affected types (or
+	 *             an own {@link ParameterBinder}). Callers should use
+	 *             <code>getParameterBinder(typeCode).bind(statement, sqlIndex, value)</code>.
+	 */
+	@Deprecated
 	protected void setObject(PreparedStatement statement, int sqlIndex, DynaBean dynaBean, SqlDynaProperty property)
 			throws SQLException {
-		int typeCode = property.getColumn().getTypeCode();
-		Object value = dynaBean.get(property.getName());
+		ParameterBinder binder = getParameterBinder(property.getColumn().getTypeCode());
+
+		binder.bind(statement, sqlIndex, getPropertyValue(dynaBean, property));
+	}
+
+	/**
+	 * Returns the value of the property of the given bean. For {@link SqlDynaBean}s
+	 * the value is looked up via the position of the property.
+	 * 
+	 * @param dynaBean The bean
+	 * @param property The property
+	 * @return The value
+	 */
+	private static Object getPropertyValue(DynaBean dynaBean, SqlDynaProperty property) {
+		if (dynaBean instanceof SqlDynaBean) {
+			return ((SqlDynaBean) dynaBean).get(property);
+		} else {
+			return dynaBean.get(property.getName());
+		}
+	}
 
-		setStatementParameterValue(statement, sqlIndex, typeCode, value);
+	/**
+	 * Returns the binder for parameters of the given JDBC type. The binders are
+	 * created once per type code via {@link #createParameterBinder(int)}.
+	 * 
+	 * @param typeCode The JDBC type code of the column
+	 * @return The binder
+	 */
+	protected ParameterBinder getParameterBinder(int typeCode) {
+		Integer key = Integer.valueOf(typeCode);
+		ParameterBinder binder = _parameterBinders.get(key);
+
+		if (binder == null) {
+			binder = createParameterBinder(typeCode);
+			_parameterBinders.put(key, binder);
+		}
+		return binder;
+	}
+
+	/**
+	 * Returns the binders for the columns of the given properties.
+	 * 
+	 * @param properties The properties
+	 * @return The binders in the order of the properties
+	 */
+	protected ParameterBinder[] getParameterBinders(SqlDynaProperty[] properties) {
+		ParameterBinder[] binders = new ParameterBinder[properties.length];
+
+		for (int idx = 0; idx < properties.length; idx++) {
+			binders[idx] = getParameterBinder(properties[idx].getColumn().getTypeCode());
+		}
+		return binders;
+	}
+
+	/**
+	 * Creates the binder for parameters of the given JDBC type. Per default, the
+	 * binder uses the typed setter of the statement that corresponds to the usual
+	 * Java type of values of the column type, and
+	 * {@link #setStatementParameterValue(PreparedStatement, int, int, Object)} for
+	 * <code>null</code> and other values. <code>null</code> values are set with the
+	 * {@link PlatformInfo#getTargetJdbcType(int) target JDBC type} of the column type,
+	 * i.e. the type that the database actually uses for the column. Platforms that
+	 * treat some types differently in
+	 * {@link #setStatementParameterValue(PreparedStatement, int, int, Object)},
+	 * should override this method accordingly; if they don't, all values are passed
+	 * to that method.
+	 * 
+	 * @param typeCode The JDBC type code of the column
+	 * @return The binder
+	 */
+	protected ParameterBinder createParameterBinder(int typeCode) {
+		int targetTypeCode = getPlatformInfo().getTargetJdbcType(typeCode);
+		int valueType;
+
+		// the values of the beans have the Java type of the column type of the model,
+		// not of the type that the database uses for it
+		switch (typeCode) {
+		case Types.CHAR:
+		case Types.VARCHAR:
+		case Types.LONGVARCHAR:
+		case Types.CLOB:
+			valueType = TypedParameterBinder.VALUE_STRING;
+			break;
+		case Types.BINARY:
+		case Types.VARBINARY:
+		case Types.LONGVARBINARY:
+		case Types.BLOB:
+			valueType = TypedParameterBinder.VALUE_BYTES;
+			break;
+		case Types.BIT:
+		case Types.BOOLEAN:
+			valueType = TypedParameterBinder.VALUE_BOOLEAN;
+			break;
+		case Types.TINYINT:
+		case Types.SMALLINT:
+			valueType = TypedParameterBinder.VALUE_SHORT;
+			break;
+		case Types.INTEGER:
+			valueType = TypedParameterBinder.VALUE_INT;
+			break;
+		case Types.BIGINT:
+			valueType = TypedParameterBinder.VALUE_LONG;
+			break;
+		case Types.DECIMAL:
+		case Types.NUMERIC:
+			valueType = TypedParameterBinder.VALUE_BIG_DECIMAL;
+			break;
+		case Types.REAL:
+			valueType = TypedParameterBinder.VALUE_FLOAT;
+			break;
+		case Types.FLOAT:
+		case Types.DOUBLE:
+			valueType = TypedParameterBinder.VALUE_DOUBLE;
+			break;
+		default:
+			valueType = TypedParameterBinder.VALUE_OBJECT;
+			break;
+		}
+		if (_parameterValueSetterOverridden) {
+			// the override of the platform has to see all values
+			valueType = TypedParameterBinder.VALUE_OBJECT;
+		}
+		return new TypedParameterBinder(this, typeCode, targetTypeCode, valueType);
+	}
+
+	/**
+	 * Determines whether the class of this platform overrides the given method of
+	 * this class, without also overriding {@link #createParameterBinder(int)} in the
+	 * same or a more specific class. Such platforms were written before the
+	 * parameter binders existed, so their override has to be called for every value.
+	 * 
+	 * @param methodName     The name of the method
+	 * @param parameterTypes The parameter types of the method
+	 * @return <code>true</code> if the method is overridden without the binders
+	 */
+	private boolean isOverriddenWithoutBinders(String methodName, Class<?>... parameterTypes) {
+		Class<?> methodClass = getDeclaringClass(methodName, parameterTypes);
+		Class<?> binderClass = getDeclaringClass("createParameterBinder", int.class);
+
+		return (methodClass != PlatformImplBase.class) && (methodClass != binderClass)
+				&& binderClass.isAssignableFrom(methodClass);
+	}
+
+	/**
+	 * Returns the most specific class in the hierarchy of this platform that declares
+	 * the given method.
+	 * 
+	 * @param methodName     The name of the method
+	 * @param parameterTypes The parameter types of the method
+	 * @return The class
+	 */
+	private Class<?> getDeclaringClass(String methodName, Class<?>... parameterTypes) {
+		for (Class<?> curClass = getClass(); curClass != PlatformImplBase.class; curClass = curClass
+				.getSuperclass()) {
+			try {
+				curClass.getDeclaredMethod(methodName, parameterTypes);
+				return curClass;
+			} catch (NoSuchMethodException ex) {
+				// not declared in this class
+			}
+		}
+		return PlatformImplBase.class;
 	}
 
 	/**
@@ -2536,6 +4197,40 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 		}
 	}
 
+	/**
+	 * Sets a parameter of the prepared statement to a value of a row batch. Values
+	 * that the batch stores as primitives are set via the corresponding typed setter
+	 * (unless the platform overrides
+	 * {@link #setStatementParameterValue(PreparedStatement, int, int, Object)} without
+	 * adapting the binders), all other values and <code>null</code> via the
+	 * {@link #getParameterBinder(int) parameter binder} of the column type.
+	 * 
+	 * @param statement The statement
+	 * @param sqlIndex  The parameter index
+	 * @param batch     The batch
+	 * @param rowIdx    The row in the batch
+	 * @param columnIdx The column in the batch
+	 * @throws SQLException If an error occurred while setting the parameter value
+	 */
+	protected void setStatementParameterValue(PreparedStatement statement, int sqlIndex, RowBatch batch, int rowIdx,
+			int columnIdx) throws SQLException {
+		int storageType = batch.getStorageType(columnIdx);
+
+		if ((storageType == RowBatch.STORAGE_OBJECT) || batch.isNull(rowIdx, columnIdx)
+				|| _parameterValueSetterOverridden) {
+			getParameterBinder(batch.getColumn(columnIdx).getTypeCode()).bind(statement, sqlIndex,
+					batch.getValue(rowIdx, columnIdx));
+		} else if (storageType == RowBatch.STORAGE_INT) {
+			statement.setInt(sqlIndex, batch.getInt(rowIdx, columnIdx));
+		} else if (storageType == RowBatch.STORAGE_LONG) {
+			statement.setLong(sqlIndex, batch.getLong(rowIdx, columnIdx));
+		} else if (storageType == RowBatch.STORAGE_DOUBLE) {
+			statement.setDouble(sqlIndex, batch.getDouble(rowIdx, columnIdx));
+		} else {
+			statement.setBoolean(sqlIndex, batch.getBoolean(rowIdx, columnIdx));
+		}
+	}
+
 	/**
 	 * Helper method esp. for the {@link ModelBasedResultSetIterator} class that
 	 * retrieves the value for a column from the given result set. If a table was
@@ -2556,21 +4251,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 		Object value = null;
 
 		if (column != null) {
-			int originalJdbcType = column.getTypeCode();
-			int targetJdbcType = getPlatformInfo().getTargetJdbcType(originalJdbcType);
-			int jdbcType = originalJdbcType;
-
-			// in general we're trying to retrieve the value using the original type
-			// but sometimes we also need the target type:
-			if ((originalJdbcType == Types.BLOB) && (targetJdbcType != Types.BLOB)) {
-				// we should not use the Blob interface if the database doesn't map to this type
-				jdbcType = targetJdbcType;
-			}
-			if ((originalJdbcType == Types.CLOB) && (targetJdbcType != Types.CLOB)) {
-				// we should not use the Clob interface if the database doesn't map to this type
-				jdbcType = targetJdbcType;
-			}
-			value = extractColumnValue(resultSet, columnName, 0, jdbcType);
+			value = extractColumnValue(resultSet, columnName, 0, getResultSetJdbcType(column));
 		} else {
 			value = resultSet.getObject(columnName);
 		}
@@ -2587,10 +4268,81 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 	 * @return The value
 	 */
 	protected Object getObjectFromResultSet(ResultSet resultSet, Column column, int idx) throws SQLException {
+		return getObjectFromResultSet(resultSet, column, idx, getResultSetJdbcType(column));
+	}
+
+	/**
+	 * Helper method for retrieving the value for a column from the given result set
+	 * using a jdbc type that has been determined beforehand via
+	 * {@link #getResultSetJdbcType(Column)}. This allows callers that read many rows,
+	 * like the {@link ModelBasedResultSetIterator}, to resolve the columns and types
+	 * only once per query.
+	 * 
+	 * @param resultSet The result set
+	 * @param column    The column; if <code>null</code>, then the object directly
+	 *                  retrieved from the result set is returned
+	 * @param idx       The value's index in the result set (starting from 1)
+	 * @param jdbcType  The jdbc type to extract
+	 * @return The value
+	 */
+	protected Object getObjectFromResultSet(ResultSet resultSet, Column column, int idx, int jdbcType)
+			throws SQLException {
+		Object value = (column == null ? resultSet.getObject(idx) : extractColumnValue(resultSet, null, idx, jdbcType));
+
+		return resultSet.wasNull() ? null : value;
+	}
+
+	/**
+	 * Reads a value from the current row of the result set into a row batch. Values
+	 * that the batch stores as primitives are read via the corresponding typed
+	 * getter, all other values via
+	 * {@link #getObjectFromResultSet(ResultSet, Column, int, int)}.
+	 * 
+	 * @param resultSet    The result set
+	 * @param resultSetIdx The value's index in the result set (starting from 1)
+	 * @param batch        The batch
+	 * @param rowIdx       The row in the batch
+	 * @param columnIdx    The column in the batch
+	 * @param jdbcType     The jdbc type to extract as determined by
+	 *                     {@link #getResultSetJdbcType(Column)}
+	 * @throws SQLException If an error occurred while accessing the result set
+	 */
+	protected void readBatchValue(ResultSet resultSet, int resultSetIdx, RowBatch batch, int rowIdx, int columnIdx,
+			int jdbcType) throws SQLException {
+		switch (batch.getStorageType(columnIdx)) {
+		case RowBatch.STORAGE_INT:
+			batch.setInt(rowIdx, columnIdx, resultSet.getInt(resultSetIdx));
+			break;
+		case RowBatch.STORAGE_LONG:
+			batch.setLong(rowIdx, columnIdx, resultSet.getLong(resultSetIdx));
+			break;
+		case RowBatch.STORAGE_DOUBLE:
+			batch.setDouble(rowIdx, columnIdx, resultSet.getDouble(resultSetIdx));
+			break;
+		case RowBatch.STORAGE_BOOLEAN:
+			batch.setBoolean(rowIdx, columnIdx, resultSet.getBoolean(resultSetIdx));
+			break;
+		default:
+			batch.setValue(rowIdx, columnIdx,
+					getObjectFromResultSet(resultSet, batch.getColumn(columnIdx), resultSetIdx, jdbcType));
+			return;
+		}
+		if (resultSet.wasNull()) {
+			batch.setNull(rowIdx, columnIdx);
+		}
+	}
+
+	/**
+	 * Determines the jdbc type that is used for retrieving values of the given column
+	 * from a result set.
+	 * 
+	 * @param column The column
+	 * @return The jdbc type
+	 */
+	protected int getResultSetJdbcType(Column column) {
 		int originalJdbcType = column.getTypeCode();
 		int targetJdbcType = getPlatformInfo().getTargetJdbcType(originalJdbcType);
 		int jdbcType = originalJdbcType;
-		Object value = null;
 
 		// in general we're trying to retrieve the value using the original type
 		// but sometimes we also need the target type:
@@ -2602,8 +4354,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 			// we should not use the Clob interface if the database doesn't map to this type
 			jdbcType = targetJdbcType;
 		}
-		value = extractColumnValue(resultSet, null, idx, jdbcType);
-		return resultSet.wasNull() ? null : value;
+		return jdbcType;
 	}
 
 	/**
@@ -2722,6 +4473,202 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform {
 		return resultSet.wasNull() ? null : value;
 	}
 
+	/**
+	 * Creates the statement for a query. For streaming queries (see
+	 * {@link #isStreamingQueryModeOn()}), the statement is forward-only and read-only,
+	 * and uses the {@link #getStreamingFetchSize() streaming fetch size}.
+	 * 
+	 * @param connection The connection
+	 * @param streaming  Whether the query streams its results
+	 * @return The statement
+	 */
+	protected Statement createQueryStatement(Connection connection, boolean streaming) throws SQLException {
+		if (streaming) {
+			Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+
+			statement.setFetchSize(getStreamingFetchSize());
+			return statement;
+		} else {
+			return connection.createStatement();
+		}
+	}
+
+	/**
+	 * Creates the prepared statement for a parameterized query. For streaming queries,
+	 * the statement is forward-only and read-only, and uses the
+	 * {@link #getStreamingFetchSize() streaming fetch size}.
+	 * 
+	 * @param connection The connection
+	 * @param sql        The query
+	 * @param streaming  Whether the query streams its results
+	 * @return The statement
+	 */
+	protected PreparedStatement prepareQueryStatement(Connection connection, String sql, boolean streaming)
+			throws SQLException {
+		if (streaming) {
+			PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+					ResultSet.CONCUR_READ_ONLY);
+
+			statement.setFetchSize(getStreamingFetchSize());
+			return statement;
+		} else {
+			return connection.prepareStatement(sql);
+		}
+	}
+
+	/**
+	 * Returns the query that only returns the rows in the given range, if the platform
+	 * supports this for the given query (see
+	 * {@link SqlBuilder#getPaginatedSql(String, int, int)}).
+	 * 
+	 * @param connection The connection that the query will run on
+	 * @param sql        The query
+	 * @param start      The index of the first row to return
+	 * @param end        The index of the last row to return, or <code>-1</code>
+	 * @return The query or <code>null</code> if the query cannot be paginated
+	 */
+	protected String getPaginatedSql(Connection connection, String sql, int start, int end) throws SQLException {
+		if (((start <= 0) && (end < 0)) || !isPaginationSupported(connection)) {
+			return null;
+		}
+		return _builder.getPaginatedSql(sql, Math.max(0, start), end);
+	}
+
+	/**
+	 * Determines whether queries can be paginated on the database of the given
+	 * connection. Per default, this is defined by
+	 * {@link PlatformInfo#isPaginationSupported()}, but platforms can check e.g. the
+	 * version of the database here.
+	 * 
+	 * @param connection The connection
+	 * @return <code>true</code> if pagination is supported
+	 */
+	protected boolean isPaginationSupported(Connection connection) throws SQLException {
+		return getPlatformInfo().isPaginationSupported();
+	}
+
+	/**
+	 * Creates the statement for fetching the rows in the given range from a query
+	 * that cannot be paginated. The statement returns at most <code>end + 1</code>
+	 * rows, and is scrollable if rows need to be skipped so that the result set can
+	 * be positioned via {@link #skipRows(ResultSet, int)}.
+	 * 
+	 * @param connection The connection
+	 * @param start      The index of the first row to return
+	 * @param end        The index of the last row to return, or <code>-1</code>
+	 * @return The statement
+	 */
+	private Statement createFetchStatement(Connection connection, int start, int end) throws SQLException {
+		Statement statement;
+
+		if ((start > 0) && !_streamingQueryModeOn) {
+			statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+		} else {
+			statement = createQueryStatement(connection, _streamingQueryModeOn);
+		}
+		setMaxRows(statement, end);
+		return statement;
+	}
+
+	/**
+	 * Creates the prepared statement for fetching the rows in the given range from a
+	 * query that cannot be paginated, see
+	 * {@link #createFetchStatement(Connection, int, int)}.
+	 * 
+	 * @param connection The connection
+	 * @param sql        The query
+	 * @param start      The index of the first row to return
+	 * @param end        The index of the last row to return, or <code>-1</code>
+	 * @return The statement
+	 */
+	private PreparedStatement prepareFetchStatement(Connection connection, String sql, int start, int end)
+			throws SQLException {
+		PreparedStatement statement;
+
+		if ((start > 0) && !_streamingQueryModeOn) {
+			statement = connection.prepareStatement(sql, ResultSet.TYPE_SCROLL_INSENSITIVE,
+					ResultSet.CONCUR_READ_ONLY);
+		} else {
+			statement = prepareQueryStatement(connection, sql, _streamingQueryModeOn);
+		}
+		setMaxRows(statement, end);
+		return statement;
+	}
+
+	/**
+	 * Restricts the number of rows returned by the statement so that the row with
+	 * the given index is the last one.
+	 * 
+	 * @param statement The statement
+	 * @param end       The index of the last row to return, or <code>-1</code>
+	 */
+	private void setMaxRows(Statement statement, int end) throws SQLException {
+		if ((end >= 0) && (end < Integer.MAX_VALUE)) {
+			statement.setMaxRows(end + 1);
+		}
+	}
+
+	/**
+	 * Positions a scrollable result set before the row with the given index. Forward
+	 * only result sets are left unchanged.
+	 * 
+	 * @param resultSet The result set
+	 * @param start     The index of the first row to return
+	 * @return The index of the row that is returned next by the result set
+	 */
+	private int skipRows(ResultSet resultSet, int start) throws SQLException {
+		if ((start > 0) && (resultSet.getType() != ResultSet.TYPE_FORWARD_ONLY)) {
+			// row numbers start at 1, so this is the row before the first requested one
+			resultSet.absolute(start);
+			return start;
+		} else {
+			return 0;
+		}
+	}
+
+	/**
+	 * Returns the fetch size that is set on query statements in streaming mode. Per
+	 * default this is the {@link #getQueryFetchSize() query fetch size}, but some JDBC
+	 * drivers require special values for streaming.
+	 * 
+	 * @return The fetch size
+	 */
+	protected int getStreamingFetchSize() {
+		return _queryFetchSize;
+	}
+
+	/**
+	 * Prepares the connection for a query in streaming mode. Per default, nothing is
+	 * done. Platforms whose JDBC drivers only stream results within a transaction,
+	 * switch off the auto-commit mode here.
+	 * 
+	 * @param connection The connection
+	 * @return <code>true</code> if the auto-commit mode was switched off and needs to
+	 *         be switched on again after the query
+	 */
+	protected boolean prepareConnectionForStreaming(Connection connection) throws SQLException {
+		return false;
+	}
+
+	/**
+	 * Switches the auto-commit mode of the connection on again after a query in
+	 * streaming mode, if it has been switched off for the query.
+	 * 
+	 * @param connection        The connection
+	 * @param autoCommitChanged Whether the auto-commit mode has been switched off
+	 */
+	protected void restoreAutoCommit(Connection connection, boolean autoCommitChanged) {
+		if (autoCommitChanged && (connection != null)) {
+			try {
+				if (!connection.isClosed()) {
+					connection.setAutoCommit(true);
+				}
+			} catch (SQLException ex) {
+				_log.warn("Could not switch on the auto-commit mode of the connection", ex);
+			}
+		}
+	}
+
 	/**
 	 * Creates an iterator over the given result set.
 	 *
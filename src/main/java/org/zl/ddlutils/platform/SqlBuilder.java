@@ -25,10 +25,14 @@ import java.rmi.server.UID;
 import java.sql.Types;
 import java.text.DateFormat;
 import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.regex.Pattern;
 
 import org.apache.commons.collections.map.ListOrderedMap;
 import org.apache.commons.lang.StringUtils;
@@ -67,6 +71,8 @@ public abstract class SqlBuilder
     private static final String LINE_SEPARATOR = System.getProperty("line.separator", "\n");
     /** The placeholder for the size value in the native type spec. */
     protected static final String SIZE_PLACEHOLDER = "{0}";
+    /** Matches the keywords that restrict or lock the rows returned by a query. */
+    private static final Pattern ROW_RESTRICTION_PATTERN = Pattern.compile("\\b(LIMIT|OFFSET|FETCH|TOP|ROWNUM|FOR\\s+UPDATE)\\b", Pattern.CASE_INSENSITIVE);
 
     /** The Log to which logging calls will be made. */
     protected final Log _log = LogFactory.getLog(SqlBuilder.class);
@@ -411,9 +417,11 @@ public abstract class SqlBuilder
             dropTables(database);
         }
 
-        for (int idx = 0; idx < database.getTableCount(); idx++)
+        List<Table> tables = getTableCreationOrder(database);
+
+        for (int idx = 0; idx < tables.size(); idx++)
         {
-            Table table = database.getTable(idx);
+            Table table = tables.get(idx);
 
             writeTableComment(table);
             createTable(database,
@@ -425,6 +433,29 @@ public abstract class SqlBuilder
         createForeignKeys(database);
     }
 
+    /**
+     * Returns the tables of the model in the order in which they shall be created; they
+     * are dropped in the reverse order. If the platform embeds the foreign keys in the
+     * table definitions, then referenced tables have to be created first, so the
+     * {@link org.zl.ddlutils.model.ForeignKeyGraph#getTopologicalOrder() foreign key order}
+     * is used. Otherwise the foreign keys are created separately afterwards, and the
+     * tables are created in the order of the model.
+     * 
+     * @param database The database model
+     * @return The tables
+     */
+    protected List<Table> getTableCreationOrder(Database database)
+    {
+        if (getPlatformInfo().isForeignKeysEmbedded())
+        {
+            return database.getForeignKeyGraph().getTopologicalOrder();
+        }
+        else
+        {
+            return Arrays.asList(database.getTables());
+        }
+    }
+
     /**
      * Outputs the DDL to create the given temporary table. Per default this is simply
      * a call to {@link #createTable(Database, Table, Map)}.
@@ -769,12 +800,11 @@ public abstract class SqlBuilder
         }
 
         // Next we drop the tables in reverse order to avoid referencial problems
-        // TODO: It might be more useful to either (or both)
-        //       * determine an order in which the tables can be dropped safely (via the foreignkeys)
-        //       * alter the tables first to drop the internal foreignkeys
-        for (int idx = database.getTableCount() - 1; idx >= 0; idx--)
+        List<Table> tables = getTableCreationOrder(database);
+
+        for (int idx = tables.size() - 1; idx >= 0; idx--)
         {
-            Table table = database.getTable(idx);
+            Table table = tables.get(idx);
 
             if ((table.getName() != null) &&
                 (table.getName().length() > 0))
@@ -930,6 +960,41 @@ public abstract class SqlBuilder
         return buffer.toString();
     }
 
+    /**
+     * Creates the SQL for inserting multiple rows into the specified table with a single
+     * statement, usable in a prepared statement. The parameters for the first row appear
+     * in the order of the columns in the table, followed by those of the second row etc.
+     * Per default, this adds further value lists to the insert statement as created by
+     * {@link #getInsertSql(Table, Map, boolean)}.<br/>
+     * Note that this should only be used if the platform
+     * {@link PlatformInfo#isMultiRowInsertSupported() supports multi-row inserts}.
+     *
+     * @param table        The table
+     * @param columnValues The columns indexed by the column names; the values are ignored
+     * @param numRows      The number of rows
+     * @return The insert sql
+     */
+    public String getMultiRowInsertSql(Table table, Map<String, Object> columnValues, int numRows)
+    {
+        StringBuffer buffer = new StringBuffer(getInsertSql(table, columnValues, true));
+        StringBuffer rowSql = new StringBuffer(", (");
+
+        for (int idx = 0; idx < columnValues.size(); idx++)
+        {
+            if (idx > 0)
+            {
+                rowSql.append(", ");
+            }
+            rowSql.append("?");
+        }
+        rowSql.append(")");
+        for (int rowIdx = 1; rowIdx < numRows; rowIdx++)
+        {
+            buffer.append(rowSql);
+        }
+        return buffer.toString();
+    }
+
     /**
      * Creates the SQL for updating an object in the specified table.
      * If values are given then a concrete update statement is created, otherwise an
@@ -1125,6 +1190,406 @@ public abstract class SqlBuilder
         return buffer.toString();
     }
 
+    /**
+     * Creates the SQL for inserting an object into the specified table or, if a row with the
+     * same primary key already exists, updating the non-primary key columns of that row.
+     * If values are given then a concrete statement is created, otherwise a statement usable
+     * in a prepared statement is build. The parameters/values appear in the order of the
+     * columns in the table.<br/>
+     * Databases that have no native statement for this, return <code>null</code>.
+     *
+     * @param table           The table which needs to have a primary key
+     * @param columnValues    The columns values indexed by the column names; needs to contain
+     *                        the primary key columns
+     * @param genPlaceholders Whether to generate value placeholders for a
+     *                        prepared statement
+     * @return The sql or <code>null</code> if the database does not support this
+     */
+    public String getUpsertSql(Table table, Map<String, Object> columnValues, boolean genPlaceholders)
+    {
+        return null;
+    }
+
+    /**
+     * Creates a standard SQL <code>MERGE</code> statement that inserts or updates a single row. Platforms
+     * that support <code>MERGE</code> can use this method to implement {@link #getUpsertSql(Table, Map, boolean)}.
+     *
+     * @param table           The table which needs to have a primary key
+     * @param columnValues    The columns values indexed by the column names
+     * @param genPlaceholders Whether to generate value placeholders for a
+     *                        prepared statement
+     * @return The merge sql
+     */
+    protected String getMergeSql(Table table, Map<String, Object> columnValues, boolean genPlaceholders)
+    {
+        List<Column>  columns = new ArrayList<>();
+        StringBuffer  buffer  = new StringBuffer("MERGE INTO ");
+        boolean       addSep  = false;
+        boolean       hasUpdatableColumns = false;
+
+        for (int idx = 0; idx < table.getColumnCount(); idx++)
+        {
+            Column column = table.getColumn(idx);
+
+            if (columnValues.containsKey(column.getName()))
+            {
+                columns.add(column);
+                hasUpdatableColumns |= !column.isPrimaryKey();
+            }
+        }
+
+        buffer.append(getDelimitedIdentifier(getTableName(table)));
+        buffer.append(" t USING ");
+        writeMergeSource(buffer, columns, columnValues, genPlaceholders);
+        buffer.append(" ON (");
+        for (Iterator<Column> it = columns.iterator(); it.hasNext();)
+        {
+            Column column = it.next();
+
+            if (column.isPrimaryKey())
+            {
+                if (addSep)
+                {
+                    buffer.append(" AND ");
+                }
+                buffer.append("t.");
+                buffer.append(getDelimitedIdentifier(column.getName()));
+                buffer.append(" = s.");
+                buffer.append(getDelimitedIdentifier(column.getName()));
+                addSep = true;
+            }
+        }
+        buffer.append(")");
+        if (hasUpdatableColumns)
+        {
+            buffer.append(" WHEN MATCHED THEN UPDATE SET ");
+            addSep = false;
+            for (Iterator<Column> it = columns.iterator(); it.hasNext();)
+            {
+                Column column = it.next();
+
+                if (!column.isPrimaryKey())
+                {
+                    if (addSep)
+                    {
+                        buffer.append(", ");
+                    }
+                    buffer.append(getDelimitedIdentifier(column.getName()));
+                    buffer.append(" = s.");
+                    buffer.append(getDelimitedIdentifier(column.getName()));
+                    addSep = true;
+                }
+            }
+        }
+        buffer.append(" WHEN NOT MATCHED THEN INSERT (");
+        addSep = false;
+        for (Iterator<Column> it = columns.iterator(); it.hasNext();)
+        {
+            if (addSep)
+            {
+                buffer.append(", ");
+            }
+            buffer.append(getDelimitedIdentifier(it.next().getName()));
+            addSep = true;
+        }
+        buffer.append(") VALUES (");
+        addSep = false;
+        for (Iterator<Column> it = columns.iterator(); it.hasNext();)
+        {
+            if (addSep)
+            {
+                buffer.append(", ");
+            }
+            buffer.append("s.");
+            buffer.append(getDelimitedIdentifier(it.next().getName()));
+            addSep = true;
+        }
+        buffer.append(")");
+        return buffer.toString();
+    }
+
+    /**
+     * Writes the source row of a <code>MERGE</code> statement, which has to be aliased as <code>s</code>
+     * and contain the given columns. Per default, a <code>VALUES</code> row constructor is used.
+     *
+     * @param buffer          The buffer to write to
+     * @param columns         The columns in table order
+     * @param columnValues    The columns values indexed by the column names
+     * @param genPlaceholders Whether to generate value placeholders for a
+     *                        prepared statement
+     */
+    protected void writeMergeSource(StringBuffer buffer, List<Column> columns, Map<String, Object> columnValues, boolean genPlaceholders)
+    {
+        boolean addSep = false;
+
+        buffer.append("(VALUES (");
+        for (Iterator<Column> it = columns.iterator(); it.hasNext();)
+        {
+            Column column = it.next();
+
+            if (addSep)
+            {
+                buffer.append(", ");
+            }
+            buffer.append(getMergeSourceValue(column, columnValues.get(column.getName()), genPlaceholders));
+            addSep = true;
+        }
+        buffer.append(")) AS s (");
+        addSep = false;
+        for (Iterator<Column> it = columns.iterator(); it.hasNext();)
+        {
+            if (addSep)
+            {
+                buffer.append(", ");
+            }
+            buffer.append(getDelimitedIdentifier(it.next().getName()));
+            addSep = true;
+        }
+        buffer.append(")");
+    }
+
+    /**
+     * Returns the expression for a value in the source row of a <code>MERGE</code> statement.
+     *
+     * @param column          The column
+     * @param value           The value
+     * @param genPlaceholders Whether to generate a value placeholder for a
+     *                        prepared statement
+     * @return The expression
+     */
+    protected String getMergeSourceValue(Column column, Object value, boolean genPlaceholders)
+    {
+        return genPlaceholders ? "?" : getValueAsString(column, value);
+    }
+
+    /**
+     * Creates the SQL for selecting the primary key columns of those rows in the specified
+     * table whose primary key matches one of the given number of primary key value tuples.
+     * The generated SQL is meant to be used in a prepared statement that gets the primary
+     * key values of the first row, then of the second row etc. as parameters.
+     *
+     * @param table   The table which needs to have a primary key
+     * @param numRows The number of primary key value tuples
+     * @return The select sql
+     */
+    public String getSelectPrimaryKeysSql(Table table, int numRows)
+    {
+        Column[]     pkCols = table.getPrimaryKeyColumns();
+        StringBuffer buffer = new StringBuffer("SELECT ");
+
+        for (int pkColIdx = 0; pkColIdx < pkCols.length; pkColIdx++)
+        {
+            if (pkColIdx > 0)
+            {
+                buffer.append(", ");
+            }
+            buffer.append(getDelimitedIdentifier(pkCols[pkColIdx].getName()));
+        }
+        buffer.append(" FROM ");
+        buffer.append(getDelimitedIdentifier(getTableName(table)));
+        buffer.append(" WHERE ");
+        if (pkCols.length == 1)
+        {
+            buffer.append(getDelimitedIdentifier(pkCols[0].getName()));
+            buffer.append(" IN (");
+            for (int rowIdx = 0; rowIdx < numRows; rowIdx++)
+            {
+                if (rowIdx > 0)
+                {
+                    buffer.append(", ");
+                }
+                buffer.append("?");
+            }
+            buffer.append(")");
+        }
+        else
+        {
+            for (int rowIdx = 0; rowIdx < numRows; rowIdx++)
+            {
+                if (rowIdx > 0)
+                {
+                    buffer.append(" OR ");
+                }
+                buffer.append("(");
+                for (int pkColIdx = 0; pkColIdx < pkCols.length; pkColIdx++)
+                {
+                    if (pkColIdx > 0)
+                    {
+                        buffer.append(" AND ");
+                    }
+                    buffer.append(getDelimitedIdentifier(pkCols[pkColIdx].getName()));
+                    buffer.append(" = ?");
+                }
+                buffer.append(")");
+            }
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Changes the given query so that it only returns the rows in the given range,
+     * using the native syntax of the database. The row indices start at 0.<br/>
+     * Databases that have no syntax for this, return <code>null</code>, as do
+     * databases whose syntax cannot be applied to the given query, e.g. because
+     * it already restricts the returned rows.
+     *
+     * @param query The query
+     * @param start The index of the first row to return
+     * @param end   The index of the last row to return, or <code>-1</code> for all
+     *              rows starting at <code>start</code>
+     * @return The sql or <code>null</code> if the query cannot be changed
+     */
+    public String getPaginatedSql(String query, int start, int end)
+    {
+        return null;
+    }
+
+    /**
+     * Returns the name of the column that the {@link #getPaginatedSql(String, int, int) paginated}
+     * queries of this builder add to the result, if any. This column is not part of the
+     * read beans.
+     *
+     * @return The column name or <code>null</code> if no column is added
+     */
+    public String getPaginationColumnName()
+    {
+        return null;
+    }
+
+    /**
+     * Determines whether a pagination clause can be appended to the given query. This
+     * is not the case if the query already contains keywords that restrict or lock
+     * the returned rows. Note that the check is conservative, e.g. it also applies
+     * to occurrences of the keywords in string literals.
+     *
+     * @param query The query
+     * @return <code>true</code> if a pagination clause can be appended
+     */
+    protected boolean isPaginationClauseAppendable(String query)
+    {
+        return !ROW_RESTRICTION_PATTERN.matcher(query).find();
+    }
+
+    /**
+     * Returns the given query with everything within parentheses, string literals and
+     * quoted identifiers replaced by spaces, so that only the clauses of the outermost
+     * query remain at their original positions.
+     *
+     * @param query The query
+     * @return The outermost query or <code>null</code> if the query contains comments or
+     *         unbalanced parentheses or quotes
+     */
+    protected String getOutermostQuery(String query)
+    {
+        char[] result = query.toCharArray();
+        int    depth  = 0;
+        char   quote  = 0;
+
+        for (int idx = 0; idx < result.length; idx++)
+        {
+            char c = result[idx];
+
+            if (quote != 0)
+            {
+                if (c == quote)
+                {
+                    quote = 0;
+                }
+            }
+            else if ((c == '\'') || (c == '"'))
+            {
+                quote = c;
+            }
+            else if (c == '[')
+            {
+                quote = ']';
+            }
+            else if (((c == '-') || (c == '/')) && (idx + 1 < result.length) &&
+                     (result[idx + 1] == (c == '-' ? '-' : '*')))
+            {
+                return null;
+            }
+            else if (c == '(')
+            {
+                depth++;
+            }
+            else if (c == ')')
+            {
+                if (depth == 0)
+                {
+                    return null;
+                }
+                depth--;
+                // the closing parenthesis itself belongs to the nested part
+                result[idx] = ' ';
+                continue;
+            }
+            else if (depth == 0)
+            {
+                continue;
+            }
+            result[idx] = ' ';
+        }
+        return (depth == 0) && (quote == 0) ? new String(result) : null;
+    }
+
+    /**
+     * Appends a <code>LIMIT</code>/<code>OFFSET</code> clause to the given query.
+     *
+     * @param query The query
+     * @param start The index of the first row to return
+     * @param end   The index of the last row to return, or <code>-1</code>
+     * @return The sql or <code>null</code> if the query cannot be changed or if no
+     *         last row is given
+     */
+    protected String getLimitOffsetPaginatedSql(String query, int start, int end)
+    {
+        if ((end < 0) || !isPaginationClauseAppendable(query))
+        {
+            return null;
+        }
+
+        StringBuffer result = new StringBuffer(query.trim());
+
+        result.append(" LIMIT ");
+        result.append(Math.max(0, end - start + 1));
+        if (start > 0)
+        {
+            result.append(" OFFSET ");
+            result.append(start);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Appends a standard <code>OFFSET</code>/<code>FETCH</code> clause to the given query.
+     *
+     * @param query The query
+     * @param start The index of the first row to return
+     * @param end   The index of the last row to return, or <code>-1</code>
+     * @return The sql or <code>null</code> if the query cannot be changed
+     */
+    protected String getOffsetFetchPaginatedSql(String query, int start, int end)
+    {
+        if (!isPaginationClauseAppendable(query))
+        {
+            return null;
+        }
+
+        StringBuffer result = new StringBuffer(query.trim());
+
+        result.append(" OFFSET ");
+        result.append(Math.max(0, start));
+        result.append(" ROWS");
+        if (end >= 0)
+        {
+            result.append(" FETCH NEXT ");
+            result.append(Math.max(0, end - start + 1));
+            result.append(" ROWS ONLY");
+        }
+        return result.toString();
+    }
+
     /**
      * Generates the string representation of the given value.
      * 
@@ -0,0 +1,148 @@
+package org.zl.ddlutils.platform;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.zl.ddlutils.dynabean.SqlDynaProperty;
+
+/**
+ * Contains the prepared statement SQL for a data manipulation operation on a table
+ * together with the dyna properties whose values have to be bound to the statement
+ * parameters, in the order of the parameter placeholders, and the binders that set
+ * these parameters.
+ *
+ * @version $Revision: $
+ */
+public class StatementPlan
+{
+    /** The operation value for an insert statement. */
+    public static final int OPERATION_INSERT     = 1;
+    /** The operation value for an update statement that does not change the primary key. */
+    public static final int OPERATION_UPDATE     = 2;
+    /** The operation value for an update statement that changes all columns including the primary key. */
+    public static final int OPERATION_UPDATE_ALL = 3;
+    /** The operation value for a delete statement. */
+    public static final int OPERATION_DELETE     = 4;
+    /** The operation value for a select statement that checks for the existence of a row. */
+    public static final int OPERATION_EXISTS     = 5;
+    /** The operation value for a statement that inserts a row or updates it if it already exists. */
+    public static final int OPERATION_UPSERT     = 6;
+
+    /** The operation. */
+    private final int _operation;
+    /** The sql. */
+    private final String _sql;
+    /** The properties to bind in the order of the parameter placeholders. */
+    private final SqlDynaProperty[] _parameters;
+    /** The binders for the parameters. */
+    private final ParameterBinder[] _binders;
+    /** The number of leading parameters that are taken from the new bean in an update-all statement. */
+    private final int _valueParameterCount;
+
+    /**
+     * Creates a new statement plan.
+     *
+     * @param operation           The operation, one of the <code>OPERATION_xxx</code> constants
+     * @param sql                 The prepared statement sql
+     * @param parameters          The properties to bind in the order of the parameter placeholders
+     * @param valueParameterCount The number of leading parameters that bind values rather than
+     *                            identifying the row (i.e. that do not belong to the WHERE clause)
+     * @param binders             The binders for the parameters
+     */
+    public StatementPlan(int operation, String sql, SqlDynaProperty[] parameters, int valueParameterCount, ParameterBinder[] binders)
+    {
+        _operation           = operation;
+        _sql                 = sql;
+        _parameters          = parameters;
+        _binders             = binders;
+        _valueParameterCount = valueParameterCount;
+    }
+
+    /**
+     * Returns the operation of this plan.
+     *
+     * @return The operation, one of the <code>OPERATION_xxx</code> constants
+     */
+    public int getOperation()
+    {
+        return _operation;
+    }
+
+    /**
+     * Returns the prepared statement sql.
+     *
+     * @return The sql
+     */
+    public String getSql()
+    {
+        return _sql;
+    }
+
+    /**
+     * Returns the properties whose values are bound to the statement, in the order of
+     * the parameter placeholders. Note that the returned array is shared and must not
+     * be modified.
+     *
+     * @return The properties
+     */
+    public SqlDynaProperty[] getParameters()
+    {
+        return _parameters;
+    }
+
+    /**
+     * Returns the binders for the parameters, in the order of the parameter placeholders.
+     * Note that the returned array is shared and must not be modified.
+     *
+     * @return The binders
+     */
+    public ParameterBinder[] getBinders()
+    {
+        return _binders;
+    }
+
+    /**
+     * Returns the number of parameters.
+     *
+     * @return The number of parameters
+     */
+    public int getParameterCount()
+    {
+        return _parameters.length;
+    }
+
+    /**
+     * Returns the number of leading parameters that bind the values to write, as opposed to
+     * the trailing ones that identify the row in the WHERE clause.
+     *
+     * @return The number of value parameters
+     */
+    public int getValueParameterCount()
+    {
+        return _valueParameterCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String toString()
+    {
+        return _sql;
+    }
+}
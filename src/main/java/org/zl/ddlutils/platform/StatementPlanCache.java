@@ -0,0 +1,245 @@
+package org.zl.ddlutils.platform;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.zl.ddlutils.dynabean.SqlDynaClass;
+
+/**
+ * A bounded cache of {@link StatementPlan statement plans}. Plans are identified by the
+ * dyna class (by identity), the operation, the set of properties that take part in the
+ * statement, and whether delimited identifiers are used. When the cache is full, the
+ * least recently used plan is discarded. All methods are thread-safe.
+ *
+ * @version $Revision: $
+ */
+public class StatementPlanCache
+{
+    /** The default maximum number of plans held by the cache. */
+    public static final int DEFAULT_MAX_SIZE = 512;
+
+    /** The plans in access order. */
+    private final LinkedHashMap<Key, StatementPlan> _plans = new LinkedHashMap<Key, StatementPlan>(16, 0.75f, true)
+    {
+        private static final long serialVersionUID = 1L;
+
+        protected boolean removeEldestEntry(Map.Entry<Key, StatementPlan> eldest)
+        {
+            return size() > _maxSize;
+        }
+    };
+    /** The maximum number of plans. */
+    private int _maxSize = DEFAULT_MAX_SIZE;
+    /** The number of lookups that found a plan. */
+    private long _hitCount;
+    /** The number of lookups that did not find a plan. */
+    private long _missCount;
+
+    /**
+     * Creates a new cache key.
+     *
+     * @param dynaClass                 The dyna class
+     * @param operation                 The operation, one of the <code>StatementPlan.OPERATION_xxx</code> constants
+     * @param propertyMask              The indices of the properties that take part in the statement; can
+     *                                  be <code>null</code> if the operation always uses the same properties
+     * @param delimitedIdentifierModeOn Whether delimited identifiers are used
+     * @return The key
+     */
+    public static Key createKey(SqlDynaClass dynaClass, int operation, BitSet propertyMask, boolean delimitedIdentifierModeOn)
+    {
+        return new Key(dynaClass, operation, propertyMask, delimitedIdentifierModeOn);
+    }
+
+    /**
+     * Returns the maximum number of plans that this cache holds.
+     *
+     * @return The maximum size
+     */
+    public synchronized int getMaxSize()
+    {
+        return _maxSize;
+    }
+
+    /**
+     * Sets the maximum number of plans that this cache holds. A value of 0 disables the cache.
+     *
+     * @param maxSize The maximum size
+     */
+    public synchronized void setMaxSize(int maxSize)
+    {
+        if (maxSize < 0)
+        {
+            throw new IllegalArgumentException("The maximum size must not be negative");
+        }
+        _maxSize = maxSize;
+        while (_plans.size() > _maxSize)
+        {
+            _plans.remove(_plans.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * Returns the plan for the given key.
+     *
+     * @param key The key
+     * @return The plan or <code>null</code> if it is not cached
+     */
+    public synchronized StatementPlan get(Key key)
+    {
+        StatementPlan plan = _plans.get(key);
+
+        if (plan == null)
+        {
+            _missCount++;
+        }
+        else
+        {
+            _hitCount++;
+        }
+        return plan;
+    }
+
+    /**
+     * Stores the plan under the given key.
+     *
+     * @param key  The key
+     * @param plan The plan
+     */
+    public synchronized void put(Key key, StatementPlan plan)
+    {
+        if (_maxSize > 0)
+        {
+            _plans.put(key, plan);
+        }
+    }
+
+    /**
+     * Returns the number of cached plans.
+     *
+     * @return The number of plans
+     */
+    public synchronized int size()
+    {
+        return _plans.size();
+    }
+
+    /**
+     * Returns the number of lookups that found a cached plan.
+     *
+     * @return The hit count
+     */
+    public synchronized long getHitCount()
+    {
+        return _hitCount;
+    }
+
+    /**
+     * Returns the number of lookups that did not find a cached plan.
+     *
+     * @return The miss count
+     */
+    public synchronized long getMissCount()
+    {
+        return _missCount;
+    }
+
+    /**
+     * Removes all plans and resets the hit and miss counters.
+     */
+    public synchronized void clear()
+    {
+        _plans.clear();
+        _hitCount  = 0;
+        _missCount = 0;
+    }
+
+    /**
+     * Identifies a plan in the cache.
+     */
+    public static final class Key
+    {
+        /** The dyna class. */
+        private final SqlDynaClass _dynaClass;
+        /** The operation. */
+        private final int _operation;
+        /** The property mask. */
+        private final BitSet _propertyMask;
+        /** Whether delimited identifiers are used. */
+        private final boolean _delimitedIdentifierModeOn;
+        /** The precomputed hash code. */
+        private final int _hashCode;
+
+        /**
+         * Creates a new key.
+         *
+         * @param dynaClass                 The dyna class
+         * @param operation                 The operation
+         * @param propertyMask              The property mask
+         * @param delimitedIdentifierModeOn Whether delimited identifiers are used
+         */
+        private Key(SqlDynaClass dynaClass, int operation, BitSet propertyMask, boolean delimitedIdentifierModeOn)
+        {
+            _dynaClass                 = dynaClass;
+            _operation                 = operation;
+            _propertyMask              = propertyMask;
+            _delimitedIdentifierModeOn = delimitedIdentifierModeOn;
+
+            int hashCode = System.identityHashCode(dynaClass);
+
+            hashCode  = 31 * hashCode + operation;
+            hashCode  = 31 * hashCode + (propertyMask == null ? 0 : propertyMask.hashCode());
+            hashCode  = 31 * hashCode + (delimitedIdentifierModeOn ? 1 : 0);
+            _hashCode = hashCode;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (!(obj instanceof Key))
+            {
+                return false;
+            }
+
+            Key other = (Key)obj;
+
+            return (_dynaClass == other._dynaClass) &&
+                   (_operation == other._operation) &&
+                   (_delimitedIdentifierModeOn == other._delimitedIdentifierModeOn) &&
+                   (_propertyMask == null ? other._propertyMask == null : _propertyMask.equals(other._propertyMask));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public int hashCode()
+        {
+            return _hashCode;
+        }
+    }
+}
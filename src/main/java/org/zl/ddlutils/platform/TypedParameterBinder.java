@@ -0,0 +1,218 @@
+package org.zl.ddlutils.platform;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * The default parameter binder which is used for columns of one JDBC type. It
+ * expects values of one Java type (one of the <code>VALUE_xxx</code> constants) and
+ * sets them using the corresponding typed setter of the statement. <code>null</code>
+ * values and values of other types are passed to
+ * {@link PlatformImplBase#setStatementParameterValue(PreparedStatement, int, int, Object)},
+ * the former with the JDBC type that the database uses for the column.
+ *
+ * @version $Revision: $
+ */
+public class TypedParameterBinder implements ParameterBinder
+{
+    /** The value type for which no typed setter is used. */
+    public static final int VALUE_OBJECT      = 0;
+    /** The value type for {@link String} values. */
+    public static final int VALUE_STRING      = 1;
+    /** The value type for <code>byte[]</code> values. */
+    public static final int VALUE_BYTES       = 2;
+    /** The value type for {@link Boolean} values. */
+    public static final int VALUE_BOOLEAN     = 3;
+    /** The value type for {@link Short} values. */
+    public static final int VALUE_SHORT       = 4;
+    /** The value type for {@link Integer} values. */
+    public static final int VALUE_INT         = 5;
+    /** The value type for {@link Long} values. */
+    public static final int VALUE_LONG        = 6;
+    /** The value type for {@link BigDecimal} values. */
+    public static final int VALUE_BIG_DECIMAL = 7;
+    /** The value type for {@link Float} values. */
+    public static final int VALUE_FLOAT       = 8;
+    /** The value type for {@link Double} values. */
+    public static final int VALUE_DOUBLE      = 9;
+
+    /** The platform. */
+    private final PlatformImplBase _platform;
+    /** The JDBC type code of the column. */
+    private final int _typeCode;
+    /** The JDBC type code that the database uses for the column. */
+    private final int _targetTypeCode;
+    /** The expected value type. */
+    private final int _valueType;
+
+    /**
+     * Creates a new binder.
+     *
+     * @param platform  The platform
+     * @param typeCode  The JDBC type code of the column
+     * @param valueType The expected value type, one of the <code>VALUE_xxx</code> constants
+     */
+    public TypedParameterBinder(PlatformImplBase platform, int typeCode, int valueType)
+    {
+        this(platform, typeCode, typeCode, valueType);
+    }
+
+    /**
+     * Creates a new binder.
+     *
+     * @param platform       The platform
+     * @param typeCode       The JDBC type code of the column
+     * @param targetTypeCode The JDBC type code that the database uses for the column,
+     *                       see {@link org.zl.ddlutils.PlatformInfo#getTargetJdbcType(int)}
+     * @param valueType      The expected value type, one of the <code>VALUE_xxx</code> constants
+     */
+    public TypedParameterBinder(PlatformImplBase platform, int typeCode, int targetTypeCode, int valueType)
+    {
+        _platform       = platform;
+        _typeCode       = typeCode;
+        _targetTypeCode = targetTypeCode;
+        _valueType      = valueType;
+    }
+
+    /**
+     * Returns the JDBC type code of the column.
+     *
+     * @return The type code
+     */
+    public int getTypeCode()
+    {
+        return _typeCode;
+    }
+
+    /**
+     * Returns the JDBC type code that the database uses for the column.
+     *
+     * @return The target type code
+     */
+    public int getTargetTypeCode()
+    {
+        return _targetTypeCode;
+    }
+
+    /**
+     * Returns the expected value type.
+     *
+     * @return The value type, one of the <code>VALUE_xxx</code> constants
+     */
+    public int getValueType()
+    {
+        return _valueType;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void bind(PreparedStatement statement, int sqlIndex, Object value) throws SQLException
+    {
+        if (value == null)
+        {
+            bindNull(statement, sqlIndex);
+            return;
+        }
+        switch (_valueType)
+        {
+            case VALUE_STRING:
+                if (value instanceof String)
+                {
+                    statement.setString(sqlIndex, (String)value);
+                    return;
+                }
+                break;
+            case VALUE_BYTES:
+                if (value instanceof byte[])
+                {
+                    statement.setBytes(sqlIndex, (byte[])value);
+                    return;
+                }
+                break;
+            case VALUE_BOOLEAN:
+                if (value instanceof Boolean)
+                {
+                    statement.setBoolean(sqlIndex, ((Boolean)value).booleanValue());
+                    return;
+                }
+                break;
+            case VALUE_SHORT:
+                if (value instanceof Short)
+                {
+                    statement.setShort(sqlIndex, ((Short)value).shortValue());
+                    return;
+                }
+                break;
+            case VALUE_INT:
+                if (value instanceof Integer)
+                {
+                    statement.setInt(sqlIndex, ((Integer)value).intValue());
+                    return;
+                }
+                break;
+            case VALUE_LONG:
+                if (value instanceof Long)
+                {
+                    statement.setLong(sqlIndex, ((Long)value).longValue());
+                    return;
+                }
+                break;
+            case VALUE_BIG_DECIMAL:
+                if (value instanceof BigDecimal)
+                {
+                    statement.setBigDecimal(sqlIndex, (BigDecimal)value);
+                    return;
+                }
+                break;
+            case VALUE_FLOAT:
+                if (value instanceof Float)
+                {
+                    statement.setFloat(sqlIndex, ((Float)value).floatValue());
+                    return;
+                }
+                break;
+            case VALUE_DOUBLE:
+                if (value instanceof Double)
+                {
+                    statement.setDouble(sqlIndex, ((Double)value).doubleValue());
+                    return;
+                }
+                break;
+        }
+        _platform.setStatementParameterValue(statement, sqlIndex, _typeCode, value);
+    }
+
+    /**
+     * Sets the parameter of the prepared statement to <code>null</code>.
+     *
+     * @param statement The statement
+     * @param sqlIndex  The parameter index
+     * @throws SQLException If an error occurred while setting the parameter value
+     */
+    protected void bindNull(PreparedStatement statement, int sqlIndex) throws SQLException
+    {
+        _platform.setStatementParameterValue(statement, sqlIndex, _targetTypeCode, null);
+    }
+}
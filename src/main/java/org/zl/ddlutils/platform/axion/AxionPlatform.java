@@ -28,6 +28,7 @@ import java.util.Map;
 
 import org.zl.ddlutils.DatabaseOperationException;
 import org.zl.ddlutils.PlatformInfo;
+import org.zl.ddlutils.io.RowBatch;
 import org.zl.ddlutils.platform.PlatformImplBase;
 
 /**
@@ -139,4 +140,29 @@ public class AxionPlatform extends PlatformImplBase
         }
         return value;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void readBatchValue(ResultSet resultSet, int resultSetIdx, RowBatch batch, int rowIdx, int columnIdx, int jdbcType) throws SQLException
+    {
+        if (batch.getStorageType(columnIdx) == RowBatch.STORAGE_LONG)
+        {
+            // The Axion JDBC driver does not support reading BIGINT values directly
+            String strValue = resultSet.getString(resultSetIdx);
+
+            if (strValue == null)
+            {
+                batch.setNull(rowIdx, columnIdx);
+            }
+            else
+            {
+                batch.setLong(rowIdx, columnIdx, Long.parseLong(strValue));
+            }
+        }
+        else
+        {
+            super.readBatchValue(resultSet, resultSetIdx, batch, rowIdx, columnIdx, jdbcType);
+        }
+    }
 }
@@ -21,6 +21,7 @@ package org.zl.ddlutils.platform.db2;
 
 import java.io.IOException;
 import java.sql.Types;
+import java.util.Map;
 
 import org.zl.ddlutils.Platform;
 import org.zl.ddlutils.alteration.ColumnDefinitionChange;
@@ -79,6 +80,31 @@ public class Db2Builder extends SqlBuilder
         return "VALUES IDENTITY_VAL_LOCAL()";
     }
 
+    /**
+     * {@inheritDoc}
+     * DB2 uses a <code>MERGE</code> statement.
+     */
+    public String getUpsertSql(Table table, Map<String, Object> columnValues, boolean genPlaceholders)
+    {
+        return getMergeSql(table, columnValues, genPlaceholders);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected String getMergeSourceValue(Column column, Object value, boolean genPlaceholders)
+    {
+        if (genPlaceholders)
+        {
+            // DB2 does not allow untyped parameter markers in a VALUES row constructor
+            return "CAST(? AS " + getSqlType(column) + ")";
+        }
+        else
+        {
+            return super.getMergeSourceValue(column, value, genPlaceholders);
+        }
+    }
+
     /**
      * Generates the SQL to drop a column from a table.
      * 
@@ -159,4 +185,12 @@ public class Db2Builder extends SqlBuilder
             print(")");
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getPaginatedSql(String query, int start, int end)
+    {
+        return getOffsetFetchPaginatedSql(query, start, end);
+    }
 }
@@ -20,6 +20,8 @@ package org.zl.ddlutils.platform.db2;
  */
 
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.sql.Types;
 
 import org.zl.ddlutils.PlatformInfo;
@@ -76,6 +78,9 @@ public class Db2Platform extends PlatformImplBase
         info.setIdentityColumnAutomaticallyRequired(true);
         info.setPrimaryKeyColumnsHaveToBeRequired(true);
         info.setMultipleIdentityColumnsSupported(false);
+        info.setUpsertSupported(true);
+        // OFFSET/FETCH requires DB2 11.1, see isPaginationSupported(Connection)
+        info.setPaginationSupported(true);
         info.setSupportedOnUpdateActions(new CascadeActionEnum[] { CascadeActionEnum.RESTRICT, CascadeActionEnum.NONE });
         info.setSupportedOnDeleteActions(new CascadeActionEnum[] { CascadeActionEnum.RESTRICT, CascadeActionEnum.CASCADE, CascadeActionEnum.SET_NULL, CascadeActionEnum.NONE });
 
@@ -112,6 +117,16 @@ public class Db2Platform extends PlatformImplBase
         return DATABASENAME;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected boolean isPaginationSupported(Connection connection) throws SQLException
+    {
+        // OFFSET/FETCH is only available since DB2 11.1
+        return super.isPaginationSupported(connection) &&
+               (connection.getMetaData().getDatabaseMajorVersion() >= 11);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -111,4 +111,12 @@ public class DerbyBuilder extends CloudscapeBuilder
             printIdentifier(getColumnName(sourceColumn));
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getPaginatedSql(String query, int start, int end)
+    {
+        return getOffsetFetchPaginatedSql(query, start, end);
+    }
 }
@@ -69,6 +69,12 @@ public class DerbyPlatform extends CloudscapePlatform
         info.setSupportedOnDeleteActions(new CascadeActionEnum[] { CascadeActionEnum.NONE, CascadeActionEnum.RESTRICT,
                                                                    CascadeActionEnum.CASCADE, CascadeActionEnum.SET_NULL });
         info.setDefaultOnDeleteAction(CascadeActionEnum.NONE);
+        info.setMultiRowInsertSupported(true);
+        // Derby compiles statements into java classes whose size is limited,
+        // so we're keeping the statements reasonably small
+        info.setMaxBindParameters(1000);
+        // OFFSET/FETCH is available since Derby 10.5
+        info.setPaginationSupported(true);
 
         setSqlBuilder(new DerbyBuilder(this));
         setModelReader(new DerbyModelReader(this));
@@ -20,6 +20,7 @@ package org.zl.ddlutils.platform.h2;
  */
 
 import java.io.IOException;
+import java.util.Map;
 
 import org.zl.ddlutils.Platform;
 import org.zl.ddlutils.alteration.ColumnDefinitionChange;
@@ -67,6 +68,33 @@ public class H2Builder extends SqlBuilder
         return "CALL IDENTITY()";
     }
 
+    /**
+     * {@inheritDoc}
+     * H2 uses a <code>MERGE</code> statement with a <code>KEY</code> clause.
+     */
+    public String getUpsertSql(Table table, Map<String, Object> columnValues, boolean genPlaceholders)
+    {
+        String       insertSql = getInsertSql(table, columnValues, genPlaceholders);
+        StringBuffer buffer    = new StringBuffer("MERGE");
+        Column[]     pkCols    = table.getPrimaryKeyColumns();
+        int          valuesPos = insertSql.indexOf(") VALUES (") + 1;
+
+        // we reuse the column list and values of the insert statement
+        buffer.append(insertSql.substring("INSERT".length(), valuesPos));
+        buffer.append(" KEY (");
+        for (int idx = 0; idx < pkCols.length; idx++)
+        {
+            if (idx > 0)
+            {
+                buffer.append(", ");
+            }
+            buffer.append(getDelimitedIdentifier(pkCols[idx].getName()));
+        }
+        buffer.append(")");
+        buffer.append(insertSql.substring(valuesPos));
+        return buffer.toString();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -175,4 +203,12 @@ public class H2Builder extends SqlBuilder
             super.writeCastExpression(sourceColumn, targetColumn);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getPaginatedSql(String query, int start, int end)
+    {
+        return getLimitOffsetPaginatedSql(query, start, end);
+    }
+}
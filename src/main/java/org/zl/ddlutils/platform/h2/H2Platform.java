@@ -68,6 +68,10 @@ public class H2Platform extends PlatformImplBase
         info.setIdentityOverrideAllowed(false);
         info.setMixingIdentityAndNormalPrimaryKeyColumnsSupported(false);
         info.setAlterTableForDropUsed(false);
+        info.setUpsertSupported(true);
+        info.setBatchGeneratedKeysSupported(true);
+        info.setMultiRowInsertSupported(true);
+        info.setPaginationSupported(true);
 
         info.addEquivalentOnDeleteActions(CascadeActionEnum.NONE, CascadeActionEnum.RESTRICT);
         info.addEquivalentOnUpdateActions(CascadeActionEnum.NONE, CascadeActionEnum.RESTRICT);
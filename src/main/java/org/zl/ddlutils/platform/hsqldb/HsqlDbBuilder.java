@@ -189,4 +189,12 @@ public class HsqlDbBuilder extends SqlBuilder
             super.writeCastExpression(sourceColumn, targetColumn);
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getPaginatedSql(String query, int start, int end)
+    {
+        return getLimitOffsetPaginatedSql(query, start, end);
+    }
 }
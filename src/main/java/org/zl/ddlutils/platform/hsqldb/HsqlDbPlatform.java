@@ -66,6 +66,8 @@ public class HsqlDbPlatform extends PlatformImplBase
         info.setSystemForeignKeyIndicesAlwaysNonUnique(true);
         info.setPrimaryKeyColumnAutomaticallyRequired(true);
         info.setMixingIdentityAndNormalPrimaryKeyColumnsSupported(false);
+        info.setMultiRowInsertSupported(true);
+        info.setPaginationSupported(true);
 
         info.addNativeTypeMapping(Types.ARRAY,       "LONGVARBINARY", Types.LONGVARBINARY);
         info.addNativeTypeMapping(Types.BIT,         "BOOLEAN",       Types.BOOLEAN);
@@ -45,7 +45,9 @@ import org.zl.ddlutils.model.Database;
 import org.zl.ddlutils.model.Table;
 import org.zl.ddlutils.platform.CreationParameters;
 import org.zl.ddlutils.platform.DefaultTableDefinitionChangesPredicate;
+import org.zl.ddlutils.platform.ParameterBinder;
 import org.zl.ddlutils.platform.PlatformImplBase;
+import org.zl.ddlutils.platform.TypedParameterBinder;
 
 /**
  * The platform implementation for the Interbase database.
@@ -116,6 +118,22 @@ public class InterbasePlatform extends PlatformImplBase
         return DATABASENAME;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected ParameterBinder createParameterBinder(int typeCode)
+    {
+        if ((typeCode == Types.BINARY) || (typeCode == Types.VARBINARY) || (typeCode == Types.BLOB))
+        {
+            // binary data is set as a stream in setStatementParameterValue
+            return new TypedParameterBinder(this, typeCode, TypedParameterBinder.VALUE_OBJECT);
+        }
+        else
+        {
+            return super.createParameterBinder(typeCode);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -24,6 +24,7 @@ import java.sql.Types;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang.StringUtils;
 import org.zl.ddlutils.Platform;
@@ -43,6 +44,9 @@ import org.zl.ddlutils.platform.SqlBuilder;
  */
 public class MSSqlBuilder extends SqlBuilder
 {
+    /** Matches an ORDER BY clause. */
+    private static final Pattern ORDER_BY_PATTERN = Pattern.compile("\\bORDER\\s+BY\\b", Pattern.CASE_INSENSITIVE);
+
     /** We use a generic date format. */
     private DateFormat _genericDateFormat = new SimpleDateFormat("yyyy-MM-dd");
     /** We use a generic date format. */
@@ -331,6 +335,16 @@ public class MSSqlBuilder extends SqlBuilder
         return getQuotationOnStatement() + super.getUpdateSql(table, columnValues, genPlaceholders);
     }
 
+    /**
+     * {@inheritDoc}
+     * Sql Server (2008 and newer) uses a <code>MERGE</code> statement.
+     */
+    public String getUpsertSql(Table table, Map<String, Object> columnValues, boolean genPlaceholders)
+    {
+        // Sql Server requires MERGE statements to be terminated
+        return getQuotationOnStatement() + getMergeSql(table, columnValues, genPlaceholders) + ";";
+    }
+
     /**
      * Prints the given identifier with enforced single quotes around it regardless of whether 
      * delimited identifiers are turned on or not.
@@ -557,4 +571,30 @@ public class MSSqlBuilder extends SqlBuilder
             printIdentifier(getColumnName(sourceColumn));
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getPaginatedSql(String query, int start, int end)
+    {
+        if (!isPaginationClauseAppendable(query))
+        {
+            return null;
+        }
+
+        String outerQuery = getOutermostQuery(query);
+
+        if (outerQuery == null)
+        {
+            // we cannot tell whether the query itself is ordered
+            return null;
+        }
+        // Sql Server only accepts OFFSET/FETCH after an ORDER BY clause of the query itself;
+        // an ORDER BY in a subquery or an OVER clause does not count
+        if (!ORDER_BY_PATTERN.matcher(outerQuery).find())
+        {
+            query = query.trim() + " ORDER BY (SELECT NULL)";
+        }
+        return getOffsetFetchPaginatedSql(query, start, end);
+    }
 }
@@ -77,6 +77,14 @@ public class MSSqlPlatform extends PlatformImplBase
         info.setPrimaryKeyColumnAutomaticallyRequired(true);
         info.setIdentityColumnAutomaticallyRequired(true);
         info.setMultipleIdentityColumnsSupported(false);
+        // MERGE requires Sql Server 2008, see isUpsertSupported(Connection)
+        info.setUpsertSupported(true);
+        // multi-row VALUES lists require Sql Server 2008, see isMultiRowInsertSupported(Connection)
+        info.setMultiRowInsertSupported(true);
+        // Sql Server rejects requests with 2100 or more parameters, including the ones the driver adds
+        info.setMaxBindParameters(2098);
+        // OFFSET/FETCH requires Sql Server 2012, see isPaginationSupported(Connection)
+        info.setPaginationSupported(true);
         info.setSupportedOnUpdateActions(new CascadeActionEnum[] { CascadeActionEnum.CASCADE, CascadeActionEnum.NONE });
         info.addEquivalentOnUpdateActions(CascadeActionEnum.NONE, CascadeActionEnum.RESTRICT);
         info.setSupportedOnDeleteActions(new CascadeActionEnum[] { CascadeActionEnum.CASCADE, CascadeActionEnum.NONE });
@@ -121,6 +129,36 @@ public class MSSqlPlatform extends PlatformImplBase
         return DATABASENAME;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected boolean isPaginationSupported(Connection connection) throws SQLException
+    {
+        // OFFSET/FETCH is only available since Sql Server 2012 (version 11)
+        return super.isPaginationSupported(connection) &&
+               (connection.getMetaData().getDatabaseMajorVersion() >= 11);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected boolean isMultiRowInsertSupported(Connection connection) throws SQLException
+    {
+        // row constructors in VALUES are only available since Sql Server 2008 (version 10)
+        return super.isMultiRowInsertSupported(connection) &&
+               (connection.getMetaData().getDatabaseMajorVersion() >= 10);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected boolean isUpsertSupported(Connection connection) throws SQLException
+    {
+        // MERGE is only available since Sql Server 2008 (version 10)
+        return super.isUpsertSupported(connection) &&
+               (connection.getMetaData().getDatabaseMajorVersion() >= 10);
+    }
+
     /**
      * Determines whether we need to use identity override mode for the given table.
      * 
@@ -131,7 +169,7 @@ public class MSSqlPlatform extends PlatformImplBase
     {
         return isIdentityOverrideOn() &&
                getPlatformInfo().isIdentityOverrideAllowed() &&
-               (table.getAutoIncrementColumns().length > 0);
+               table.hasAutoIncrementColumns();
     }
 
     /**
@@ -176,6 +214,15 @@ public class MSSqlPlatform extends PlatformImplBase
         afterInsert(connection, table);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected int getMaxRowsPerMultiRowInsert(int numParameters)
+    {
+        // Sql Server accepts at most 1000 rows in a VALUES list
+        return Math.min(1000, super.getMaxRowsPerMultiRowInsert(numParameters));
+    }
+
     /**
      * {@inheritDoc}
      */
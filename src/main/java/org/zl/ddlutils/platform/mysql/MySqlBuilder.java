@@ -107,6 +107,45 @@ public class MySqlBuilder extends SqlBuilder
         return "SELECT LAST_INSERT_ID() " + autoIncrementKeyName;
     }
 
+    /**
+     * {@inheritDoc}
+     * MySql uses an <code>INSERT</code> statement with an <code>ON DUPLICATE KEY UPDATE</code> clause.
+     */
+    public String getUpsertSql(Table table, Map<String, Object> columnValues, boolean genPlaceholders)
+    {
+        StringBuffer buffer = new StringBuffer(getInsertSql(table, columnValues, genPlaceholders));
+        boolean      addSep = false;
+
+        buffer.append(" ON DUPLICATE KEY UPDATE ");
+        for (int idx = 0; idx < table.getColumnCount(); idx++)
+        {
+            Column column = table.getColumn(idx);
+
+            if (!column.isPrimaryKey() && columnValues.containsKey(column.getName()))
+            {
+                if (addSep)
+                {
+                    buffer.append(", ");
+                }
+                buffer.append(getDelimitedIdentifier(column.getName()));
+                buffer.append(" = VALUES(");
+                buffer.append(getDelimitedIdentifier(column.getName()));
+                buffer.append(")");
+                addSep = true;
+            }
+        }
+        if (!addSep)
+        {
+            // only primary key columns, so we use a no-op assignment
+            String pkColumnName = getDelimitedIdentifier(table.getPrimaryKeyColumns()[0].getName());
+
+            buffer.append(pkColumnName);
+            buffer.append(" = ");
+            buffer.append(pkColumnName);
+        }
+        return buffer.toString();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -303,4 +342,12 @@ public class MySqlBuilder extends SqlBuilder
             printIdentifier(getColumnName(sourceColumn));
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getPaginatedSql(String query, int start, int end)
+    {
+        return getLimitOffsetPaginatedSql(query, start, end);
+    }
 }
@@ -73,6 +73,12 @@ public class MySqlPlatform extends PlatformImplBase
         // MySql returns synthetic default values for pk columns
         info.setSyntheticDefaultValueForRequiredReturned(true);
         info.setPrimaryKeyColumnAutomaticallyRequired(true);
+        info.setUpsertSupported(true);
+        info.setBatchGeneratedKeysSupported(true);
+        info.setMultiRowInsertSupported(true);
+        // the client/server protocol uses 16 bit for the parameter count
+        info.setMaxBindParameters(65535);
+        info.setPaginationSupported(true);
         info.setCommentPrefix("#");
         // Double quotes are only allowed for delimiting identifiers if the server SQL mode includes ANSI_QUOTES 
         info.setDelimiterToken("`");
@@ -124,6 +130,17 @@ public class MySqlPlatform extends PlatformImplBase
         return DATABASENAME;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected int getStreamingFetchSize()
+    {
+        // Connector/J only streams the rows of a result set (one row at a time) if
+        // the fetch size is Integer.MIN_VALUE; other values are ignored unless
+        // cursor fetching is enabled in the connection url
+        return Integer.MIN_VALUE;
+    }
+
     /**
      * {@inheritDoc}
      */
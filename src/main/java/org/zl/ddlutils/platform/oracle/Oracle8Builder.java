@@ -21,9 +21,13 @@ package org.zl.ddlutils.platform.oracle;
 
 import java.io.IOException;
 import java.sql.Types;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
+import java.util.Iterator;
+import java.util.List;
 
 import org.zl.ddlutils.DdlUtilsException;
 import org.zl.ddlutils.Platform;
@@ -43,6 +47,19 @@ import org.zl.ddlutils.util.StringUtilsExt;
  */
 public class Oracle8Builder extends SqlBuilder
 {
+	/** The name of the row number column that is added to paginated queries. */
+	public static final String PAGINATION_COLUMN_NAME = "DDLUTILS_ROW_NUM";
+	/** Matches the SELECT keyword. */
+	private static final Pattern SELECT_PATTERN = Pattern.compile("\\bSELECT\\b", Pattern.CASE_INSENSITIVE);
+	/** Matches the FROM keyword. */
+	private static final Pattern FROM_PATTERN = Pattern.compile("\\bFROM\\b", Pattern.CASE_INSENSITIVE);
+	/** Matches the keywords that can end the FROM clause of a query. */
+	private static final Pattern FROM_CLAUSE_END_PATTERN = Pattern.compile("\\b(WHERE|GROUP|HAVING|ORDER|CONNECT|START|UNION|INTERSECT|MINUS)\\b", Pattern.CASE_INSENSITIVE);
+	/** Matches a join in a FROM clause. */
+	private static final Pattern JOIN_PATTERN = Pattern.compile("\\bJOIN\\b", Pattern.CASE_INSENSITIVE);
+	/** Matches the identifier or quoted identifier at the end of a select list item. */
+	private static final Pattern LABEL_PATTERN = Pattern.compile("(\"[^\"]+\"|[A-Za-z0-9_$#]+)\\s*$");
+
 	/** The regular expression pattern for ISO dates, i.e. 'YYYY-MM-DD'. */
 	private Pattern _isoDatePattern;
 	/** The regular expression pattern for ISO times, i.e. 'HH:MI:SS'. */
@@ -349,6 +366,40 @@ public class Oracle8Builder extends SqlBuilder
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * Oracle (9i and newer) uses a <code>MERGE</code> statement.
+     */
+    public String getUpsertSql(Table table, Map<String, Object> columnValues, boolean genPlaceholders)
+    {
+        return getMergeSql(table, columnValues, genPlaceholders);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void writeMergeSource(StringBuffer buffer, List<Column> columns, Map<String, Object> columnValues, boolean genPlaceholders)
+    {
+        boolean addSep = false;
+
+        // Oracle has no VALUES row constructor, so we're selecting from DUAL instead
+        buffer.append("(SELECT ");
+        for (Iterator<Column> it = columns.iterator(); it.hasNext();)
+        {
+            Column column = it.next();
+
+            if (addSep)
+            {
+                buffer.append(", ");
+            }
+            buffer.append(getMergeSourceValue(column, columnValues.get(column.getName()), genPlaceholders));
+            buffer.append(" AS ");
+            buffer.append(getDelimitedIdentifier(column.getName()));
+            addSep = true;
+        }
+        buffer.append(" FROM DUAL) s");
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -436,4 +487,144 @@ public class Oracle8Builder extends SqlBuilder
             print(")");
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getPaginationColumnName()
+    {
+        return PAGINATION_COLUMN_NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getPaginatedSql(String query, int start, int end)
+    {
+        // the query is wrapped in a sub select, which must not lock rows or restrict them
+        // itself, and which fails if the query returns two columns with the same name
+        if (!isPaginationClauseAppendable(query) || !hasUniqueColumnLabels(query))
+        {
+            return null;
+        }
+
+        StringBuffer result = new StringBuffer();
+
+        if (start <= 0)
+        {
+            result.append("SELECT * FROM (");
+            result.append(query.trim());
+            result.append(") WHERE ROWNUM <= ");
+            result.append(end + 1);
+        }
+        else
+        {
+            result.append("SELECT * FROM (SELECT ddlutils_page.*, ROWNUM ");
+            result.append(PAGINATION_COLUMN_NAME);
+            result.append(" FROM (");
+            result.append(query.trim());
+            result.append(") ddlutils_page");
+            if (end >= 0)
+            {
+                result.append(" WHERE ROWNUM <= ");
+                result.append(end + 1);
+            }
+            result.append(") WHERE ");
+            result.append(PAGINATION_COLUMN_NAME);
+            result.append(" > ");
+            result.append(start);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Determines whether the columns returned by the given query are known to have unique
+     * names. The check is conservative: it fails for wildcards unless the query selects
+     * all columns of a single table, and for expressions without an alias it only
+     * compares the trailing identifier of the expression.
+     *
+     * @param query The query
+     * @return <code>true</code> if the column names are unique
+     */
+    private boolean hasUniqueColumnLabels(String query)
+    {
+        String outerQuery = getOutermostQuery(query);
+
+        if (outerQuery == null)
+        {
+            return false;
+        }
+
+        Matcher selectMatcher = SELECT_PATTERN.matcher(outerQuery);
+        Matcher fromMatcher   = FROM_PATTERN.matcher(outerQuery);
+
+        if (!selectMatcher.find() || !fromMatcher.find(selectMatcher.end()))
+        {
+            return false;
+        }
+
+        HashSet<String> labels    = new HashSet<>();
+        int             itemStart = selectMatcher.end();
+        int             listEnd   = fromMatcher.start();
+
+        for (int idx = itemStart; idx <= listEnd; idx++)
+        {
+            // separators within parentheses and literals have been removed in the outer query
+            if ((idx == listEnd) || (outerQuery.charAt(idx) == ','))
+            {
+                String item = query.substring(itemStart, idx).trim();
+
+                if (item.equals("*") || item.endsWith(".*"))
+                {
+                    if ((itemStart != selectMatcher.end()) || (idx != listEnd) ||
+                        !isSingleTable(outerQuery.substring(fromMatcher.end())))
+                    {
+                        return false;
+                    }
+                }
+                else
+                {
+                    Matcher labelMatcher = LABEL_PATTERN.matcher(item);
+                    String  label;
+
+                    if (!labelMatcher.find())
+                    {
+                        label = item.replaceAll("\\s+", "").toUpperCase();
+                    }
+                    else if (labelMatcher.group(1).startsWith("\""))
+                    {
+                        label = labelMatcher.group(1).substring(1, labelMatcher.group(1).length() - 1);
+                    }
+                    else
+                    {
+                        label = labelMatcher.group(1).toUpperCase();
+                    }
+                    if (!labels.add(label))
+                    {
+                        return false;
+                    }
+                }
+                itemStart = idx + 1;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines whether the given FROM clause of an outermost query only refers to a
+     * single table.
+     *
+     * @param fromClause The FROM clause and the rest of the outermost query
+     * @return <code>true</code> if the clause has only one table
+     */
+    private boolean isSingleTable(String fromClause)
+    {
+        Matcher endMatcher = FROM_CLAUSE_END_PATTERN.matcher(fromClause);
+
+        if (endMatcher.find())
+        {
+            fromClause = fromClause.substring(0, endMatcher.start());
+        }
+        return (fromClause.indexOf(',') < 0) && !JOIN_PATTERN.matcher(fromClause).find();
+    }
 }
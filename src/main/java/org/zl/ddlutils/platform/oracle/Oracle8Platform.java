@@ -70,6 +70,7 @@ public class Oracle8Platform extends PlatformImplBase
         PlatformInfo info = getPlatformInfo();
 
         info.setMaxIdentifierLength(30);
+        info.setPaginationSupported(true);
         info.setIdentityStatusReadingSupported(false);
         info.setPrimaryKeyColumnAutomaticallyRequired(true);
         info.setSupportedOnUpdateActions(new CascadeActionEnum[] { CascadeActionEnum.NONE });
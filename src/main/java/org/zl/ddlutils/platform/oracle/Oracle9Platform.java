@@ -38,6 +38,7 @@ public class Oracle9Platform extends Oracle8Platform
     {
         super();
         getPlatformInfo().addNativeTypeMapping(Types.TIMESTAMP, "TIMESTAMP");
+        getPlatformInfo().setUpsertSupported(true);
     }
 
     /**
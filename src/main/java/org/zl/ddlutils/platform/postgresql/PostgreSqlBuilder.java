@@ -168,6 +168,46 @@ public class PostgreSqlBuilder extends SqlBuilder
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * PostgreSQL (9.5 and newer) uses an <code>INSERT</code> statement with an <code>ON CONFLICT</code> clause.
+     */
+    public String getUpsertSql(Table table, Map<String, Object> columnValues, boolean genPlaceholders)
+    {
+        StringBuffer buffer = new StringBuffer(getInsertSql(table, columnValues, genPlaceholders));
+        Column[]     pkCols = table.getPrimaryKeyColumns();
+        boolean      addSep = false;
+
+        buffer.append(" ON CONFLICT (");
+        for (int idx = 0; idx < pkCols.length; idx++)
+        {
+            if (idx > 0)
+            {
+                buffer.append(", ");
+            }
+            buffer.append(getDelimitedIdentifier(pkCols[idx].getName()));
+        }
+        buffer.append(") DO ");
+        for (int idx = 0; idx < table.getColumnCount(); idx++)
+        {
+            Column column = table.getColumn(idx);
+
+            if (!column.isPrimaryKey() && columnValues.containsKey(column.getName()))
+            {
+                buffer.append(addSep ? ", " : "UPDATE SET ");
+                buffer.append(getDelimitedIdentifier(column.getName()));
+                buffer.append(" = EXCLUDED.");
+                buffer.append(getDelimitedIdentifier(column.getName()));
+                addSep = true;
+            }
+        }
+        if (!addSep)
+        {
+            buffer.append("NOTHING");
+        }
+        return buffer.toString();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -223,4 +263,11 @@ public class PostgreSqlBuilder extends SqlBuilder
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public String getPaginatedSql(String query, int start, int end)
+    {
+        return getLimitOffsetPaginatedSql(query, start, end);
+    }
 }
@@ -21,6 +21,7 @@ package org.zl.ddlutils.platform.postgresql;
 
 import java.io.IOException;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
@@ -30,7 +31,6 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import org.apache.commons.beanutils.DynaBean;
 import org.zl.ddlutils.DatabaseOperationException;
 import org.zl.ddlutils.PlatformInfo;
 import org.zl.ddlutils.alteration.AddColumnChange;
@@ -38,13 +38,14 @@ import org.zl.ddlutils.alteration.ModelComparator;
 import org.zl.ddlutils.alteration.RemoveColumnChange;
 import org.zl.ddlutils.alteration.TableChange;
 import org.zl.ddlutils.alteration.TableDefinitionChangesPredicate;
-import org.zl.ddlutils.dynabean.SqlDynaProperty;
 import org.zl.ddlutils.model.Column;
 import org.zl.ddlutils.model.Database;
 import org.zl.ddlutils.model.Table;
 import org.zl.ddlutils.platform.CreationParameters;
 import org.zl.ddlutils.platform.DefaultTableDefinitionChangesPredicate;
+import org.zl.ddlutils.platform.ParameterBinder;
 import org.zl.ddlutils.platform.PlatformImplBase;
+import org.zl.ddlutils.platform.TypedParameterBinder;
 
 /**
  * The platform implementation for PostgresSql.
@@ -71,6 +72,13 @@ public class PostgreSqlPlatform extends PlatformImplBase
         // this is the default length though it might be changed when building PostgreSQL
         // in file src/include/postgres_ext.h
         info.setMaxIdentifierLength(31);
+        // ON CONFLICT requires PostgreSQL 9.5, see isUpsertSupported(Connection)
+        info.setUpsertSupported(true);
+        info.setBatchGeneratedKeysSupported(true);
+        info.setMultiRowInsertSupported(true);
+        // the JDBC driver uses 16 bit (signed) for the parameter count
+        info.setMaxBindParameters(32767);
+        info.setPaginationSupported(true);
 
         info.addNativeTypeMapping(Types.ARRAY,         "BYTEA",            Types.LONGVARBINARY);
         info.addNativeTypeMapping(Types.BINARY,        "BYTEA",            Types.LONGVARBINARY);
@@ -227,31 +235,75 @@ public class PostgreSqlPlatform extends PlatformImplBase
     /**
      * {@inheritDoc}
      */
-    protected void setObject(PreparedStatement statement, int sqlIndex, DynaBean dynaBean, SqlDynaProperty property) throws SQLException
+    protected boolean isUpsertSupported(Connection connection) throws SQLException
     {
-        int     typeCode = property.getColumn().getTypeCode();
-        Object  value    = dynaBean.get(property.getName());
+        // INSERT ... ON CONFLICT is only available since PostgreSQL 9.5
+        DatabaseMetaData metaData = connection.getMetaData();
+        int              major    = metaData.getDatabaseMajorVersion();
 
-        // PostgreSQL doesn't like setNull for BYTEA columns
-        if (value == null)
+        return super.isUpsertSupported(connection) &&
+               ((major > 9) || ((major == 9) && (metaData.getDatabaseMinorVersion() >= 5)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected boolean prepareConnectionForStreaming(Connection connection) throws SQLException
+    {
+        // the driver only uses a cursor with the fetch size if the query runs
+        // within a transaction, otherwise it reads the complete result
+        if (connection.getAutoCommit())
         {
-            switch (typeCode)
-            {
-                case Types.BINARY:
-                case Types.VARBINARY:
-                case Types.LONGVARBINARY:
-                case Types.BLOB:
-                    statement.setBytes(sqlIndex, null);
-                    break;
-                default:
-                    statement.setNull(sqlIndex, typeCode);
-                    break;
-            }
+            connection.setAutoCommit(false);
+            return true;
         }
         else
         {
-            super.setObject(statement, sqlIndex, dynaBean, property);
+            return false;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected ParameterBinder createParameterBinder(int typeCode)
+    {
+        switch (typeCode)
+        {
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return new TypedParameterBinder(this, typeCode, TypedParameterBinder.VALUE_BYTES)
+                {
+                    protected void bindNull(PreparedStatement statement, int sqlIndex) throws SQLException
+                    {
+                        // PostgreSQL doesn't like setNull for BYTEA columns
+                        statement.setBytes(sqlIndex, null);
+                    }
+                };
+            default:
+                return super.createParameterBinder(typeCode);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected String[] getGeneratedKeyColumnNames(Column[] identityColumns)
+    {
+        String[] names = super.getGeneratedKeyColumnNames(identityColumns);
+
+        // the driver delimits the names in the RETURNING clause, so we have to use the
+        // lower case names that PostgreSQL uses for undelimited identifiers
+        if (!isDelimitedIdentifierModeOn())
+        {
+            for (int idx = 0; idx < names.length; idx++)
+            {
+                names[idx] = names[idx].toLowerCase();
+            }
         }
+        return names;
     }
 
     /**
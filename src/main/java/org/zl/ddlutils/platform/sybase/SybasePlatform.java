@@ -50,7 +50,9 @@ import org.zl.ddlutils.model.Table;
 import org.zl.ddlutils.model.TypeMap;
 import org.zl.ddlutils.platform.CreationParameters;
 import org.zl.ddlutils.platform.DefaultTableDefinitionChangesPredicate;
+import org.zl.ddlutils.platform.ParameterBinder;
 import org.zl.ddlutils.platform.PlatformImplBase;
+import org.zl.ddlutils.platform.TypedParameterBinder;
 
 /**
  * The platform implementation for Sybase.
@@ -210,6 +212,22 @@ public class SybasePlatform extends PlatformImplBase
 
 	/**
      * {@inheritDoc}
+     */
+	protected ParameterBinder createParameterBinder(int typeCode)
+	{
+        if ((typeCode == Types.BLOB) || (typeCode == Types.LONGVARBINARY) || (typeCode == Types.CLOB))
+        {
+            // these types are handled specially in setStatementParameterValue
+            return new TypedParameterBinder(this, typeCode, TypedParameterBinder.VALUE_OBJECT);
+        }
+        else
+        {
+            return super.createParameterBinder(typeCode);
+        }
+	}
+
+	/**
+     * {@inheritDoc}
      */
 	protected void setStatementParameterValue(PreparedStatement statement, int sqlIndex, int typeCode, Object value) throws SQLException
 	{
@@ -288,7 +306,7 @@ public class SybasePlatform extends PlatformImplBase
     {
         return isIdentityOverrideOn() &&
                getPlatformInfo().isIdentityOverrideAllowed() &&
-               (table.getAutoIncrementColumns().length > 0);
+               table.hasAutoIncrementColumns();
     }
 
     /**
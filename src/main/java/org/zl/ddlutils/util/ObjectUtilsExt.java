@@ -0,0 +1,89 @@
+package org.zl.ddlutils.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Arrays;
+
+/**
+ * Helper class containing object utility functions.
+ *
+ * @version $Revision: $
+ */
+public class ObjectUtilsExt extends org.apache.commons.lang.ObjectUtils
+{
+    /**
+     * Compares the two given column values. Other than {@link Object#equals(Object)}, arrays
+     * (e.g. the values of binary columns) are compared by their contents.
+     *
+     * @param valueA The first value, can be <code>null</code>
+     * @param valueB The second value, can be <code>null</code>
+     * @return <code>true</code> if the two values are equal
+     */
+    public static final boolean valuesEqual(Object valueA, Object valueB)
+    {
+        if (valueA == valueB)
+        {
+            return true;
+        }
+        else if ((valueA == null) || (valueB == null))
+        {
+            return false;
+        }
+        else if ((valueA instanceof byte[]) && (valueB instanceof byte[]))
+        {
+            return Arrays.equals((byte[])valueA, (byte[])valueB);
+        }
+        else if (valueA.getClass().isArray() && valueB.getClass().isArray())
+        {
+            return Arrays.deepEquals(new Object[] { valueA }, new Object[] { valueB });
+        }
+        else
+        {
+            return valueA.equals(valueB);
+        }
+    }
+
+    /**
+     * Returns the hash code of the given column value, consistent with
+     * {@link #valuesEqual(Object, Object)}.
+     *
+     * @param value The value, can be <code>null</code>
+     * @return The hash code
+     */
+    public static final int valueHashCode(Object value)
+    {
+        if (value == null)
+        {
+            return 0;
+        }
+        else if (value instanceof byte[])
+        {
+            return Arrays.hashCode((byte[])value);
+        }
+        else if (value.getClass().isArray())
+        {
+            return Arrays.deepHashCode(new Object[] { value });
+        }
+        else
+        {
+            return value.hashCode();
+        }
+    }
+}
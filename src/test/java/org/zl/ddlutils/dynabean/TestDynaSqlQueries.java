@@ -179,6 +179,90 @@ public class TestDynaSqlQueries extends TestAgainstLiveDatabaseBase
                      getPropertyValue(bean, "TheText"));
     }
 
+    /**
+     * Tests fetching a range of rows, both with a paginated query and with the
+     * fallback that limits and skips the rows via the JDBC result set.
+     */
+    public void testFetchRange() throws Exception
+    {
+        createDatabase(
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='TheId' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='TheText' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "</database>");
+
+        insertData(
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<data>\n"+
+            "  <TestTable TheId='1' TheText='Text 1'/>\n"+
+            "  <TestTable TheId='2' TheText='Text 2'/>\n"+
+            "  <TestTable TheId='3' TheText='Text 3'/>\n"+
+            "  <TestTable TheId='4' TheText='Text 4'/>\n"+
+            "  <TestTable TheId='5' TheText='Text 5'/>"+
+            "</data>");
+
+        boolean paginationSupported = getPlatformInfo().isPaginationSupported();
+
+        try
+        {
+            assertFetchedRanges();
+
+            // forces setMaxRows and ResultSet.absolute instead of a paginated query
+            getPlatformInfo().setPaginationSupported(false);
+            assertFetchedRanges();
+        }
+        finally
+        {
+            getPlatformInfo().setPaginationSupported(paginationSupported);
+        }
+    }
+
+    /**
+     * Fetches several ranges of the rows of the test table, with and without query
+     * parameters, and checks the returned rows.
+     */
+    private void assertFetchedRanges() throws Exception
+    {
+        Table[]           queryHints = new Table[] { getModel().getTable(0) };
+        String            sql        = "SELECT * FROM " + asIdentifier("TestTable") + " ORDER BY " + asIdentifier("TheId");
+        String            paramSql   = "SELECT * FROM " + asIdentifier("TestTable") + " WHERE " + asIdentifier("TheId") + " > ? ORDER BY " + asIdentifier("TheId");
+        ArrayList<Object> parameters = new ArrayList<Object>();
+
+        parameters.add(new Integer(1));
+
+        assertFetchedIds(new int[] { 2, 3, 4 }, getPlatform().fetch(getModel(), sql, queryHints, 1, 3));
+        assertFetchedIds(new int[] { 1, 2 },    getPlatform().fetch(getModel(), sql, queryHints, 0, 1));
+        assertFetchedIds(new int[] { 4, 5 },    getPlatform().fetch(getModel(), sql, queryHints, 3, -1));
+        assertFetchedIds(new int[] { 5 },       getPlatform().fetch(getModel(), sql, queryHints, 4, 10));
+        assertFetchedIds(new int[0],            getPlatform().fetch(getModel(), sql, queryHints, 5, 10));
+        assertFetchedIds(new int[] { 3, 4 },    getPlatform().fetch(getModel(), paramSql, parameters, queryHints, 1, 2));
+        assertFetchedIds(new int[] { 4, 5 },    getPlatform().fetch(getModel(), paramSql, parameters, queryHints, 2, -1));
+    }
+
+    /**
+     * Checks that the given beans have the given ids in this order.
+     * 
+     * @param expectedIds The expected ids
+     * @param beans       The fetched beans
+     */
+    private void assertFetchedIds(int[] expectedIds, List beans)
+    {
+        assertEquals(expectedIds.length,
+                     beans.size());
+        for (int idx = 0; idx < expectedIds.length; idx++)
+        {
+            DynaBean bean = (DynaBean)beans.get(idx);
+
+            assertEquals(new Integer(expectedIds[idx]),
+                         getPropertyValue(bean, "TheId"));
+            assertEquals("Text " + expectedIds[idx],
+                         getPropertyValue(bean, "TheText"));
+        }
+    }
+
     /**
      * Tests insertion & reading of auto-increment columns.
      */
@@ -614,4 +698,89 @@ public class TestDynaSqlQueries extends TestAgainstLiveDatabaseBase
         assertEquals("Text 10",
                      getPropertyValue(bean, "TheText"));
     }
+
+    /**
+     * Tests storing several beans of which some already exist in the database, once with
+     * the platform's insert-or-update statement and once with the query for the existing rows.
+     */
+    public void testStoreCollectionExisting() throws Exception
+    {
+        createDatabase(
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='TheId' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='TheText' type='VARCHAR' size='15' default='Default'/>\n"+
+            "    <column name='TheValue' type='INTEGER'/>\n"+
+            "  </table>\n"+
+            "</database>");
+
+        boolean upsertSupported = getPlatformInfo().isUpsertSupported();
+
+        try
+        {
+            assertStoredBeans();
+
+            // forces the query for the existing rows instead of the insert-or-update statement
+            getPlatformInfo().setUpsertSupported(false);
+            getPlatform().delete(getModel(), getPlatform().fetch(getModel(),
+                                                                 "SELECT * FROM " + asIdentifier("TestTable"),
+                                                                 new Table[] { getModel().getTable(0) }));
+            assertStoredBeans();
+        }
+        finally
+        {
+            getPlatformInfo().setUpsertSupported(upsertSupported);
+        }
+    }
+
+    /**
+     * Inserts two rows into the empty test table, stores beans that overwrite them and
+     * add a new row, and checks the resulting rows.
+     */
+    private void assertStoredBeans() throws Exception
+    {
+        insertData(
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<data>\n"+
+            "  <TestTable TheId='1' TheText='Text 1' TheValue='1'/>\n"+
+            "  <TestTable TheId='2' TheText='Text 2' TheValue='2'/>\n"+
+            "</data>");
+
+        SqlDynaClass   dynaClass = SqlDynaClass.newInstance(getModel().getTable(0));
+        List<DynaBean> dynaBeans = new ArrayList<DynaBean>();
+        Object[][]     rows      = new Object[][] {
+                                       { new Integer(1), "Text 10", null },
+                                       { new Integer(2), null,      new Integer(20) },
+                                       { new Integer(3), null,      new Integer(30) } };
+
+        for (int idx = 0; idx < rows.length; idx++)
+        {
+            DynaBean dynaBean = new SqlDynaBean(dynaClass);
+
+            dynaBean.set("TheId",    rows[idx][0]);
+            dynaBean.set("TheText",  rows[idx][1]);
+            dynaBean.set("TheValue", rows[idx][2]);
+            dynaBeans.add(dynaBean);
+        }
+        getPlatform().store(getModel(), dynaBeans);
+
+        List beans = getPlatform().fetch(getModel(),
+                                         "SELECT * FROM " + asIdentifier("TestTable") + " ORDER BY " + asIdentifier("TheId"),
+                                         new Table[] { getModel().getTable(0) });
+
+        assertEquals(3,
+                     beans.size());
+        // null values overwrite the existing values, but new rows get the default value
+        assertEquals("Text 10",
+                     getPropertyValue((DynaBean)beans.get(0), "TheText"));
+        assertNull(getPropertyValue((DynaBean)beans.get(0), "TheValue"));
+        assertNull(getPropertyValue((DynaBean)beans.get(1), "TheText"));
+        assertEquals(new Integer(20),
+                     getPropertyValue((DynaBean)beans.get(1), "TheValue"));
+        assertEquals("Default",
+                     getPropertyValue((DynaBean)beans.get(2), "TheText"));
+        assertEquals(new Integer(30),
+                     getPropertyValue((DynaBean)beans.get(2), "TheValue"));
+    }
 }
@@ -0,0 +1,302 @@
+package org.zl.ddlutils.dynabean;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Types;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.commons.beanutils.PropertyUtils;
+import org.zl.ddlutils.model.Column;
+import org.zl.ddlutils.model.Database;
+import org.zl.ddlutils.model.Table;
+
+/**
+ * Tests the {@link SqlDynaBean} and {@link CompactSqlDynaBean} classes, as well as
+ * {@link SqlDynaClass} and {@link DynaClassCache}.
+ *
+ * @version $Revision: $
+ */
+public class TestSqlDynaBean extends TestCase
+{
+    /** The table of the tested beans. */
+    private Table _table;
+    /** The dyna class of the tested beans. */
+    private SqlDynaClass _dynaClass;
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        Table  table    = new Table();
+        Column idColumn = new Column();
+        Column name     = new Column();
+        Column data     = new Column();
+
+        table.setName("TestTable");
+        idColumn.setName("id");
+        idColumn.setTypeCode(Types.INTEGER);
+        idColumn.setPrimaryKey(true);
+        name.setName("name");
+        name.setTypeCode(Types.VARCHAR);
+        data.setName("data");
+        data.setTypeCode(Types.VARBINARY);
+        table.addColumn(idColumn);
+        table.addColumn(name);
+        table.addColumn(data);
+
+        _table     = table;
+        _dynaClass = SqlDynaClass.newInstance(table);
+    }
+
+    /**
+     * Creates a bean with the given values.
+     *
+     * @param id   The id
+     * @param name The name
+     * @param data The data
+     * @return The bean
+     */
+    private SqlDynaBean createBean(Integer id, String name, byte[] data)
+    {
+        SqlDynaBean bean = new SqlDynaBean(_dynaClass);
+
+        bean.set("id", id);
+        bean.set("name", name);
+        bean.set("data", data);
+        return bean;
+    }
+
+    /**
+     * Tests that all property values are compared.
+     */
+    public void testEquals()
+    {
+        SqlDynaBean bean1 = createBean(new Integer(1), "a", new byte[] { 1, 2 });
+        SqlDynaBean bean2 = createBean(new Integer(1), "a", new byte[] { 1, 2 });
+        SqlDynaBean bean3 = createBean(new Integer(1), "b", new byte[] { 1, 2 });
+        SqlDynaBean bean4 = createBean(new Integer(1), "a", new byte[] { 1, 3 });
+
+        assertEquals(bean1, bean2);
+        assertEquals(bean1.hashCode(), bean2.hashCode());
+        assertFalse(bean1.equals(bean3));
+        assertFalse(bean1.equals(bean4));
+    }
+
+    /**
+     * Tests that the cached hash code follows changes of the bean.
+     */
+    public void testHashCodeAfterChange()
+    {
+        SqlDynaBean      bean1 = createBean(new Integer(1), "a", null);
+        SqlDynaBean      bean2 = createBean(new Integer(1), "b", null);
+        Set<SqlDynaBean> beans = new HashSet<>();
+
+        beans.add(bean1);
+        assertFalse(beans.contains(bean2));
+
+        int hashCode = bean2.hashCode();
+
+        bean2.set("name", "a");
+        assertEquals(bean1.hashCode(), bean2.hashCode());
+        assertTrue(beans.contains(bean2));
+
+        bean2.set(1, "b");
+        assertEquals(hashCode, bean2.hashCode());
+    }
+
+    /**
+     * Tests the comparison of beans by their primary key values, which does not change
+     * the comparison of the beans themselves.
+     */
+    public void testKeyOnlyIdentity()
+    {
+        SqlDynaBean     bean1 = createBean(new Integer(1), "a", new byte[] { 1 });
+        SqlDynaBean     bean2 = createBean(new Integer(1), "b", null);
+        SqlDynaBean     bean3 = createBean(new Integer(2), "a", new byte[] { 1 });
+        HashSet<Object> beans = new HashSet<>();
+
+        beans.add(bean1);
+        beans.add(new SqlDynaBeanKey(bean1));
+
+        assertEquals(new SqlDynaBeanKey(bean1), new SqlDynaBeanKey(bean2));
+        assertEquals(new SqlDynaBeanKey(bean1).hashCode(), new SqlDynaBeanKey(bean2).hashCode());
+        assertFalse(new SqlDynaBeanKey(bean1).equals(new SqlDynaBeanKey(bean3)));
+        assertSame(bean2, new SqlDynaBeanKey(bean2).getBean());
+
+        assertFalse(bean1.equals(bean2));
+        assertTrue(beans.contains(bean1));
+        assertFalse(beans.contains(bean2));
+        assertTrue(beans.contains(new SqlDynaBeanKey(bean2)));
+        assertFalse(beans.contains(new SqlDynaBeanKey(bean3)));
+    }
+
+    /**
+     * Tests that compact beans behave like normal beans.
+     */
+    public void testCompactBean() throws Exception
+    {
+        Database database = new Database("test");
+
+        database.addTable(_table);
+        database.setCompactDynaBeans(true);
+
+        DynaBean bean1 = database.createDynaBeanFor(_table);
+        DynaBean bean2 = database.createDynaBeanFor(_table);
+
+        assertTrue(bean1 instanceof CompactSqlDynaBean);
+        assertSame(bean1.getDynaClass(), bean2.getDynaClass());
+
+        bean1.set("id", new Integer(1));
+        bean1.set("name", "a");
+        ((SqlDynaBean)bean1).set(2, new byte[] { 1, 2 });
+        PropertyUtils.copyProperties(bean2, bean1);
+
+        assertEquals(new Integer(1), bean2.get("id"));
+        assertEquals("a", ((SqlDynaBean)bean2).get(1));
+        assertEquals(new Byte((byte)1), bean2.get("data", 0));
+        assertEquals(bean1, bean2);
+        assertEquals(bean1.hashCode(), bean2.hashCode());
+        assertEquals("TestTable: id = 1, name = a, data = " + bean1.get("data"), bean1.toString());
+
+        bean2.set("name", null);
+        assertNull(bean2.get("name"));
+        assertFalse(bean1.equals(bean2));
+
+        try
+        {
+            bean1.get("unknown");
+            fail();
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Tests the read-only property views of the dyna class.
+     */
+    public void testPropertyViews()
+    {
+        List<SqlDynaProperty> properties = _dynaClass.getSqlDynaPropertyList();
+
+        assertSame(properties, _dynaClass.getSqlDynaPropertyList());
+        assertEquals(3, properties.size());
+        assertEquals("name", properties.get(1).getName());
+        assertEquals(1, _dynaClass.getPrimaryKeyPropertyList().size());
+        assertEquals("id", _dynaClass.getPrimaryKeyPropertyList().get(0).getName());
+        assertEquals(2, _dynaClass.getNonPrimaryKeyPropertyList().size());
+
+        try
+        {
+            _dynaClass.getPrimaryKeyPropertyList().clear();
+            fail();
+        }
+        catch (UnsupportedOperationException ex)
+        {
+            // expected
+        }
+
+        SqlDynaProperty[] copy = _dynaClass.getPrimaryKeyProperties();
+
+        copy[0] = null;
+        assertNotNull(_dynaClass.getPrimaryKeyProperties()[0]);
+    }
+
+    /**
+     * Tests that a dyna class neither uses the given properties array nor changes the
+     * positions of properties that belong to another dyna class.
+     */
+    public void testSharedProperties() throws Exception
+    {
+        SqlDynaProperty[] properties = _dynaClass.getSqlDynaProperties();
+        SqlDynaProperty[] reversed   = new SqlDynaProperty[] { properties[2], properties[1], properties[0] };
+        SqlDynaClass      dynaClass  = new SqlDynaClass(_table, reversed, true);
+
+        reversed[1] = null;
+        assertEquals("name", dynaClass.getSqlDynaProperties()[1].getName());
+        assertSame(properties[1], dynaClass.getSqlDynaProperties()[1]);
+        for (int idx = 0; idx < properties.length; idx++)
+        {
+            assertEquals(idx, properties[idx].getIndex());
+            assertEquals(idx, dynaClass.getSqlDynaProperties()[idx].getIndex());
+        }
+
+        DynaBean bean = dynaClass.newInstance();
+
+        bean.set("id", Integer.valueOf(1));
+        bean.set("name", "test");
+        assertEquals(Integer.valueOf(1), bean.get("id"));
+        assertEquals("test", bean.get("name"));
+        assertEquals("id", dynaClass.getPrimaryKeyProperties()[0].getName());
+    }
+
+    /**
+     * Tests that concurrent threads get the same dyna class from the cache.
+     */
+    public void testConcurrentDynaClassCache() throws Exception
+    {
+        final DynaClassCache   cache   = new DynaClassCache();
+        final SqlDynaClass[]   results = new SqlDynaClass[8];
+        final CountDownLatch   start   = new CountDownLatch(1);
+        Thread[]               threads = new Thread[results.length];
+
+        for (int idx = 0; idx < threads.length; idx++)
+        {
+            final int threadIdx = idx;
+
+            threads[idx] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                        results[threadIdx] = cache.getDynaClass(_table);
+                    }
+                    catch (InterruptedException ex)
+                    {
+                        // results stays null
+                    }
+                }
+            };
+            threads[idx].start();
+        }
+        start.countDown();
+        for (int idx = 0; idx < threads.length; idx++)
+        {
+            threads[idx].join();
+        }
+        for (int idx = 0; idx < results.length; idx++)
+        {
+            assertNotNull(results[idx]);
+            assertSame(results[0], results[idx]);
+        }
+    }
+}
@@ -0,0 +1,652 @@
+package org.zl.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.zl.ddlutils.DatabaseOperationException;
+import org.zl.ddlutils.TestBase;
+import org.zl.ddlutils.dynabean.SqlDynaClass;
+import org.zl.ddlutils.model.Column;
+import org.zl.ddlutils.model.Database;
+import org.zl.ddlutils.platform.TestPlatform;
+
+/**
+ * Tests the {@link DataToDatabaseSink} against a platform that records the inserted
+ * beans instead of writing them to a database.
+ *
+ * @version $Revision: $
+ */
+public class TestDataToDatabaseSink extends TestBase
+{
+    /** The model of the tests. */
+    private static final String MODEL =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+        "  <table name='orders'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "  </table>\n"+
+        "  <table name='order_lines'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='order_id' type='INTEGER'/>\n"+
+        "    <foreign-key foreignTable='orders'>\n"+
+        "      <reference local='order_id' foreign='id'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "</database>";
+
+    /** The model of the tests with tables that are not connected via foreign keys. */
+    private static final String UNRELATED_MODEL =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+        "  <table name='orders'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "  </table>\n"+
+        "  <table name='order_lines'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='order_id' type='INTEGER'/>\n"+
+        "  </table>\n"+
+        "</database>";
+
+    /** The model of the tests where the database generates the ids of the orders. */
+    private static final String IDENTITY_MODEL =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+        "  <table name='orders'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true' autoIncrement='true'/>\n"+
+        "  </table>\n"+
+        "  <table name='order_lines'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='order_id' type='INTEGER'/>\n"+
+        "    <foreign-key foreignTable='orders'>\n"+
+        "      <reference local='order_id' foreign='id'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "</database>";
+
+    /**
+     * Platform that records the inserted beans.
+     */
+    public static class RecordingPlatform extends TestPlatform
+    {
+        /** The inserted beans in the order of their insertion. */
+        private final List<DynaBean> _insertedBeans = new ArrayList<>();
+        /** The number of borrowed connections. */
+        private int _borrowedConnectionCount;
+        /** The number of connections that have been returned or closed. */
+        private int _releasedConnectionCount;
+        /** The names of the tables whose beans cannot be inserted. */
+        private final List<String> _failingTableNames = new ArrayList<>();
+        /** The number of batch inserts that requested multi-row inserts. */
+        private int _multiRowInsertCount;
+
+        /**
+         * Returns the inserted beans.
+         *
+         * @return The beans in the order of their insertion
+         */
+        public List<DynaBean> getInsertedBeans()
+        {
+            return _insertedBeans;
+        }
+
+        /**
+         * Returns the number of connections borrowed so far.
+         *
+         * @return The number of connections
+         */
+        public synchronized int getBorrowedConnectionCount()
+        {
+            return _borrowedConnectionCount;
+        }
+
+        /**
+         * Returns the number of connections returned or closed so far.
+         *
+         * @return The number of connections
+         */
+        public synchronized int getReleasedConnectionCount()
+        {
+            return _releasedConnectionCount;
+        }
+
+        /**
+         * Registers that a connection has been returned or closed.
+         */
+        private synchronized void connectionReleased()
+        {
+            _releasedConnectionCount++;
+        }
+
+        /**
+         * Returns the number of batch inserts so far that requested multi-row inserts.
+         *
+         * @return The number of batch inserts
+         */
+        public synchronized int getMultiRowInsertCount()
+        {
+            return _multiRowInsertCount;
+        }
+
+        /**
+         * Adds a table whose beans cannot be inserted.
+         *
+         * @param failingTableName The name of the table
+         */
+        public void addFailingTableName(String failingTableName)
+        {
+            _failingTableNames.add(failingTableName);
+        }
+
+        /**
+         * Records the given bean, or fails if it belongs to a failing table.
+         *
+         * @param dynaBean The bean
+         */
+        private void record(DynaBean dynaBean) throws DatabaseOperationException
+        {
+            if (_failingTableNames.contains(((SqlDynaClass)dynaBean.getDynaClass()).getTableName()))
+            {
+                throw new DatabaseOperationException("Cannot insert " + dynaBean);
+            }
+            _insertedBeans.add(dynaBean);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Connection borrowConnection() throws DatabaseOperationException
+        {
+            synchronized (this)
+            {
+                _borrowedConnectionCount++;
+            }
+            return (Connection)Proxy.newProxyInstance(getClass().getClassLoader(),
+                                                      new Class[] { Connection.class },
+                                                      new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args)
+                {
+                    if ("close".equals(method.getName()))
+                    {
+                        connectionReleased();
+                    }
+                    return "getAutoCommit".equals(method.getName()) ? Boolean.TRUE : null;
+                }
+            });
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void returnConnection(Connection connection)
+        {
+            connectionReleased();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public synchronized void insert(Connection connection, Database model, DynaBean dynaBean) throws DatabaseOperationException
+        {
+            record(dynaBean);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public synchronized void insert(Connection connection, Database model, Collection<DynaBean> dynaBeans, boolean multiRowInsert) throws DatabaseOperationException
+        {
+            if (multiRowInsert)
+            {
+                _multiRowInsertCount++;
+            }
+            for (DynaBean dynaBean : dynaBeans)
+            {
+                record(dynaBean);
+            }
+        }
+    }
+
+    /**
+     * Platform that records the inserted beans, and that generates the values of the
+     * auto-increment columns starting at 100 and writes them back into the beans, also in
+     * batch mode.
+     */
+    public static class GeneratingPlatform extends RecordingPlatform
+    {
+        /** The last generated value. */
+        private int _lastValue = 99;
+
+        /**
+         * Creates a new platform.
+         */
+        public GeneratingPlatform()
+        {
+            getPlatformInfo().setBatchGeneratedKeysSupported(true);
+        }
+
+        /**
+         * Sets the generated values of the auto-increment columns of the bean.
+         *
+         * @param model    The model
+         * @param dynaBean The bean
+         */
+        private void generateValues(Database model, DynaBean dynaBean)
+        {
+            Column[] columns = model.getDynaClassFor(dynaBean).getTable().getAutoIncrementColumns();
+
+            for (int idx = 0; idx < columns.length; idx++)
+            {
+                dynaBean.set(columns[idx].getName(), new Integer(++_lastValue));
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public synchronized void insert(Connection connection, Database model, DynaBean dynaBean) throws DatabaseOperationException
+        {
+            generateValues(model, dynaBean);
+            super.insert(connection, model, dynaBean);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public synchronized void insert(Connection connection, Database model, Collection<DynaBean> dynaBeans, boolean multiRowInsert) throws DatabaseOperationException
+        {
+            for (DynaBean dynaBean : dynaBeans)
+            {
+                generateValues(model, dynaBean);
+            }
+            super.insert(connection, model, dynaBeans, multiRowInsert);
+        }
+    }
+
+    /**
+     * Creates a bean for the given table.
+     *
+     * @param model     The model
+     * @param tableName The name of the table
+     * @param id        The id of the row
+     * @param orderId   The id of the referenced order, if the table is the lines table
+     * @return The bean
+     */
+    private DynaBean createBean(Database model, String tableName, int id, int orderId)
+    {
+        DynaBean bean = model.createDynaBeanFor(tableName, true);
+
+        bean.set("id", new Integer(id));
+        if ("order_lines".equals(tableName))
+        {
+            bean.set("order_id", new Integer(orderId));
+        }
+        return bean;
+    }
+
+    /**
+     * Checks that every line has been inserted after its order.
+     *
+     * @param beans     The inserted beans
+     * @param numOrders The number of orders
+     * @param numLines  The number of lines
+     */
+    private void assertFkOrder(List<DynaBean> beans, int numOrders, int numLines)
+    {
+        boolean[] insertedOrders = new boolean[numOrders];
+        int       lineCount      = 0;
+
+        assertEquals(numOrders + numLines, beans.size());
+        for (int idx = 0; idx < beans.size(); idx++)
+        {
+            DynaBean bean = beans.get(idx);
+
+            if ("orders".equals(((SqlDynaClass)bean.getDynaClass()).getTableName()))
+            {
+                insertedOrders[((Integer)bean.get("id")).intValue()] = true;
+            }
+            else
+            {
+                assertTrue(insertedOrders[((Integer)bean.get("order_id")).intValue()]);
+                lineCount++;
+            }
+        }
+        assertEquals(numLines, lineCount);
+    }
+
+    /**
+     * Tests that rows that arrive before the rows that they reference are inserted
+     * afterwards, in the order of their arrival.
+     */
+    public void testDeferredInsertion()
+    {
+        Database           model    = parseDatabaseFromString(MODEL);
+        RecordingPlatform  platform = new RecordingPlatform();
+        DataToDatabaseSink sink     = new DataToDatabaseSink(platform, model);
+
+        sink.start();
+        sink.addBean(createBean(model, "order_lines", 1, 2));
+        sink.addBean(createBean(model, "order_lines", 2, 1));
+        sink.addBean(createBean(model, "order_lines", 3, 2));
+        sink.addBean(createBean(model, "orders", 1, 0));
+        sink.addBean(createBean(model, "orders", 2, 0));
+        sink.end();
+
+        List<DynaBean> beans = platform.getInsertedBeans();
+
+        assertEquals(5, beans.size());
+        assertEquals(new Integer(1), beans.get(0).get("id"));
+        assertEquals(new Integer(2), beans.get(1).get("id"));
+        assertEquals(new Integer(2), beans.get(2).get("id"));
+        assertEquals(new Integer(1), beans.get(3).get("id"));
+        assertEquals(new Integer(3), beans.get(4).get("id"));
+    }
+
+    /**
+     * Tests that in batch mode, the identities generated for the queued rows are used for
+     * the rows that reference them once the batch has been inserted.
+     */
+    public void testBatchGeneratedKeys()
+    {
+        Database           model    = parseDatabaseFromString(IDENTITY_MODEL);
+        GeneratingPlatform platform = new GeneratingPlatform();
+        DataToDatabaseSink sink     = new DataToDatabaseSink(platform, model);
+
+        sink.setUseBatchMode(true);
+        sink.setBatchSize(2);
+        sink.start();
+        // waits for its order
+        sink.addBean(createBean(model, "order_lines", 1, 1));
+        // queued with a pending identity; the second one fills the batch
+        sink.addBean(createBean(model, "orders", 1, 0));
+        sink.addBean(createBean(model, "orders", 2, 0));
+
+        List<DynaBean> beans = platform.getInsertedBeans();
+
+        assertEquals(2, beans.size());
+        assertEquals(new Integer(100), beans.get(0).get("id"));
+        assertEquals(new Integer(101), beans.get(1).get("id"));
+
+        // the identity of the second order is known now, so this one is queued directly
+        sink.addBean(createBean(model, "order_lines", 2, 2));
+        assertEquals(4, beans.size());
+        assertEquals(new Integer(1), beans.get(2).get("id"));
+        assertEquals(new Integer(100), beans.get(2).get("order_id"));
+        assertEquals(new Integer(2), beans.get(3).get("id"));
+        assertEquals(new Integer(101), beans.get(3).get("order_id"));
+        sink.end();
+        assertEquals(4, beans.size());
+    }
+
+    /**
+     * Tests that the multi-row insert mode is passed to the platform per call instead of
+     * changing the platform.
+     */
+    public void testMultiRowInserts()
+    {
+        Database           model    = parseDatabaseFromString(MODEL);
+        RecordingPlatform  platform = new RecordingPlatform();
+        DataToDatabaseSink sink     = new DataToDatabaseSink(platform, model);
+
+        sink.setUseBatchMode(true);
+        sink.setUseMultiRowInserts(true);
+        sink.start();
+        sink.addBean(createBean(model, "orders", 1, 0));
+        sink.addBean(createBean(model, "order_lines", 1, 1));
+        sink.end();
+
+        assertEquals(2, platform.getInsertedBeans().size());
+        assertTrue(platform.getMultiRowInsertCount() > 0);
+        assertFalse(platform.isMultiRowInsertOn());
+    }
+
+    /**
+     * Tests that rows whose referenced rows never arrive are reported.
+     */
+    public void testMissingReferencedRows()
+    {
+        Database           model    = parseDatabaseFromString(MODEL);
+        RecordingPlatform  platform = new RecordingPlatform();
+        DataToDatabaseSink sink     = new DataToDatabaseSink(platform, model);
+
+        sink.start();
+        sink.addBean(createBean(model, "order_lines", 1, 7));
+        sink.addBean(createBean(model, "orders", 1, 0));
+        try
+        {
+            sink.end();
+            fail();
+        }
+        catch (DataSinkException ex)
+        {
+            // expected
+        }
+        assertEquals(1, platform.getInsertedBeans().size());
+    }
+
+    /**
+     * Regression benchmark for data where all referencing rows come before the referenced
+     * rows, which used to take quadratic time in the number of waiting rows.
+     */
+    public void testReverseOrderedData()
+    {
+        final int          numOrders = 20000;
+        final int          numLines  = 3 * numOrders;
+        Database           model     = parseDatabaseFromString(MODEL);
+        RecordingPlatform  platform  = new RecordingPlatform();
+        DataToDatabaseSink sink      = new DataToDatabaseSink(platform, model);
+        long               startTime = System.currentTimeMillis();
+
+        sink.start();
+        for (int idx = 0; idx < numLines; idx++)
+        {
+            sink.addBean(createBean(model, "order_lines", idx, numOrders - 1 - (idx % numOrders)));
+        }
+        for (int idx = numOrders - 1; idx >= 0; idx--)
+        {
+            sink.addBean(createBean(model, "orders", idx, 0));
+        }
+        sink.end();
+
+        long duration = System.currentTimeMillis() - startTime;
+
+        assertFkOrder(platform.getInsertedBeans(), numOrders, numLines);
+        // generous bound; with a full scan of the waiting rows per inserted order this
+        // takes minutes
+        assertTrue("Took " + duration + " ms", duration < 20000);
+    }
+
+    /**
+     * Tests that parallel workers insert every line after its order.
+     */
+    public void testParallelInsertion()
+    {
+        final int numOrders = 2000;
+
+        for (int mode = 0; mode < 2; mode++)
+        {
+            Database           model    = parseDatabaseFromString(MODEL);
+            RecordingPlatform  platform = new RecordingPlatform();
+            DataToDatabaseSink sink     = new DataToDatabaseSink(platform, model);
+
+            sink.setWorkerCount(3);
+            sink.setBatchSize(50);
+            sink.setUseBatchMode(mode == 1);
+            sink.setUseMultiRowInserts(mode == 1);
+            sink.start();
+            for (int idx = 0; idx < numOrders; idx++)
+            {
+                sink.addBean(createBean(model, "order_lines", idx, numOrders - 1 - idx));
+            }
+            for (int idx = 0; idx < numOrders; idx++)
+            {
+                sink.addBean(createBean(model, "orders", idx, 0));
+                sink.addBean(createBean(model, "order_lines", numOrders + idx, idx));
+            }
+            sink.end();
+
+            assertFkOrder(platform.getInsertedBeans(), numOrders, 2 * numOrders);
+            assertEquals(3, platform.getBorrowedConnectionCount());
+            // the multi-row mode is passed per call instead of changing the platform
+            assertEquals(mode == 1, platform.getMultiRowInsertCount() > 0);
+            assertFalse(platform.isMultiRowInsertOn());
+        }
+    }
+
+    /**
+     * Tests that parallel workers keep the order of the given beans of tables that are
+     * connected via foreign keys if the sink does not ensure the foreign key order.
+     */
+    public void testParallelInsertionWithoutFkOrder()
+    {
+        final int          numOrders = 2000;
+        Database           model     = parseDatabaseFromString(MODEL);
+        RecordingPlatform  platform  = new RecordingPlatform();
+        DataToDatabaseSink sink      = new DataToDatabaseSink(platform, model);
+
+        sink.setWorkerCount(2);
+        sink.setBatchSize(10);
+        sink.setEnsureForeignKeyOrder(false);
+        sink.start();
+        for (int idx = 0; idx < numOrders; idx++)
+        {
+            sink.addBean(createBean(model, "orders", idx, 0));
+            sink.addBean(createBean(model, "order_lines", idx, idx));
+        }
+        sink.end();
+
+        assertFkOrder(platform.getInsertedBeans(), numOrders, numOrders);
+        assertEquals(2, platform.getBorrowedConnectionCount());
+    }
+
+    /**
+     * Tests that the errors of the parallel workers are reported together.
+     */
+    public void testParallelErrors()
+    {
+        Database           model    = parseDatabaseFromString(UNRELATED_MODEL);
+        RecordingPlatform  platform = new RecordingPlatform();
+        DataToDatabaseSink sink     = new DataToDatabaseSink(platform, model);
+
+        platform.addFailingTableName("orders");
+        platform.addFailingTableName("order_lines");
+        sink.setWorkerCount(2);
+        sink.setEnsureForeignKeyOrder(false);
+        sink.start();
+        // both workers get their beans when the sink is ended
+        for (int idx = 0; idx < 5; idx++)
+        {
+            sink.addBean(createBean(model, "orders", idx, 0));
+            sink.addBean(createBean(model, "order_lines", idx, idx));
+        }
+        try
+        {
+            sink.end();
+            fail();
+        }
+        catch (DataSinkException ex)
+        {
+            // each worker stops at its first error
+            assertEquals("There were 2 errors while inserting rows into the database", ex.getMessage());
+            assertTrue(ex.getCause() instanceof DatabaseOperationException);
+            assertEquals(1, ex.getSuppressed().length);
+
+            // the sink stays failed if the caller continues to use it
+            try
+            {
+                sink.addBean(createBean(model, "orders", 10, 0));
+                fail();
+            }
+            catch (DataSinkException laterEx)
+            {
+                assertSame(ex, laterEx);
+            }
+            try
+            {
+                sink.end();
+                fail();
+            }
+            catch (DataSinkException laterEx)
+            {
+                assertSame(ex, laterEx);
+            }
+        }
+        assertEquals(0, platform.getInsertedBeans().size());
+    }
+
+    /**
+     * Tests that waiting rows and identity mappings beyond the memory limit are spilled
+     * to disk and read back correctly.
+     */
+    public void testSpillToDisk() throws Exception
+    {
+        final int          numOrders = 2000;
+        Database           model     = parseDatabaseFromString(MODEL);
+        RecordingPlatform  platform  = new RecordingPlatform();
+        DataToDatabaseSink sink      = new DataToDatabaseSink(platform, model);
+        File               spillDir  = File.createTempFile("spill", "");
+
+        assertTrue(spillDir.delete() && spillDir.mkdir());
+        sink.setMaxRowsInMemory(100);
+        sink.setSpillDirectory(spillDir);
+        try
+        {
+            sink.start();
+            // these lines wait for their orders
+            for (int idx = 0; idx < 2 * numOrders; idx++)
+            {
+                sink.addBean(createBean(model, "order_lines", idx, numOrders - 1 - (idx % numOrders)));
+            }
+            for (int idx = numOrders - 1; idx >= 0; idx--)
+            {
+                sink.addBean(createBean(model, "orders", idx, 0));
+            }
+            // these lines reference orders whose identities have been spilled
+            for (int idx = 0; idx < numOrders; idx++)
+            {
+                sink.addBean(createBean(model, "order_lines", 2 * numOrders + idx, idx));
+            }
+            assertEquals(2, spillDir.list().length);
+            sink.end();
+
+            assertFkOrder(platform.getInsertedBeans(), numOrders, 3 * numOrders);
+            assertTrue(sink.getSpillCount() > numOrders);
+            assertEquals(0, spillDir.list().length);
+        }
+        finally
+        {
+            File[] files = spillDir.listFiles();
+
+            for (int idx = 0; idx < files.length; idx++)
+            {
+                files[idx].delete();
+            }
+            spillDir.delete();
+        }
+    }
+}
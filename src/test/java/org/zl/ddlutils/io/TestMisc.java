@@ -25,6 +25,7 @@ import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -1292,4 +1293,77 @@ public class TestMisc extends TestAgainstLiveDatabaseBase
         assertEquals(new Integer(1), beans.get(0), "Pk");
         assertEquals((Object)"foo",  beans.get(0), "Avalue");
     }
+
+    /**
+     * Tests that storing beans of several tables keeps the order of the beans so that
+     * rows referenced via foreign keys are written before the rows referencing them.
+     */
+    public void testStoreMixedTables() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='VARCHAR' size='32'/>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER'/>\n"+
+            "    <foreign-key foreignTable='misc1'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        createDatabase(modelXml);
+
+        insertRow("misc1", new Object[] { new Integer(1), "foo" });
+        insertRow("misc2", new Object[] { new Integer(1), new Integer(1) });
+
+        List beans = new ArrayList();
+
+        // the second child references a parent that is stored after the first child
+        beans.add(createRow("misc2", new Object[] { new Integer(1), new Integer(1) }));
+        beans.add(createRow("misc1", new Object[] { new Integer(2), "bar" }));
+        beans.add(createRow("misc2", new Object[] { new Integer(2), new Integer(2) }));
+        beans.add(createRow("misc1", new Object[] { new Integer(1), "baz" }));
+
+        getPlatform().store(getModel(), beans);
+
+        beans = getRows("misc1", "pk");
+
+        assertEquals(2, beans.size());
+        assertEquals(new Integer(1), beans.get(0), "pk");
+        assertEquals((Object)"baz",  beans.get(0), "avalue");
+        assertEquals(new Integer(2), beans.get(1), "pk");
+        assertEquals((Object)"bar",  beans.get(1), "avalue");
+
+        beans = getRows("misc2", "pk");
+
+        assertEquals(2, beans.size());
+        assertEquals(new Integer(1), beans.get(0), "pk");
+        assertEquals(new Integer(1), beans.get(0), "fk");
+        assertEquals(new Integer(2), beans.get(1), "pk");
+        assertEquals(new Integer(2), beans.get(1), "fk");
+    }
+
+    /**
+     * Creates a bean for the designated table without writing it to the database.
+     * 
+     * @param tableName    The name of the table (case insensitive)
+     * @param columnValues The values for the columns in order of definition
+     * @return The dyna bean
+     */
+    private DynaBean createRow(String tableName, Object[] columnValues)
+    {
+        Table    table = getModel().findTable(tableName);
+        DynaBean bean  = getModel().createDynaBeanFor(table);
+
+        for (int idx = 0; (idx < table.getColumnCount()) && (idx < columnValues.length); idx++)
+        {
+            bean.set(table.getColumn(idx).getName(), columnValues[idx]);
+        }
+        return bean;
+    }
 }
@@ -0,0 +1,439 @@
+package org.zl.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.zl.ddlutils.DdlUtilsException;
+import org.zl.ddlutils.TestBase;
+import org.zl.ddlutils.dynabean.SqlDynaClass;
+import org.zl.ddlutils.model.Database;
+
+/**
+ * Tests the {@link PipelinedDataSink}.
+ *
+ * @version $Revision: $
+ */
+public class TestPipelinedDataSink extends TestBase
+{
+    /** The model of the tests. */
+    private static final String MODEL =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+        "  <table name='orders'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "  </table>\n"+
+        "  <table name='order_lines'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='order_id' type='INTEGER'/>\n"+
+        "    <foreign-key foreignTable='orders'>\n"+
+        "      <reference local='order_id' foreign='id'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "</database>";
+    /** The model of the file dependency test, with a chain of three tables. */
+    private static final String CHAIN_MODEL =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+        "  <table name='customers'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "  </table>\n"+
+        "  <table name='orders'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='customer_id' type='INTEGER'/>\n"+
+        "    <foreign-key foreignTable='customers'>\n"+
+        "      <reference local='customer_id' foreign='id'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "  <table name='order_lines'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='order_id' type='INTEGER'/>\n"+
+        "    <foreign-key foreignTable='orders'>\n"+
+        "      <reference local='order_id' foreign='id'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "</database>";
+
+    /**
+     * Sink that records the beans and the threads that add them.
+     */
+    private static class RecordingSink implements DataSink
+    {
+        /** The added beans. */
+        private final List<DynaBean> _beans = new ArrayList<>();
+        /** The threads that added the beans. */
+        private final List<Thread> _threads = new ArrayList<>();
+        /** The number of the bean for which to fail, or -1. */
+        private final int _failingBeanIdx;
+        /** Whether the sink has been started. */
+        private boolean _started;
+        /** Whether the sink has been ended. */
+        private boolean _ended;
+
+        /**
+         * Creates a new sink.
+         *
+         * @param failingBeanIdx The number of the bean for which to fail, or -1
+         */
+        public RecordingSink(int failingBeanIdx)
+        {
+            _failingBeanIdx = failingBeanIdx;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void start() throws DataSinkException
+        {
+            _started = true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void addBean(DynaBean bean) throws DataSinkException
+        {
+            if (_beans.size() == _failingBeanIdx)
+            {
+                throw new DataSinkException("Cannot add " + bean);
+            }
+            _beans.add(bean);
+            _threads.add(Thread.currentThread());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void end() throws DataSinkException
+        {
+            _ended = true;
+        }
+    }
+
+    /**
+     * Creates an order bean.
+     *
+     * @param model The model
+     * @param id    The id
+     * @return The bean
+     */
+    private DynaBean createOrder(Database model, int id)
+    {
+        DynaBean bean = model.createDynaBeanFor("orders", true);
+
+        bean.set("id", new Integer(id));
+        return bean;
+    }
+
+    /**
+     * Tests that the beans arrive in order in the writer thread.
+     */
+    public void testHandOver()
+    {
+        Database          model  = parseDatabaseFromString(MODEL);
+        RecordingSink     target = new RecordingSink(-1);
+        PipelinedDataSink sink   = new PipelinedDataSink(target, 7, 2);
+
+        sink.start();
+        assertTrue(target._started);
+        for (int idx = 0; idx < 100; idx++)
+        {
+            sink.addBean(createOrder(model, idx));
+        }
+        sink.end();
+
+        assertTrue(target._ended);
+        assertEquals(100, target._beans.size());
+        for (int idx = 0; idx < 100; idx++)
+        {
+            assertEquals(new Integer(idx), target._beans.get(idx).get("id"));
+            assertNotSame(Thread.currentThread(), target._threads.get(idx));
+        }
+    }
+
+    /**
+     * Tests that errors of the other sink are thrown to the producer, and that the other
+     * sink is ended nevertheless.
+     */
+    public void testErrorPropagation()
+    {
+        Database          model  = parseDatabaseFromString(MODEL);
+        RecordingSink     target = new RecordingSink(10);
+        PipelinedDataSink sink   = new PipelinedDataSink(target, 4, 1);
+
+        sink.start();
+        try
+        {
+            for (int idx = 0; idx < 1000; idx++)
+            {
+                sink.addBean(createOrder(model, idx));
+            }
+            sink.end();
+            fail();
+        }
+        catch (DataSinkException ex)
+        {
+            assertEquals("Cannot add orders: id = 10", ex.getMessage());
+        }
+        assertEquals(10, target._beans.size());
+        assertFalse(target._ended);
+
+        // ending the sink ends the other sink and throws the error again
+        try
+        {
+            sink.end();
+            fail();
+        }
+        catch (DataSinkException ex)
+        {
+            assertEquals("Cannot add orders: id = 10", ex.getMessage());
+        }
+        assertTrue(target._ended);
+    }
+
+    /**
+     * Tests that data is read and written by the data IO in pipelined mode, and that
+     * parse errors are reported after the database sink has released its connection.
+     */
+    public void testDataIO()
+    {
+        Database                                 model    = parseDatabaseFromString(MODEL);
+        TestDataToDatabaseSink.RecordingPlatform platform = new TestDataToDatabaseSink.RecordingPlatform();
+        DatabaseDataIO                           dataIO   = new DatabaseDataIO();
+        StringBuffer                             data     = new StringBuffer();
+
+        data.append("<data>\n");
+        for (int idx = 0; idx < 1000; idx++)
+        {
+            data.append("  <order_lines id='" + idx + "' order_id='" + (idx % 10) + "'/>\n");
+        }
+        for (int idx = 0; idx < 10; idx++)
+        {
+            data.append("  <orders id='" + idx + "'/>\n");
+        }
+        data.append("</data>");
+
+        dataIO.setUsePipelining(true);
+        assertTrue(dataIO.getConfiguredDataReader(platform, model).getSink() instanceof PipelinedDataSink);
+        dataIO.writeDataToDatabase(platform, model, new Reader[] { new StringReader(data.toString()) });
+        assertEquals(1010, platform.getInsertedBeans().size());
+        assertEquals("orders", model.getDynaClassFor(platform.getInsertedBeans().get(0)).getTableName());
+
+        try
+        {
+            dataIO.writeDataToDatabase(platform, model, new Reader[] { new StringReader("<data><orders id='1'></data>") });
+            fail();
+        }
+        catch (DdlUtilsException ex)
+        {
+            // expected
+        }
+        assertEquals(2, platform.getBorrowedConnectionCount());
+        assertEquals(2, platform.getReleasedConnectionCount());
+    }
+
+    /**
+     * Writes a data file.
+     *
+     * @param dir     The directory
+     * @param name    The file name
+     * @param content The rows
+     * @return The path of the file
+     */
+    private String writeFile(File dir, String name, String content) throws IOException
+    {
+        File       file   = new File(dir, name);
+        FileWriter writer = new FileWriter(file);
+
+        try
+        {
+            writer.write("<data>\n" + content + "</data>");
+        }
+        finally
+        {
+            writer.close();
+        }
+        return file.getAbsolutePath();
+    }
+
+    /**
+     * Tests reading several files in parallel, where the rows reference rows in other files.
+     */
+    public void testParallelFiles() throws Exception
+    {
+        File dir = File.createTempFile("data", "");
+
+        assertTrue(dir.delete() && dir.mkdir());
+        try
+        {
+            String[] files = new String[6];
+
+            // the line files come first so that their rows have to wait without scheduling
+            for (int fileIdx = 0; fileIdx < 3; fileIdx++)
+            {
+                StringBuffer lines  = new StringBuffer();
+                StringBuffer orders = new StringBuffer();
+
+                for (int idx = 0; idx < 100; idx++)
+                {
+                    int id = fileIdx * 100 + idx;
+
+                    lines.append("  <order_lines id='" + id + "' order_id='" + (299 - id) + "'/>\n");
+                    orders.append("  <orders id='" + id + "'/>\n");
+                }
+                files[fileIdx]     = writeFile(dir, "lines" + fileIdx + ".xml", lines.toString());
+                files[fileIdx + 3] = writeFile(dir, "orders" + fileIdx + ".xml", orders.toString());
+            }
+
+            for (int mode = 0; mode < 2; mode++)
+            {
+                Database                                 model    = parseDatabaseFromString(MODEL);
+                TestDataToDatabaseSink.RecordingPlatform platform = new TestDataToDatabaseSink.RecordingPlatform();
+                DatabaseDataIO                           dataIO   = new DatabaseDataIO();
+                boolean[]                                inserted = new boolean[300];
+                int                                      numLines = 0;
+
+                dataIO.setReaderThreadCount(4);
+                dataIO.setInsertWorkerCount(2);
+                dataIO.setScheduleFilesInFKOrder(mode == 1);
+                dataIO.writeDataToDatabase(platform, model, files);
+
+                List<DynaBean> beans = platform.getInsertedBeans();
+
+                assertEquals(600, beans.size());
+                for (int idx = 0; idx < beans.size(); idx++)
+                {
+                    DynaBean bean = beans.get(idx);
+
+                    if ("orders".equals(((SqlDynaClass)bean.getDynaClass()).getTableName()))
+                    {
+                        // with scheduling, the lines are read after all orders
+                        assertTrue((mode == 0) || (numLines == 0));
+                        inserted[((Integer)bean.get("id")).intValue()] = true;
+                    }
+                    else
+                    {
+                        assertTrue(inserted[((Integer)bean.get("order_id")).intValue()]);
+                        numLines++;
+                    }
+                }
+            }
+
+            // errors in one of the files are reported
+            Database                                 model    = parseDatabaseFromString(MODEL);
+            TestDataToDatabaseSink.RecordingPlatform platform = new TestDataToDatabaseSink.RecordingPlatform();
+            DatabaseDataIO                           dataIO   = new DatabaseDataIO();
+
+            files[4] = writeFile(dir, "broken.xml", "<orders id='1000'>");
+            dataIO.setReaderThreadCount(4);
+            dataIO.setInsertWorkerCount(2);
+            try
+            {
+                dataIO.writeDataToDatabase(platform, model, files);
+                fail();
+            }
+            catch (DdlUtilsException ex)
+            {
+                // expected
+            }
+            // the sink has been ended and released the connections of its workers
+            assertEquals(2, platform.getBorrowedConnectionCount());
+            assertEquals(2, platform.getReleasedConnectionCount());
+        }
+        finally
+        {
+            File[] files = dir.listFiles();
+
+            for (int idx = 0; idx < files.length; idx++)
+            {
+                files[idx].delete();
+            }
+            dir.delete();
+        }
+    }
+
+    /**
+     * Tests that a file is only read once all files with the rows that it references have
+     * been read. The sink does not defer rows here, so the inserted rows show the order in
+     * which the files were read.
+     */
+    public void testFileDependencies() throws Exception
+    {
+        File dir = File.createTempFile("data", "");
+
+        assertTrue(dir.delete() && dir.mkdir());
+        try
+        {
+            StringBuffer customers = new StringBuffer();
+            StringBuffer orders0   = new StringBuffer();
+            StringBuffer orders1   = new StringBuffer();
+            StringBuffer lines     = new StringBuffer();
+
+            for (int idx = 0; idx < 500; idx++)
+            {
+                customers.append("  <customers id='" + idx + "'/>\n");
+                (idx % 2 == 0 ? orders0 : orders1).append("  <orders id='" + idx + "' customer_id='" + (499 - idx) + "'/>\n");
+                lines.append("  <order_lines id='" + idx + "' order_id='" + (499 - idx) + "'/>\n");
+            }
+
+            // the dependent files come first
+            String[] files = new String[] { writeFile(dir, "lines.xml", lines.toString()),
+                                            writeFile(dir, "orders0.xml", orders0.toString()),
+                                            writeFile(dir, "orders1.xml", orders1.toString()),
+                                            writeFile(dir, "customers.xml", customers.toString()) };
+
+            Database                                 model    = parseDatabaseFromString(CHAIN_MODEL);
+            TestDataToDatabaseSink.RecordingPlatform platform = new TestDataToDatabaseSink.RecordingPlatform();
+            DatabaseDataIO                           dataIO   = new DatabaseDataIO();
+
+            dataIO.setReaderThreadCount(4);
+            dataIO.setEnsureFKOrder(false);
+            dataIO.setScheduleFilesInFKOrder(true);
+            dataIO.writeDataToDatabase(platform, model, files);
+
+            List<DynaBean> beans = platform.getInsertedBeans();
+            String[]       order = new String[] { "customers", "orders", "order_lines" };
+
+            assertEquals(1500, beans.size());
+            for (int idx = 0; idx < beans.size(); idx++)
+            {
+                // each table only starts after all rows of the referenced table
+                assertEquals(order[idx / 500], ((SqlDynaClass)beans.get(idx).getDynaClass()).getTableName());
+            }
+        }
+        finally
+        {
+            File[] files = dir.listFiles();
+
+            for (int idx = 0; idx < files.length; idx++)
+            {
+                files[idx].delete();
+            }
+            dir.delete();
+        }
+    }
+}
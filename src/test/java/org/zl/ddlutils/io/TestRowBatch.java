@@ -0,0 +1,202 @@
+package org.zl.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Types;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.zl.ddlutils.model.Column;
+import org.zl.ddlutils.model.Database;
+import org.zl.ddlutils.model.Table;
+
+/**
+ * Tests the {@link RowBatch} class.
+ *
+ * @version $Revision: $
+ */
+public class TestRowBatch extends TestCase
+{
+    /** The table of the tested batches. */
+    private Table _table;
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        _table = new Table();
+        _table.setName("TestTable");
+        addColumn("id", Types.INTEGER);
+        addColumn("total", Types.BIGINT);
+        addColumn("ratio", Types.DOUBLE);
+        addColumn("active", Types.BOOLEAN);
+        addColumn("name", Types.VARCHAR);
+        _table.getColumn(0).setPrimaryKey(true);
+    }
+
+    /**
+     * Adds a column to the test table.
+     *
+     * @param name     The name of the column
+     * @param typeCode The type of the column
+     */
+    private void addColumn(String name, int typeCode)
+    {
+        Column column = new Column();
+
+        column.setName(name);
+        column.setTypeCode(typeCode);
+        _table.addColumn(column);
+    }
+
+    /**
+     * Tests the storage types of the columns.
+     */
+    public void testStorageTypes()
+    {
+        RowBatch batch = new RowBatch(_table, 4);
+
+        assertSame(_table, batch.getTable());
+        assertEquals(5, batch.getColumnCount());
+        assertEquals(RowBatch.STORAGE_INT, batch.getStorageType(0));
+        assertEquals(RowBatch.STORAGE_LONG, batch.getStorageType(1));
+        assertEquals(RowBatch.STORAGE_DOUBLE, batch.getStorageType(2));
+        assertEquals(RowBatch.STORAGE_BOOLEAN, batch.getStorageType(3));
+        assertEquals(RowBatch.STORAGE_OBJECT, batch.getStorageType(4));
+        assertEquals(RowBatch.STORAGE_INT, RowBatch.getStorageTypeFor(Types.SMALLINT));
+        assertEquals(RowBatch.STORAGE_OBJECT, RowBatch.getStorageTypeFor(Types.DECIMAL));
+    }
+
+    /**
+     * Tests setting and reading values.
+     */
+    public void testValues()
+    {
+        RowBatch batch = new RowBatch(_table, 4);
+        int      row1  = batch.addRow();
+        int      row2  = batch.addRow();
+
+        batch.setInt(row1, 0, 1);
+        batch.setLong(row1, 1, 10000000000L);
+        batch.setDouble(row1, 2, 0.5);
+        batch.setBoolean(row1, 3, true);
+        batch.setValue(row1, 4, "a");
+        batch.setValue(row2, 0, new Integer(2));
+        batch.setValue(row2, 1, new Long(3));
+
+        assertEquals(2, batch.getRowCount());
+        assertEquals(1, batch.getInt(row1, 0));
+        assertEquals(10000000000L, batch.getLong(row1, 1));
+        assertEquals(0.5, batch.getDouble(row1, 2), 0.0);
+        assertTrue(batch.getBoolean(row1, 3));
+        assertEquals("a", batch.getValue(row1, 4));
+        assertEquals(new Integer(2), batch.getValue(row2, 0));
+        assertEquals(new Long(3), batch.getValue(row2, 1));
+        assertFalse(batch.isNull(row1, 2));
+        assertTrue(batch.isNull(row2, 2));
+        assertNull(batch.getValue(row2, 3));
+        assertNull(batch.getValue(row2, 4));
+
+        batch.setNull(row1, 0);
+        assertTrue(batch.isNull(row1, 0));
+        assertNull(batch.getValue(row1, 0));
+
+        try
+        {
+            batch.getLong(row1, 0);
+            fail();
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // expected
+        }
+        try
+        {
+            batch.getInt(2, 0);
+            fail();
+        }
+        catch (IndexOutOfBoundsException ex)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Tests the capacity and reusing the batch.
+     */
+    public void testCapacityAndClear()
+    {
+        RowBatch batch = new RowBatch(_table, 2);
+
+        batch.setValue(batch.addRow(), 4, "a");
+        assertFalse(batch.isFull());
+        batch.addRow();
+        assertTrue(batch.isFull());
+
+        try
+        {
+            batch.addRow();
+            fail();
+        }
+        catch (IllegalStateException ex)
+        {
+            // expected
+        }
+
+        batch.clear();
+        assertEquals(0, batch.getRowCount());
+        assertEquals(2, batch.getCapacity());
+        assertTrue(batch.isNull(batch.addRow(), 4));
+    }
+
+    /**
+     * Tests the conversion from and to dyna beans.
+     */
+    public void testDynaBeans()
+    {
+        Database database = new Database("test");
+
+        database.addTable(_table);
+
+        DynaBean bean = database.createDynaBeanFor(_table);
+
+        bean.set("id", new Integer(5));
+        bean.set("ratio", new Double(1.5));
+        bean.set("active", Boolean.FALSE);
+        bean.set("name", "b");
+
+        RowBatch batch = new RowBatch(_table, 1);
+        int      row   = batch.addRow(bean);
+
+        assertEquals(5, batch.getInt(row, 0));
+        assertTrue(batch.isNull(row, 1));
+        assertEquals(1.5, batch.getDouble(row, 2), 0.0);
+        assertFalse(batch.getBoolean(row, 3));
+
+        DynaBean copy = database.createDynaBeanFor(_table);
+
+        batch.copyRowTo(row, copy);
+        assertEquals(bean, copy);
+    }
+}
@@ -122,4 +122,66 @@ public class TestArrayAccessAtTable extends TestCase
         assertSame(_uniqueIndex,
                    uniqueIndices[0]);
     }
+
+    /**
+     * Tests that the extracted columns and indices follow changes of the table
+     * and of its columns.
+     */
+    public void testDerivedDataAfterChanges()
+    {
+        assertTrue(_testedTable.hasPrimaryKey());
+        assertFalse(_testedTable.hasAutoIncrementColumns());
+        assertEquals(0,
+                     _testedTable.getRequiredColumns().length);
+
+        _column2.setPrimaryKey(true);
+        _column2.setAutoIncrement(true);
+        _column2.setRequired(true);
+
+        assertEquals(2,
+                     _testedTable.getPrimaryKeyColumnCount());
+        assertSame(_column2,
+                   _testedTable.getPrimaryKeyColumn(1));
+        assertTrue(_testedTable.hasAutoIncrementColumns());
+        assertSame(_column2,
+                   _testedTable.getRequiredColumns()[0]);
+
+        _testedTable.removeColumn(_column1);
+        _testedTable.removeIndex(_uniqueIndex);
+
+        assertEquals(1,
+                     _testedTable.getPrimaryKeyColumns().length);
+        assertEquals(0,
+                     _testedTable.getUniqueIndices().length);
+
+        _testedTable.getPrimaryKeyColumns()[0] = null;
+
+        assertSame(_column2,
+                   _testedTable.getPrimaryKeyColumns()[0]);
+    }
+
+    /**
+     * Tests that the extracted columns of all tables that contain a column follow
+     * the changes of the column.
+     */
+    public void testDerivedDataOfSeveralTables()
+    {
+        Table otherTable = new Table();
+
+        otherTable.addColumn(_column2);
+        assertFalse(otherTable.hasPrimaryKey());
+
+        _column2.setPrimaryKey(true);
+
+        assertSame(_column2,
+                   otherTable.getPrimaryKeyColumn(0));
+        assertEquals(2,
+                     _testedTable.getPrimaryKeyColumnCount());
+
+        _column2.setPrimaryKey(false);
+
+        assertFalse(otherTable.hasPrimaryKey());
+        assertEquals(1,
+                     _testedTable.getPrimaryKeyColumnCount());
+    }
 }
@@ -0,0 +1,220 @@
+package org.zl.ddlutils.model;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link ForeignKeyGraph} class.
+ *
+ * @version $Revision: $
+ */
+public class TestForeignKeyGraph extends TestCase
+{
+    /**
+     * Adds a table with a primary key column to the model.
+     *
+     * @param database The model
+     * @param name     The name of the table
+     * @return The table
+     */
+    private Table addTable(Database database, String name)
+    {
+        Table  table  = new Table();
+        Column column = new Column();
+
+        table.setName(name);
+        column.setName("id");
+        column.setTypeCode(Types.INTEGER);
+        column.setPrimaryKey(true);
+        table.addColumn(column);
+        database.addTable(table);
+        return table;
+    }
+
+    /**
+     * Adds a foreign key from the first to the second table.
+     *
+     * @param table        The referencing table
+     * @param foreignTable The referenced table
+     */
+    private void addForeignKey(Table table, Table foreignTable)
+    {
+        ForeignKey fk = new ForeignKey("FK_" + table.getName() + "_" + foreignTable.getName() + "_" + table.getForeignKeyCount());
+
+        fk.setForeignTable(foreignTable);
+        fk.addReference(new Reference(table.getColumn(0), foreignTable.getColumn(0)));
+        table.addForeignKey(fk);
+    }
+
+    /**
+     * Tests the order of a model without circular references.
+     */
+    public void testTopologicalOrder()
+    {
+        Database database = new Database("test");
+        Table    orders   = addTable(database, "Orders");
+        Table    lines    = addTable(database, "Lines");
+        Table    customer = addTable(database, "Customer");
+        Table    product  = addTable(database, "Product");
+
+        addForeignKey(orders, customer);
+        addForeignKey(lines, orders);
+        addForeignKey(lines, product);
+        addForeignKey(lines, product);
+
+        ForeignKeyGraph graph = database.getForeignKeyGraph();
+
+        assertEquals(Arrays.asList(new Table[] { customer, product, orders, lines }), graph.getTopologicalOrder());
+        assertEquals(Arrays.asList(new Table[] { orders, product }), graph.getReferencedTables(lines));
+        assertEquals(Arrays.asList(new Table[] { lines }), graph.getReferencingTables(product));
+        assertTrue(graph.isReferenced(orders));
+        assertFalse(graph.isReferenced(lines));
+        assertTrue(graph.getCircularComponents().isEmpty());
+        assertNull(graph.getCircularComponent(orders));
+        assertTrue(graph.getReferencedTables(new Table()).isEmpty());
+    }
+
+    /**
+     * Tests circular and self references.
+     */
+    public void testCircularReferences()
+    {
+        Database database = new Database("test");
+        Table    child    = addTable(database, "Child");
+        Table    first    = addTable(database, "First");
+        Table    second   = addTable(database, "Second");
+        Table    tree     = addTable(database, "Tree");
+        Table    base     = addTable(database, "Base");
+
+        addForeignKey(child, first);
+        addForeignKey(first, second);
+        addForeignKey(second, first);
+        addForeignKey(second, base);
+        addForeignKey(tree, tree);
+
+        ForeignKeyGraph   graph      = database.getForeignKeyGraph();
+        List<List<Table>> components = graph.getCircularComponents();
+
+        assertEquals(Arrays.asList(new Table[] { tree, base, first, second, child }), graph.getTopologicalOrder());
+        assertEquals(2, components.size());
+        assertTrue(components.contains(Arrays.asList(new Table[] { first, second })));
+        assertTrue(components.contains(Arrays.asList(new Table[] { tree })));
+        assertSame(graph.getCircularComponent(first), graph.getCircularComponent(second));
+        assertNull(graph.getCircularComponent(child));
+        assertEquals(Arrays.asList(new Table[] { tree }), graph.getReferencingTables(tree));
+        assertTrue(graph.isReferenced(tree));
+    }
+
+    /**
+     * Tests that the graph is cached until the foreign keys or tables change, and
+     * that frozen models keep their graph.
+     */
+    public void testCaching()
+    {
+        Database database = new Database("test");
+        Table    table1   = addTable(database, "Table1");
+        Table    table2   = addTable(database, "Table2");
+
+        ForeignKeyGraph graph = database.getForeignKeyGraph();
+
+        assertSame(graph, database.getForeignKeyGraph());
+        assertEquals(Arrays.asList(new Table[] { table1, table2 }), graph.getTopologicalOrder());
+
+        addForeignKey(table1, table2);
+        graph = database.getForeignKeyGraph();
+        assertEquals(Arrays.asList(new Table[] { table2, table1 }), graph.getTopologicalOrder());
+
+        Table table3 = addTable(database, "Table3");
+
+        assertNotSame(graph, database.getForeignKeyGraph());
+        assertEquals(3, database.getForeignKeyGraph().getTopologicalOrder().size());
+
+        Database        frozen      = database.freeze();
+        ForeignKeyGraph frozenGraph = frozen.getForeignKeyGraph();
+
+        table3.removeAllForeignKeys();
+        assertSame(frozenGraph, frozen.getForeignKeyGraph());
+        assertEquals("Table2", frozenGraph.getTopologicalOrder().get(0).getName());
+    }
+
+    /**
+     * Tests that changes of foreign keys only discard the graph of the models that
+     * contain them.
+     */
+    public void testCachingAcrossModels()
+    {
+        Database database1 = new Database("test1");
+        Database database2 = new Database("test2");
+        Table    table1    = addTable(database1, "Table1");
+        Table    table2    = addTable(database1, "Table2");
+        Table    table3    = addTable(database2, "Table3");
+        Table    table4    = addTable(database2, "Table4");
+
+        ForeignKeyGraph graph = database1.getForeignKeyGraph();
+
+        addForeignKey(table4, table3);
+        assertSame(graph, database1.getForeignKeyGraph());
+
+        ForeignKey fk = new ForeignKey("FK");
+
+        fk.setForeignTable(table1);
+        fk.setForeignTable(table2);
+        assertSame(graph, database1.getForeignKeyGraph());
+
+        table1.addForeignKey(fk);
+        graph = database1.getForeignKeyGraph();
+        assertEquals(Arrays.asList(new Table[] { table2, table1 }), graph.getTopologicalOrder());
+
+        fk.setForeignTable(table1);
+        assertNotSame(graph, database1.getForeignKeyGraph());
+        assertEquals(Arrays.asList(new Table[] { table1 }), database1.getForeignKeyGraph().getReferencedTables(table1));
+        assertEquals(Arrays.asList(new Table[] { table3, table4 }), database2.getForeignKeyGraph().getTopologicalOrder());
+    }
+
+    /**
+     * Tests a long chain of references, which must not exhaust the stack.
+     */
+    public void testLongChain()
+    {
+        Database database = new Database("test");
+        Table[]  tables   = new Table[5000];
+
+        for (int idx = 0; idx < tables.length; idx++)
+        {
+            tables[idx] = addTable(database, "Table" + idx);
+            if (idx > 0)
+            {
+                addForeignKey(tables[idx - 1], tables[idx]);
+            }
+        }
+        addForeignKey(tables[tables.length - 1], tables[0]);
+
+        ForeignKeyGraph graph = database.getForeignKeyGraph();
+
+        assertEquals(1, graph.getCircularComponents().size());
+        assertEquals(tables.length, graph.getCircularComponent(tables[17]).size());
+        assertEquals(Arrays.asList(tables), graph.getTopologicalOrder());
+    }
+}
@@ -0,0 +1,166 @@
+package org.zl.ddlutils.model;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Types;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests frozen database models.
+ *
+ * @version $Revision: $
+ */
+public class TestFrozenDatabase extends TestCase
+{
+    /**
+     * Creates a model with two tables, where the second one references the first one.
+     *
+     * @return The model
+     */
+    private Database createModel()
+    {
+        Database   database = new Database("test");
+        Table      table1   = new Table();
+        Table      table2   = new Table();
+        Column     pk1      = new Column();
+        Column     pk2      = new Column();
+        Column     fkColumn = new Column();
+        ForeignKey fk       = new ForeignKey("FK_Table2");
+        Index      index    = new NonUniqueIndex();
+
+        table1.setName("Table1");
+        pk1.setName("id");
+        pk1.setTypeCode(Types.INTEGER);
+        pk1.setPrimaryKey(true);
+        table1.addColumn(pk1);
+
+        table2.setName("Table2");
+        pk2.setName("id");
+        pk2.setTypeCode(Types.INTEGER);
+        pk2.setPrimaryKey(true);
+        fkColumn.setName("table1_id");
+        fkColumn.setTypeCode(Types.INTEGER);
+        table2.addColumn(pk2);
+        table2.addColumn(fkColumn);
+        fk.setForeignTableName("Table1");
+        fk.addReference(new Reference(fkColumn, pk1));
+        table2.addForeignKey(fk);
+        index.setName("IDX_Table2");
+        index.addColumn(new IndexColumn(fkColumn));
+        table2.addIndex(index);
+
+        database.addTable(table1);
+        database.addTable(table2);
+        return database;
+    }
+
+    /**
+     * Tests that the snapshot is a resolved copy of the model.
+     */
+    public void testSnapshot()
+    {
+        Database model  = createModel();
+        Database frozen = model.freeze();
+
+        assertNotSame(model, frozen);
+        assertFalse(model.isFrozen());
+        assertTrue(frozen.isFrozen());
+        assertSame(frozen, frozen.freeze());
+        assertTrue(ModelEquivalence.CASE_SENSITIVE.isEquivalent(model, frozen));
+
+        Table table1 = frozen.findTable("TABLE1", false);
+        Table table2 = frozen.findTable("Table2", true);
+
+        assertTrue(table1.isFrozen());
+        assertNotSame(model.getTable(0), table1);
+        assertSame(table1, table2.getForeignKey(0).getForeignTable());
+        assertSame(table2.getColumn(1), table2.findColumn("TABLE1_ID"));
+        assertSame(table2.getIndex(0), table2.findIndex("idx_table2"));
+        assertSame(table2.getForeignKey(0), table2.findForeignKey("fk_table2"));
+        assertEquals(1, table2.getPrimaryKeyColumns().length);
+        assertEquals(model.getTable(1).hashCode(), table2.hashCode());
+        assertSame(table1, frozen.getDynaClassFor("Table1").getTable());
+
+        // the frozen model is already initialized
+        frozen.initialize();
+
+        // renames in other models don't affect the frozen one
+        model.getTable(0).setName("Other");
+        assertSame(table1, frozen.findTable("Table1"));
+    }
+
+    /**
+     * Tests that the elements of a frozen model reject changes.
+     */
+    public void testMutatorsRejected()
+    {
+        Database frozen = createModel().freeze();
+        Table    table  = frozen.getTable(1);
+
+        try
+        {
+            frozen.addTable(new Table());
+            fail();
+        }
+        catch (ModelException ex)
+        {
+            // expected
+        }
+        try
+        {
+            table.setName("Other");
+            fail();
+        }
+        catch (ModelException ex)
+        {
+            // expected
+        }
+        try
+        {
+            table.getColumn(0).setTypeCode(Types.BIGINT);
+            fail();
+        }
+        catch (ModelException ex)
+        {
+            // expected
+        }
+        try
+        {
+            table.getForeignKey(0).getReference(0).setLocalColumnName("id");
+            fail();
+        }
+        catch (ModelException ex)
+        {
+            // expected
+        }
+        try
+        {
+            table.getIndex(0).getColumn(0).setSize("10");
+            fail();
+        }
+        catch (ModelException ex)
+        {
+            // expected
+        }
+        assertEquals("Table2", table.getName());
+        assertEquals(Types.INTEGER, table.getColumn(0).getTypeCode());
+    }
+}
@@ -0,0 +1,185 @@
+package org.zl.ddlutils.model;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link ModelEquivalence} class and the hash code of tables.
+ *
+ * @version $Revision: $
+ */
+public class TestModelEquivalence extends TestCase
+{
+    /**
+     * Creates a table with an INTEGER and a VARCHAR column.
+     *
+     * @param tableName   The name of the table
+     * @param varcharName The name of the VARCHAR column
+     * @return The table
+     */
+    private Table createTable(String tableName, String varcharName)
+    {
+        Table  table   = new Table();
+        Column column1 = new Column();
+        Column column2 = new Column();
+
+        table.setName(tableName);
+        column1.setName("id");
+        column1.setTypeCode(Types.INTEGER);
+        column1.setPrimaryKey(true);
+        column2.setName(varcharName);
+        column2.setTypeCode(Types.VARCHAR);
+        column2.setSize("32");
+        table.addColumn(column1);
+        table.addColumn(column2);
+        return table;
+    }
+
+    /**
+     * Creates a model with a chain of tables where each table references the previous one.
+     *
+     * @param numTables The number of tables
+     * @param upperCase Whether to use upper case names
+     * @return The model
+     */
+    private Database createModel(int numTables, boolean upperCase)
+    {
+        Database model         = new Database();
+        Table    previousTable = null;
+
+        model.setName("Model");
+        for (int idx = 0; idx < numTables; idx++)
+        {
+            Table  table        = createTable(upperCase ? "TESTTABLE" + idx : "TestTable" + idx,
+                                              upperCase ? "NAME" : "name");
+            Column parentColumn = new Column();
+
+            parentColumn.setName(upperCase ? "PARENT_ID" : "parent_id");
+            parentColumn.setTypeCode(Types.INTEGER);
+            table.addColumn(parentColumn);
+            if (previousTable != null)
+            {
+                ForeignKey     fk    = new ForeignKey(upperCase ? "FK_" + idx : "fk_" + idx);
+                NonUniqueIndex index = new NonUniqueIndex();
+
+                fk.setForeignTable(previousTable);
+                fk.addReference(new Reference(parentColumn, previousTable.getColumn(0)));
+                table.addForeignKey(fk);
+                index.setName(upperCase ? "IDX_" + idx : "idx_" + idx);
+                index.addColumn(new IndexColumn(parentColumn));
+                table.addIndex(index);
+            }
+            model.addTable(table);
+            previousTable = table;
+        }
+        return model;
+    }
+
+    /**
+     * Tests the case sensitive comparison of tables.
+     */
+    public void testCaseSensitive()
+    {
+        Table table1 = createTable("TestTable", "name");
+        Table table2 = createTable("TestTable", "name");
+
+        assertTrue(ModelEquivalence.CASE_SENSITIVE.isEquivalent(table1, table2));
+        assertEquals(table1, table2);
+        assertEquals(table1.hashCode(), table2.hashCode());
+        assertEquals(ModelEquivalence.CASE_SENSITIVE.hashCode(table1), ModelEquivalence.CASE_SENSITIVE.hashCode(table2));
+
+        table2.getColumn(1).setSize("64");
+        assertFalse(ModelEquivalence.CASE_SENSITIVE.isEquivalent(table1, table2));
+        assertFalse(table1.equals(table2));
+
+        assertFalse(ModelEquivalence.CASE_SENSITIVE.isEquivalent(table1, createTable("TESTTABLE", "name")));
+    }
+
+    /**
+     * Tests the case insensitive comparison of tables.
+     */
+    public void testCaseInsensitive()
+    {
+        Table table1 = createTable("TestTable", "name");
+        Table table2 = createTable("TESTTABLE", "NAME");
+
+        assertTrue(ModelEquivalence.CASE_INSENSITIVE.isEquivalent(table1, table2));
+        assertEquals(ModelEquivalence.CASE_INSENSITIVE.hashCode(table1), ModelEquivalence.CASE_INSENSITIVE.hashCode(table2));
+        assertFalse(table1.equals(table2));
+
+        table2.getColumn(0).setTypeCode(Types.BIGINT);
+        assertFalse(ModelEquivalence.CASE_INSENSITIVE.isEquivalent(table1, table2));
+    }
+
+    /**
+     * Tests that the cached hash code of a table follows renames and column changes.
+     */
+    public void testTableHashCode()
+    {
+        Table table1 = createTable("TestTable", "name");
+        Table table2 = createTable("TestTable", "name");
+
+        assertEquals(table1.hashCode(), table2.hashCode());
+
+        table2.setName("Other");
+        assertEquals(ModelEquivalence.CASE_SENSITIVE.hashCode(table2), table2.hashCode());
+
+        table2.setName("TestTable");
+        table2.getColumn(1).setName("description");
+        assertEquals(ModelEquivalence.CASE_SENSITIVE.hashCode(table2), table2.hashCode());
+
+        table2.getColumn(1).setName("name");
+        assertEquals(table1.hashCode(), table2.hashCode());
+
+        table2.removeColumn(1);
+        assertEquals(ModelEquivalence.CASE_SENSITIVE.hashCode(table2), table2.hashCode());
+        assertFalse(table1.equals(table2));
+    }
+
+    /**
+     * Tests comparing and hashing large models, both case sensitive and case insensitive.
+     */
+    public void testLargeModel()
+    {
+        final int      numTables = 1000;
+        Database       model1    = createModel(numTables, false);
+        Database       model2    = createModel(numTables, false);
+        Database       model3    = createModel(numTables, true);
+        HashSet<Table> tables    = new HashSet<>(Arrays.asList(model1.getTables()));
+
+        assertEquals(model1, model2);
+        assertEquals(model1.hashCode(), model2.hashCode());
+        assertTrue(ModelEquivalence.CASE_SENSITIVE.isEquivalent(model1, model2));
+        assertTrue(ModelEquivalence.CASE_INSENSITIVE.isEquivalent(model1, model3));
+        assertFalse(ModelEquivalence.CASE_SENSITIVE.isEquivalent(model1, model3));
+        for (int idx = 0; idx < numTables; idx++)
+        {
+            assertTrue(tables.contains(model2.getTable(idx)));
+            assertFalse(tables.contains(model3.getTable(idx)));
+            assertEquals(ModelEquivalence.CASE_INSENSITIVE.hashCode(model1.getTable(idx)),
+                         ModelEquivalence.CASE_INSENSITIVE.hashCode(model3.getTable(idx)));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package org.zl.ddlutils.model;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Types;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the initialization of database models.
+ *
+ * @version $Revision: $
+ */
+public class TestModelInitialization extends TestCase
+{
+    /**
+     * Creates a model with the given number of tables, where each table but the
+     * first one references its predecessor by name.
+     *
+     * @param numTables The number of tables
+     * @return The uninitialized model
+     */
+    private Database createModel(int numTables)
+    {
+        Database database = new Database("test");
+
+        for (int idx = 0; idx < numTables; idx++)
+        {
+            Table  table = new Table();
+            Column pk    = new Column();
+            Column fkCol = new Column();
+
+            table.setName("Table" + idx);
+            pk.setName("id");
+            pk.setTypeCode(Types.INTEGER);
+            pk.setPrimaryKey(true);
+            fkCol.setName("prev_id");
+            fkCol.setTypeCode(Types.INTEGER);
+            table.addColumn(pk);
+            table.addColumn(fkCol);
+            if (idx > 0)
+            {
+                ForeignKey fk  = new ForeignKey("FK_Table" + idx);
+                Reference  ref = new Reference();
+
+                fk.setForeignTableName("Table" + (idx - 1));
+                ref.setLocalColumnName("prev_id");
+                ref.setForeignColumnName("id");
+                fk.addReference(ref);
+                table.addForeignKey(fk);
+            }
+
+            Index       index  = new NonUniqueIndex();
+            IndexColumn column = new IndexColumn();
+
+            index.setName("IDX_Table" + idx);
+            column.setName("prev_id");
+            index.addColumn(column);
+            table.addIndex(index);
+            database.addTable(table);
+        }
+        return database;
+    }
+
+    /**
+     * Checks that the references of the model created by {@link #createModel(int)} are resolved.
+     *
+     * @param database The model
+     */
+    private void assertResolved(Database database)
+    {
+        for (int idx = 0; idx < database.getTableCount(); idx++)
+        {
+            Table table = database.getTable(idx);
+
+            assertSame(table.getColumn(1), table.getIndex(0).getColumn(0).getColumn());
+            if (idx > 0)
+            {
+                Reference ref = table.getForeignKey(0).getReference(0);
+
+                assertSame(database.getTable(idx - 1), table.getForeignKey(0).getForeignTable());
+                assertSame(table.getColumn(1), ref.getLocalColumn());
+                assertSame(database.getTable(idx - 1).getColumn(0), ref.getForeignColumn());
+            }
+        }
+    }
+
+    /**
+     * Tests the initialization in the current thread.
+     */
+    public void testSequential()
+    {
+        Database database = createModel(50);
+
+        database.initialize();
+        assertResolved(database);
+    }
+
+    /**
+     * Tests the initialization in a pool.
+     */
+    public void testParallel()
+    {
+        Database     database = createModel(2000);
+        ForkJoinPool pool     = new ForkJoinPool(4);
+
+        try
+        {
+            database.initialize(pool);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+        assertResolved(database);
+    }
+
+    /**
+     * Tests that all problems of the model are reported.
+     */
+    public void testAllErrorsReported()
+    {
+        Database database = createModel(5);
+
+        database.getTable(1).getForeignKey(0).setForeignTableName("Undefined");
+        database.getTable(3).setName("Table2");
+        database.getTable(4).getIndex(0).getColumn(0).setName("undefined");
+
+        try
+        {
+            database.initialize(ForkJoinPool.commonPool());
+            fail();
+        }
+        catch (ModelValidationException ex)
+        {
+            // the foreign key of Table4 references Table3 which has been renamed
+            assertEquals(4, ex.getErrors().size());
+            assertTrue(ex.getErrors().get(0).indexOf("undefined table Undefined") > 0);
+            assertTrue(ex.getErrors().get(1).indexOf("multiple tables with the name Table2") > 0);
+            assertTrue(ex.getErrors().get(2).indexOf("undefined table Table3") > 0);
+            assertTrue(ex.getErrors().get(3).indexOf("undefined column undefined") > 0);
+        }
+        // the valid parts are resolved nevertheless
+        assertSame(database.getTable(1), database.getTable(2).getForeignKey(0).getForeignTable());
+    }
+}
@@ -0,0 +1,231 @@
+package org.zl.ddlutils.model;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the lookup of tables, columns, indices and foreign keys by name.
+ *
+ * @version $Revision: $
+ */
+public class TestNameLookup extends TestCase
+{
+    /**
+     * Creates a table with the given name.
+     *
+     * @param name The name
+     * @return The table
+     */
+    private Table createTable(String name)
+    {
+        Table table = new Table();
+
+        table.setName(name);
+        return table;
+    }
+
+    /**
+     * Creates a column with the given name.
+     *
+     * @param name The name
+     * @return The column
+     */
+    private Column createColumn(String name)
+    {
+        Column column = new Column();
+
+        column.setName(name);
+        return column;
+    }
+
+    /**
+     * Tests the case sensitive and insensitive lookup of tables.
+     */
+    public void testFindTable()
+    {
+        Database database = new Database();
+        Table    table1   = createTable("Table1");
+        Table    table2   = createTable("table1");
+
+        database.addTable(table1);
+        database.addTable(table2);
+
+        assertSame(table1, database.findTable("Table1", true));
+        assertSame(table2, database.findTable("table1", true));
+        assertSame(table1, database.findTable("TABLE1", false));
+        assertNull(database.findTable("TABLE1", true));
+        assertNull(database.findTable("Table2", false));
+        assertNull(database.findTable(null, false));
+    }
+
+    /**
+     * Tests that table lookups reflect added, removed and renamed tables.
+     */
+    public void testFindTableAfterChanges()
+    {
+        Database database = new Database();
+        Table    table1   = createTable("Table1");
+        Table    table2   = createTable("Table2");
+
+        database.addTable(table1);
+        assertNull(database.findTable("Table2"));
+
+        database.addTable(0, table2);
+        assertSame(table2, database.findTable("table2"));
+
+        database.removeTable(table2);
+        assertNull(database.findTable("table2"));
+
+        table1.setName("Renamed");
+        assertNull(database.findTable("Table1"));
+        assertSame(table1, database.findTable("RENAMED"));
+    }
+
+    /**
+     * Tests that column lookups reflect added, removed and renamed columns.
+     */
+    public void testFindColumn()
+    {
+        Table  table   = createTable("Table1");
+        Column column1 = createColumn("Column1");
+        Column column2 = createColumn("column1");
+
+        table.addColumn(column1);
+        table.addColumn(column2);
+
+        assertSame(column1, table.findColumn("COLUMN1"));
+        assertSame(column2, table.findColumn("column1", true));
+
+        table.removeColumn(0);
+        assertSame(column2, table.findColumn("COLUMN1"));
+        assertNull(table.findColumn("Column1", true));
+
+        column2.setName("Column2");
+        assertNull(table.findColumn("column1"));
+        assertSame(column2, table.findColumn("Column2", true));
+
+        table.removeAllColumns();
+        assertNull(table.findColumn("Column2"));
+    }
+
+    /**
+     * Tests the lookup of indices and foreign keys.
+     */
+    public void testFindIndexAndForeignKey()
+    {
+        Table      table      = createTable("Table1");
+        Index      index      = new NonUniqueIndex();
+        ForeignKey foreignKey = new ForeignKey("FK1");
+
+        index.setName("Idx1");
+        table.addIndex(index);
+        table.addForeignKey(foreignKey);
+
+        assertSame(index, table.findIndex("IDX1"));
+        assertNull(table.findIndex("IDX1", true));
+        assertSame(foreignKey, table.findForeignKey("fk1"));
+        assertSame(foreignKey, table.findForeignKey("FK1", true));
+
+        table.removeIndex(index);
+        table.removeForeignKey(foreignKey);
+        assertNull(table.findIndex("Idx1"));
+        assertNull(table.findForeignKey("FK1"));
+    }
+
+    /**
+     * Tests that lookups reflect renames of elements that were added to a table or a model
+     * before they had a name, and of elements that were added to several tables.
+     */
+    public void testFindAfterRenames()
+    {
+        Database   database   = new Database();
+        Table      table1     = new Table();
+        Table      table2     = createTable("Table2");
+        Column     column     = new Column();
+        Index      index      = new NonUniqueIndex();
+        ForeignKey foreignKey = new ForeignKey();
+
+        database.addTable(table1);
+        table1.addColumn(column);
+        table1.addIndex(index);
+        table1.addForeignKey(foreignKey);
+        table2.addColumn(column);
+
+        assertNull(database.findTable("Table1"));
+        assertNull(table1.findColumn("Column1"));
+        assertNull(table2.findColumn("Column1"));
+        assertNull(table1.findIndex("Idx1"));
+        assertNull(table1.findForeignKey("FK1"));
+
+        table1.setName("Table1");
+        column.setName("Column1");
+        index.setName("Idx1");
+        foreignKey.setName("FK1");
+
+        assertSame(table1, database.findTable("Table1"));
+        assertSame(column, table1.findColumn("Column1"));
+        assertSame(column, table2.findColumn("Column1"));
+        assertSame(index, table1.findIndex("Idx1"));
+        assertSame(foreignKey, table1.findForeignKey("FK1"));
+
+        table1.removeColumn(column);
+        column.setName("Column2");
+        assertNull(table1.findColumn("Column2"));
+        assertSame(column, table2.findColumn("Column2"));
+    }
+
+    /**
+     * Tests that lookups in a deserialized model reflect renames.
+     */
+    public void testFindAfterDeserialization() throws Exception
+    {
+        Database database = new Database();
+        Table    table    = createTable("Table1");
+
+        table.addColumn(createColumn("Column1"));
+        database.addTable(table);
+        assertSame(table, database.findTable("Table1"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream    out   = new ObjectOutputStream(bytes);
+
+        out.writeObject(database);
+        out.close();
+
+        Database copy      = (Database)new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        Table    copyTable = copy.getTable(0);
+
+        assertSame(copyTable, copy.findTable("Table1"));
+        assertSame(copyTable.getColumn(0), copyTable.findColumn("Column1"));
+
+        copyTable.setName("Renamed");
+        copyTable.getColumn(0).setName("Column2");
+        assertNull(copy.findTable("Table1"));
+        assertSame(copyTable, copy.findTable("Renamed"));
+        assertSame(copyTable.getColumn(0), copyTable.findColumn("Column2"));
+        assertSame(table, database.findTable("Table1"));
+    }
+}
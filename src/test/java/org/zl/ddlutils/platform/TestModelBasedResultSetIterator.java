@@ -0,0 +1,197 @@
+package org.zl.ddlutils.platform;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.commons.beanutils.DynaProperty;
+import org.zl.ddlutils.TestBase;
+import org.zl.ddlutils.dynabean.SqlDynaBean;
+import org.zl.ddlutils.io.DatabaseIO;
+import org.zl.ddlutils.model.Database;
+import org.zl.ddlutils.model.Table;
+
+/**
+ * Tests the precomputed extraction plan of the {@link ModelBasedResultSetIterator} against
+ * a result set that serves fixed rows.
+ *
+ * @version $Revision: $
+ */
+public class TestModelBasedResultSetIterator extends TestBase
+{
+    /** The model of the tests. */
+    private static final String MODEL =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+        "  <table name='TestTable'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='name' type='VARCHAR' size='15'/>\n"+
+        "    <column name='value' type='INTEGER'/>\n"+
+        "  </table>\n"+
+        "</database>";
+
+    /**
+     * Creates a result set with the given columns and rows that records the getter calls.
+     *
+     * @param columnNames The names of the columns
+     * @param tableNames  The names of the tables of the columns as returned by the meta data
+     * @param rows        The rows
+     * @param calls       Receives the getter calls for the values
+     * @return The result set
+     */
+    private ResultSet createResultSet(final String[] columnNames, final String[] tableNames, final Object[][] rows, final List<String> calls)
+    {
+        final ResultSetMetaData metaData = (ResultSetMetaData)Proxy.newProxyInstance(getClass().getClassLoader(),
+                                                                                     new Class[] { ResultSetMetaData.class },
+                                                                                     new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if ("getColumnCount".equals(method.getName()))
+                {
+                    return new Integer(columnNames.length);
+                }
+                else if ("getColumnName".equals(method.getName()))
+                {
+                    return columnNames[((Integer)args[0]).intValue() - 1];
+                }
+                else if ("getTableName".equals(method.getName()))
+                {
+                    return tableNames[((Integer)args[0]).intValue() - 1];
+                }
+                return null;
+            }
+        });
+
+        return (ResultSet)Proxy.newProxyInstance(getClass().getClassLoader(),
+                                                 new Class[] { ResultSet.class },
+                                                 new InvocationHandler() {
+            private int     _rowIdx = -1;
+            private boolean _wasNull;
+
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if ("getMetaData".equals(method.getName()))
+                {
+                    return metaData;
+                }
+                else if ("next".equals(method.getName()))
+                {
+                    return Boolean.valueOf(++_rowIdx < rows.length);
+                }
+                else if ("wasNull".equals(method.getName()))
+                {
+                    return Boolean.valueOf(_wasNull);
+                }
+                else if (method.getName().startsWith("get") && (args != null) && (args[0] instanceof Integer))
+                {
+                    int    columnIdx = ((Integer)args[0]).intValue();
+                    Object value     = rows[_rowIdx][columnIdx - 1];
+
+                    calls.add(method.getName() + " " + columnIdx);
+                    _wasNull = (value == null);
+                    if ((value == null) && (method.getReturnType() == Integer.TYPE))
+                    {
+                        return new Integer(0);
+                    }
+                    return value;
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Tests that the values of the result set columns are read with the types of the model
+     * columns and written to the matching properties, independent of the column order and
+     * case, and that <code>null</code> values are kept.
+     */
+    public void testSingleTable()
+    {
+        Database     database = parseDatabaseFromString(MODEL);
+        List<String> calls    = new ArrayList<>();
+        ResultSet    rs       = createResultSet(new String[] { "VALUE", "Name", "ID" },
+                                                new String[] { "TestTable", "TestTable", "TestTable" },
+                                                new Object[][] { { new Integer(5), "a", new Integer(1) },
+                                                                 { null, null, new Integer(2) } },
+                                                calls);
+
+        ModelBasedResultSetIterator it = new ModelBasedResultSetIterator(new TestPlatform(), database, rs, null, false);
+
+        assertTrue(it.hasNext());
+
+        DynaBean bean = it.next();
+
+        assertTrue(bean instanceof SqlDynaBean);
+        assertEquals("[getInt 1, getString 2, getInt 3]", calls.toString());
+        assertEquals(new Integer(1), bean.get("id"));
+        assertEquals("a", bean.get("name"));
+        assertEquals(new Integer(5), bean.get("value"));
+
+        bean = it.next();
+        assertEquals(new Integer(2), bean.get("id"));
+        assertNull(bean.get("name"));
+        assertNull(bean.get("value"));
+        assertFalse(it.hasNext());
+    }
+
+    /**
+     * Tests that columns that do not belong to a known table are read as objects into a
+     * generic bean with the properties in the order of the result set, and that a column
+     * that appears twice is read once.
+     */
+    public void testUnmappedColumns()
+    {
+        Database     database = parseDatabaseFromString(MODEL);
+        Table        table    = database.getTable(0);
+        List<String> calls    = new ArrayList<>();
+        ResultSet    rs       = createResultSet(new String[] { "name", "extra", "id", "name" },
+                                                new String[] { "", "", "", "" },
+                                                new Object[][] { { "a", new Long(7), new Integer(1), "b" },
+                                                                 { null, null, new Integer(2), null } },
+                                                calls);
+
+        ModelBasedResultSetIterator it = new ModelBasedResultSetIterator(new TestPlatform(), database, rs, new Table[] { table }, false);
+        DynaBean                    bean = it.next();
+        DynaProperty[]              properties = bean.getDynaClass().getDynaProperties();
+
+        assertFalse(bean instanceof SqlDynaBean);
+        assertEquals(3, properties.length);
+        assertEquals("name", properties[0].getName());
+        assertEquals("extra", properties[1].getName());
+        assertEquals("id", properties[2].getName());
+        assertEquals("[getString 1, getObject 2, getInt 3]", calls.toString());
+        assertEquals("a", bean.get("name"));
+        assertEquals(new Long(7), bean.get("extra"));
+        assertEquals(new Integer(1), bean.get("id"));
+
+        bean = it.next();
+        assertNull(bean.get("name"));
+        assertNull(bean.get("extra"));
+        assertEquals(new Integer(2), bean.get("id"));
+        assertFalse(it.hasNext());
+    }
+}
@@ -19,16 +19,43 @@ package org.zl.ddlutils.platform;
  * under the License.
  */
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.beanutils.DynaBean;
+import org.apache.log4j.Appender;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
 import org.zl.ddlutils.TestBase;
 import org.zl.ddlutils.dynabean.SqlDynaBean;
 import org.zl.ddlutils.dynabean.SqlDynaClass;
+import org.zl.ddlutils.dynabean.SqlDynaProperty;
 import org.zl.ddlutils.io.DatabaseIO;
+import org.zl.ddlutils.io.RowBatch;
+import org.zl.ddlutils.model.Column;
 import org.zl.ddlutils.model.Database;
 import org.zl.ddlutils.model.Table;
+import org.zl.ddlutils.platform.ParameterBinder;
 import org.zl.ddlutils.platform.PlatformImplBase;
+import org.zl.ddlutils.platform.StatementPlan;
+import org.zl.ddlutils.platform.TypedParameterBinder;
+import org.zl.ddlutils.platform.mssql.MSSqlPlatform;
+import org.zl.ddlutils.platform.mysql.MySqlPlatform;
+import org.zl.ddlutils.platform.postgresql.PostgreSqlPlatform;
 
 /**
  * Tests the {@link PlatformImplBase} (abstract) class.
@@ -65,4 +92,872 @@ public class TestPlatformImplBase extends TestBase
                      map.get("name"));
         assertTrue(map.containsKey("id"));
     }
+
+    /**
+     * Tests that the statement plans for inserting beans are cached per set of inserted properties.
+     */
+    public void testInsertPlanCache()
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15' default='none'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database         database = parseDatabaseFromString(schema);
+        PlatformImplBase platform = new TestPlatform();
+        SqlDynaClass     clz      = database.getDynaClassFor("TestTable");
+        DynaBean         bean1    = new SqlDynaBean(clz);
+        DynaBean         bean2    = new SqlDynaBean(clz);
+        DynaBean         bean3    = new SqlDynaBean(clz);
+
+        bean1.set("id", new Integer(1));
+        bean2.set("id", new Integer(2));
+        bean3.set("id", new Integer(3));
+        bean3.set("name", "name");
+
+        StatementPlan plan1 = platform.getInsertPlan(database, clz, bean1);
+        StatementPlan plan2 = platform.getInsertPlan(database, clz, bean2);
+        StatementPlan plan3 = platform.getInsertPlan(database, clz, bean3);
+
+        assertSame(plan1, plan2);
+        assertNotSame(plan1, plan3);
+        assertEquals("INSERT INTO TestTable (id) VALUES (?)", plan1.getSql());
+        assertEquals("INSERT INTO TestTable (id, name) VALUES (?, ?)", plan3.getSql());
+        assertEquals(1, platform.getStatementPlanCache().getHitCount());
+        assertEquals(2, platform.getStatementPlanCache().getMissCount());
+
+        platform.setDelimitedIdentifierModeOn(true);
+
+        StatementPlan plan4 = platform.getInsertPlan(database, clz, bean1);
+
+        assertNotSame(plan1, plan4);
+        assertEquals("INSERT INTO \"TestTable\" (\"id\") VALUES (?)", plan4.getSql());
+    }
+
+    /**
+     * Tests the statement plan for the update of all columns.
+     */
+    public void testUpdateAllPlan()
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database         database = parseDatabaseFromString(schema);
+        PlatformImplBase platform = new TestPlatform();
+        SqlDynaClass     clz      = database.getDynaClassFor("TestTable");
+        StatementPlan    plan     = platform.getUpdateAllPlan(database, clz);
+
+        assertEquals("UPDATE TestTable SET id = ?, name = ? WHERE id = ?", plan.getSql());
+        assertEquals(3, plan.getParameterCount());
+        assertEquals(2, plan.getValueParameterCount());
+        assertEquals("id", plan.getParameters()[2].getName());
+        assertSame(plan, platform.getUpdateAllPlan(database, clz));
+    }
+
+    /**
+     * Tests that the statement plans contain the parameter binders for the column types,
+     * and that the property values can be accessed by position.
+     */
+    public void testParameterBinders()
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "    <column name='data' type='BLOB'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database         database = parseDatabaseFromString(schema);
+        PlatformImplBase platform = new TestPlatform();
+        SqlDynaClass     clz      = database.getDynaClassFor("TestTable");
+        SqlDynaBean      bean     = (SqlDynaBean)database.createDynaBeanFor("TestTable", false);
+        StatementPlan    plan     = platform.getUpdatePlan(database, clz);
+
+        assertEquals(3, plan.getBinders().length);
+        assertEquals(TypedParameterBinder.VALUE_STRING, ((TypedParameterBinder)plan.getBinders()[0]).getValueType());
+        assertEquals(TypedParameterBinder.VALUE_BYTES, ((TypedParameterBinder)plan.getBinders()[1]).getValueType());
+        assertEquals(TypedParameterBinder.VALUE_INT, ((TypedParameterBinder)plan.getBinders()[2]).getValueType());
+        assertSame(plan.getBinders()[2], platform.getDeletePlan(database, clz).getBinders()[0]);
+
+        bean.set("name", "test");
+        assertEquals(1, clz.getSqlDynaProperties()[1].getIndex());
+        assertEquals("test", bean.get(1));
+        assertEquals("test", bean.get(clz.getSqlDynaProperties()[1]));
+        assertNull(bean.get(0));
+    }
+
+    /**
+     * Tests that platforms which override the value setters without adapting the binders
+     * still get all values, and that <code>null</code> values are set with the target
+     * JDBC type of the column.
+     */
+    @SuppressWarnings("deprecation")
+    public void testParameterBinderHooks()
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "    <column name='text' type='CLOB'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database           database = parseDatabaseFromString(schema);
+        List<DynaBean>     beans    = createBeans(database, "TestTable");
+        final List<String> events   = new ArrayList<>();
+        PlatformImplBase   platform = new TestPlatform() {
+            protected void setStatementParameterValue(PreparedStatement statement, int sqlIndex, int typeCode, Object value) throws SQLException
+            {
+                events.add("value " + typeCode + " " + value);
+                super.setStatementParameterValue(statement, sqlIndex, typeCode, value);
+            }
+        };
+
+        platform.getPlatformInfo().addNativeTypeMapping(Types.CLOB, "TEXT", Types.LONGVARCHAR);
+        assertEquals(TypedParameterBinder.VALUE_OBJECT, ((TypedParameterBinder)platform.getParameterBinder(Types.INTEGER)).getValueType());
+        assertEquals(Types.LONGVARCHAR, ((TypedParameterBinder)platform.getParameterBinder(Types.CLOB)).getTargetTypeCode());
+
+        platform.update(createRecordingConnection(events), database, beans);
+        assertEquals("[prepare " + platform.getUpdatePlan(database, database.getDynaClassFor("TestTable")).getSql() + ", " +
+                     "value 12 n0, value -1 null, value 4 0, row [n0, null, 0], execute 1]",
+                     events.toString());
+
+        // platforms that also create the binders handle the values themselves
+        platform = new TestPlatform() {
+            protected ParameterBinder createParameterBinder(int typeCode)
+            {
+                return super.createParameterBinder(typeCode);
+            }
+
+            protected void setStatementParameterValue(PreparedStatement statement, int sqlIndex, int typeCode, Object value) throws SQLException
+            {
+                fail();
+            }
+        };
+        assertEquals(TypedParameterBinder.VALUE_INT, ((TypedParameterBinder)platform.getParameterBinder(Types.INTEGER)).getValueType());
+
+        events.clear();
+        platform = new TestPlatform() {
+            protected void setObject(PreparedStatement statement, int sqlIndex, DynaBean dynaBean, SqlDynaProperty property) throws SQLException
+            {
+                events.add("object " + property.getName());
+                super.setObject(statement, sqlIndex, dynaBean, property);
+            }
+        };
+        platform.update(createRecordingConnection(events), database, beans);
+        assertEquals("[prepare " + platform.getUpdatePlan(database, database.getDynaClassFor("TestTable")).getSql() + ", " +
+                     "object name, object text, object id, row [n0, null, 0], execute 1]",
+                     events.toString());
+    }
+
+    /**
+     * Creates a connection that records the prepared statements, the parameters of the
+     * batched rows and the batch executions.
+     * 
+     * @param events Receives the recorded events
+     * @return The connection
+     */
+    private Connection createRecordingConnection(final List<String> events)
+    {
+        return createRecordingConnection(events, 1);
+    }
+
+    /**
+     * Creates a connection that records the prepared statements, the parameters of the
+     * batched rows and the batch executions, and that reports the given number of changed
+     * rows for every batched row.
+     * 
+     * @param events         Receives the recorded events
+     * @param rowsChangedPer The number of changed rows reported per batched row
+     * @return The connection
+     */
+    private Connection createRecordingConnection(final List<String> events, final int rowsChangedPer)
+    {
+        return createRecordingConnection(events, rowsChangedPer, 99, 0);
+    }
+
+    /**
+     * Creates a connection that records the prepared statements, the parameters of the
+     * batched rows and the batch executions, and whose meta data reports the given
+     * database version.
+     * 
+     * @param events         Receives the recorded events
+     * @param rowsChangedPer The number of changed rows reported per batched row
+     * @param majorVersion   The major version of the database
+     * @param minorVersion   The minor version of the database
+     * @return The connection
+     */
+    private Connection createRecordingConnection(final List<String> events, final int rowsChangedPer, final int majorVersion, final int minorVersion)
+    {
+        final DatabaseMetaData metaData = (DatabaseMetaData)Proxy.newProxyInstance(getClass().getClassLoader(),
+                                                                                   new Class[] { DatabaseMetaData.class },
+                                                                                   new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if ("getDatabaseMajorVersion".equals(method.getName()))
+                {
+                    return new Integer(majorVersion);
+                }
+                else if ("getDatabaseMinorVersion".equals(method.getName()))
+                {
+                    return new Integer(minorVersion);
+                }
+                return null;
+            }
+        });
+
+        return (Connection)Proxy.newProxyInstance(getClass().getClassLoader(),
+                                                  new Class[] { Connection.class },
+                                                  new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if ("getMetaData".equals(method.getName()))
+                {
+                    return metaData;
+                }
+                if (!"prepareStatement".equals(method.getName()))
+                {
+                    return null;
+                }
+
+                final Connection   connection = (Connection)proxy;
+                final String       sql        = (String)args[0];
+                final List<Object> params     = new ArrayList<>();
+                final int[]        rows       = new int[1];
+
+                events.add("prepare " + sql);
+                return Proxy.newProxyInstance(getClass().getClassLoader(),
+                                              new Class[] { PreparedStatement.class },
+                                              new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args)
+                    {
+                        if (method.getName().startsWith("setNull"))
+                        {
+                            params.add(null);
+                        }
+                        else if (method.getName().startsWith("set"))
+                        {
+                            params.add(args[1]);
+                        }
+                        else if ("addBatch".equals(method.getName()))
+                        {
+                            events.add("row " + params);
+                            params.clear();
+                            rows[0]++;
+                        }
+                        else if ("executeBatch".equals(method.getName()))
+                        {
+                            int[] result = new int[rows[0]];
+
+                            Arrays.fill(result, rowsChangedPer);
+                            events.add("execute " + rows[0]);
+                            rows[0] = 0;
+                            return result;
+                        }
+                        else if ("executeQuery".equals(method.getName()))
+                        {
+                            events.add("query " + params);
+                            params.clear();
+                            return createEmptyResultSet();
+                        }
+                        else if ("getConnection".equals(method.getName()))
+                        {
+                            return connection;
+                        }
+                        return null;
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Creates a result set without rows.
+     * 
+     * @return The result set
+     */
+    private ResultSet createEmptyResultSet()
+    {
+        return (ResultSet)Proxy.newProxyInstance(getClass().getClassLoader(),
+                                                 new Class[] { ResultSet.class },
+                                                 new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                return "next".equals(method.getName()) ? Boolean.FALSE : null;
+            }
+        });
+    }
+
+    /**
+     * Tests that the upsert plan writes all non-identity columns, and that there is none
+     * if the insert would use the default value of a column.
+     */
+    public void testUpsertPlan()
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15' default='none'/>\n"+
+            "    <column name='value' type='INTEGER'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database         database = parseDatabaseFromString(schema);
+        PlatformImplBase platform = new MySqlPlatform();
+        SqlDynaClass     clz      = database.getDynaClassFor("TestTable");
+        DynaBean         bean     = new SqlDynaBean(clz);
+
+        bean.set("id", new Integer(1));
+        bean.set("name", "name");
+
+        StatementPlan plan = platform.getUpsertPlan(database, clz, bean);
+
+        assertEquals(platform.getSqlBuilder().getUpsertSql(database.getTable(0), toMap("id", "name", "value"), true),
+                     plan.getSql());
+
+        bean.set("name", null);
+        assertNull(platform.getUpsertPlan(database, clz, bean));
+    }
+
+    /**
+     * Tests that storing beans keeps the order of the beans of a table even if they are
+     * stored in different ways.
+     */
+    public void testStoreKeepsOrder()
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15' default='none'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database         database = parseDatabaseFromString(schema);
+        PlatformImplBase platform = new MySqlPlatform();
+        Table            table    = database.getTable(0);
+        List<DynaBean>   beans    = new ArrayList<>();
+        List<String>     events   = new ArrayList<>();
+        Object[][]       rows     = new Object[][] {
+                                        { new Integer(1), "a" },
+                                        { null,           "b" },
+                                        { new Integer(3), null },
+                                        { new Integer(4), "d" },
+                                        { new Integer(5), "e" } };
+
+        for (int idx = 0; idx < rows.length; idx++)
+        {
+            DynaBean bean = database.createDynaBeanFor(table);
+
+            bean.set("id", rows[idx][0]);
+            bean.set("name", rows[idx][1]);
+            beans.add(bean);
+        }
+        platform.store(createRecordingConnection(events), database, beans);
+
+        String upsert   = "prepare " + platform.getSqlBuilder().getUpsertSql(table, toMap("id", "name"), true);
+        String insert   = "prepare " + platform.getSqlBuilder().getInsertSql(table, toMap("id", "name"), true);
+        String query    = "prepare " + platform.getSqlBuilder().getSelectPrimaryKeysSql(table, 1);
+        String insertId = "prepare " + platform.getSqlBuilder().getInsertSql(table, toMap("id"), true);
+
+        assertEquals("[" + upsert + ", row [1, a], execute 1, " +
+                     insert + ", row [null, b], execute 1, " +
+                     query + ", query [3], " + insertId + ", row [3], execute 1, " +
+                     upsert + ", row [4, d], row [5, e], execute 2]",
+                     events.toString());
+    }
+
+    /**
+     * Tests that upserts are only used if the database version supports them, and that
+     * the upsert batches are limited by the batch size.
+     */
+    public void testStoreViaUpsertByVersion() throws Exception
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database         database = parseDatabaseFromString(schema);
+        PlatformImplBase platform = new PostgreSqlPlatform();
+        Table            table    = database.getTable(0);
+        List<DynaBean>   beans    = createBeans(database, "TestTable", "TestTable", "TestTable");
+        List<String>     events   = new ArrayList<>();
+        String           upsert   = "prepare " + platform.getSqlBuilder().getUpsertSql(table, toMap("id", "name"), true);
+        String           query    = "prepare " + platform.getSqlBuilder().getSelectPrimaryKeysSql(table, 3);
+        String           insert   = "prepare " + platform.getSqlBuilder().getInsertSql(table, toMap("id", "name"), true);
+
+        // PostgreSQL 9.4 has no ON CONFLICT
+        platform.store(createRecordingConnection(events, 1, 9, 4), database, beans);
+        assertEquals("[" + query + ", query [0, 1, 2], " + insert + ", row [0, n0], row [1, n1], row [2, n2], execute 3]",
+                     events.toString());
+
+        events.clear();
+        platform.setBatchSize(2);
+        platform.store(createRecordingConnection(events, 1, 9, 5), database, beans);
+        assertEquals("[" + upsert + ", row [0, n0], row [1, n1], execute 2, row [2, n2], execute 1]",
+                     events.toString());
+
+        // Sql Server 2005 has no MERGE
+        platform = new MSSqlPlatform();
+        assertFalse(platform.isUpsertSupported(createRecordingConnection(events, 1, 9, 0)));
+        assertTrue(platform.isUpsertSupported(createRecordingConnection(events, 1, 10, 0)));
+    }
+
+    /**
+     * Creates beans for the given tables, where the bean for the i-th table name gets
+     * the id i and the name "n" + i.
+     * 
+     * @param database   The database model
+     * @param tableNames The table names
+     * @return The beans
+     */
+    private List<DynaBean> createBeans(Database database, String... tableNames)
+    {
+        List<DynaBean> result = new ArrayList<>();
+
+        for (int idx = 0; idx < tableNames.length; idx++)
+        {
+            DynaBean bean = database.createDynaBeanFor(tableNames[idx], false);
+
+            bean.set("id", new Integer(idx));
+            bean.set("name", "n" + idx);
+            result.add(bean);
+        }
+        return result;
+    }
+
+    /**
+     * Tests that batch updates and deletes are sent in chunks of the batch size, and that
+     * the statement of a table is prepared only once even if the tables alternate.
+     */
+    public void testBatchUpdateAndDelete()
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TableA'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "  <table name='TableB'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database         database = parseDatabaseFromString(schema);
+        PlatformImplBase platform = new TestPlatform();
+        List<DynaBean>   beans    = createBeans(database, "TableA", "TableA", "TableA", "TableB", "TableA");
+        List<String>     events   = new ArrayList<>();
+        String           updateA  = "prepare " + platform.getUpdatePlan(database, database.getDynaClassFor("TableA")).getSql();
+        String           updateB  = "prepare " + platform.getUpdatePlan(database, database.getDynaClassFor("TableB")).getSql();
+        String           deleteA  = "prepare " + platform.getDeletePlan(database, database.getDynaClassFor("TableA")).getSql();
+        String           deleteB  = "prepare " + platform.getDeletePlan(database, database.getDynaClassFor("TableB")).getSql();
+
+        assertEquals(1000, platform.getBatchSize());
+
+        platform.setBatchSize(2);
+        platform.update(createRecordingConnection(events), database, beans);
+        assertEquals("[" + updateA + ", row [n0, 0], row [n1, 1], execute 2, row [n2, 2], execute 1, " +
+                     updateB + ", row [n3, 3], execute 1, row [n4, 4], execute 1]",
+                     events.toString());
+
+        events.clear();
+        platform.delete(createRecordingConnection(events), database, beans);
+        assertEquals("[" + deleteA + ", row [0], row [1], execute 2, row [2], execute 1, " +
+                     deleteB + ", row [3], execute 1, row [4], execute 1]",
+                     events.toString());
+
+        // no limit
+        events.clear();
+        platform.setBatchSize(0);
+        platform.update(createRecordingConnection(events), database, beans);
+        assertEquals("[" + updateA + ", row [n0, 0], row [n1, 1], row [n2, 2], execute 3, " +
+                     updateB + ", row [n3, 3], execute 1, row [n4, 4], execute 1]",
+                     events.toString());
+
+        try
+        {
+            platform.setBatchSize(-1);
+            fail();
+        }
+        catch (IllegalArgumentException ex)
+        {}
+    }
+
+    /**
+     * Tests that batch updates skip the beans of tables without primary key, and warn if the
+     * database reports a different number of changed rows.
+     */
+    public void testBatchUpdateChecks()
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TableA'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "  <table name='NoPkTable'>\n"+
+            "    <column name='id' type='INTEGER'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database         database = parseDatabaseFromString(schema);
+        PlatformImplBase platform = new TestPlatform();
+        List<DynaBean>   beans    = createBeans(database, "TableA", "NoPkTable", "TableA");
+        List<String>     events   = new ArrayList<>();
+        final List<String> warnings = new ArrayList<>();
+        Logger           logger   = Logger.getLogger(TestPlatform.class);
+        Appender         appender = new AppenderSkeleton() {
+            protected void append(LoggingEvent event)
+            {
+                if (event.getLevel() == Level.WARN)
+                {
+                    warnings.add(event.getRenderedMessage());
+                }
+            }
+
+            public boolean requiresLayout()
+            {
+                return false;
+            }
+
+            public void close()
+            {}
+        };
+        String updateA = "prepare " + platform.getUpdatePlan(database, database.getDynaClassFor("TableA")).getSql();
+
+        logger.addAppender(appender);
+        try
+        {
+            platform.update(createRecordingConnection(events, 0), database, beans);
+        }
+        finally
+        {
+            logger.removeAppender(appender);
+        }
+        assertEquals("[" + updateA + ", row [n0, 0], execute 1, row [n2, 2], execute 1]",
+                     events.toString());
+        assertEquals(3, warnings.size());
+        assertEquals("Attempted the batch update of 1 rows in table TableA but changed 0 rows",
+                     warnings.get(0));
+        assertTrue(warnings.get(1).startsWith("Cannot update instances of type"));
+        assertEquals("Attempted the batch update of 1 rows in table TableA but changed 0 rows",
+                     warnings.get(2));
+    }
+
+    /**
+     * Tests that the insert batch keeps track of the pending rows and the flush statistics,
+     * and only holds on to the beans if it needs them when flushing.
+     */
+    public void testInsertBatchStatistics()
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TableA'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database       database = parseDatabaseFromString(schema);
+        SqlDynaClass   clz      = database.getDynaClassFor("TableA");
+        List<DynaBean> beans    = createBeans(database, "TableA", "TableA", "TableA");
+        InsertBatch    batch    = new InsertBatch(clz, null, null, new Column[0], false, 1);
+
+        batch.rowAdded(beans.get(0), 10);
+        batch.rowAdded(beans.get(1), 20);
+        assertEquals(2, batch.getPendingRows());
+        assertEquals(30, batch.getPendingBytes());
+        assertTrue(batch.getPendingBeans().isEmpty());
+
+        batch.flushed();
+        batch.rowAdded(beans.get(2), 5);
+        batch.flushed();
+        assertEquals(0, batch.getPendingRows());
+        assertEquals(0, batch.getPendingBytes());
+        assertEquals(3, batch.getFlushedRows());
+        assertEquals(35, batch.getFlushedBytes());
+        assertEquals(2, batch.getFlushCount());
+        assertEquals(2, batch.getMaxFlushedRows());
+
+        batch = new InsertBatch(clz, null, null, new Column[0], false, 2);
+        batch.rowAdded(beans.get(0), 10);
+        batch.rowAdded(beans.get(1), 10);
+        assertEquals(beans.subList(0, 2), batch.getPendingBeans());
+        batch.flushed();
+        assertTrue(batch.getPendingBeans().isEmpty());
+    }
+
+    /**
+     * Tests that batch inserts are flushed when the batch reaches the batch size or the
+     * batch byte size.
+     */
+    public void testInsertFlushLimits()
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TableA'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database         database = parseDatabaseFromString(schema);
+        PlatformImplBase platform = new TestPlatform();
+        List<DynaBean>   beans    = createBeans(database, "TableA", "TableA", "TableA", "TableA", "TableA");
+        List<String>     events   = new ArrayList<>();
+        String           insertA  = "prepare " + platform.getInsertPlan(database, database.getDynaClassFor("TableA"), beans.get(0)).getSql();
+
+        platform.setBatchSize(2);
+        platform.insert(createRecordingConnection(events), database, beans);
+        assertEquals("[" + insertA + ", row [0, n0], row [1, n1], execute 2, row [2, n2], row [3, n3], execute 2, " +
+                     "row [4, n4], execute 1]",
+                     events.toString());
+
+        // every row is estimated with 8 bytes for the id and 4 bytes for the name
+        events.clear();
+        platform.setBatchSize(0);
+        platform.setBatchByteSize(30);
+        platform.insert(createRecordingConnection(events), database, beans);
+        assertEquals("[" + insertA + ", row [0, n0], row [1, n1], row [2, n2], execute 3, " +
+                     "row [3, n3], row [4, n4], execute 2]",
+                     events.toString());
+
+        try
+        {
+            platform.setBatchByteSize(-1);
+            fail();
+        }
+        catch (IllegalArgumentException ex)
+        {}
+    }
+
+    /**
+     * Tests that the insert statements of tables are reused when the tables alternate, and
+     * that pending rows of referenced tables are flushed right before the rows that reference
+     * them, so that interleaved rows of both tables are still sent in full batches.
+     */
+    public void testInsertAlternatingTables()
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TableA'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "  <table name='TableB'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "  <table name='TableC'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "    <foreign-key foreignTable='TableA'>\n"+
+            "      <reference local='id' foreign='id'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database         database = parseDatabaseFromString(schema);
+        PlatformImplBase platform = new TestPlatform();
+        List<String>     events   = new ArrayList<>();
+        List<DynaBean>   beans    = createBeans(database, "TableA", "TableB", "TableA", "TableB");
+        String           insertA  = "prepare " + platform.getInsertPlan(database, database.getDynaClassFor("TableA"), beans.get(0)).getSql();
+        String           insertB  = "prepare " + platform.getInsertPlan(database, database.getDynaClassFor("TableB"), beans.get(1)).getSql();
+
+        platform.insert(createRecordingConnection(events), database, beans);
+        assertEquals("[" + insertA + ", row [0, n0], " + insertB + ", row [1, n1], row [2, n2], row [3, n3], " +
+                     "execute 2, execute 2]",
+                     events.toString());
+
+        beans = createBeans(database, "TableA", "TableC", "TableA", "TableB", "TableC");
+
+        String insertC = "prepare " + platform.getInsertPlan(database, database.getDynaClassFor("TableC"), beans.get(1)).getSql();
+
+        // the rows of TableA are sent before the rows of TableC
+        events.clear();
+        platform.insert(createRecordingConnection(events), database, beans);
+        assertEquals("[" + insertA + ", row [0, n0], " + insertC + ", row [1, n1], row [2, n2], " +
+                     insertB + ", row [3, n3], row [4, n4], execute 2, execute 2, execute 1]",
+                     events.toString());
+
+        beans = createBeans(database, "TableC", "TableA", "TableC", "TableA", "TableC", "TableA", "TableC");
+
+        // when TableC reaches the batch size, the pending rows of TableA go first
+        events.clear();
+        platform.setBatchSize(3);
+        platform.insert(createRecordingConnection(events), database, beans);
+        assertEquals("[" + insertC + ", row [0, n0], " + insertA + ", row [1, n1], row [2, n2], row [3, n3], " +
+                     "row [4, n4], execute 2, execute 3, row [5, n5], row [6, n6], execute 1, execute 1]",
+                     events.toString());
+    }
+
+    /**
+     * Tests that flushing the batches of tables with circular foreign keys terminates.
+     */
+    public void testInsertCircularTables()
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TableA'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "    <foreign-key foreignTable='TableB'>\n"+
+            "      <reference local='id' foreign='id'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "  <table name='TableB'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "    <foreign-key foreignTable='TableA'>\n"+
+            "      <reference local='id' foreign='id'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database         database = parseDatabaseFromString(schema);
+        PlatformImplBase platform = new TestPlatform();
+        List<String>     events   = new ArrayList<>();
+        List<DynaBean>   beans    = createBeans(database, "TableA", "TableB", "TableA", "TableB");
+        String           insertA  = "prepare " + platform.getInsertPlan(database, database.getDynaClassFor("TableA"), beans.get(0)).getSql();
+        String           insertB  = "prepare " + platform.getInsertPlan(database, database.getDynaClassFor("TableB"), beans.get(1)).getSql();
+
+        platform.insert(createRecordingConnection(events), database, beans);
+        assertEquals("[" + insertA + ", row [0, n0], " + insertB + ", row [1, n1], row [2, n2], row [3, n3], " +
+                     "execute 2, execute 2]",
+                     events.toString());
+    }
+
+    /**
+     * Tests that Sql Server only uses multi-row inserts from version 2008 on, and that the
+     * statements stay below its parameter limit.
+     */
+    public void testMultiRowInsertOnSqlServer()
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TableA'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "    <column name='value' type='INTEGER'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database         database = parseDatabaseFromString(schema);
+        PlatformImplBase platform = new MSSqlPlatform();
+        List<DynaBean>   beans    = createBeans(database, "TableA", "TableA");
+        List<String>     events   = new ArrayList<>();
+        String           insertA  = "prepare " + platform.getInsertPlan(database, database.getDynaClassFor("TableA"), beans.get(0)).getSql();
+
+        // 3 * 700 = 2100 parameters would be rejected
+        assertEquals(699, platform.getMaxRowsPerMultiRowInsert(3));
+
+        platform.insert(createRecordingConnection(events, 1, 9, 0), database, beans, true);
+        assertEquals("[" + insertA + ", row [0, n0, null], row [1, n1, null], execute 2]",
+                     events.toString());
+
+        events.clear();
+        platform.insert(createRecordingConnection(events, 2, 10, 0), database, beans, true);
+        assertFalse(events.contains(insertA));
+        // the statement is prepared for the maximum number of rows
+        assertEquals(699, events.get(0).split("\\(\\?, \\?, \\?\\)", -1).length - 1);
+        assertTrue(events.contains("row [0, n0, null, 1, n1, null]"));
+    }
+
+    /**
+     * Tests that batch inserts of row batches only write the auto-increment columns of the
+     * rows that have a value for them when identity override is on, and keep the row order.
+     */
+    public void testRowBatchInsertWithIdentityOverride()
+    {
+        final String schema =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='id' autoIncrement='true' type='INTEGER' primaryKey='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database         database = parseDatabaseFromString(schema);
+        PlatformImplBase platform = new TestPlatform();
+        Table            table    = database.getTable(0);
+        RowBatch         batch    = new RowBatch(table, 4);
+        String[]         names    = new String[] { "a", "b", "c", "d" };
+        List<String>     events   = new ArrayList<>();
+
+        for (int idx = 0; idx < names.length; idx++)
+        {
+            int rowIdx = batch.addRow();
+
+            if (idx == 2)
+            {
+                batch.setInt(rowIdx, 0, 5);
+            }
+            batch.setValue(rowIdx, 1, names[idx]);
+        }
+
+        String withoutId = "prepare " + platform.getSqlBuilder().getInsertSql(table, toMap("name"), true);
+        String withId    = "prepare " + platform.getSqlBuilder().getInsertSql(table, toMap("id", "name"), true);
+
+        platform.setIdentityOverrideOn(true);
+        platform.insert(createRecordingConnection(events), table, batch);
+        assertEquals("[" + withoutId + ", row [a], row [b], execute 2, " +
+                     withId + ", row [5, c], execute 1, row [d], execute 1]",
+                     events.toString());
+
+        events.clear();
+        platform.setIdentityOverrideOn(false);
+        platform.insert(createRecordingConnection(events), table, batch);
+        assertEquals("[" + withoutId + ", row [a], row [b], row [c], row [d], execute 4]",
+                     events.toString());
+    }
+
+    /**
+     * Creates a map whose keys are the given names, with <code>null</code> values.
+     * 
+     * @param names The names
+     * @return The map
+     */
+    private Map<String, Object> toMap(String... names)
+    {
+        Map<String, Object> result = new HashMap<>();
+
+        for (int idx = 0; idx < names.length; idx++)
+        {
+            result.put(names[idx], null);
+        }
+        return result;
+    }
 }
@@ -26,6 +26,13 @@ import org.zl.ddlutils.TestBase;
 import org.zl.ddlutils.io.DatabaseIO;
 import org.zl.ddlutils.model.Database;
 import org.zl.ddlutils.model.Table;
+import org.zl.ddlutils.platform.db2.Db2Platform;
+import org.zl.ddlutils.platform.h2.H2Platform;
+import org.zl.ddlutils.platform.mssql.MSSqlPlatform;
+import org.zl.ddlutils.platform.mysql.MySqlPlatform;
+import org.zl.ddlutils.platform.oracle.Oracle8Platform;
+import org.zl.ddlutils.platform.oracle.Oracle9Platform;
+import org.zl.ddlutils.platform.postgresql.PostgreSqlPlatform;
 import org.zl.ddlutils.platform.SqlBuilder;
 
 /**
@@ -97,4 +104,197 @@ public class TestSqlBuilder extends TestBase
         assertEquals("UPDATE \"TestTable\" SET \"id\" = '1', \"name\" = 'ddlutils' WHERE \"id\" = '0'",
                      sql);
     }
+
+    /**
+     * Tests the {@link SqlBuilder#getSelectPrimaryKeysSql(Table, int)} method.
+     */
+    public void testSelectPrimaryKeysSql()
+    {
+        final String modelXml =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable1'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "  <table name='TestTable2'>\n"+
+            "    <column name='id1' type='INTEGER' primaryKey='true'/>\n"+
+            "    <column name='id2' type='VARCHAR' size='15' primaryKey='true'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        TestPlatform platform   = new TestPlatform();
+        SqlBuilder   sqlBuilder = platform.getSqlBuilder();
+        Database     database   = parseDatabaseFromString(modelXml);
+
+        platform.setDelimitedIdentifierModeOn(true);
+
+        assertEquals("SELECT \"id\" FROM \"TestTable1\" WHERE \"id\" IN (?, ?, ?)",
+                     sqlBuilder.getSelectPrimaryKeysSql(database.getTable(0), 3));
+        assertEquals("SELECT \"id1\", \"id2\" FROM \"TestTable2\" WHERE (\"id1\" = ? AND \"id2\" = ?) OR (\"id1\" = ? AND \"id2\" = ?)",
+                     sqlBuilder.getSelectPrimaryKeysSql(database.getTable(1), 2));
+    }
+
+    /**
+     * Tests the {@link SqlBuilder#getMergeSql(Table, Map, boolean)} method.
+     */
+    public void testMergeSql()
+    {
+        final String modelXml =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        TestPlatform platform   = new TestPlatform();
+        SqlBuilder   sqlBuilder = platform.getSqlBuilder();
+        Database     database   = parseDatabaseFromString(modelXml);
+        Map          map        = new HashMap();
+
+        map.put("id", null);
+        map.put("name", null);
+
+        platform.setDelimitedIdentifierModeOn(true);
+
+        assertNull(sqlBuilder.getUpsertSql(database.getTable(0), map, true));
+        assertEquals("MERGE INTO \"TestTable\" t USING (VALUES (?, ?)) AS s (\"id\", \"name\") ON (t.\"id\" = s.\"id\")" +
+                     " WHEN MATCHED THEN UPDATE SET \"name\" = s.\"name\"" +
+                     " WHEN NOT MATCHED THEN INSERT (\"id\", \"name\") VALUES (s.\"id\", s.\"name\")",
+                     sqlBuilder.getMergeSql(database.getTable(0), map, true));
+    }
+
+    /**
+     * Tests the {@link SqlBuilder#getUpsertSql(Table, Map, boolean)} method of the platforms
+     * that support it.
+     */
+    public void testPlatformUpsertSql()
+    {
+        final String modelXml =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database database = parseDatabaseFromString(modelXml);
+        Table    table    = database.getTable(0);
+        Map      map      = new HashMap();
+        Map      pkMap    = new HashMap();
+
+        map.put("id", null);
+        map.put("name", null);
+        pkMap.put("id", null);
+
+        assertEquals("INSERT INTO TestTable (id, name) VALUES (?, ?) ON DUPLICATE KEY UPDATE name = VALUES(name)",
+                     new MySqlPlatform().getSqlBuilder().getUpsertSql(table, map, true));
+        assertEquals("INSERT INTO TestTable (id) VALUES (?) ON DUPLICATE KEY UPDATE id = id",
+                     new MySqlPlatform().getSqlBuilder().getUpsertSql(table, pkMap, true));
+        assertEquals("INSERT INTO TestTable (id, name) VALUES (?, ?) ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name",
+                     new PostgreSqlPlatform().getSqlBuilder().getUpsertSql(table, map, true));
+        assertEquals("INSERT INTO TestTable (id) VALUES (?) ON CONFLICT (id) DO NOTHING",
+                     new PostgreSqlPlatform().getSqlBuilder().getUpsertSql(table, pkMap, true));
+        assertEquals("MERGE INTO TestTable (id, name) KEY (id) VALUES (?, ?)",
+                     new H2Platform().getSqlBuilder().getUpsertSql(table, map, true));
+        assertEquals("MERGE INTO TestTable t USING (SELECT ? AS id, ? AS name FROM DUAL) s ON (t.id = s.id)" +
+                     " WHEN MATCHED THEN UPDATE SET name = s.name" +
+                     " WHEN NOT MATCHED THEN INSERT (id, name) VALUES (s.id, s.name)",
+                     new Oracle9Platform().getSqlBuilder().getUpsertSql(table, map, true));
+        assertEquals("MERGE INTO TestTable t USING (VALUES (?, ?)) AS s (id, name) ON (t.id = s.id)" +
+                     " WHEN MATCHED THEN UPDATE SET name = s.name" +
+                     " WHEN NOT MATCHED THEN INSERT (id, name) VALUES (s.id, s.name);",
+                     new MSSqlPlatform().getSqlBuilder().getUpsertSql(table, map, true));
+        assertEquals("MERGE INTO TestTable t USING (VALUES (CAST(? AS INTEGER), CAST(? AS VARCHAR(15)))) AS s (id, name) ON (t.id = s.id)" +
+                     " WHEN MATCHED THEN UPDATE SET name = s.name" +
+                     " WHEN NOT MATCHED THEN INSERT (id, name) VALUES (s.id, s.name)",
+                     new Db2Platform().getSqlBuilder().getUpsertSql(table, map, true));
+        assertEquals("MERGE INTO TestTable t USING (VALUES (CAST(? AS INTEGER))) AS s (id) ON (t.id = s.id)" +
+                     " WHEN NOT MATCHED THEN INSERT (id) VALUES (s.id)",
+                     new Db2Platform().getSqlBuilder().getUpsertSql(table, pkMap, true));
+    }
+
+    /**
+     * Tests the {@link SqlBuilder#getMultiRowInsertSql(Table, Map, int)} method.
+     */
+    public void testMultiRowInsertSql()
+    {
+        final String modelXml =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        TestPlatform platform   = new TestPlatform();
+        SqlBuilder   sqlBuilder = platform.getSqlBuilder();
+        Database     database   = parseDatabaseFromString(modelXml);
+        Map          map        = new HashMap();
+
+        map.put("id", null);
+        map.put("name", null);
+
+        platform.setDelimitedIdentifierModeOn(true);
+
+        assertEquals("INSERT INTO \"TestTable\" (\"id\", \"name\") VALUES (?, ?), (?, ?), (?, ?)",
+                     sqlBuilder.getMultiRowInsertSql(database.getTable(0), map, 3));
+        assertEquals(sqlBuilder.getInsertSql(database.getTable(0), map, true),
+                     sqlBuilder.getMultiRowInsertSql(database.getTable(0), map, 1));
+    }
+
+    /**
+     * Tests the {@link SqlBuilder#getPaginatedSql(String, int, int)} method.
+     */
+    public void testPaginatedSql()
+    {
+        SqlBuilder mySqlBuilder  = new MySqlPlatform().getSqlBuilder();
+        SqlBuilder msSqlBuilder  = new MSSqlPlatform().getSqlBuilder();
+        SqlBuilder oracleBuilder = new Oracle8Platform().getSqlBuilder();
+
+        assertNull(new TestPlatform().getSqlBuilder().getPaginatedSql("SELECT * FROM T", 10, 19));
+
+        assertEquals("SELECT * FROM T LIMIT 10 OFFSET 10",
+                     mySqlBuilder.getPaginatedSql("SELECT * FROM T ", 10, 19));
+        assertEquals("SELECT * FROM T LIMIT 5",
+                     mySqlBuilder.getPaginatedSql("SELECT * FROM T", 0, 4));
+        assertNull(mySqlBuilder.getPaginatedSql("SELECT * FROM T", 10, -1));
+        assertNull(mySqlBuilder.getPaginatedSql("SELECT * FROM T limit 3", 0, 4));
+
+        assertEquals("SELECT * FROM T ORDER BY (SELECT NULL) OFFSET 10 ROWS FETCH NEXT 10 ROWS ONLY",
+                     msSqlBuilder.getPaginatedSql("SELECT * FROM T", 10, 19));
+        assertEquals("SELECT * FROM T ORDER BY ID OFFSET 10 ROWS",
+                     msSqlBuilder.getPaginatedSql("SELECT * FROM T ORDER BY ID", 10, -1));
+        assertNull(msSqlBuilder.getPaginatedSql("SELECT TOP 3 * FROM T", 0, 4));
+        assertEquals("SELECT ID, (SELECT NAME FROM U WHERE U.ID = T.ID ORDER BY NAME FOR XML PATH('')) N FROM T ORDER BY (SELECT NULL) OFFSET 0 ROWS FETCH NEXT 5 ROWS ONLY",
+                     msSqlBuilder.getPaginatedSql("SELECT ID, (SELECT NAME FROM U WHERE U.ID = T.ID ORDER BY NAME FOR XML PATH('')) N FROM T", 0, 4));
+        assertEquals("SELECT ID, ROW_NUMBER() OVER (ORDER BY ID) N FROM T ORDER BY (SELECT NULL) OFFSET 0 ROWS FETCH NEXT 5 ROWS ONLY",
+                     msSqlBuilder.getPaginatedSql("SELECT ID, ROW_NUMBER() OVER (ORDER BY ID) N FROM T", 0, 4));
+        assertEquals("SELECT * FROM T WHERE NAME <> 'order by' ORDER BY (SELECT NULL) OFFSET 0 ROWS FETCH NEXT 5 ROWS ONLY",
+                     msSqlBuilder.getPaginatedSql("SELECT * FROM T WHERE NAME <> 'order by'", 0, 4));
+        assertEquals("SELECT * FROM T WHERE ID IN (SELECT ID FROM U) ORDER BY [NAME] OFFSET 0 ROWS FETCH NEXT 5 ROWS ONLY",
+                     msSqlBuilder.getPaginatedSql("SELECT * FROM T WHERE ID IN (SELECT ID FROM U) ORDER BY [NAME]", 0, 4));
+        assertNull(msSqlBuilder.getPaginatedSql("SELECT * FROM T -- ORDER BY ID", 0, 4));
+        assertNull(msSqlBuilder.getPaginatedSql("SELECT * FROM T WHERE (ID > 3", 0, 4));
+
+        assertEquals("SELECT * FROM (SELECT * FROM T) WHERE ROWNUM <= 5",
+                     oracleBuilder.getPaginatedSql("SELECT * FROM T", 0, 4));
+        assertEquals("SELECT * FROM (SELECT ddlutils_page.*, ROWNUM DDLUTILS_ROW_NUM FROM (SELECT * FROM T) ddlutils_page WHERE ROWNUM <= 20) WHERE DDLUTILS_ROW_NUM > 10",
+                     oracleBuilder.getPaginatedSql("SELECT * FROM T", 10, 19));
+        assertEquals("DDLUTILS_ROW_NUM", oracleBuilder.getPaginationColumnName());
+        assertEquals("SELECT * FROM (SELECT a.ID, b.ID AS B_ID, COUNT(*) FROM A a JOIN B b ON a.ID = b.A_ID GROUP BY a.ID, b.ID) WHERE ROWNUM <= 5",
+                     oracleBuilder.getPaginatedSql("SELECT a.ID, b.ID AS B_ID, COUNT(*) FROM A a JOIN B b ON a.ID = b.A_ID GROUP BY a.ID, b.ID", 0, 4));
+        assertEquals("SELECT * FROM (SELECT ID, (SELECT MAX(ID) FROM B) MAX_ID FROM A) WHERE ROWNUM <= 5",
+                     oracleBuilder.getPaginatedSql("SELECT ID, (SELECT MAX(ID) FROM B) MAX_ID FROM A", 0, 4));
+        assertNull(oracleBuilder.getPaginatedSql("SELECT * FROM T FOR UPDATE", 0, 4));
+        assertNull(oracleBuilder.getPaginatedSql("SELECT * FROM T WHERE ROWNUM < 3", 10, 19));
+        assertNull(oracleBuilder.getPaginatedSql("SELECT a.ID, b.id FROM A a, B b WHERE a.ID = b.A_ID", 10, 19));
+        assertNull(oracleBuilder.getPaginatedSql("SELECT ID, NAME \"ID\" FROM A", 0, 4));
+        assertNull(oracleBuilder.getPaginatedSql("SELECT * FROM A a JOIN B b ON a.ID = b.A_ID", 0, 4));
+        assertNull(oracleBuilder.getPaginatedSql("SELECT a.*, b.NAME FROM A a, B b", 0, 4));
+    }
 }
@@ -0,0 +1,155 @@
+package org.zl.ddlutils.platform;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Iterator;
+
+import junit.framework.Test;
+
+import org.zl.ddlutils.TestAgainstLiveDatabaseBase;
+import org.zl.ddlutils.io.DatabaseIO;
+import org.zl.ddlutils.model.Table;
+import org.zl.ddlutils.platform.mysql.MySql50Platform;
+import org.zl.ddlutils.platform.mysql.MySqlPlatform;
+import org.zl.ddlutils.platform.postgresql.PostgreSqlPlatform;
+
+/**
+ * Tests the streaming queries against the database.
+ * 
+ * @version $Revision: $
+ */
+public class TestStreamingQueries extends TestAgainstLiveDatabaseBase
+{
+    /** The test model. */
+    private static final String MODEL =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+        "  <table name='TestTable'>\n"+
+        "    <column name='TheId' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='TheText' type='VARCHAR' size='15'/>\n"+
+        "  </table>\n"+
+        "</database>";
+    /** The test data. */
+    private static final String DATA =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<data>\n"+
+        "  <TestTable TheId='1' TheText='Text 1'/>\n"+
+        "  <TestTable TheId='2' TheText='Text 2'/>\n"+
+        "  <TestTable TheId='3' TheText='Text 3'/>"+
+        "</data>";
+
+    /**
+     * Parameterized test case pattern.
+     * 
+     * @return The tests
+     */
+    public static Test suite() throws Exception
+    {
+        return getTests(TestStreamingQueries.class);
+    }
+
+    /**
+     * Returns the select statement for all rows of the test table.
+     * 
+     * @return The query
+     */
+    private String getSelectQuery()
+    {
+        return getSelectQueryForAllString(getModel().getTable(0), "TheId");
+    }
+
+    /**
+     * Tests that streaming statements use the fetch size that the JDBC driver requires,
+     * and that the connection is prepared accordingly.
+     */
+    public void testStreamingStatement() throws Exception
+    {
+        createDatabase(MODEL);
+        insertData(DATA);
+
+        PlatformImplBase platform          = (PlatformImplBase)getPlatform();
+        Connection       connection        = platform.borrowConnection();
+        Statement        statement         = null;
+        boolean          autoCommitChanged = false;
+
+        try
+        {
+            connection.setAutoCommit(true);
+            autoCommitChanged = platform.prepareConnectionForStreaming(connection);
+            statement         = platform.createQueryStatement(connection, true);
+
+            if (MySqlPlatform.DATABASENAME.equals(platform.getName()) ||
+                MySql50Platform.DATABASENAME.equals(platform.getName()))
+            {
+                // Connector/J only streams with this fetch size
+                assertEquals(Integer.MIN_VALUE, statement.getFetchSize());
+                assertFalse(autoCommitChanged);
+            }
+            else if (PostgreSqlPlatform.DATABASENAME.equals(platform.getName()))
+            {
+                // the PostgreSQL driver only uses the fetch size within a transaction
+                assertEquals(platform.getQueryFetchSize(), statement.getFetchSize());
+                assertTrue(autoCommitChanged);
+                assertFalse(connection.getAutoCommit());
+            }
+            assertEquals(ResultSet.TYPE_FORWARD_ONLY, statement.getResultSetType());
+
+            ResultSet resultSet = statement.executeQuery(getSelectQuery());
+            int       rowCount  = 0;
+
+            while (resultSet.next())
+            {
+                rowCount++;
+            }
+            resultSet.close();
+            assertEquals(3, rowCount);
+        }
+        finally
+        {
+            platform.closeStatement(statement);
+            platform.restoreAutoCommit(connection, autoCommitChanged);
+            platform.returnConnection(connection);
+        }
+    }
+
+    /**
+     * Tests a streaming query that is requested per call.
+     */
+    public void testStreamingQuery() throws Exception
+    {
+        createDatabase(MODEL);
+        insertData(DATA);
+
+        getPlatform().setStreamingQueryModeOn(false);
+
+        Iterator it = getPlatform().query(getModel(), getSelectQuery(), new Table[] { getModel().getTable(0) }, true);
+
+        for (int idx = 1; idx <= 3; idx++)
+        {
+            assertTrue(it.hasNext());
+            assertEquals(new Integer(idx), it.next(), "TheId");
+        }
+        assertFalse(it.hasNext());
+        assertFalse(getPlatform().isStreamingQueryModeOn());
+    }
+}